@@ -12,12 +12,15 @@ import java.nio.file.Paths;
 import java.util.Objects;
 import java.util.logging.Logger;
 
+import net.milkbowl.vault.economy.Economy;
 import net.milkbowl.vault.permission.Permission;
 
 import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 
 /**
@@ -40,61 +43,123 @@ import org.bukkit.plugin.java.JavaPlugin;
  *   - Kits
  *   - Mob Spawning
  *   - Mail
- *   - Configuration file
  *
  * Bugs to fix:
  *   - Trying to add repair cost to the enchantment extraction is buggy
  *
  *
  * @author Anthony Farina
- * @version 2020.09.26
+ * @version 2026.10.17
  */
 public final class EverythingPlugin extends JavaPlugin {
 
     /**
-     * Declare plugin's logger, description file "plugin.yml", and folder path.
+     * Declare the plugin instance, plugin's logger, description file "plugin.yml", and folder path.
      */
+    private static EverythingPlugin plugin = null;
     private static Logger logger = null;
     private PluginDescriptionFile pdFile = null;
     private static final String pluginFolderPath = "./plugins/EverythingPlugin";
 
+    /**
+     * Declare the storage executor that owns the connection to the plugin's SQLite database.
+     */
+    private static StorageExecutor storageExecutor = null;
+
     /**
      * Declare xp bank database fields.
      */
     private static XpBankDatabase xpBankDB = null;
     private static final String xpBankDBName = "XPBankDatabase.db";
+    private BukkitTask xpBankFlushTask = null;
+
+    /**
+     * Declare the mailbox that holds gifts until their receivers can take them.
+     */
+    private static GiftMailbox giftMailbox = null;
+
+    /**
+     * Declare the Vault economy backed by the xp bank.
+     */
+    private static XpBankEconomy xpBankEconomy = null;
 
     /**
      * Declare warp database fields.
      */
     private static WarpDatabase warpDB = null;
     private static final String warpDBName = "warps.yml";
+    private static final String warpUsageName = "warp-usage.yml";
 
     /**
      * Declare multihome database fields.
      */
     private static MultihomeDatabase multihomeDB = null;
     private static final String multihomeDBName = "multihomes.yml";
+    private static final String multihomeDirName = "multihomes";
+    private static final String multihomeUsageName = "multihome-usage.yml";
+
+    /**
+     * Declare the scheduler that spreads bulk main thread work over several ticks.
+     */
+    private static TickScheduler tickScheduler = null;
+
+    /**
+     * Declare the watcher that applies edits made to the warp and multihome databases while the
+     * server is running.
+     */
+    private DatabaseWatcher databaseWatcher = null;
+
+    /**
+     * Declare the pipeline that loads teleport destinations before teleporting players.
+     */
+    private static TeleportPipeline teleportPipeline = null;
+
+    /**
+     * Declare the policy that keeps the chunks of the most used warps loaded.
+     */
+    private static WarpChunkPinner warpChunkPinner = null;
+
+    /**
+     * Declare the cooldowns and rate limits of the plugin's commands.
+     */
+    private static RateLimiter rateLimiter = null;
+
+    /**
+     * Declare the index of online players used to find players by name.
+     */
+    private static OnlinePlayerIndex onlinePlayerIndex = null;
 
     /**
      * Declare event listeners.
      */
+    private AsyncPlayerPreLoginListener asyncPlayerPreLoginListener = null;
+    private PlayerLoginListener playerLoginListener = null;
     private PlayerJoinListener playerJoinListener = null;
+    private PlayerQuitListener playerQuitListener = null;
+    private PlayerChangedWorldListener playerChangedWorldListener = null;
     private PrepareAnvilListener prepareAnvilListener = null;
     private InventoryClickListener inventoryClickListener = null;
+    private WorldLoadListener worldLoadListener = null;
+    private WorldUnloadListener worldUnloadListener = null;
 
     /**
      * Declare a reference to the permissions manager for the plugin.
      */
     private static Permission perms = null;
 
+    /**
+     * Declare the cache of permission results in front of the permissions manager.
+     */
+    private static PermissionCache permissionCache = null;
+
 
     /**
      * Properly enable the plugin.
      */
     @Override
     public void onEnable() {
-        // Get the plugin's description file (plugin.yml) and logger.
+        // Get the plugin instance, the plugin's description file (plugin.yml), and logger.
+        plugin = this;
         pdFile = this.getDescription();
         logger = this.getLogger();
 
@@ -106,11 +171,37 @@ public final class EverythingPlugin extends JavaPlugin {
             return;
         }
 
+        // Save the default configuration file if there isn't one yet.
+        this.saveDefaultConfig();
+
         // Load the plugin's commands.
         this.loadCommands();
 
+        // Start the storage executor for the plugin's SQLite database.
+        storageExecutor = new StorageExecutor("jdbc:sqlite:" + pluginFolderPath + "/" +
+                xpBankDBName);
+
         // Connect to or create a new XP bank database.
-        xpBankDB = new XpBankDatabase();
+        xpBankDB = new XpBankDatabase(storageExecutor);
+
+        // Periodically write changed xp bank balances to the xp bank database.
+        long xpBankFlushInterval = this.getConfig().getLong("storage.xpbank-flush-interval", 100L);
+        xpBankFlushTask = this.getServer().getScheduler().runTaskTimer(this,
+                xpBankDB::flushXPBankBalances, xpBankFlushInterval, xpBankFlushInterval);
+
+        // Open the gift mailbox, which is stored next to the xp bank.
+        giftMailbox = new GiftMailbox(storageExecutor);
+
+        // Offer the xp bank to other plugins as a Vault economy.
+        if (this.getConfig().getBoolean("economy.enabled", true)) {
+            xpBankEconomy = new XpBankEconomy(xpBankDB);
+            this.getServer().getServicesManager().register(Economy.class, xpBankEconomy, this,
+                    ServicePriority.Normal);
+            logger.info("Registered the xp bank as a Vault economy.");
+        }
+
+        // Set up the scheduler that spreads bulk main thread work over several ticks.
+        tickScheduler = new TickScheduler();
 
         // Connect to or create a new warp database.
         warpDB = new WarpDatabase();
@@ -118,13 +209,49 @@ public final class EverythingPlugin extends JavaPlugin {
         // Connect to or create a new multihome database.
         multihomeDB = new MultihomeDatabase();
 
+        // Watch the warp and multihome databases for edits made while the server is running.
+        if (this.getConfig().getBoolean("storage.watch-files", true)) {
+            try {
+                databaseWatcher = new DatabaseWatcher();
+            }
+            // An error occurred watching the database files. They can still be reloaded by hand.
+            catch (IOException e) {
+                logger.warning("An error occurred watching the database files! Edits to them " +
+                        "won't be picked up until the plugin is reloaded.");
+            }
+        }
+
+        // Set up the pipeline that loads teleport destinations before teleporting players.
+        teleportPipeline = new TeleportPipeline();
+
+        // Keep the chunks of the most used warps loaded.
+        warpChunkPinner = new WarpChunkPinner();
+
+        // Read the cooldowns and rate limits of the plugin's commands.
+        rateLimiter = new RateLimiter();
+
+        // Index the players who are already online.
+        onlinePlayerIndex = new OnlinePlayerIndex();
+
         // Register the event listeners.
+        asyncPlayerPreLoginListener = new AsyncPlayerPreLoginListener();
+        this.getServer().getPluginManager().registerEvents(asyncPlayerPreLoginListener, this);
+        playerLoginListener = new PlayerLoginListener();
+        this.getServer().getPluginManager().registerEvents(playerLoginListener, this);
         playerJoinListener = new PlayerJoinListener();
         this.getServer().getPluginManager().registerEvents(playerJoinListener, this);
+        playerQuitListener = new PlayerQuitListener();
+        this.getServer().getPluginManager().registerEvents(playerQuitListener, this);
+        playerChangedWorldListener = new PlayerChangedWorldListener();
+        this.getServer().getPluginManager().registerEvents(playerChangedWorldListener, this);
         prepareAnvilListener = new PrepareAnvilListener();
         this.getServer().getPluginManager().registerEvents(prepareAnvilListener, this);
         inventoryClickListener = new InventoryClickListener();
         this.getServer().getPluginManager().registerEvents(inventoryClickListener, this);
+        worldLoadListener = new WorldLoadListener();
+        this.getServer().getPluginManager().registerEvents(worldLoadListener, this);
+        worldUnloadListener = new WorldUnloadListener();
+        this.getServer().getPluginManager().registerEvents(worldUnloadListener, this);
 
 
         // Check if an error occurred setting up the plugin's permission system.
@@ -135,6 +262,9 @@ public final class EverythingPlugin extends JavaPlugin {
             return;
         }
 
+        // Cache permission results in front of the permission system.
+        permissionCache = new PermissionCache(perms);
+
         // We enabled the plugin successfully.
         logger.info(pdFile.getName() + " v" + pdFile.getVersion() + " has been successfully " +
                 "enabled!");
@@ -145,11 +275,60 @@ public final class EverythingPlugin extends JavaPlugin {
      */
     @Override
     public void onDisable() {
+        // Finish any bulk work still waiting to run, before anything it uses is closed.
+        if (tickScheduler != null) {
+            tickScheduler.close();
+        }
+
+        // Stop offering the xp bank as an economy before it's closed.
+        if (xpBankEconomy != null) {
+            this.getServer().getServicesManager().unregister(xpBankEconomy);
+            xpBankEconomy = null;
+        }
+
+        // Stop the periodic xp bank flush. Closing the database writes the remaining balances.
+        if (xpBankFlushTask != null) {
+            xpBankFlushTask.cancel();
+        }
+
         // Close the XP bank database properly.
         if (xpBankDB != null) {
             xpBankDB.closeXPBankDatabase();
         }
 
+        // Run the queued database work and close the connection to the database.
+        if (storageExecutor != null) {
+            logger.info("Waiting for queued database work to finish...");
+            long shutdownTimeout = this.getConfig().getLong("storage.shutdown-timeout", 10L);
+
+            if (storageExecutor.shutdown(shutdownTimeout)) {
+                logger.info("Queued database work finished successfully!");
+            }
+            else {
+                logger.severe("Timed out waiting for queued database work to finish!");
+            }
+        }
+
+        // Stop watching the database files for edits.
+        if (databaseWatcher != null) {
+            databaseWatcher.close();
+        }
+
+        // Stop sweeping idle rate limits.
+        if (rateLimiter != null) {
+            rateLimiter.close();
+        }
+
+        // Release the chunks held for teleports that haven't finished.
+        if (teleportPipeline != null) {
+            teleportPipeline.close();
+        }
+
+        // Release the pinned warp chunks.
+        if (warpChunkPinner != null) {
+            warpChunkPinner.close();
+        }
+
         // Save the warp database.
         if (warpDB != null) {
             logger.info("Saving the warp database...");
@@ -165,15 +344,33 @@ public final class EverythingPlugin extends JavaPlugin {
         }
 
         // Unregister event listeners.
+        if (asyncPlayerPreLoginListener != null) {
+            HandlerList.unregisterAll(asyncPlayerPreLoginListener);
+        }
+        if (playerLoginListener != null) {
+            HandlerList.unregisterAll(playerLoginListener);
+        }
         if (playerJoinListener != null) {
             HandlerList.unregisterAll(playerJoinListener);
         }
+        if (playerQuitListener != null) {
+            HandlerList.unregisterAll(playerQuitListener);
+        }
+        if (playerChangedWorldListener != null) {
+            HandlerList.unregisterAll(playerChangedWorldListener);
+        }
         if (prepareAnvilListener != null) {
             HandlerList.unregisterAll(prepareAnvilListener);
         }
         if (inventoryClickListener != null) {
             HandlerList.unregisterAll(inventoryClickListener);
         }
+        if (worldLoadListener != null) {
+            HandlerList.unregisterAll(worldLoadListener);
+        }
+        if (worldUnloadListener != null) {
+            HandlerList.unregisterAll(worldUnloadListener);
+        }
 
         // Disabled the plugin successfully.
         logger.info(pdFile.getName() + " v" + pdFile.getVersion() + " has been successfully " +
@@ -214,7 +411,8 @@ public final class EverythingPlugin extends JavaPlugin {
         logger.info("Loading commands...");
 
         // Register commands with the server by setting the executor for each command in the
-        // plugin description file.
+        // plugin description file. Executors that also implement TabCompleter handle tab
+        // completion for their command too.
         try {
             Objects.requireNonNull(this.getCommand("heal")).setExecutor(new Heal());
             Objects.requireNonNull(this.getCommand("feed")).setExecutor(new Feed());
@@ -224,11 +422,14 @@ public final class EverythingPlugin extends JavaPlugin {
             Objects.requireNonNull(this.getCommand("setwarp")).setExecutor(new Setwarp());
             Objects.requireNonNull(this.getCommand("delwarp")).setExecutor(new Delwarp());
             Objects.requireNonNull(this.getCommand("listwarps")).setExecutor(new Listwarps());
+            Objects.requireNonNull(this.getCommand("warpstats")).setExecutor(new Warpstats());
             Objects.requireNonNull(this.getCommand("gift")).setExecutor(new Gift());
             Objects.requireNonNull(this.getCommand("home")).setExecutor(new Home());
             Objects.requireNonNull(this.getCommand("sethome")).setExecutor(new Sethome());
             Objects.requireNonNull(this.getCommand("delhome")).setExecutor(new Delhome());
             Objects.requireNonNull(this.getCommand("listhomes")).setExecutor(new Listhomes());
+            Objects.requireNonNull(this.getCommand("everythingplugin"))
+                    .setExecutor(new Everythingplugin());
         }
         // An error occurred registering the commands.
         catch (NullPointerException e) {
@@ -265,6 +466,15 @@ public final class EverythingPlugin extends JavaPlugin {
         return getServer().getPluginManager().getPlugin("Vault") != null;
     }
 
+    /**
+     * Returns this plugin's instance for scheduling tasks with the server.
+     *
+     * @return This plugin's instance.
+     */
+    public static EverythingPlugin getPlugin() {
+        return plugin;
+    }
+
     /**
      * Returns this plugin's logger object for output to the server console.
      *
@@ -283,6 +493,15 @@ public final class EverythingPlugin extends JavaPlugin {
         return pluginFolderPath;
     }
 
+    /**
+     * Returns the storage executor that owns the connection to the plugin's SQLite database.
+     *
+     * @return The storage executor object.
+     */
+    public static StorageExecutor getStorageExecutor() {
+        return storageExecutor;
+    }
+
     /**
      * Returns the xp bank database object.
      *
@@ -301,6 +520,34 @@ public final class EverythingPlugin extends JavaPlugin {
         return xpBankDBName;
     }
 
+    /**
+     * Returns the mailbox that holds gifts until their receivers can take them.
+     *
+     * @return The gift mailbox object.
+     */
+    public static GiftMailbox getGiftMailbox() {
+        return giftMailbox;
+    }
+
+    /**
+     * Returns the Vault economy backed by the xp bank.
+     *
+     * @return The xp bank economy object, or null if the economy is turned off.
+     */
+    public static XpBankEconomy getXpBankEconomy() {
+        return xpBankEconomy;
+    }
+
+    /**
+     * Returns the scheduler that spreads bulk main thread work over several ticks. Other parts of
+     * the plugin submit work to it instead of running it all at once.
+     *
+     * @return The tick scheduler object.
+     */
+    public static TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+
     /**
      * Returns the warp database object.
      *
@@ -319,6 +566,15 @@ public final class EverythingPlugin extends JavaPlugin {
         return warpDBName;
     }
 
+    /**
+     * Returns the name of the warp usage statistics file.
+     *
+     * @return The name of the warp usage statistics file.
+     */
+    public static String getWarpUsageName() {
+        return warpUsageName;
+    }
+
     /**
      * Returns the multihome database object.
      *
@@ -337,6 +593,60 @@ public final class EverythingPlugin extends JavaPlugin {
         return multihomeDBName;
     }
 
+    /**
+     * Returns the name of the multihome directory that holds every player's homes.
+     *
+     * @return The name of the multihome directory.
+     */
+    public static String getMultihomeDirName() {
+        return multihomeDirName;
+    }
+
+    /**
+     * Returns the name of the multihome usage statistics file.
+     *
+     * @return The name of the multihome usage statistics file.
+     */
+    public static String getMultihomeUsageName() {
+        return multihomeUsageName;
+    }
+
+    /**
+     * Returns the pipeline that loads teleport destinations before teleporting players.
+     *
+     * @return The teleport pipeline object.
+     */
+    public static TeleportPipeline getTeleportPipeline() {
+        return teleportPipeline;
+    }
+
+    /**
+     * Returns the policy that keeps the chunks of the most used warps loaded.
+     *
+     * @return The warp chunk pinner object.
+     */
+    public static WarpChunkPinner getWarpChunkPinner() {
+        return warpChunkPinner;
+    }
+
+    /**
+     * Returns the cooldowns and rate limits of the plugin's commands.
+     *
+     * @return The rate limiter object.
+     */
+    public static RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Returns the index of online players used to find players by name.
+     *
+     * @return The online player index object.
+     */
+    public static OnlinePlayerIndex getOnlinePlayerIndex() {
+        return onlinePlayerIndex;
+    }
+
     /**
      * Returns the permission object to check for player permissions.
      *
@@ -345,4 +655,14 @@ public final class EverythingPlugin extends JavaPlugin {
     public static Permission getPermissions() {
         return perms;
     }
+
+    /**
+     * Returns the cache of permission results. Commands check permissions through this instead of
+     * the permission object so results that were just looked up are reused.
+     *
+     * @return The permission cache object.
+     */
+    public static PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
 }
@@ -0,0 +1,304 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+
+/**
+ * This class represents the watcher that picks up edits made to the warp database and the
+ * players' home files while the server is running, so they can be edited without a restart.
+ *
+ * The watcher runs on its own thread. Edits to a file are collected until the file has been quiet
+ * for a short while, then the file is read and parsed on the watcher thread. Only the parsed
+ * entries are handed to the main thread, where the databases apply just the entries that changed.
+ * Files this plugin wrote itself are recognized by their contents and skipped.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class DatabaseWatcher {
+
+    /**
+     * Declare the watched warp database file, the watched multihome directory, and how long a
+     * file must be quiet before it's read.
+     */
+    private final Path warpDatabaseFile;
+    private final Path multihomeDirectory;
+    private final long debounceMillis;
+
+    /**
+     * Declare the file system watch service and the watcher thread.
+     */
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    /**
+     * Declare the files that changed and when they last changed, in milliseconds. This is only
+     * used on the watcher thread.
+     */
+    private final Map<Path, Long> changedFiles = new HashMap<>();
+
+    /**
+     * Starts watching the plugin folder for edits to the warp database and the multihome
+     * directory for edits to the players' home files.
+     *
+     * @throws IOException If the file system can't be watched.
+     */
+    public DatabaseWatcher() throws IOException {
+        Path pluginFolder = Paths.get(EverythingPlugin.getPluginFolderPath()).toAbsolutePath();
+        warpDatabaseFile = pluginFolder.resolve(EverythingPlugin.getWarpDBName());
+        multihomeDirectory = pluginFolder.resolve(EverythingPlugin.getMultihomeDirName());
+        debounceMillis = Math.max(0,
+                EverythingPlugin.getPlugin().getConfig().getLong("storage.watch-debounce", 500L));
+
+        // Watch the folders for files being created or changed. Deleted files are ignored so a
+        // mistake never wipes out the databases.
+        watchService = FileSystems.getDefault().newWatchService();
+        pluginFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        if (Files.isDirectory(multihomeDirectory)) {
+            multihomeDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+
+        // Start the watcher thread.
+        watcherThread = new Thread(this::watch, "EverythingPlugin-Watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching for edits. This is used when the plugin is disabled.
+     */
+    public void close() {
+        // Try to close the watch service, which stops the watcher thread.
+        try {
+            watchService.close();
+        }
+        // An error occurred closing the watch service. The watcher thread dies with the server.
+        catch (IOException e) {
+            EverythingPlugin.getEPLogger().warning("An error occurred stopping the file " +
+                    "watcher!");
+        }
+    }
+
+    /**
+     * Waits for edits to the watched files and reads each edited file once it's been quiet for the
+     * debounce time. This runs on the watcher thread until the watch service is closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                // Wait for more edits, but only until the next changed file is due to be read.
+                WatchKey key = watchService.poll(timeUntilNextRead(), TimeUnit.MILLISECONDS);
+
+                if (key != null) {
+                    collectChanges(key);
+                }
+
+                readQuietFiles();
+            }
+        }
+        // The watch service was closed or the thread was interrupted. Stop watching.
+        catch (ClosedWatchServiceException | InterruptedException e) {
+            EverythingPlugin.getEPLogger().fine("Stopped watching the database files.");
+        }
+    }
+
+    /**
+     * Remembers the watched files that changed in a batch of file system events.
+     *
+     * @param key The watch key holding the batch of events.
+     */
+    private void collectChanges(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        long now = System.currentTimeMillis();
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // Skip events that were lost because too many happened at once.
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+
+            Path file = directory.resolve((Path) event.context());
+
+            if (isWarpDatabase(file) || isPlayerFile(file)) {
+                changedFiles.put(file, now);
+            }
+        }
+
+        key.reset();
+    }
+
+    /**
+     * Returns how long to wait before the next changed file is due to be read.
+     *
+     * @return How long to wait, in milliseconds. A full second is waited if nothing changed.
+     */
+    private long timeUntilNextRead() {
+        long wait = 1000;
+        long now = System.currentTimeMillis();
+
+        for (long changedAt : changedFiles.values()) {
+            wait = Math.min(wait, Math.max(1, changedAt + debounceMillis - now));
+        }
+
+        return wait;
+    }
+
+    /**
+     * Reads every changed file that hasn't changed for the debounce time.
+     */
+    private void readQuietFiles() {
+        long now = System.currentTimeMillis();
+
+        for (Iterator<Map.Entry<Path, Long>> it = changedFiles.entrySet().iterator();
+             it.hasNext(); ) {
+            Map.Entry<Path, Long> changedFile = it.next();
+
+            if (now - changedFile.getValue() >= debounceMillis) {
+                it.remove();
+                readFile(changedFile.getKey());
+            }
+        }
+    }
+
+    /**
+     * Reads and parses a changed file on the watcher thread, then hands the parsed entries to the
+     * main thread to be applied.
+     *
+     * @param file The changed file.
+     */
+    private void readFile(Path file) {
+        byte[] contents;
+        YamlConfiguration yaml = new YamlConfiguration();
+
+        // Try to read and parse the changed file.
+        try {
+            contents = Files.readAllBytes(file);
+            yaml.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        }
+        // The file was moved or deleted since it changed. Nothing to apply.
+        catch (NoSuchFileException e) {
+            return;
+        }
+        // An error occurred reading the file.
+        catch (IOException e) {
+            EverythingPlugin.getEPLogger().warning("An error occurred reading the edited file " +
+                    file.getFileName() + "!");
+            return;
+        }
+        // The file isn't valid YAML. Wait for it to be fixed.
+        catch (InvalidConfigurationException e) {
+            EverythingPlugin.getEPLogger().warning("The edited file " + file.getFileName() +
+                    " isn't valid YAML! Its changes won't be applied until it's fixed.");
+            return;
+        }
+
+        byte[] digest = SnapshotWriter.digest(contents);
+
+        // Apply the changes to the warp database on the main thread.
+        if (isWarpDatabase(file)) {
+            Map<String, StoredLocation> fileWarps = WarpDatabase.parseWarps(yaml);
+            runOnMainThread(() -> logChanges(file, EverythingPlugin.getWarpDatabase()
+                    .applyWarpChanges(fileWarps, digest)));
+        }
+        // Apply the changes to the player's homes on the main thread.
+        else {
+            String playerName = file.getFileName().toString().replaceFirst("\\.yml$", "");
+            UUID playerUUID = UUID.fromString(playerName);
+            Map<String, StoredLocation> fileHomes = MultihomeDatabase.loadHomes(
+                    yaml.getConfigurationSection("homes"), playerName);
+            runOnMainThread(() -> logChanges(file, EverythingPlugin.getMultihomeDatabase()
+                    .applyHomeChanges(playerUUID, fileHomes, digest)));
+        }
+    }
+
+    /**
+     * Lets the server know how many changes were applied from an edited file.
+     *
+     * @param file    The edited file.
+     * @param changes The number of entries that were added, moved, or removed.
+     */
+    private static void logChanges(Path file, int changes) {
+        if (changes > 0) {
+            EverythingPlugin.getEPLogger().info("Applied " + changes + " change(s) from the " +
+                    "edited file " + file.getFileName() + ".");
+        }
+    }
+
+    /**
+     * Runs a task on the main thread, unless the plugin is shutting down.
+     *
+     * @param task The task to run.
+     */
+    private static void runOnMainThread(Runnable task) {
+        // Try to schedule the task on the main thread.
+        try {
+            Bukkit.getScheduler().runTask(EverythingPlugin.getPlugin(), task);
+        }
+        // The plugin is shutting down, so the changes will be read on the next start.
+        catch (IllegalPluginAccessException ignored) {
+        }
+    }
+
+    /**
+     * Checks if a file is the warp database.
+     *
+     * @param file The file to check.
+     *
+     * @return True if the file is the warp database, false otherwise.
+     */
+    private boolean isWarpDatabase(Path file) {
+        return file.equals(warpDatabaseFile);
+    }
+
+    /**
+     * Checks if a file is a player's home file, named after the player's UUID.
+     *
+     * @param file The file to check.
+     *
+     * @return True if the file is a player's home file, false otherwise.
+     */
+    private boolean isPlayerFile(Path file) {
+        // Check if the file is in the multihome directory and is a YAML file.
+        String fileName = file.getFileName().toString();
+
+        if (!multihomeDirectory.equals(file.getParent()) || !fileName.endsWith(".yml")) {
+            return false;
+        }
+
+        // Try to read the player's UUID from the file name.
+        try {
+            UUID.fromString(fileName.substring(0, fileName.length() - ".yml".length()));
+            return true;
+        }
+        // The file isn't named after a player's UUID.
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
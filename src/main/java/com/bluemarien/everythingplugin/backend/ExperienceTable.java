@@ -0,0 +1,146 @@
+package com.bluemarien.everythingplugin.backend;
+
+import java.util.Arrays;
+
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class converts between experience levels and total experience points. The number of points
+ * needed to reach every level is worked out once, when the class is loaded, from the same
+ * per-level costs the game uses, so every conversion is a lookup in the table instead of a loop
+ * or a floating-point formula.
+ *
+ * A player's progress towards their next level is only available from the server as a fraction,
+ * so it's turned into whole points once, when a player's total is read.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public final class ExperienceTable {
+
+    /**
+     * Declare the highest level in the table. It's the highest level whose total points still fit
+     * in the total experience the server keeps for a player.
+     */
+    public static final int MAX_LEVEL = 21863;
+
+    /**
+     * Declare the total points needed to reach each level, from level 0 up to the level after
+     * {@link #MAX_LEVEL}.
+     */
+    private static final long[] POINTS_FOR_LEVEL = new long[MAX_LEVEL + 2];
+
+    static {
+        // Add up the cost of every level.
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            POINTS_FOR_LEVEL[level + 1] = POINTS_FOR_LEVEL[level] + levelCost(level);
+        }
+    }
+
+    /**
+     * This class only holds static conversions, so it can't be made.
+     */
+    private ExperienceTable() {
+    }
+
+    /**
+     * Returns the total points needed to reach a level from level 0.
+     *
+     * @param level The level, from 0 to {@link #MAX_LEVEL}.
+     *
+     * @return The total points needed to reach the level.
+     */
+    public static long getPointsForLevel(int level) {
+        return POINTS_FOR_LEVEL[level];
+    }
+
+    /**
+     * Returns the points needed to go from the start of a level to the start of the next one.
+     *
+     * @param level The level, from 0 to {@link #MAX_LEVEL}.
+     *
+     * @return The points needed to finish the level.
+     */
+    public static int getPointsToNextLevel(int level) {
+        return (int) (POINTS_FOR_LEVEL[level + 1] - POINTS_FOR_LEVEL[level]);
+    }
+
+    /**
+     * Returns the level reached with a number of total points.
+     *
+     * @param points The total points.
+     *
+     * @return The highest level whose total points are at most the given points, up to
+     *         {@link #MAX_LEVEL}.
+     */
+    public static int getLevelForPoints(long points) {
+        // Check if the points are past the end of the table.
+        if (points >= POINTS_FOR_LEVEL[MAX_LEVEL]) {
+            return MAX_LEVEL;
+        }
+
+        // Find the level in the table. A miss lands just after the level that was reached.
+        int index = Arrays.binarySearch(POINTS_FOR_LEVEL, 0, MAX_LEVEL + 1, Math.max(0, points));
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Returns the highest number of total points a player can hold.
+     *
+     * @return The total points needed to reach {@link #MAX_LEVEL}.
+     */
+    public static long getMaxPoints() {
+        return POINTS_FOR_LEVEL[MAX_LEVEL];
+    }
+
+    /**
+     * Returns a player's total experience points, counting their progress towards their next
+     * level.
+     *
+     * @param player The player.
+     *
+     * @return The player's total points.
+     */
+    public static long getTotalPoints(Player player) {
+        int level = Math.min(Math.max(player.getLevel(), 0), MAX_LEVEL);
+        long progress = Math.round(player.getExp() * getPointsToNextLevel(level));
+        return Math.min(POINTS_FOR_LEVEL[level] + progress, getMaxPoints());
+    }
+
+    /**
+     * Sets a player's level, progress towards their next level, and total experience from a
+     * number of total points.
+     *
+     * @param player The player.
+     * @param points The player's new total points, up to {@link #getMaxPoints()}.
+     */
+    public static void setTotalPoints(Player player, long points) {
+        long clampedPoints = Math.min(Math.max(points, 0), getMaxPoints());
+        int level = getLevelForPoints(clampedPoints);
+        long progress = clampedPoints - POINTS_FOR_LEVEL[level];
+
+        player.setLevel(level);
+        player.setExp(progress / (float) getPointsToNextLevel(level));
+        player.setTotalExperience((int) clampedPoints);
+    }
+
+    /**
+     * Returns the points needed to finish a level, the same way the game works it out.
+     *
+     * @param level The level.
+     *
+     * @return The points needed to go from the start of the level to the start of the next one.
+     */
+    private static int levelCost(int level) {
+        if (level <= 15) {
+            return 2 * level + 7;
+        }
+
+        if (level <= 30) {
+            return 5 * level - 38;
+        }
+
+        return 9 * level - 158;
+    }
+}
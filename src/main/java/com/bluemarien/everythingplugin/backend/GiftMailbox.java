@@ -0,0 +1,729 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+
+/**
+ * This class represents the mailbox that holds gifts until their receivers can take them, such as
+ * gifts sent to offline players or to players whose inventories are full. Gifts are stored in a
+ * table next to the xp bank's table in the plugin's SQLite database, with each item serialized
+ * and compressed into a small blob. Mailed gifts are delivered when their receiver joins.
+ *
+ * The number of gifts waiting for each player is kept in memory, so joining players with no
+ * gifts never touch the database, and players with gifts have them read on the storage thread.
+ * The mailbox also remembers the UUID of every player who logs in by name, so gifts can be sent to
+ * players who aren't online, and the names of offline players can be shown without reading their
+ * player data.
+ *
+ * All methods must be called from the main thread unless noted otherwise.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class GiftMailbox {
+
+    /**
+     * This class represents a gift read from the mailbox.
+     */
+    private static final class MailedGift {
+
+        /**
+         * Declare the row ID of the gift, the name of its sender, and its serialized item.
+         */
+        private final long id;
+        private final String sender;
+        private final byte[] item;
+
+        /**
+         * Makes a gift read from the mailbox.
+         *
+         * @param id     The row ID of the gift.
+         * @param sender The name of the player who sent the gift.
+         * @param item   The serialized item.
+         */
+        private MailedGift(long id, String sender, byte[] item) {
+            this.id = id;
+            this.sender = sender;
+            this.item = item;
+        }
+    }
+
+    /**
+     * Declare the names of the mailbox's tables and the storage executor that owns the connection
+     * to the database.
+     */
+    private final String mailboxTableName = "giftMailbox";
+    private final String playerNameTableName = "playerNames";
+    private final StorageExecutor storage;
+
+    /**
+     * Declare the number of gifts waiting for each player, the future completed once they've been
+     * counted, and the players whose gifts are being delivered. These are only used on the main
+     * thread.
+     */
+    private final Map<UUID, Integer> pendingCounts = new HashMap<>();
+    private final CompletableFuture<Void> countsLoaded;
+    private final Set<UUID> deliveringPlayers = new HashSet<>();
+
+    /**
+     * Creates the mailbox's tables if they don't exist yet and counts the gifts waiting for each
+     * player.
+     *
+     * @param storage The storage executor that owns the connection to the database.
+     */
+    public GiftMailbox(StorageExecutor storage) {
+        this.storage = storage;
+
+        // Create the mailbox's tables.
+        storage.submit(this::createMailboxTables).whenComplete((created, e) -> {
+            // Check if an error occurred creating the mailbox's tables.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred creating the gift " +
+                        "mailbox!");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+            }
+        });
+
+        // Count the gifts waiting for each player.
+        countsLoaded = storage.submit(this::readPendingCounts).handle((counts, e) -> {
+            // Check if an error occurred counting the gifts.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred counting the gifts in " +
+                        "the gift mailbox!");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+                return null;
+            }
+
+            // Add the counted gifts to any gifts mailed in the meantime.
+            for (Map.Entry<UUID, Integer> count : counts.entrySet()) {
+                pendingCounts.merge(count.getKey(), count.getValue(), Integer::sum);
+            }
+
+            return null;
+        });
+
+        // Remember the players who are already online, such as after a reload.
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            UUID playerUUID = player.getUniqueId();
+            String playerName = player.getName();
+            storage.submit(conn -> writePlayerName(conn, playerUUID, playerName));
+        }
+    }
+
+    /**
+     * Remembers the UUID of a logging in player by their name, so gifts can be sent to them while
+     * they're offline. This may be called from any thread, and doesn't wait for the database.
+     *
+     * @param playerUUID The UUID of the player logging in.
+     * @param playerName The name of the player logging in.
+     */
+    public void recordPlayerName(UUID playerUUID, String playerName) {
+        storage.submitAsync(conn -> writePlayerName(conn, playerUUID, playerName))
+                .whenComplete((written, e) -> {
+                    // Check if an error occurred remembering the player's name.
+                    if (e != null) {
+                        EverythingPlugin.getEPLogger().severe("An error occurred remembering " +
+                                "the name of " + playerName + "!");
+                        EverythingPlugin.getEPLogger().severe(e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Finds the UUIDs of players who have logged in before by their names, ignoring case.
+     *
+     * @param playerNames The names of the players.
+     *
+     * @return A future holding the UUID of each player found, keyed by the name it was found by.
+     *         Names no player has logged in with before are left out.
+     */
+    public CompletableFuture<Map<String, UUID>> findPlayers(Collection<String> playerNames) {
+        List<String> names = new ArrayList<>(playerNames);
+        return storage.submit(conn -> readPlayerUUIDs(conn, names));
+    }
+
+    /**
+     * Finds the names that players last logged in with by their UUIDs.
+     *
+     * @param playerUUIDs The UUIDs of the players.
+     *
+     * @return A future holding the name of each player found, keyed by their UUID. Players who
+     *         haven't logged in since names were first remembered are left out.
+     */
+    public CompletableFuture<Map<UUID, String>> findPlayerNames(Collection<UUID> playerUUIDs) {
+        List<UUID> uuids = new ArrayList<>(playerUUIDs);
+        return storage.submit(conn -> readPlayerNames(conn, uuids));
+    }
+
+    /**
+     * Mails gifts to players. The items are serialized right away, so they may be changed after
+     * this returns. Every gift is stored in a single transaction, so either all of them are
+     * mailed or none are.
+     *
+     * @param senderName The name of the player sending the gifts.
+     * @param gifts      The items to gift to each receiving player, keyed by their UUID.
+     *
+     * @return A future that completes once the gifts are stored in the mailbox, or completes
+     *         exceptionally if they couldn't be stored.
+     */
+    public CompletableFuture<Void> mail(String senderName, Map<UUID, List<ItemStack>> gifts) {
+        Map<UUID, List<byte[]>> giftBytes = new HashMap<>();
+        int giftCount = 0;
+
+        // Try to serialize every item.
+        try {
+            for (Map.Entry<UUID, List<ItemStack>> receiverGifts : gifts.entrySet()) {
+                List<byte[]> items = new ArrayList<>();
+
+                for (ItemStack item : receiverGifts.getValue()) {
+                    items.add(serialize(item));
+                }
+
+                giftBytes.put(receiverGifts.getKey(), items);
+                giftCount += items.size();
+            }
+        }
+        // An error occurred serializing an item.
+        catch (IOException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        // Count the gifts right away, so a receiver joining before they're stored still checks
+        // the mailbox.
+        for (Map.Entry<UUID, List<byte[]>> receiverGifts : giftBytes.entrySet()) {
+            pendingCounts.merge(receiverGifts.getKey(), receiverGifts.getValue().size(),
+                    Integer::sum);
+        }
+
+        int mailedCount = giftCount;
+
+        return storage.submit(conn -> {
+            insertGifts(conn, senderName, giftBytes);
+            return (Void) null;
+        }).whenComplete((ignored, e) -> {
+            // Check if an error occurred storing the gifts.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred mailing " + mailedCount +
+                        " gift(s) from " + senderName + "!");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+
+                for (Map.Entry<UUID, List<byte[]>> receiverGifts : giftBytes.entrySet()) {
+                    removePendingGifts(receiverGifts.getKey(), receiverGifts.getValue().size());
+                }
+            }
+        });
+    }
+
+    /**
+     * Delivers the gifts waiting for a player into their inventory. The gifts are taken out of the
+     * mailbox before they're given, so a gift can never be given twice, and gifts that don't fit
+     * are put back in the mailbox. Nothing is read from the database if the player has no gifts
+     * waiting.
+     *
+     * @param player The player to deliver gifts to.
+     */
+    public void deliver(Player player) {
+        UUID playerUUID = player.getUniqueId();
+
+        // Wait until the gifts have been counted.
+        countsLoaded.thenRun(() -> {
+            // Check if the player has gifts waiting and isn't already getting them.
+            if (getPendingCount(playerUUID) == 0 || !deliveringPlayers.add(playerUUID)) {
+                return;
+            }
+
+            // Take the player's gifts out of the mailbox on the storage thread and give them on
+            // this thread.
+            storage.submit(conn -> claimGifts(conn, playerUUID)).whenComplete((gifts, e) -> {
+                // Check if an error occurred taking the player's gifts.
+                if (e != null) {
+                    deliveringPlayers.remove(playerUUID);
+                    EverythingPlugin.getEPLogger().severe("An error occurred reading the gifts " +
+                            "of " + player.getName() + " from the gift mailbox!");
+                    EverythingPlugin.getEPLogger().severe(e.getMessage());
+                    return;
+                }
+
+                removePendingGifts(playerUUID, gifts.size());
+                giveGifts(player, gifts);
+            });
+        });
+    }
+
+    /**
+     * Returns the number of gifts waiting for a player.
+     *
+     * @param playerUUID The UUID of the player.
+     *
+     * @return The number of gifts waiting in the mailbox for the player.
+     */
+    public int getPendingCount(UUID playerUUID) {
+        return pendingCounts.getOrDefault(playerUUID, 0);
+    }
+
+    /**
+     * Gives a player the gifts taken out of the mailbox until their inventory is full, then puts
+     * the rest back in the mailbox. A gift that only partly fits is put back with what's left of
+     * it, and gifts that can't be read are put back unchanged.
+     *
+     * @param player The player receiving the gifts.
+     * @param gifts  The gifts taken out of the mailbox, oldest first.
+     */
+    private void giveGifts(Player player, List<MailedGift> gifts) {
+        UUID playerUUID = player.getUniqueId();
+        List<MailedGift> returnedGifts = new ArrayList<>();
+        boolean inventoryFull = false;
+
+        // Give the player each gift until their inventory is full.
+        for (MailedGift gift : gifts) {
+            // Put the rest of the gifts back once the player left or their inventory is full.
+            if (inventoryFull || !player.isOnline()) {
+                returnedGifts.add(gift);
+                continue;
+            }
+
+            ItemStack item;
+
+            // Try to read the gift's item. Unreadable gifts are put back in the mailbox.
+            try {
+                item = deserialize(gift.item);
+            }
+            // An error occurred reading the gift's item.
+            catch (IOException | ClassNotFoundException e) {
+                EverythingPlugin.getEPLogger().warning("Skipping an unreadable gift for " +
+                        player.getName() + " in the gift mailbox: " + e.getMessage());
+                returnedGifts.add(gift);
+                continue;
+            }
+
+            int amount = item.getAmount();
+            String itemName = item.getType().toString();
+            Map<Integer, ItemStack> leftovers = player.getInventory().addItem(item);
+            int givenAmount = amount;
+
+            // Put back what's left of a gift that didn't fully fit.
+            if (!leftovers.isEmpty()) {
+                ItemStack leftover = leftovers.values().iterator().next();
+                givenAmount = amount - leftover.getAmount();
+                inventoryFull = true;
+
+                try {
+                    returnedGifts.add(new MailedGift(gift.id, gift.sender, serialize(leftover)));
+                }
+                // An error occurred serializing what's left. Take the given part back and put
+                // the whole gift back instead.
+                catch (IOException e) {
+                    if (givenAmount > 0) {
+                        leftover.setAmount(givenAmount);
+                        player.getInventory().removeItem(leftover);
+                    }
+
+                    givenAmount = 0;
+                    returnedGifts.add(gift);
+                }
+            }
+
+            if (givenAmount > 0) {
+                player.sendMessage(ChatColor.GOLD + "You have been gifted " + givenAmount + " " +
+                        itemName + " from " + gift.sender + ".");
+            }
+        }
+
+        // Check if every gift was given.
+        if (returnedGifts.isEmpty()) {
+            deliveringPlayers.remove(playerUUID);
+            return;
+        }
+
+        // Tell the player about the gifts still waiting.
+        pendingCounts.merge(playerUUID, returnedGifts.size(), Integer::sum);
+
+        if (player.isOnline()) {
+            player.sendMessage(ChatColor.GOLD + "You have " + getPendingCount(playerUUID) +
+                    " gift(s) waiting in your mailbox. Make room in your inventory and use " +
+                    "\"/gift claim\" to get them.");
+        }
+
+        // Put the gifts that weren't given back in the mailbox.
+        storage.submit(conn -> {
+            returnGifts(conn, playerUUID, returnedGifts);
+            return (Void) null;
+        }).whenComplete((ignored, e) -> {
+            deliveringPlayers.remove(playerUUID);
+
+            // Check if an error occurred putting the gifts back.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred putting " +
+                        returnedGifts.size() + " gift(s) for " + player.getName() + " back in " +
+                        "the gift mailbox! They have been lost.");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+                removePendingGifts(playerUUID, returnedGifts.size());
+            }
+        });
+    }
+
+    /**
+     * Takes gifts off a player's count of waiting gifts.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param gifts      The number of gifts to take off.
+     */
+    private void removePendingGifts(UUID playerUUID, int gifts) {
+        int remaining = getPendingCount(playerUUID) - gifts;
+
+        if (remaining > 0) {
+            pendingCounts.put(playerUUID, remaining);
+        }
+        else {
+            pendingCounts.remove(playerUUID);
+        }
+    }
+
+    /**
+     * Serializes an item and compresses it.
+     *
+     * @param item The item to serialize.
+     *
+     * @return The compressed bytes of the item.
+     *
+     * @throws IOException If an error occurs serializing the item.
+     */
+    private static byte[] serialize(ItemStack item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (BukkitObjectOutputStream out =
+                     new BukkitObjectOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeObject(item);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decompresses an item and deserializes it.
+     *
+     * @param itemBytes The compressed bytes of the item.
+     *
+     * @return The item.
+     *
+     * @throws IOException            If an error occurs deserializing the item.
+     * @throws ClassNotFoundException If the bytes don't hold an item.
+     */
+    private static ItemStack deserialize(byte[] itemBytes)
+            throws IOException, ClassNotFoundException {
+        try (BukkitObjectInputStream in = new BukkitObjectInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(itemBytes)))) {
+            Object item = in.readObject();
+
+            // Check if the bytes held an item.
+            if (!(item instanceof ItemStack)) {
+                throw new ClassNotFoundException("The gift doesn't hold an item.");
+            }
+
+            return (ItemStack) item;
+        }
+    }
+
+    /**
+     * Creates the mailbox's tables if they don't exist yet. Gifts are looked up by their
+     * receiver's UUID through an index, and player names are matched without regard to case. This
+     * must only be called from the storage thread.
+     *
+     * @param conn The connection to the database.
+     *
+     * @return True once the tables exist.
+     *
+     * @throws SQLException If an error occurs creating the tables.
+     */
+    private boolean createMailboxTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + mailboxTableName + " (ID integer " +
+                    "PRIMARY KEY, RECEIVER blob NOT NULL, SENDER text NOT NULL, ITEM blob NOT " +
+                    "NULL);");
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + mailboxTableName + "Receiver ON " +
+                    mailboxTableName + " (RECEIVER);");
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + playerNameTableName + " (NAME text " +
+                    "PRIMARY KEY COLLATE NOCASE, UUID blob NOT NULL) WITHOUT ROWID;");
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + playerNameTableName + "UUID ON " +
+                    playerNameTableName + " (UUID);");
+        }
+
+        return true;
+    }
+
+    /**
+     * Counts the gifts waiting for each player. This must only be called from the storage thread.
+     *
+     * @param conn The connection to the database.
+     *
+     * @return The number of gifts waiting for each player who has any.
+     *
+     * @throws SQLException If an error occurs counting the gifts.
+     */
+    private Map<UUID, Integer> readPendingCounts(Connection conn) throws SQLException {
+        Map<UUID, Integer> counts = new HashMap<>();
+        String query = "SELECT RECEIVER, COUNT(*) AS GIFTS FROM " + mailboxTableName +
+                " GROUP BY RECEIVER";
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet result = stmt.executeQuery(query)) {
+            while (result.next()) {
+                counts.put(XpBankDatabase.fromBytes(result.getBytes("RECEIVER")),
+                        result.getInt("GIFTS"));
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Takes every gift waiting for a player out of the mailbox, oldest first. The gifts are read
+     * and deleted in a single transaction, so each gift is only ever taken once. This must only be
+     * called from the storage thread.
+     *
+     * @param conn       The connection to the database.
+     * @param playerUUID The UUID of the player.
+     *
+     * @return The gifts that were waiting for the player.
+     *
+     * @throws SQLException If an error occurs taking the gifts.
+     */
+    private List<MailedGift> claimGifts(Connection conn, UUID playerUUID) throws SQLException {
+        List<MailedGift> gifts = new ArrayList<>();
+        String selectQuery = "SELECT ID, SENDER, ITEM FROM " + mailboxTableName +
+                " WHERE RECEIVER = ? ORDER BY ID";
+        String deleteQuery = "DELETE FROM " + mailboxTableName + " WHERE RECEIVER = ?";
+
+        // Try to read and delete the gifts in a single transaction.
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement select = conn.prepareStatement(selectQuery);
+             PreparedStatement delete = conn.prepareStatement(deleteQuery)) {
+            select.setBytes(1, XpBankDatabase.toBytes(playerUUID));
+
+            try (ResultSet result = select.executeQuery()) {
+                while (result.next()) {
+                    gifts.add(new MailedGift(result.getLong("ID"), result.getString("SENDER"),
+                            result.getBytes("ITEM")));
+                }
+            }
+
+            delete.setBytes(1, XpBankDatabase.toBytes(playerUUID));
+            delete.executeUpdate();
+            conn.commit();
+        }
+        // An error occurred taking the gifts. Undo the partial transaction.
+        catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        finally {
+            conn.setAutoCommit(true);
+        }
+
+        return gifts;
+    }
+
+    /**
+     * Stores gifts in the mailbox in a single transaction. This must only be called from the
+     * storage thread.
+     *
+     * @param conn       The connection to the database.
+     * @param senderName The name of the player sending the gifts.
+     * @param giftBytes  The serialized items to gift to each receiving player, keyed by their UUID.
+     *
+     * @throws SQLException If an error occurs storing the gifts.
+     */
+    private void insertGifts(Connection conn, String senderName,
+                             Map<UUID, List<byte[]>> giftBytes) throws SQLException {
+        String query = "INSERT INTO " + mailboxTableName + "(RECEIVER,SENDER,ITEM) VALUES(?,?,?)";
+
+        // Try to store the gifts in a single transaction.
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (Map.Entry<UUID, List<byte[]>> receiverGifts : giftBytes.entrySet()) {
+                for (byte[] itemBytes : receiverGifts.getValue()) {
+                    pstmt.setBytes(1, XpBankDatabase.toBytes(receiverGifts.getKey()));
+                    pstmt.setString(2, senderName);
+                    pstmt.setBytes(3, itemBytes);
+                    pstmt.addBatch();
+                }
+            }
+
+            pstmt.executeBatch();
+            conn.commit();
+        }
+        // An error occurred storing the gifts. Undo the partial transaction.
+        catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Puts gifts that weren't given back in the mailbox in a single transaction, keeping their
+     * senders. This must only be called from the storage thread.
+     *
+     * @param conn       The connection to the database.
+     * @param playerUUID The UUID of the player the gifts are for.
+     * @param gifts      The gifts to put back.
+     *
+     * @throws SQLException If an error occurs putting the gifts back.
+     */
+    private void returnGifts(Connection conn, UUID playerUUID, List<MailedGift> gifts)
+            throws SQLException {
+        String query = "INSERT INTO " + mailboxTableName + "(RECEIVER,SENDER,ITEM) VALUES(?,?,?)";
+
+        // Try to put the gifts back in a single transaction.
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (MailedGift gift : gifts) {
+                pstmt.setBytes(1, XpBankDatabase.toBytes(playerUUID));
+                pstmt.setString(2, gift.sender);
+                pstmt.setBytes(3, gift.item);
+                pstmt.addBatch();
+            }
+
+            pstmt.executeBatch();
+            conn.commit();
+        }
+        // An error occurred putting the gifts back. Undo the partial transaction.
+        catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Remembers the UUID of a player by their name, and forgets the names they logged in with
+     * before. This must only be called from the storage thread.
+     *
+     * @param conn       The connection to the database.
+     * @param playerUUID The UUID of the player.
+     * @param playerName The name of the player.
+     *
+     * @return True once the name is remembered.
+     *
+     * @throws SQLException If an error occurs remembering the name.
+     */
+    private boolean writePlayerName(Connection conn, UUID playerUUID, String playerName)
+            throws SQLException {
+        String query = "INSERT OR REPLACE INTO " + playerNameTableName + "(NAME,UUID) VALUES(?,?)";
+        String oldNamesQuery = "DELETE FROM " + playerNameTableName + " WHERE UUID = ? AND " +
+                "NAME <> ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, playerName);
+            pstmt.setBytes(2, XpBankDatabase.toBytes(playerUUID));
+            pstmt.executeUpdate();
+        }
+
+        // Forget the player's old names, so each player is only known by their current name.
+        try (PreparedStatement pstmt = conn.prepareStatement(oldNamesQuery)) {
+            pstmt.setBytes(1, XpBankDatabase.toBytes(playerUUID));
+            pstmt.setString(2, playerName);
+            pstmt.executeUpdate();
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the UUIDs of players by their names, ignoring case. This must only be called from the
+     * storage thread.
+     *
+     * @param conn        The connection to the database.
+     * @param playerNames The names of the players.
+     *
+     * @return The UUID of each player found, keyed by the name it was found by.
+     *
+     * @throws SQLException If an error occurs reading the UUIDs.
+     */
+    private Map<String, UUID> readPlayerUUIDs(Connection conn, List<String> playerNames)
+            throws SQLException {
+        Map<String, UUID> playerUUIDs = new HashMap<>();
+        String query = "SELECT UUID FROM " + playerNameTableName + " WHERE NAME = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (String playerName : playerNames) {
+                pstmt.setString(1, playerName);
+
+                try (ResultSet result = pstmt.executeQuery()) {
+                    if (result.next()) {
+                        playerUUIDs.put(playerName,
+                                XpBankDatabase.fromBytes(result.getBytes("UUID")));
+                    }
+                }
+            }
+        }
+
+        return playerUUIDs;
+    }
+
+    /**
+     * Reads the names of players by their UUIDs. This must only be called from the storage thread.
+     *
+     * @param conn        The connection to the database.
+     * @param playerUUIDs The UUIDs of the players.
+     *
+     * @return The name of each player found, keyed by their UUID.
+     *
+     * @throws SQLException If an error occurs reading the names.
+     */
+    private Map<UUID, String> readPlayerNames(Connection conn, List<UUID> playerUUIDs)
+            throws SQLException {
+        Map<UUID, String> playerNames = new HashMap<>();
+        String query = "SELECT NAME FROM " + playerNameTableName + " WHERE UUID = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (UUID playerUUID : playerUUIDs) {
+                pstmt.setBytes(1, XpBankDatabase.toBytes(playerUUID));
+
+                try (ResultSet result = pstmt.executeQuery()) {
+                    if (result.next()) {
+                        playerNames.put(playerUUID, result.getString("NAME"));
+                    }
+                }
+            }
+        }
+
+        return playerNames;
+    }
+}
@@ -4,61 +4,375 @@ import com.bluemarien.everythingplugin.EverythingPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
 
 
 /**
  * This class represents a multihome database that this plugin uses to store data about the homes
- * for players on the server. It uses the YAML configuration object from the Spigot API to handle
- * database functionality.
+ * for players on the server. Every player's homes are stored in their own file in the multihome
+ * directory, using the YAML configuration object from the Spigot API as the file format.
+ *
+ * A player's homes are read from their file while they log in and kept in memory while they're
+ * online, in an index from home name to {@link StoredLocation}. Online players' homes are never
+ * dropped from memory, and the homes of players who left the server are kept up to a configurable
+ * number, least recently used dropped first. Each player's changes are
+ * saved to their own file in the background by a {@link SnapshotWriter}, so saving only ever
+ * writes the homes of players whose homes changed. Edits made to a player's file while their
+ * changes are waiting to be saved are merged with them instead of either one overwriting the other.
+ *
+ * How often each home is teleported to is kept in its player's file too, so it's only in memory
+ * while the player's homes are. Only the totals across every player are kept in memory all the
+ * time, in the multihome usage statistics file.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
 public class MultihomeDatabase {
 
     /**
-     * Declare and initialize multihome database path and file objects.
+     * This class represents the contents of a player's file: their homes and how often each of
+     * them was teleported to.
+     */
+    private static final class PlayerFile {
+
+        /**
+         * Declare the player's homes and the usage of each home that was teleported to, as its
+         * number of teleports and when it was last teleported to.
+         */
+        private final Map<String, StoredLocation> homes;
+        private final Map<String, long[]> usage;
+
+        /**
+         * Declare the digest of the file contents these were read from, or null if they weren't
+         * read from the player's file.
+         */
+        private final byte[] digest;
+
+        /**
+         * Makes the contents of a player's file that weren't read from the file.
+         *
+         * @param homes The player's homes.
+         * @param usage The usage of each home that was teleported to.
+         */
+        private PlayerFile(Map<String, StoredLocation> homes, Map<String, long[]> usage) {
+            this(homes, usage, null);
+        }
+
+        /**
+         * Makes the contents of a player's file.
+         *
+         * @param homes  The player's homes.
+         * @param usage  The usage of each home that was teleported to.
+         * @param digest The digest of the file contents these were read from, or null.
+         */
+        private PlayerFile(Map<String, StoredLocation> homes, Map<String, long[]> usage,
+                           byte[] digest) {
+            this.homes = homes;
+            this.usage = usage;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * This class represents the usage of one of a player's homes. Every home in memory has one
+     * from the moment it's loaded or set, so counting a teleport never allocates anything.
+     */
+    private static final class HomeUsage {
+
+        /**
+         * Declare the number of teleports to the home and when it was last teleported to, in
+         * milliseconds since the epoch.
+         */
+        private final LongAdder uses = new LongAdder();
+        private volatile long lastUsed = 0;
+    }
+
+    /**
+     * This class represents the homes of a single player that are loaded in memory.
+     */
+    private final class PlayerHomes {
+
+        /**
+         * Declare the player's homes, the usage of each home, the prefix index of their home
+         * names used for tab completion, and the background writer that saves them to the
+         * player's file.
+         */
+        private final Map<String, StoredLocation> homes;
+        private final Map<String, HomeUsage> usage = new HashMap<>();
+        private final PrefixIndex names = new PrefixIndex();
+        private final SnapshotWriter<PlayerFile> writer;
+
+        /**
+         * Declare the number of the player's homes that were teleported to and whether the usage
+         * changed since the player's file was last saved.
+         */
+        private int usedHomeCount = 0;
+        private boolean usageChanged = false;
+
+        /**
+         * Makes the loaded homes of a player.
+         *
+         * @param playerUUID The UUID of the player the homes belong to.
+         * @param playerFile The contents of the player's file.
+         */
+        private PlayerHomes(UUID playerUUID, PlayerFile playerFile) {
+            this.homes = playerFile.homes;
+
+            // Index every home and give it a usage counter, starting from its usage in the file.
+            for (String homeName : homes.keySet()) {
+                HomeUsage counter = track(homeName);
+                long[] fileUsage = playerFile.usage.get(homeName);
+
+                if (fileUsage != null && fileUsage[0] > 0) {
+                    counter.uses.add(fileUsage[0]);
+                    counter.lastUsed = fileUsage[1];
+                    usedHomeCount++;
+                }
+            }
+
+            this.writer = new SnapshotWriter<>(getPlayerFile(playerUUID).toFile(), saveDelay,
+                    this::snapshot, MultihomeDatabase::serializePlayerFile);
+            writer.onExternalEdit(contents -> mergeEditedFile(playerUUID, contents));
+
+            // Remember what the player's file held, so edits made to it later can be merged.
+            if (playerFile.digest != null) {
+                writer.acknowledge(playerFile.digest,
+                        new PlayerFile(new LinkedHashMap<>(homes), playerFile.usage));
+            }
+        }
+
+        /**
+         * Takes a snapshot of the player's homes and their usage to save to the player's file.
+         *
+         * @return The snapshot of the player's file.
+         */
+        private PlayerFile snapshot() {
+            Map<String, long[]> usageSnapshot = new HashMap<>();
+
+            // Only save the usage of the homes that were teleported to.
+            for (Map.Entry<String, HomeUsage> homeUsage : usage.entrySet()) {
+                long uses = homeUsage.getValue().uses.sum();
+
+                if (uses > 0) {
+                    usageSnapshot.put(homeUsage.getKey(),
+                            new long[] {uses, homeUsage.getValue().lastUsed});
+                }
+            }
+
+            usageChanged = false;
+            return new PlayerFile(new LinkedHashMap<>(homes), usageSnapshot);
+        }
+
+        /**
+         * Adds a home to the index of home names and gives it a usage counter, unless it already
+         * has them.
+         *
+         * @param homeName The name of the home.
+         *
+         * @return The usage counter of the home.
+         */
+        private HomeUsage track(String homeName) {
+            names.add(homeName);
+            return usage.computeIfAbsent(homeName, name -> new HomeUsage());
+        }
+    }
+
+    /**
+     * Declare and initialize the paths of the old single-file multihome database and the
+     * multihome directory holding every player's file.
      */
     private final String multihomeDatabasePath =
             EverythingPlugin.getPluginFolderPath() + "/" + EverythingPlugin.getMultihomeDBName();
-    private FileConfiguration multihomeDatabase = null;
-    private File multihomeDatabaseFile = null;
+    private final String multihomeDirectoryPath =
+            EverythingPlugin.getPluginFolderPath() + "/" + EverythingPlugin.getMultihomeDirName();
 
     /**
-     * Loads an existing multihome database or, if necessary, creates a new database if one doesn't
-     * exist.
+     * Declare the delay before changes are saved and the number of offline players whose homes are
+     * kept in memory.
      */
-    public MultihomeDatabase() {
-        // Make the file object to reference the multihome database.
-        multihomeDatabaseFile = new File(multihomeDatabasePath);
+    private final long saveDelay =
+            EverythingPlugin.getPlugin().getConfig().getLong("storage.yaml-save-delay", 40L);
+    private final int cacheSize =
+            EverythingPlugin.getPlugin().getConfig().getInt("storage.multihome-cache-size", 200);
+
+    /**
+     * Declare the homes loaded in memory, from least to most recently used, and the online players
+     * whose homes should be kept loaded. These are only used on the main thread.
+     */
+    private final Map<UUID, PlayerHomes> loadedHomes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<UUID> onlinePlayers = new HashSet<>();
 
-        // Check if the multihome database exists.
-        if (!multihomeDatabaseExists()) {
-            // Create and initialize a new multihome database.
+    /**
+     * Declare how long (in milliseconds) a player may take to join after their homes were read.
+     * A player who takes longer, such as one who disconnected before the login finished, is
+     * treated as no longer logging in.
+     */
+    private static final long PRELOAD_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Declare the players currently logging in, with the time each started logging in, and the
+     * homes read for them before they join. These are filled in from the asynchronous pre-login
+     * thread.
+     */
+    private final Map<UUID, Long> preloadingPlayers = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerFile> preloadedHomes = new ConcurrentHashMap<>();
+
+    /**
+     * Declare the multihome usage statistics file, the totals across every player kept in it,
+     * and whether the totals changed since they were last saved. These are only used on the main
+     * thread.
+     */
+    private final File homeUsageFile = new File(EverythingPlugin.getPluginFolderPath(),
+            EverythingPlugin.getMultihomeUsageName());
+    private long homeTeleports = 0;
+    private int usedHomes = 0;
+    private int homeUsers = 0;
+    private boolean totalsChanged = false;
+
+    /**
+     * Declare the background writer that saves the usage totals and the periodic task that saves
+     * changed usage.
+     */
+    private final SnapshotWriter<long[]> homeUsageWriter = new SnapshotWriter<>(homeUsageFile,
+            0L, () -> new long[] {homeTeleports, usedHomes, homeUsers},
+            MultihomeDatabase::serializeHomeUsage);
+    private final BukkitTask homeUsageSaveTask;
+
+    /**
+     * Connects to the existing multihome directory or, if necessary, creates a new one if it
+     * doesn't exist. A multihome database from an older version of this plugin is split into
+     * per-player files the first time.
+     */
+    public MultihomeDatabase() {
+        // Check if the multihome directory already exists.
+        if (!multihomeDirectoryExists()) {
+            // Create a new multihome directory.
             EverythingPlugin.getEPLogger().info("No multihome database detected! Creating a new " +
                     "multihome database...");
-            createMultihomeDatabase();
+            createMultihomeDirectory();
         }
-        // The multihome database exists.
+        // The multihome directory exists.
         else {
-            // Load the existing multihome database.
             EverythingPlugin.getEPLogger().info("Connecting to the existing multihome database...");
-            multihomeDatabase = YamlConfiguration.loadConfiguration(multihomeDatabaseFile);
-            EverythingPlugin.getEPLogger().info("Connected to the existing multihome database " +
-                    "successfully!");
         }
+
+        // Split the old single-file multihome database into per-player files.
+        if (oldMultihomeDatabaseExists()) {
+            migrateMultihomeDatabase();
+        }
+
+        // Load the home usage totals, moving older per-player usage into the players' files.
+        loadHomeUsage();
+
+        // Save changed home usage periodically.
+        long saveInterval = Math.max(20,
+                EverythingPlugin.getPlugin().getConfig().getLong("analytics.save-interval", 6000L));
+        homeUsageSaveTask = Bukkit.getScheduler().runTaskTimer(EverythingPlugin.getPlugin(),
+                this::saveChangedHomeUsage, saveInterval, saveInterval);
+
+        // Load the homes of players who are already online, such as after a reload, a few players
+        // each tick. Homes needed before then are read when they're needed.
+        EverythingPlugin.getTickScheduler().submitEach("multihome load",
+                Bukkit.getOnlinePlayers(), player -> {
+                    if (player.isOnline()) {
+                        loadPlayer(player.getUniqueId());
+                    }
+                });
+    }
+
+    /**
+     * Reads the homes of a logging in player from their file, so their homes are ready by the time
+     * they join. This reads from the disk, so it must only be called from an asynchronous thread
+     * such as the pre-login thread.
+     *
+     * @param playerUUID The UUID of the player logging in.
+     */
+    public void preloadPlayer(UUID playerUUID) {
+        // Keep the player's homes in memory while they log in. Homes still in memory from their
+        // last visit may be newer than their file, so they must not be dropped before the player
+        // joins and picks them up instead of the homes read here.
+        preloadingPlayers.put(playerUUID, System.currentTimeMillis());
+        preloadedHomes.put(playerUUID, readPlayerFile(playerUUID));
+    }
+
+    /**
+     * Discards the homes read for a player whose login was denied. Players who disconnect before
+     * their login is decided are discarded once {@link #PRELOAD_TIMEOUT_MILLIS} has passed.
+     *
+     * @param playerUUID The UUID of the player whose login was denied.
+     */
+    public void discardPreloadedPlayer(UUID playerUUID) {
+        preloadingPlayers.remove(playerUUID);
+        preloadedHomes.remove(playerUUID);
+        trimLoadedHomes();
+    }
+
+    /**
+     * Loads a joining player's homes into memory. Homes read while the player logged in are picked
+     * up right away, and homes still in memory from an earlier visit are newer than their file.
+     *
+     * @param playerUUID The UUID of the joining player.
+     */
+    public void loadPlayer(UUID playerUUID) {
+        onlinePlayers.add(playerUUID);
+        preloadingPlayers.remove(playerUUID);
+        PlayerFile preloaded = preloadedHomes.remove(playerUUID);
+
+        // Load the player's homes unless they're still in memory.
+        if (!loadedHomes.containsKey(playerUUID)) {
+            loadedHomes.put(playerUUID, new PlayerHomes(playerUUID,
+                    preloaded != null ? preloaded : readPlayerFile(playerUUID)));
+        }
+
+        trimLoadedHomes();
+    }
+
+    /**
+     * Marks a player's homes as unneeded once the player leaves. Their homes stay in memory among
+     * the other offline players' homes, and are dropped once too many are loaded and any unsaved
+     * changes have been saved.
+     *
+     * @param playerUUID The UUID of the player who left.
+     */
+    public void unloadPlayer(UUID playerUUID) {
+        onlinePlayers.remove(playerUUID);
+
+        // Save the player's home usage before their homes can be dropped.
+        PlayerHomes playerHomes = loadedHomes.get(playerUUID);
+
+        if (playerHomes != null && playerHomes.usageChanged) {
+            playerHomes.writer.markDirty();
+        }
+
+        trimLoadedHomes();
     }
 
     /**
@@ -69,20 +383,15 @@ public class MultihomeDatabase {
      * @param home       The location of the home to save.
      * @param homeName   The name of the home.
      */
-    public void insertHome(String playerUUID, Location home, String homeName) {
+    public void insertHome(UUID playerUUID, Location home, String homeName) {
         // Insert the home location into the multihome database labeled with the provided home
         // name for the provided player UUID.
-        multihomeDatabase.set("multihomes." + playerUUID + "." + homeName + ".world",
-                Objects.requireNonNull(home.getWorld()).getName());
-        multihomeDatabase.set("multihomes." + playerUUID + "." + homeName + ".x", home.getX());
-        multihomeDatabase.set("multihomes." + playerUUID + "." + homeName + ".y", home.getY());
-        multihomeDatabase.set("multihomes." + playerUUID + "." + homeName + ".z", home.getZ());
-        multihomeDatabase.set("multihomes." + playerUUID + "." + homeName + ".yaw", home.getYaw());
-        multihomeDatabase.set("multihomes." + playerUUID + "." + homeName + ".pitch",
-                home.getPitch());
+        PlayerHomes playerHomes = getPlayerHomes(playerUUID);
+        playerHomes.homes.put(homeName, StoredLocation.fromLocation(home));
+        playerHomes.track(homeName);
 
-        // Save the home to the multihome database.
-        saveMultihomeDatabase();
+        // Save the player's homes in the background.
+        playerHomes.writer.markDirty();
     }
 
     /**
@@ -94,21 +403,13 @@ public class MultihomeDatabase {
      * @return The location of a stored home or null if the home doesn't exist in the multihome
      * database.
      */
-    public Location getHome(String playerUUID, String homeName) {
-        // Check if the home exists in the multihome database.
-        if (multihomeDatabase.get("multihomes." + playerUUID + "." + homeName) == null) {
-            // Return null since the home doesn't exist in the multihome database.
-            return null;
-        }
+    public Location getHome(UUID playerUUID, String homeName) {
+        // Look up the home in the player's homes.
+        StoredLocation home = getPlayerHomes(playerUUID).homes.get(homeName);
 
-        // Return the location of the home from the multihome database.
-        return new Location(
-                Bukkit.getWorld(Objects.requireNonNull(multihomeDatabase.getString("multihomes." + playerUUID + "." + homeName + ".world"))),
-                multihomeDatabase.getDouble("multihomes." + playerUUID + "." + homeName + ".x"),
-                multihomeDatabase.getDouble("multihomes." + playerUUID + "." + homeName + ".y"),
-                multihomeDatabase.getDouble("multihomes." + playerUUID + "." + homeName + ".z"),
-                Float.parseFloat(Objects.requireNonNull(multihomeDatabase.getString("multihomes." + playerUUID + "." + homeName + ".yaw"))),
-                Float.parseFloat(Objects.requireNonNull(multihomeDatabase.getString("multihomes." + playerUUID + "." + homeName + ".pitch"))));
+        // Return null if the home doesn't exist in the multihome database, otherwise return a new
+        // location for the home.
+        return home == null ? null : home.toLocation();
     }
 
     /**
@@ -121,18 +422,82 @@ public class MultihomeDatabase {
      * @return True if the home was removed successfully, false if the home doesn't exist in the
      * multihome database.
      */
-    public boolean removeHome(String playerUUID, String homeName) {
-        // Check if the home exists in the multihome database.
-        if (multihomeDatabase.get("multihomes." + playerUUID + "." + homeName) == null) {
+    public boolean removeHome(UUID playerUUID, String homeName) {
+        // Delete the home from the player's homes if it exists.
+        PlayerHomes playerHomes = getPlayerHomes(playerUUID);
+
+        if (playerHomes.homes.remove(homeName) == null) {
             return false;
         }
 
-        // Delete the home from the multihome database.
-        multihomeDatabase.set("multihomes." + playerUUID + "." + homeName, null);
-        saveMultihomeDatabase();
+        playerHomes.names.remove(homeName);
+        forgetHomeUse(playerHomes, homeName);
+        playerHomes.writer.markDirty();
         return true;
     }
 
+    /**
+     * Records a teleport to a player's home in the home usage statistics. The usage is saved to
+     * the player's file periodically, or when they leave. This only touches homes already in
+     * memory and never allocates anything.
+     *
+     * @param playerUUID The UUID of the player who owns the home.
+     * @param homeName   The name of the home that was teleported to.
+     */
+    public void recordHomeUse(UUID playerUUID, String homeName) {
+        // Find the home's usage. The homes of a player who just teleported are in memory, and the
+        // home may have been removed during the teleport.
+        PlayerHomes playerHomes = loadedHomes.get(playerUUID);
+        HomeUsage usage = playerHomes == null ? null : playerHomes.usage.get(homeName);
+
+        if (usage == null) {
+            return;
+        }
+
+        // Count the home in the totals the first time it's used.
+        if (usage.uses.sum() == 0) {
+            usedHomes++;
+
+            if (playerHomes.usedHomeCount++ == 0) {
+                homeUsers++;
+            }
+        }
+
+        // Count the teleport.
+        usage.uses.increment();
+        usage.lastUsed = System.currentTimeMillis();
+        homeTeleports++;
+        playerHomes.usageChanged = true;
+        totalsChanged = true;
+    }
+
+    /**
+     * Returns the number of teleports to the homes that still exist, across every player.
+     *
+     * @return The number of teleports to homes.
+     */
+    public long getHomeTeleportCount() {
+        return homeTeleports;
+    }
+
+    /**
+     * Returns the number of homes that have been teleported to, across every player.
+     *
+     * @return The number of homes that have been teleported to.
+     */
+    public int getUsedHomeCount() {
+        return usedHomes;
+    }
+
+    /**
+     * Returns the number of players who have teleported to any of their homes.
+     *
+     * @return The number of players who have teleported to their homes.
+     */
+    public int getHomeUserCount() {
+        return homeUsers;
+    }
+
     /**
      * Returns a set of Strings containing all the home names stored in the database for the
      * provided player UUID.
@@ -142,93 +507,692 @@ public class MultihomeDatabase {
      * @return A set of Strings containing all the home names stored in the database for the
      * provided player UUID.
      */
-    public Set<String> listHomes(String playerUUID) {
-        // Get the section of homes from the multihome database for the player.
-        ConfigurationSection homes =
-                multihomeDatabase.getConfigurationSection("multihomes." + playerUUID);
+    public Set<String> listHomes(UUID playerUUID) {
+        return Collections.unmodifiableSet(getPlayerHomes(playerUUID).homes.keySet());
+    }
 
-        // Return the empty set if there are no homes in the multihome database for the provided
-        // player UUID, otherwise return the set of all homes for the provided player UUID in the
-        // multihome database.
-        return homes == null ? Collections.emptySet() : homes.getKeys(false);
+    /**
+     * Returns the names of the provided player's homes that start with the given prefix, ignoring
+     * case.
+     *
+     * @param playerUUID The UUID of the player to complete home names for.
+     * @param prefix     The prefix of the home names to return.
+     *
+     * @return The names of the player's homes that start with the prefix, sorted without regard
+     * to case.
+     */
+    public List<String> completeHomes(UUID playerUUID, String prefix) {
+        return getPlayerHomes(playerUUID).names.complete(prefix);
     }
 
     /**
-     * Saves the multihome database.
+     * Saves any unsaved changes to the multihome database and its usage statistics right away
+     * instead of waiting for the background writers. This is used when the plugin is disabled.
      *
      * @return True if the multihome database was saved successfully, false otherwise.
      */
     public boolean saveMultihomeDatabase() {
-        // Try to save the multihome database.
+        boolean saved = true;
+
+        // Stop saving home usage periodically and mark any changed usage as unsaved.
+        homeUsageSaveTask.cancel();
+        saveChangedHomeUsage();
+
+        // Save every player's homes that have unsaved changes.
+        for (PlayerHomes playerHomes : loadedHomes.values()) {
+            saved &= playerHomes.writer.saveNow();
+        }
+
+        return saved & homeUsageWriter.saveNow();
+    }
+
+    /**
+     * Reloads the multihome database. The homes of every player in memory are read from their
+     * files a few players each tick through the tick scheduler, so reloading many players doesn't
+     * stall the server.
+     *
+     * @return A future completed on the main thread with true if the multihome database was
+     *         reloaded successfully, false otherwise.
+     */
+    public CompletableFuture<Boolean> reloadMultihomeDatabase() {
+        // Try to reload the homes of every player in memory from their files.
+        EverythingPlugin.getEPLogger().info("Reloading the multihome database...");
+        AtomicBoolean reloaded = new AtomicBoolean(true);
+
+        return EverythingPlugin.getTickScheduler().submitEach("multihome reload",
+                loadedHomes.keySet(), playerUUID -> {
+                    // Try to reload the player's homes from their file.
+                    try {
+                        PlayerFile playerFile = parsePlayerFile(playerUUID);
+                        applyHomeChanges(playerUUID, playerFile.homes, playerFile.digest);
+                    }
+                    // An error occurred reading the player's file, or it isn't valid YAML. Keep
+                    // their homes in memory until it's fixed.
+                    catch (IOException | InvalidConfigurationException e) {
+                        EverythingPlugin.getEPLogger().warning("An error occurred reloading the " +
+                                "homes of " + playerUUID + "! Their homes in memory were kept.");
+                        reloaded.set(false);
+                    }
+                }).thenApply(done -> {
+                    // Check if the multihome database was reloaded successfully.
+                    if (reloaded.get()) {
+                        EverythingPlugin.getEPLogger().info("Reloaded the multihome database " +
+                                "successfully!");
+                    }
+                    else {
+                        EverythingPlugin.getEPLogger().info(ChatColor.RED + "An error occurred " +
+                                "reloading the multihome database file!");
+                    }
+
+                    return reloaded.get();
+                });
+    }
+
+    /**
+     * Merges the homes read from a player's file into their homes in memory, only touching the
+     * homes that were added, moved, or removed in the file since it was last saved or read. A home
+     * that was also changed in game since then keeps the change made in game, and a warning names
+     * it. Any changes the file is missing are saved to it. Players whose homes aren't in memory are
+     * skipped, since their homes are read from their file when they're needed. This must be called
+     * from the main thread.
+     *
+     * @param playerUUID The UUID of the player whose file was read.
+     * @param fileHomes  The homes read from the player's file.
+     * @param fileDigest The digest of the player's file contents, or null. If it matches the
+     *                   contents this plugin last wrote or read, nothing is changed.
+     *
+     * @return The number of homes that were added, moved, or removed.
+     */
+    public int applyHomeChanges(UUID playerUUID, Map<String, StoredLocation> fileHomes,
+                                byte[] fileDigest) {
+        // Check if the player's homes are in memory and their file was last written or read by
+        // someone else.
+        PlayerHomes playerHomes = loadedHomes.get(playerUUID);
+
+        if (playerHomes == null ||
+                (fileDigest != null && playerHomes.writer.isLastWritten(fileDigest))) {
+            return 0;
+        }
+
+        // Compare every home in memory or in the file with how it was last saved, to tell edits
+        // made in the file apart from changes made in game.
+        PlayerFile savedFile = playerHomes.writer.getSavedSnapshot();
+        Set<String> homeNames = new LinkedHashSet<>(playerHomes.homes.keySet());
+        homeNames.addAll(fileHomes.keySet());
+        List<String> conflicts = new ArrayList<>();
+        int changes = 0;
+
+        for (String homeName : homeNames) {
+            StoredLocation fileHome = fileHomes.get(homeName);
+            StoredLocation memoryHome = playerHomes.homes.get(homeName);
+            StoredLocation savedHome = savedFile == null ? memoryHome :
+                    savedFile.homes.get(homeName);
+
+            // Check if the home was edited in the file.
+            if (Objects.equals(fileHome, memoryHome) || Objects.equals(fileHome, savedHome)) {
+                continue;
+            }
+
+            // Keep the change made in game if the home was changed in game too.
+            if (!Objects.equals(memoryHome, savedHome)) {
+                conflicts.add(homeName);
+                continue;
+            }
+
+            // Apply the edit made in the file.
+            if (fileHome == null) {
+                playerHomes.homes.remove(homeName);
+                playerHomes.names.remove(homeName);
+                forgetHomeUse(playerHomes, homeName);
+            }
+            else {
+                playerHomes.homes.put(homeName, fileHome);
+                playerHomes.track(homeName);
+            }
+
+            changes++;
+        }
+
+        // Remember what the file holds now, and save the changes it's missing.
+        if (fileDigest != null) {
+            playerHomes.writer.acknowledge(fileDigest,
+                    new PlayerFile(new LinkedHashMap<>(fileHomes), new HashMap<>()));
+        }
+
+        if (!conflicts.isEmpty()) {
+            EverythingPlugin.getEPLogger().warning("The home(s) " + String.join(", ", conflicts) +
+                    " of " + playerUUID + " were changed both in game and in their file. The " +
+                    "changes made in game were kept.");
+        }
+
+        if (!playerHomes.homes.equals(fileHomes)) {
+            playerHomes.writer.markDirty();
+        }
+
+        return changes;
+    }
+
+    /**
+     * Merges an edit made to a player's file while changes were waiting to be saved. An edit that
+     * isn't valid YAML can't be merged, so it's overwritten by the homes in memory. This is called
+     * by the player's background writer on the main thread.
+     *
+     * @param playerUUID The UUID of the player whose file was edited.
+     * @param contents   The edited contents of the player's file.
+     */
+    private void mergeEditedFile(UUID playerUUID, byte[] contents) {
+        PlayerHomes playerHomes = loadedHomes.get(playerUUID);
+
+        // Try to parse the edited file and merge it.
         try {
-            multihomeDatabase.save(multihomeDatabaseFile);
+            applyHomeChanges(playerUUID, parsePlayerFile(playerUUID, contents).homes,
+                    SnapshotWriter.digest(contents));
         }
-        // An error occurred while trying to save the multihome database.
-        catch (IOException e) {
-            EverythingPlugin.getEPLogger().info(ChatColor.RED + "An error occurred saving the " +
-                    "multihome database file!");
-            return false;
+        // The edited file isn't valid YAML. Save the homes in memory over it.
+        catch (InvalidConfigurationException e) {
+            EverythingPlugin.getEPLogger().warning("The edited homes file of " + playerUUID +
+                    " isn't valid YAML! It will be overwritten by the homes in memory.");
+
+            if (playerHomes != null) {
+                playerHomes.writer.acknowledge(SnapshotWriter.digest(contents),
+                        playerHomes.writer.getSavedSnapshot());
+                playerHomes.writer.markDirty();
+            }
         }
+    }
 
-        // The multihome database was saved successfully.
-        return true;
+    /**
+     * Gets a player's homes from memory, or reads them from the player's file if they aren't
+     * loaded.
+     *
+     * @param playerUUID The UUID of the player to get the homes of.
+     *
+     * @return The player's homes.
+     */
+    private PlayerHomes getPlayerHomes(UUID playerUUID) {
+        // Check if the player's homes are already in memory.
+        PlayerHomes playerHomes = loadedHomes.get(playerUUID);
+
+        if (playerHomes != null) {
+            return playerHomes;
+        }
+
+        // Read the player's homes from their file.
+        playerHomes = new PlayerHomes(playerUUID, readPlayerFile(playerUUID));
+        loadedHomes.put(playerUUID, playerHomes);
+        trimLoadedHomes();
+        return playerHomes;
     }
 
     /**
-     * Reloads the multihome database.
+     * Forgets the usage of one of a player's homes, such as when it's removed, taking it out of
+     * the totals.
      *
-     * @return True if the multihome database was reloaded successfully, false otherwise.
+     * @param playerHomes The player's homes.
+     * @param homeName    The name of the home.
      */
-    public boolean reloadMultihomeDatabase() {
-        // Try to reload the multihome database.
-        EverythingPlugin.getEPLogger().info("Reloading the multihome database...");
+    private void forgetHomeUse(PlayerHomes playerHomes, String homeName) {
+        // Check if the home was ever used.
+        HomeUsage usage = playerHomes.usage.remove(homeName);
+        long uses = usage == null ? 0 : usage.uses.sum();
+
+        if (uses == 0) {
+            return;
+        }
+
+        // Take the home out of the totals.
+        homeTeleports = Math.max(0, homeTeleports - uses);
+        usedHomes = Math.max(0, usedHomes - 1);
+
+        if (--playerHomes.usedHomeCount == 0) {
+            homeUsers = Math.max(0, homeUsers - 1);
+        }
+
+        playerHomes.usageChanged = true;
+        totalsChanged = true;
+    }
+
+    /**
+     * Has the background writers save the players' files whose home usage changed, and the usage
+     * totals if they changed. Homes that are no longer needed are dropped from memory as well.
+     */
+    private void saveChangedHomeUsage() {
+        for (PlayerHomes playerHomes : loadedHomes.values()) {
+            if (playerHomes.usageChanged) {
+                playerHomes.writer.markDirty();
+            }
+        }
+
+        if (totalsChanged) {
+            totalsChanged = false;
+            homeUsageWriter.markDirty();
+        }
+
+        trimLoadedHomes();
+    }
+
+    /**
+     * Drops the homes of offline players from memory, least recently used first, while more than
+     * the cache size of them are loaded. The homes of online players and players logging in, and
+     * homes with unsaved changes, are never dropped. Players who started logging in too long ago
+     * to still be joining are no longer treated as logging in.
+     */
+    private void trimLoadedHomes() {
+        // Discard the players who started logging in too long ago to still be joining.
+        long abandonedBefore = System.currentTimeMillis() - PRELOAD_TIMEOUT_MILLIS;
+        preloadingPlayers.values().removeIf(startedAt -> startedAt < abandonedBefore);
+        preloadedHomes.keySet().removeIf(playerUUID -> !preloadingPlayers.containsKey(playerUUID));
+
+        // Count the offline players whose homes are loaded.
+        int offlineHomes = 0;
+
+        for (UUID playerUUID : loadedHomes.keySet()) {
+            if (isDroppable(playerUUID)) {
+                offlineHomes++;
+            }
+        }
+
+        // Drop the least recently used offline players' homes until few enough are left.
+        for (Iterator<Map.Entry<UUID, PlayerHomes>> it = loadedHomes.entrySet().iterator();
+             it.hasNext() && offlineHomes > cacheSize; ) {
+            Map.Entry<UUID, PlayerHomes> playerHomes = it.next();
+
+            if (isDroppable(playerHomes.getKey()) &&
+                    !playerHomes.getValue().writer.hasUnsavedChanges()) {
+                it.remove();
+                offlineHomes--;
+            }
+        }
+    }
 
+    /**
+     * Checks if a player's homes may be dropped from memory, which they may while the player is
+     * neither online nor logging in.
+     *
+     * @param playerUUID The UUID of the player.
+     *
+     * @return True if the player's homes may be dropped, false otherwise.
+     */
+    private boolean isDroppable(UUID playerUUID) {
+        return !onlinePlayers.contains(playerUUID) && !preloadingPlayers.containsKey(playerUUID);
+    }
+
+    /**
+     * Reads a player's homes and their usage from their file. A file that can't be read or isn't
+     * valid YAML is logged and read as empty. This reads from the disk and only touches the
+     * player's file, so it may be called from any thread.
+     *
+     * @param playerUUID The UUID of the player to read the file of.
+     *
+     * @return The contents of the player's file, which are empty if the player has no file.
+     */
+    private PlayerFile readPlayerFile(UUID playerUUID) {
+        // Try to read the player's file.
         try {
-            multihomeDatabase = YamlConfiguration.loadConfiguration(multihomeDatabaseFile);
+            return parsePlayerFile(playerUUID);
         }
-        // An error occurred while trying to reload the multihome database.
-        catch (IllegalArgumentException e) {
-            EverythingPlugin.getEPLogger().info(ChatColor.RED + "An error occurred reloading the " +
-                    "multihome database file!");
-            return false;
+        // An error occurred reading the player's file, or it isn't valid YAML.
+        catch (IOException | InvalidConfigurationException e) {
+            EverythingPlugin.getEPLogger().warning("An error occurred reading the homes of " +
+                    playerUUID + "!");
+            EverythingPlugin.getEPLogger().warning(e.getMessage());
+            return new PlayerFile(new LinkedHashMap<>(), new HashMap<>());
         }
+    }
 
-        // The multihome database was reloaded successfully.
-        EverythingPlugin.getEPLogger().info("Reloaded the multihome database successfully!");
-        return true;
+    /**
+     * Reads a player's homes and their usage from their file. This reads from the disk and only
+     * touches the player's file, so it may be called from any thread.
+     *
+     * @param playerUUID The UUID of the player to read the file of.
+     *
+     * @return The contents of the player's file, which are empty if the player has no file.
+     *
+     * @throws IOException                   If an error occurs reading the player's file.
+     * @throws InvalidConfigurationException If the player's file isn't valid YAML.
+     */
+    private PlayerFile parsePlayerFile(UUID playerUUID)
+            throws IOException, InvalidConfigurationException {
+        byte[] contents;
+
+        // Try to read the player's file.
+        try {
+            contents = Files.readAllBytes(getPlayerFile(playerUUID));
+        }
+        // The player has no file yet, so they have no homes.
+        catch (NoSuchFileException e) {
+            contents = new byte[0];
+        }
+
+        return parsePlayerFile(playerUUID, contents);
     }
 
     /**
-     * Creates a new multihome database.
+     * Parses a player's homes and their usage from the contents of their file. This only touches
+     * the contents, so it may be called from any thread.
+     *
+     * @param playerUUID The UUID of the player the file belongs to.
+     * @param contents   The contents of the player's file.
+     *
+     * @return The contents of the player's file.
      *
-     * @return True if a new multihome database was created successfully, false otherwise.
+     * @throws InvalidConfigurationException If the player's file isn't valid YAML.
      */
-    private boolean createMultihomeDatabase() {
-        // Try to create a new multihome database file.
+    private static PlayerFile parsePlayerFile(UUID playerUUID, byte[] contents)
+            throws InvalidConfigurationException {
+        YamlConfiguration playerConfig = new YamlConfiguration();
+        playerConfig.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        Map<String, StoredLocation> homes = loadHomes(
+                playerConfig.getConfigurationSection("homes"), playerUUID.toString());
+        Map<String, long[]> usage = new HashMap<>();
+        ConfigurationSection usageSection = playerConfig.getConfigurationSection("usage");
+
+        // Read the usage of each home that still exists.
+        if (usageSection != null) {
+            for (String homeName : usageSection.getKeys(false)) {
+                if (homes.containsKey(homeName)) {
+                    usage.put(homeName, new long[] {usageSection.getLong(homeName + ".uses"),
+                            usageSection.getLong(homeName + ".last-used")});
+                }
+            }
+        }
+
+        return new PlayerFile(homes, usage, SnapshotWriter.digest(contents));
+    }
+
+    /**
+     * Reads every valid home in a YAML section. This only touches the YAML section, so it may be
+     * called from any thread.
+     *
+     * @param homeSection The YAML section holding the homes, or null if there are none.
+     * @param playerUUID  The UUID of the player the homes belong to, used in warnings.
+     *
+     * @return The homes in the YAML section.
+     */
+    static Map<String, StoredLocation> loadHomes(ConfigurationSection homeSection,
+                                                 String playerUUID) {
+        Map<String, StoredLocation> homes = new LinkedHashMap<>();
+
+        // Check if there are any homes in the section.
+        if (homeSection == null) {
+            return homes;
+        }
+
+        // Add every valid home.
+        for (String homeName : homeSection.getKeys(false)) {
+            ConfigurationSection section = homeSection.getConfigurationSection(homeName);
+            StoredLocation home = section == null ? null : StoredLocation.load(section);
+
+            if (home == null) {
+                EverythingPlugin.getEPLogger().warning("Skipping the invalid home " + homeName +
+                        " of " + playerUUID + " in the multihome database.");
+                continue;
+            }
+
+            homes.put(homeName, home);
+        }
+
+        return homes;
+    }
+
+    /**
+     * Turns a snapshot of a player's homes and their usage into the contents of their file.
+     *
+     * @param snapshot The snapshot of the player's file.
+     *
+     * @return The YAML contents of the player's file.
+     */
+    private static String serializePlayerFile(PlayerFile snapshot) {
+        YamlConfiguration playerFile = new YamlConfiguration();
+        ConfigurationSection homeSection = playerFile.createSection("homes");
+
+        for (Map.Entry<String, StoredLocation> home : snapshot.homes.entrySet()) {
+            home.getValue().save(homeSection.createSection(home.getKey()));
+        }
+
+        // Add the usage of each home that was teleported to.
+        if (!snapshot.usage.isEmpty()) {
+            ConfigurationSection usageSection = playerFile.createSection("usage");
+
+            for (Map.Entry<String, long[]> homeUsage : snapshot.usage.entrySet()) {
+                ConfigurationSection section = usageSection.createSection(homeUsage.getKey());
+                section.set("uses", homeUsage.getValue()[0]);
+                section.set("last-used", homeUsage.getValue()[1]);
+            }
+        }
+
+        return playerFile.saveToString();
+    }
+
+    /**
+     * Turns a snapshot of the home usage totals into the contents of the multihome usage
+     * statistics file.
+     *
+     * @param snapshot The number of teleports to homes, the number of homes teleported to, and the
+     *                 number of players who teleported to their homes.
+     *
+     * @return The YAML contents of the multihome usage statistics file.
+     */
+    private static String serializeHomeUsage(long[] snapshot) {
+        YamlConfiguration usageFile = new YamlConfiguration();
+        usageFile.set("teleports", snapshot[0]);
+        usageFile.set("homes", snapshot[1]);
+        usageFile.set("players", snapshot[2]);
+        return usageFile.saveToString();
+    }
+
+    /**
+     * Loads the home usage totals from the multihome usage statistics file. A file from an older
+     * version of this plugin, which kept the usage of every player's homes, has each player's
+     * usage moved into their own file first.
+     */
+    private void loadHomeUsage() {
+        // Check if there are any home usage statistics yet.
+        if (!homeUsageFile.exists()) {
+            return;
+        }
+
+        YamlConfiguration usageFile = YamlConfiguration.loadConfiguration(homeUsageFile);
+
+        // Check if the file is from an older version of this plugin.
+        if (!usageFile.contains("teleports")) {
+            migrateHomeUsage(usageFile);
+            return;
+        }
+
+        homeTeleports = usageFile.getLong("teleports");
+        usedHomes = usageFile.getInt("homes");
+        homeUsers = usageFile.getInt("players");
+    }
+
+    /**
+     * Moves the usage of every player's homes from a multihome usage statistics file from an
+     * older version of this plugin into each player's file, and adds it up into the totals.
+     * Usage of homes that don't exist anymore is dropped. Moving the usage again after an
+     * interruption writes the same usage, so it can safely run again.
+     *
+     * @param usageFile The loaded multihome usage statistics file from an older version.
+     */
+    private void migrateHomeUsage(YamlConfiguration usageFile) {
+        EverythingPlugin.getEPLogger().info("Moving home usage statistics into per-player " +
+                "files...");
+
+        // Try to move each player's usage into their file.
+        try {
+            for (String playerName : usageFile.getKeys(false)) {
+                ConfigurationSection oldUsage = usageFile.getConfigurationSection(playerName);
+                File playerFile;
+
+                // Try to read the player's UUID.
+                try {
+                    playerFile = getPlayerFile(UUID.fromString(playerName)).toFile();
+                }
+                // The usage statistics held something that isn't a UUID.
+                catch (IllegalArgumentException e) {
+                    playerFile = null;
+                }
+
+                if (playerFile == null || oldUsage == null) {
+                    EverythingPlugin.getEPLogger().warning("Skipping the invalid usage " +
+                            "statistics of " + playerName + ".");
+                    continue;
+                }
+
+                // Check if the player still has any homes.
+                if (!playerFile.exists()) {
+                    continue;
+                }
+
+                // Add the usage of each home the player still has to their file.
+                YamlConfiguration playerConfig = YamlConfiguration.loadConfiguration(playerFile);
+                ConfigurationSection homeSection = playerConfig.getConfigurationSection("homes");
+                int movedHomes = 0;
+
+                for (String homeName : oldUsage.getKeys(false)) {
+                    long uses = oldUsage.getLong(homeName + ".uses");
+
+                    if (homeSection == null || !homeSection.contains(homeName) || uses <= 0) {
+                        continue;
+                    }
+
+                    playerConfig.set("usage." + homeName + ".uses", uses);
+                    playerConfig.set("usage." + homeName + ".last-used",
+                            oldUsage.getLong(homeName + ".last-used"));
+                    homeTeleports += uses;
+                    usedHomes++;
+                    movedHomes++;
+                }
+
+                if (movedHomes > 0) {
+                    playerConfig.save(playerFile);
+                    homeUsers++;
+                }
+            }
+        }
+        // An error occurred moving the usage. It's tried again next time.
+        catch (IOException e) {
+            EverythingPlugin.getEPLogger().severe("An error occurred moving the home usage " +
+                    "statistics into per-player files!");
+            EverythingPlugin.getEPLogger().severe(e.getMessage());
+            homeTeleports = 0;
+            usedHomes = 0;
+            homeUsers = 0;
+            return;
+        }
+
+        // Replace the old file with the totals.
+        homeUsageWriter.markDirty();
+        homeUsageWriter.saveNow();
+        EverythingPlugin.getEPLogger().info("Moved the home usage statistics of " + homeUsers +
+                " players into per-player files successfully!");
+    }
+
+    /**
+     * Splits a multihome database from an older version of this plugin into per-player files.
+     * Players who already have a file are skipped, so a split that was interrupted can safely run
+     * again. The old file is renamed once every player has been split out.
+     */
+    private void migrateMultihomeDatabase() {
+        EverythingPlugin.getEPLogger().info("Splitting the old multihome database into " +
+                "per-player files...");
+        ConfigurationSection multihomeSection = YamlConfiguration.loadConfiguration(
+                new File(multihomeDatabasePath)).getConfigurationSection("multihomes");
+        int migratedPlayers = 0;
+
+        // Try to write every player's homes to their own file.
         try {
-            multihomeDatabaseFile.createNewFile();
+            if (multihomeSection != null) {
+                for (String playerUUID : multihomeSection.getKeys(false)) {
+                    Path playerFile;
+
+                    // Try to read the player's UUID.
+                    try {
+                        playerFile = getPlayerFile(UUID.fromString(playerUUID));
+                    }
+                    // The multihome database held something that isn't a UUID.
+                    catch (IllegalArgumentException e) {
+                        EverythingPlugin.getEPLogger().warning("Skipping the invalid player UUID " +
+                                playerUUID + " in the old multihome database.");
+                        continue;
+                    }
+
+                    // Check if the player already has a file.
+                    if (Files.exists(playerFile)) {
+                        continue;
+                    }
+
+                    Map<String, StoredLocation> homes = loadHomes(
+                            multihomeSection.getConfigurationSection(playerUUID), playerUUID);
+                    Files.write(playerFile, serializePlayerFile(new PlayerFile(homes,
+                            new HashMap<>())).getBytes(StandardCharsets.UTF_8));
+                    migratedPlayers++;
+                }
+            }
+
+            // Move the old multihome database out of the way so it isn't split again.
+            Files.move(Paths.get(multihomeDatabasePath),
+                    Paths.get(multihomeDatabasePath + ".migrated"));
         }
-        // An error occurred while creating a new multihome database file.
+        // An error occurred splitting the old multihome database. It's tried again next time.
+        catch (IOException e) {
+            EverythingPlugin.getEPLogger().severe("An error occurred splitting the old multihome " +
+                    "database!");
+            EverythingPlugin.getEPLogger().severe(e.getMessage());
+            return;
+        }
+
+        EverythingPlugin.getEPLogger().info("Split the homes of " + migratedPlayers + " players " +
+                "into per-player files successfully!");
+    }
+
+    /**
+     * Returns the path of a player's file in the multihome directory.
+     *
+     * @param playerUUID The UUID of the player.
+     *
+     * @return The path of the player's file.
+     */
+    private Path getPlayerFile(UUID playerUUID) {
+        return Paths.get(multihomeDirectoryPath, playerUUID + ".yml");
+    }
+
+    /**
+     * Creates a new multihome directory.
+     *
+     * @return True if a new multihome directory was created successfully, false otherwise.
+     */
+    private boolean createMultihomeDirectory() {
+        // Try to create a new multihome directory.
+        try {
+            Files.createDirectories(Paths.get(multihomeDirectoryPath));
+        }
+        // An error occurred while creating a new multihome directory.
         catch (IOException e) {
             EverythingPlugin.getEPLogger().info(ChatColor.RED + "An error occurred creating the " +
                     "multihome database!");
             return false;
         }
 
-        // A new multihome database file was created successfully. Load and configure the file.
-        multihomeDatabase = YamlConfiguration.loadConfiguration(multihomeDatabaseFile);
-        multihomeDatabase.createSection("multihomes");
         EverythingPlugin.getEPLogger().info("Created and connected to the new multihome database " +
                 "successfully!");
         return true;
     }
 
     /**
-     * Checks if a multihome database already exists.
+     * Checks if the multihome directory already exists.
+     *
+     * @return True if the multihome directory already exists, false otherwise.
+     */
+    private boolean multihomeDirectoryExists() {
+        return Files.isDirectory(Paths.get(multihomeDirectoryPath));
+    }
+
+    /**
+     * Checks if a multihome database from an older version of this plugin still exists.
      *
-     * @return True if the multihome database already exists, false otherwise.
+     * @return True if the old multihome database still exists, false otherwise.
      */
-    private boolean multihomeDatabaseExists() {
+    private boolean oldMultihomeDatabaseExists() {
         return Files.exists(Paths.get(multihomeDatabasePath));
     }
 }
@@ -0,0 +1,115 @@
+package com.bluemarien.everythingplugin.backend;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class represents an index of the players on the server, used to find players by name for
+ * commands and to complete player names. It's kept up to date as players join and leave, so
+ * finding a player doesn't scan every online player.
+ *
+ * A name is looked up without regard to case. An exact match is found with a single hash lookup.
+ * Otherwise, the player whose name starts with the given name is found through a
+ * {@link PrefixIndex}, picking the shortest matching name like the server does.
+ *
+ * All methods must be called from the main thread.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class OnlinePlayerIndex {
+
+    /**
+     * Declare the online players by their lowercase names and the index of their names.
+     */
+    private final Map<String, Player> players = new HashMap<>();
+    private final PrefixIndex names = new PrefixIndex();
+
+    /**
+     * Makes an index of the players who are already online, such as after a reload.
+     */
+    public OnlinePlayerIndex() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            add(player);
+        }
+    }
+
+    /**
+     * Adds a player who joined the server to the index.
+     *
+     * @param player The player to add.
+     */
+    public void add(Player player) {
+        players.put(player.getName().toLowerCase(Locale.ROOT), player);
+        names.add(player.getName());
+    }
+
+    /**
+     * Removes a player who left the server from the index.
+     *
+     * @param player The player to remove.
+     */
+    public void remove(Player player) {
+        // Only remove the player if the name still belongs to them.
+        if (players.remove(player.getName().toLowerCase(Locale.ROOT), player)) {
+            names.remove(player.getName());
+        }
+    }
+
+    /**
+     * Finds an online player by their exact name, ignoring case.
+     *
+     * @param name The name of the player.
+     *
+     * @return The player, or null if no online player has the given name.
+     */
+    public Player findExact(String name) {
+        return players.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Finds an online player by name. An exact match (ignoring case) is preferred. Otherwise, the
+     * player with the shortest name starting with the given name is returned.
+     *
+     * @param name The name, or the start of the name, of the player.
+     *
+     * @return The player, or null if no online player's name starts with the given name.
+     */
+    public Player find(String name) {
+        // Check for a player with exactly the given name.
+        Player player = findExact(name);
+
+        if (player != null) {
+            return player;
+        }
+
+        // Pick the shortest name starting with the given name.
+        String bestMatch = null;
+
+        for (String match : names.complete(name)) {
+            if (bestMatch == null || match.length() < bestMatch.length()) {
+                bestMatch = match;
+            }
+        }
+
+        return bestMatch == null ? null : players.get(bestMatch.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Finds the names of every online player whose name starts with the given prefix, ignoring
+     * case.
+     *
+     * @param prefix The prefix to search for.
+     *
+     * @return The names of the players, sorted without regard to case.
+     */
+    public List<String> complete(String prefix) {
+        return names.complete(prefix);
+    }
+}
@@ -0,0 +1,165 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.milkbowl.vault.permission.Permission;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class represents a cache of permission results in front of Vault. Each player's results
+ * are kept by permission node for a short time, so commands that are run often don't ask Vault
+ * (and the permission plugin behind it) to look up the same node again and again.
+ *
+ * A player's results are dropped when they join, leave, or change worlds, since those can change
+ * which permissions apply to them. All results are dropped when a reload is requested. Senders
+ * that aren't players, such as the console, are always checked with Vault.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class PermissionCache {
+
+    /**
+     * This class represents a cached permission result and when it stops being used.
+     */
+    private static final class Result {
+
+        /**
+         * Declare whether the permission was granted and when the result expires.
+         */
+        private final boolean granted;
+        private final long expiresAt;
+
+        /**
+         * Makes a cached permission result.
+         *
+         * @param granted   Whether the permission was granted.
+         * @param expiresAt When the result expires, in nanoseconds from {@link System#nanoTime()}.
+         */
+        private Result(boolean granted, long expiresAt) {
+            this.granted = granted;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Declare the permissions provider and how long results are kept.
+     */
+    private final Permission perms;
+    private final long ttlNanos;
+
+    /**
+     * Declare each player's cached results by permission node.
+     */
+    private final Map<UUID, Map<String, Result>> results = new ConcurrentHashMap<>();
+
+    /**
+     * Declare the number of checks answered from the cache and the number that asked Vault.
+     */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Makes a permission cache in front of the given permissions provider. How long results are
+     * kept is read from the configuration file.
+     *
+     * @param perms The permissions provider to cache the results of.
+     */
+    public PermissionCache(Permission perms) {
+        this.perms = perms;
+        ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0,
+                EverythingPlugin.getPlugin().getConfig().getLong("permissions.cache-ttl", 5000L)));
+    }
+
+    /**
+     * Checks if a sender has a permission, using a cached result for players if one hasn't
+     * expired yet.
+     *
+     * @param sender     The sender to check.
+     * @param permission The permission node to check.
+     *
+     * @return True if the sender has the permission, false otherwise.
+     */
+    public boolean has(CommandSender sender, String permission) {
+        // Always ask Vault about senders that aren't players or when caching is turned off.
+        if (!(sender instanceof Player) || ttlNanos == 0) {
+            return perms.has(sender, permission);
+        }
+
+        // Check if the player has a result for the node that hasn't expired.
+        Map<String, Result> playerResults = results.computeIfAbsent(
+                ((Player) sender).getUniqueId(), uuid -> new ConcurrentHashMap<>());
+        Result result = playerResults.get(permission);
+        long now = System.nanoTime();
+
+        if (result != null && now - result.expiresAt < 0) {
+            hits.increment();
+            return result.granted;
+        }
+
+        // Ask Vault and keep the result.
+        misses.increment();
+        boolean granted = perms.has(sender, permission);
+        playerResults.put(permission, new Result(granted, now + ttlNanos));
+        return granted;
+    }
+
+    /**
+     * Drops every cached result of a player.
+     *
+     * @param playerUUID The UUID of the player.
+     */
+    public void invalidate(UUID playerUUID) {
+        results.remove(playerUUID);
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public void invalidateAll() {
+        results.clear();
+    }
+
+    /**
+     * Returns the number of permission checks answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of permission checks that asked Vault.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of results currently cached, including expired ones that haven't been
+     * replaced yet.
+     *
+     * @return The number of cached results.
+     */
+    public int getCachedResultCount() {
+        int count = 0;
+
+        for (Map<String, Result> playerResults : results.values()) {
+            count += playerResults.size();
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,95 @@
+package com.bluemarien.everythingplugin.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+
+/**
+ * This class represents a sorted index of names that can be searched by prefix, such as the names
+ * of warps or homes. Names are matched without regard to case, but are returned exactly as they
+ * were added.
+ *
+ * Names are kept in a sorted tree keyed by their lowercase form, so all the names starting with a
+ * prefix sit next to each other in the tree. Finding them is a single logarithmic search for the
+ * start of the range followed by a walk over just the names found, without copying or scanning the
+ * rest of the index.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class PrefixIndex {
+
+    /**
+     * Declare the separator between a name's lowercase form and the name itself in the index
+     * keys. It sorts before every other character, so names that only differ by case stay next to
+     * each other.
+     */
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * Declare the sorted index from each name's key to the name itself.
+     */
+    private final NavigableMap<String, String> names = new TreeMap<>();
+
+    /**
+     * Adds a name to the index. Adding a name that's already in the index does nothing.
+     *
+     * @param name The name to add.
+     */
+    public void add(String name) {
+        names.put(toKey(name), name);
+    }
+
+    /**
+     * Removes a name from the index.
+     *
+     * @param name The name to remove.
+     */
+    public void remove(String name) {
+        names.remove(toKey(name));
+    }
+
+    /**
+     * Removes every name from the index.
+     */
+    public void clear() {
+        names.clear();
+    }
+
+    /**
+     * Finds every name in the index that starts with the given prefix, ignoring case.
+     *
+     * @param prefix The prefix to search for.
+     *
+     * @return The names that start with the prefix, sorted without regard to case.
+     */
+    public List<String> complete(String prefix) {
+        return new ArrayList<>(range(prefix).values());
+    }
+
+    /**
+     * Returns the part of the index holding the names that start with the given prefix.
+     *
+     * @param prefix The prefix to search for.
+     *
+     * @return A view of the index holding the names that start with the prefix.
+     */
+    private NavigableMap<String, String> range(String prefix) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        return names.subMap(lowerPrefix, true, lowerPrefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Makes the index key of a name.
+     *
+     * @param name The name to make the key of.
+     *
+     * @return The lowercase form of the name followed by the name itself.
+     */
+    private static String toKey(String name) {
+        return name.toLowerCase(Locale.ROOT) + SEPARATOR + name;
+    }
+}
@@ -0,0 +1,352 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+
+/**
+ * This class represents the cooldowns and rate limits of the plugin's commands. Each limited
+ * command has a cooldown between uses and a token bucket that allows a burst of uses and then
+ * refills one use at a time. Limits are read from the configuration file for each command, with
+ * optional permission tiers that get different limits.
+ *
+ * Each player's state is a single {@link AtomicLongArray} holding two slots for every limited
+ * command: when the command was last used, and the token bucket stored as the time the bucket
+ * will next be full (the generic cell rate algorithm), so a whole bucket fits in one long. Both
+ * are updated with compare-and-set, without locks. Players whose state has gone idle are dropped
+ * by one periodic sweep instead of a task for each player.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class RateLimiter {
+
+    /**
+     * This class represents the limits of a command for one permission tier.
+     */
+    private static final class Limit {
+
+        /**
+         * Declare the cooldown between uses, how long the bucket takes to refill one use, and how
+         * far ahead of now the bucket may be emptied (the burst).
+         */
+        private final long cooldownMillis;
+        private final long refillMillis;
+        private final long toleranceMillis;
+
+        /**
+         * Reads the limits of a command from the configuration file.
+         *
+         * @param section The configuration section holding the limits.
+         */
+        private Limit(ConfigurationSection section) {
+            cooldownMillis = Math.max(0, section.getLong("cooldown", 0L));
+            int burst = Math.max(0, section.getInt("burst", 0));
+            refillMillis = burst == 0 ? 0 : Math.max(1, section.getLong("refill", 1000L));
+            toleranceMillis = refillMillis * Math.max(0, burst - 1);
+        }
+    }
+
+    /**
+     * Declare the permission node prefix of the permission tiers.
+     */
+    private static final String TIER_PERMISSION = "everythingplugin.ratelimit.";
+
+    /**
+     * Declare the limited commands, their slots in each player's state, their default limits,
+     * their tier permissions and limits in the order they're checked, and the longest cooldown of
+     * each.
+     */
+    private final List<String> commands = new ArrayList<>();
+    private final Map<String, Integer> commandIndexes = new HashMap<>();
+    private final List<Limit> defaultLimits = new ArrayList<>();
+    private final List<String[]> tierPermissions = new ArrayList<>();
+    private final List<Limit[]> tierLimits = new ArrayList<>();
+    private long[] maxCooldownMillis;
+
+    /**
+     * Declare each player's state and the rejection counters of each command.
+     */
+    private final Map<UUID, AtomicLongArray> players = new ConcurrentHashMap<>();
+    private LongAdder[] cooldownRejections;
+    private LongAdder[] rateRejections;
+
+    /**
+     * Declare the periodic sweep of idle players.
+     */
+    private BukkitTask sweepTask = null;
+
+    /**
+     * Reads the limits of each command from the configuration file and starts sweeping idle
+     * players periodically.
+     */
+    public RateLimiter() {
+        FileConfiguration config = EverythingPlugin.getPlugin().getConfig();
+        ConfigurationSection commandsSection =
+                config.getConfigurationSection("rate-limits.commands");
+
+        // Read the limits of each command and its permission tiers.
+        if (commandsSection != null) {
+            for (String command : commandsSection.getKeys(false)) {
+                ConfigurationSection commandSection =
+                        commandsSection.getConfigurationSection(command);
+
+                if (commandSection == null) {
+                    continue;
+                }
+
+                readCommand(command, commandSection);
+            }
+        }
+
+        int commandCount = commands.size();
+        maxCooldownMillis = new long[commandCount];
+        cooldownRejections = new LongAdder[commandCount];
+        rateRejections = new LongAdder[commandCount];
+
+        for (int i = 0; i < commandCount; i++) {
+            maxCooldownMillis[i] = defaultLimits.get(i).cooldownMillis;
+
+            for (Limit limit : tierLimits.get(i)) {
+                maxCooldownMillis[i] = Math.max(maxCooldownMillis[i], limit.cooldownMillis);
+            }
+
+            cooldownRejections[i] = new LongAdder();
+            rateRejections[i] = new LongAdder();
+        }
+
+        // Check if any command is limited.
+        if (commandCount == 0) {
+            EverythingPlugin.getEPLogger().info("Command rate limits are turned off.");
+            return;
+        }
+
+        long sweepInterval = Math.max(20, config.getLong("rate-limits.sweep-interval", 1200L));
+        sweepTask = Bukkit.getScheduler().runTaskTimer(EverythingPlugin.getPlugin(),
+                this::sweepIdlePlayers, sweepInterval, sweepInterval);
+    }
+
+    /**
+     * Tries to use a command, checking its cooldown and taking a use from its token bucket.
+     * Commands without limits can always be used.
+     *
+     * @param player  The player using the command.
+     * @param command The name of the command's limits in the configuration file.
+     *
+     * @return 0 if the command can be used, otherwise how long (in milliseconds) the player must
+     *         wait before using it again.
+     */
+    public long tryAcquire(Player player, String command) {
+        // Check if the command is limited.
+        Integer index = commandIndexes.get(command);
+
+        if (index == null) {
+            return 0;
+        }
+
+        Limit limit = getLimit(player, index);
+        AtomicLongArray state = players.computeIfAbsent(player.getUniqueId(),
+                uuid -> new AtomicLongArray(commands.size() * 2));
+        int lastUsedSlot = index * 2;
+        int fullAtSlot = index * 2 + 1;
+        long now = System.currentTimeMillis();
+
+        // Check if the command is cooling down.
+        long cooldownLeft = state.get(lastUsedSlot) + limit.cooldownMillis - now;
+
+        if (cooldownLeft > 0) {
+            cooldownRejections[index].increment();
+            return cooldownLeft;
+        }
+
+        // Take a use from the token bucket, unless it's empty.
+        if (limit.refillMillis > 0) {
+            while (true) {
+                long storedFullAt = state.get(fullAtSlot);
+                long fullAt = Math.max(storedFullAt, now);
+                long wait = fullAt - now - limit.toleranceMillis;
+
+                if (wait > 0) {
+                    rateRejections[index].increment();
+                    return wait;
+                }
+
+                if (state.compareAndSet(fullAtSlot, storedFullAt, fullAt + limit.refillMillis)) {
+                    break;
+                }
+            }
+        }
+
+        // Start the cooldown.
+        state.accumulateAndGet(lastUsedSlot, now, Math::max);
+        return 0;
+    }
+
+    /**
+     * Gives back a use of a command taken by {@link #tryAcquire(Player, String)}, ending the
+     * cooldown it started and returning the use to the token bucket. This is used when the
+     * command stopped before doing anything.
+     *
+     * @param player  The player who used the command.
+     * @param command The name of the command's limits in the configuration file.
+     */
+    public void refund(Player player, String command) {
+        // Check if the command is limited and the player has used it.
+        Integer index = commandIndexes.get(command);
+        AtomicLongArray state = index == null ? null : players.get(player.getUniqueId());
+
+        if (state == null) {
+            return;
+        }
+
+        Limit limit = getLimit(player, index);
+        int lastUsedSlot = index * 2;
+        int fullAtSlot = index * 2 + 1;
+
+        // End the cooldown. The cooldown of the use before had already ended when the command was
+        // used.
+        state.set(lastUsedSlot, 0);
+
+        // Return the use to the token bucket.
+        if (limit.refillMillis > 0) {
+            state.addAndGet(fullAtSlot, -limit.refillMillis);
+        }
+    }
+
+    /**
+     * Stops sweeping idle players. This is used when the plugin is disabled.
+     */
+    public void close() {
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+    }
+
+    /**
+     * Returns the names of the limited commands.
+     *
+     * @return The names of the limited commands, in the order they're configured.
+     */
+    public List<String> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    /**
+     * Returns the number of times a command was rejected because it was cooling down.
+     *
+     * @param command The name of the command's limits.
+     *
+     * @return The number of cooldown rejections, or 0 if the command isn't limited.
+     */
+    public long getCooldownRejections(String command) {
+        Integer index = commandIndexes.get(command);
+        return index == null ? 0 : cooldownRejections[index].sum();
+    }
+
+    /**
+     * Returns the number of times a command was rejected because its token bucket was empty.
+     *
+     * @param command The name of the command's limits.
+     *
+     * @return The number of rate rejections, or 0 if the command isn't limited.
+     */
+    public long getRateRejections(String command) {
+        Integer index = commandIndexes.get(command);
+        return index == null ? 0 : rateRejections[index].sum();
+    }
+
+    /**
+     * Returns the number of players whose state is kept.
+     *
+     * @return The number of tracked players.
+     */
+    public int getTrackedPlayerCount() {
+        return players.size();
+    }
+
+    /**
+     * Reads the default limits and permission tiers of a command.
+     *
+     * @param command        The name of the command's limits.
+     * @param commandSection The configuration section holding the command's limits.
+     */
+    private void readCommand(String command, ConfigurationSection commandSection) {
+        ConfigurationSection defaultSection = commandSection.getConfigurationSection("default");
+        ConfigurationSection tiersSection = commandSection.getConfigurationSection("tiers");
+        List<String> permissions = new ArrayList<>();
+        List<Limit> limits = new ArrayList<>();
+
+        // Read each permission tier in the order they're listed.
+        if (tiersSection != null) {
+            for (String tier : tiersSection.getKeys(false)) {
+                ConfigurationSection tierSection = tiersSection.getConfigurationSection(tier);
+
+                if (tierSection != null) {
+                    permissions.add(TIER_PERMISSION + tier);
+                    limits.add(new Limit(tierSection));
+                }
+            }
+        }
+
+        commandIndexes.put(command, commands.size());
+        commands.add(command);
+        defaultLimits.add(new Limit(defaultSection == null ? commandSection : defaultSection));
+        tierPermissions.add(permissions.toArray(new String[0]));
+        tierLimits.add(limits.toArray(new Limit[0]));
+    }
+
+    /**
+     * Returns the limits of a command for a player, from the first permission tier they have or
+     * the command's default limits.
+     *
+     * @param player The player using the command.
+     * @param index  The index of the command.
+     *
+     * @return The limits that apply to the player.
+     */
+    private Limit getLimit(Player player, int index) {
+        String[] permissions = tierPermissions.get(index);
+
+        for (int i = 0; i < permissions.length; i++) {
+            if (EverythingPlugin.getPermissionCache().has(player, permissions[i])) {
+                return tierLimits.get(index)[i];
+            }
+        }
+
+        return defaultLimits.get(index);
+    }
+
+    /**
+     * Drops the state of every player whose cooldowns have all ended and whose token buckets are
+     * all full, since keeping it would change nothing.
+     */
+    private void sweepIdlePlayers() {
+        long now = System.currentTimeMillis();
+
+        players.values().removeIf(state -> {
+            for (int i = 0; i < commands.size(); i++) {
+                if (state.get(i * 2) + maxCooldownMillis[i] > now || state.get(i * 2 + 1) > now) {
+                    return false;
+                }
+            }
+
+            return true;
+        });
+    }
+}
@@ -0,0 +1,396 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.scheduler.BukkitTask;
+
+
+/**
+ * This class represents a background writer for a file-backed database. Changes to the database
+ * only mark it as changed, and the writer saves it a configurable delay after the first unsaved
+ * change. That way a burst of changes is written to disk only once.
+ *
+ * Saving happens in two steps. A snapshot of the database is taken on the main server thread,
+ * which must be cheap and must not share any mutable state with the database. The snapshot is then
+ * turned into the file contents and written on an asynchronous thread. The file is written to a
+ * temporary file first and moved over the old file, so a crash never leaves a half-written file
+ * behind.
+ *
+ * The writer remembers a digest of the last contents it wrote or that were read from the file, so
+ * a file watcher can tell this plugin's own writes apart from edits made by someone else. It can
+ * also hold back a write until an edit made by someone else has been merged, so neither the edit
+ * nor the changes waiting to be saved are lost.
+ *
+ * @param <T> The type of snapshot taken of the database.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class SnapshotWriter<T> {
+
+    /**
+     * Declare the file to write, the delay before writing changes, and how snapshots are taken
+     * and turned into the file contents.
+     */
+    private final Path file;
+    private final long saveDelay;
+    private final Supplier<T> snapshotter;
+    private final Function<T, String> serializer;
+
+    /**
+     * Declare whether there are changes no snapshot has been taken of yet, the scheduled save, and
+     * the generation of the latest snapshot. These are only used on the main thread.
+     */
+    private boolean dirty = false;
+    private BukkitTask pendingSave = null;
+    private long snapshotGeneration = 0;
+
+    /**
+     * Declare the lock that orders file writes and the generation of the latest snapshot written
+     * to the file.
+     */
+    private final Object writeLock = new Object();
+    private long writtenGeneration = 0;
+
+    /**
+     * Declare the digest of the last contents written to the file or read from it, or null if
+     * neither has happened yet, and the snapshot those contents hold.
+     */
+    private volatile byte[] writtenDigest = null;
+    private volatile T savedSnapshot = null;
+
+    /**
+     * Declare what merges edits made to the file by someone else, or null if the file is written
+     * without checking for them.
+     */
+    private volatile Consumer<byte[]> editMerger = null;
+
+    /**
+     * Makes a background writer for the given file.
+     *
+     * @param file        The file to write the database to.
+     * @param saveDelay   How long (in ticks) to wait after a change before writing the file.
+     * @param snapshotter Takes a snapshot of the database on the main server thread.
+     * @param serializer  Turns a snapshot into the file contents on any thread.
+     */
+    public SnapshotWriter(File file, long saveDelay, Supplier<T> snapshotter,
+                          Function<T, String> serializer) {
+        this.file = file.toPath();
+        this.saveDelay = saveDelay;
+        this.snapshotter = snapshotter;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Marks the database as changed. The file is written once the save delay has passed since the
+     * first unsaved change, along with every change made in the meantime. While the plugin is
+     * being disabled, nothing is scheduled and the change is written by {@link #saveNow()}. This
+     * must be called from the main thread.
+     */
+    public void markDirty() {
+        dirty = true;
+
+        // Check if a save is already scheduled, or if tasks can't be scheduled anymore. Either way
+        // this change gets written.
+        if (pendingSave != null || !EverythingPlugin.getPlugin().isEnabled()) {
+            return;
+        }
+
+        pendingSave = Bukkit.getScheduler().runTaskLater(EverythingPlugin.getPlugin(),
+                this::saveAsync, saveDelay);
+    }
+
+    /**
+     * Writes any unsaved changes to the file right away on the current thread. This is used when
+     * the plugin is disabled. This must be called from the main thread.
+     *
+     * @return True if the file was written successfully or there was nothing to write, false
+     * otherwise.
+     */
+    public boolean saveNow() {
+        // Check if there are any unsaved changes.
+        if (!hasUnsavedChanges()) {
+            return true;
+        }
+
+        // Take the snapshot and write it without waiting for the scheduled save.
+        if (pendingSave != null) {
+            pendingSave.cancel();
+            pendingSave = null;
+        }
+
+        // Merge an edit made to the file by someone else first, so it isn't overwritten.
+        byte[] edit = readUnmergedEdit();
+
+        if (edit != null) {
+            logHeldBack();
+            editMerger.accept(edit);
+        }
+
+        dirty = false;
+        return write(snapshotter.get(), ++snapshotGeneration);
+    }
+
+    /**
+     * Has edits made to the file by someone else merged before the file is overwritten. Before
+     * every write, the file is compared with the contents last written or read. If someone else
+     * edited it since, the write is held back and the edited contents are handed to the merger on
+     * the main thread. The merger must record what it read with
+     * {@link #acknowledge(byte[], Object)} and mark the database as changed if it still differs
+     * from the file. This must be called from the main thread.
+     *
+     * @param merger Merges the edited file contents into the database on the main thread.
+     */
+    public void onExternalEdit(Consumer<byte[]> merger) {
+        editMerger = merger;
+    }
+
+    /**
+     * Records the contents read from the file and the snapshot they hold, so they aren't mistaken
+     * for an edit made by someone else. This must be called from the main thread.
+     *
+     * @param digest   The digest of the contents read, made by {@link #digest(byte[])}.
+     * @param snapshot The snapshot the contents hold.
+     */
+    public void acknowledge(byte[] digest, T snapshot) {
+        synchronized (writeLock) {
+            writtenDigest = digest;
+            savedSnapshot = snapshot;
+        }
+    }
+
+    /**
+     * Returns the snapshot held by the contents last written to the file or read from it. Entries
+     * that differ between this and the database were changed since. This can be called from any
+     * thread.
+     *
+     * @return The snapshot last written or read, or null if neither has happened yet.
+     */
+    public T getSavedSnapshot() {
+        return savedSnapshot;
+    }
+
+    /**
+     * Checks if the database has changes that haven't been written to the file yet, either waiting
+     * for the scheduled save or from a snapshot that hasn't been written successfully yet. This
+     * must be called from the main thread.
+     *
+     * @return True if the database has unsaved changes, false otherwise.
+     */
+    public boolean hasUnsavedChanges() {
+        // Check if there are changes waiting for a snapshot.
+        if (dirty) {
+            return true;
+        }
+
+        // Check if the latest snapshot has been written.
+        synchronized (writeLock) {
+            return writtenGeneration < snapshotGeneration;
+        }
+    }
+
+    /**
+     * Checks if the given digest is the digest of the last contents this writer wrote to the file
+     * or that were read from it. This can be called from any thread.
+     *
+     * @param digest The digest of the file contents, made by {@link #digest(byte[])}.
+     *
+     * @return True if the contents were written or already read, false otherwise.
+     */
+    public boolean isLastWritten(byte[] digest) {
+        return Arrays.equals(digest, writtenDigest);
+    }
+
+    /**
+     * Makes the digest of file contents, to compare with the last contents a writer wrote.
+     *
+     * @param contents The file contents.
+     *
+     * @return The SHA-256 digest of the file contents.
+     */
+    public static byte[] digest(byte[] contents) {
+        // Try to hash the file contents.
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(contents);
+        }
+        // Every Java platform is required to support SHA-256, so this can't happen.
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the database and writes it to the file on an asynchronous thread.
+     */
+    private void saveAsync() {
+        pendingSave = null;
+        dirty = false;
+        T snapshot = snapshotter.get();
+        long generation = ++snapshotGeneration;
+
+        Bukkit.getScheduler().runTaskAsynchronously(EverythingPlugin.getPlugin(), () -> {
+            // Try to write the snapshot. Try again later if it didn't work.
+            if (!write(snapshot, generation) && EverythingPlugin.getPlugin().isEnabled()) {
+                runOnMainThread(this::markDirty);
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and moves it over the file. A snapshot older than the
+     * one already in the file is skipped, and so is a snapshot that would overwrite an edit made
+     * by someone else that hasn't been merged yet. The edit is merged on the main thread instead.
+     *
+     * @param snapshot   The snapshot to write.
+     * @param generation The generation of the snapshot.
+     *
+     * @return True if the file was written successfully or a newer snapshot was already written,
+     * false otherwise.
+     */
+    private boolean write(T snapshot, long generation) {
+        synchronized (writeLock) {
+            // Check if a newer snapshot has already been written.
+            if (generation <= writtenGeneration) {
+                return true;
+            }
+
+            // Check if someone else edited the file since it was last written or read. Merge the
+            // edit on the main thread, which saves the merged database again.
+            byte[] edit = readUnmergedEdit();
+
+            if (edit != null) {
+                logHeldBack();
+                runOnMainThread(() -> editMerger.accept(edit));
+                return false;
+            }
+
+            Path tempFile = null;
+
+            // Try to write the snapshot to a temporary file and move it over the file.
+            try {
+                byte[] bytes = serializer.apply(snapshot).getBytes(StandardCharsets.UTF_8);
+                tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(),
+                        ".tmp");
+                Files.write(tempFile, bytes);
+
+                // Remember the contents before the file is replaced, so a file watcher that sees
+                // the new file right away knows it's ours.
+                writtenDigest = digest(bytes);
+
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+                // The file system can't move files atomically. Replace the file normally.
+                catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                writtenGeneration = generation;
+                savedSnapshot = snapshot;
+                return true;
+            }
+            // An error occurred writing the file.
+            catch (IOException e) {
+                EverythingPlugin.getEPLogger().severe("An error occurred saving " +
+                        file.getFileName() + "!");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+                deleteTempFile(tempFile);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reads the file if someone else edited it since it was last written or read. A deleted file
+     * isn't an edit, since deleted files are ignored so a mistake never wipes out a database.
+     *
+     * @return The edited file contents, or null if the file wasn't edited, edits aren't merged,
+     * or nothing has been written or read yet to compare with.
+     */
+    private byte[] readUnmergedEdit() {
+        // Check if there's anything to compare the file with.
+        byte[] knownDigest = writtenDigest;
+
+        if (editMerger == null || knownDigest == null) {
+            return null;
+        }
+
+        byte[] contents;
+
+        // Try to read the file.
+        try {
+            contents = Files.readAllBytes(file);
+        }
+        // The file was deleted. It's written again.
+        catch (NoSuchFileException e) {
+            return null;
+        }
+        // An error occurred reading the file. Writing it will report any lasting error.
+        catch (IOException e) {
+            return null;
+        }
+
+        return Arrays.equals(digest(contents), knownDigest) ? null : contents;
+    }
+
+    /**
+     * Logs that a save was held back to merge an edit made by someone else.
+     */
+    private void logHeldBack() {
+        EverythingPlugin.getEPLogger().warning(file.getFileName() + " was edited while changes " +
+                "to it were waiting to be saved. Merging the edit before saving.");
+    }
+
+    /**
+     * Runs a task on the main thread, unless the plugin is shutting down.
+     *
+     * @param task The task to run.
+     */
+    private static void runOnMainThread(Runnable task) {
+        // Try to schedule the task on the main thread.
+        try {
+            Bukkit.getScheduler().runTask(EverythingPlugin.getPlugin(), task);
+        }
+        // The plugin is shutting down, so the changes are saved by saveNow().
+        catch (IllegalPluginAccessException ignored) {
+        }
+    }
+
+    /**
+     * Deletes a leftover temporary file.
+     *
+     * @param tempFile The temporary file to delete, or null if it was never made.
+     */
+    private static void deleteTempFile(Path tempFile) {
+        // Check if the temporary file was ever made.
+        if (tempFile == null) {
+            return;
+        }
+
+        // Try to delete the temporary file.
+        try {
+            Files.deleteIfExists(tempFile);
+        }
+        // The temporary file couldn't be deleted. It'll be overwritten by the next save anyway.
+        catch (IOException ignored) {
+        }
+    }
+}
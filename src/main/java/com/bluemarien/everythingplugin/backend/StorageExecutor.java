@@ -0,0 +1,216 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+
+/**
+ * This class represents the storage executor that owns this plugin's SQLite connection. Every read
+ * and write to the database is queued here and run in order on a single storage thread, so the
+ * main server thread never waits on disk I/O. Results are handed back as futures that complete on
+ * the main server thread.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class StorageExecutor {
+
+    /**
+     * This interface represents a unit of database work that runs on the storage thread with the
+     * storage executor's connection.
+     *
+     * @param <T> The type of result the database work produces.
+     */
+    @FunctionalInterface
+    public interface StorageTask<T> {
+
+        /**
+         * Runs the database work on the storage thread.
+         *
+         * @param conn The connection to the database. Only use this on the storage thread.
+         *
+         * @return The result of the database work.
+         *
+         * @throws SQLException If an error occurs accessing the database.
+         */
+        T run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Declare the database URL, the storage thread, and the connection owned by the storage
+     * thread.
+     */
+    private final String databaseURL;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(runnable, "EverythingPlugin-Storage"));
+    private Connection conn = null;
+
+    /**
+     * Makes a storage executor for the database at the given URL. The connection is opened on the
+     * storage thread by the first queued task.
+     *
+     * @param databaseURL The JDBC URL of the database to connect to.
+     */
+    public StorageExecutor(String databaseURL) {
+        this.databaseURL = databaseURL;
+    }
+
+    /**
+     * Queues database work on the storage thread.
+     *
+     * @param task The database work to queue.
+     * @param <T>  The type of result the database work produces.
+     *
+     * @return A future holding the result of the database work. It completes on the main server
+     * thread, or on the storage thread if the plugin is shutting down.
+     */
+    public <T> CompletableFuture<T> submit(StorageTask<T> task) {
+        return queue(task, this::completeOnMainThread);
+    }
+
+    /**
+     * Queues database work on the storage thread for a caller that is already off the main server
+     * thread, such as an asynchronous event. The caller may wait on the result without involving
+     * the main server thread.
+     *
+     * @param task The database work to queue.
+     * @param <T>  The type of result the database work produces.
+     *
+     * @return A future holding the result of the database work. It completes on the storage
+     * thread.
+     */
+    public <T> CompletableFuture<T> submitAsync(StorageTask<T> task) {
+        return queue(task, Runnable::run);
+    }
+
+    /**
+     * Stops accepting new database work, runs everything that's already queued, and closes the
+     * connection to the database.
+     *
+     * @param timeoutSeconds How long to wait for the queued database work to finish.
+     *
+     * @return True if all the queued database work finished in time, false otherwise.
+     */
+    public boolean shutdown(long timeoutSeconds) {
+        // Close the connection once everything queued before this has run.
+        executor.execute(this::closeConnection);
+        executor.shutdown();
+
+        // Wait for the queued database work to finish.
+        try {
+            return executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+        }
+        // The server interrupted us while we were waiting for the storage thread.
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Queues database work on the storage thread and completes its future with the given
+     * completion handler.
+     *
+     * @param task      The database work to queue.
+     * @param completer Runs the completion of the future once the database work is done.
+     * @param <T>       The type of result the database work produces.
+     *
+     * @return A future holding the result of the database work.
+     */
+    private <T> CompletableFuture<T> queue(StorageTask<T> task, Consumer<Runnable> completer) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        // Try to queue the database work.
+        try {
+            executor.execute(() -> {
+                // Run the database work and hand the result to the completion handler.
+                try {
+                    T value = task.run(getConnection());
+                    completer.accept(() -> result.complete(value));
+                }
+                // An error occurred running the database work.
+                catch (Exception e) {
+                    completer.accept(() -> result.completeExceptionally(e));
+                }
+            });
+        }
+        // The storage executor has already been shut down.
+        catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the connection to the database, connecting to it first if necessary. This must only
+     * be called from the storage thread.
+     *
+     * @return The connection to the database.
+     *
+     * @throws SQLException If an error occurs connecting to the database.
+     */
+    private Connection getConnection() throws SQLException {
+        // Connect to the database the first time it's needed.
+        if (conn == null) {
+            conn = DriverManager.getConnection(databaseURL);
+        }
+
+        return conn;
+    }
+
+    /**
+     * Closes the connection to the database. This must only be called from the storage thread.
+     */
+    private void closeConnection() {
+        // Check if there is a connection to close.
+        if (conn == null) {
+            return;
+        }
+
+        // Try to close the connection to the database.
+        try {
+            conn.close();
+            conn = null;
+        }
+        // An error occurred while closing the connection to the database.
+        catch (SQLException e) {
+            EverythingPlugin.getEPLogger().severe("An error occurred while closing the database " +
+                    "connection.");
+            EverythingPlugin.getEPLogger().severe(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the completion of a future on the main server thread. If the plugin is shutting down
+     * the completion runs right away on the current thread instead.
+     *
+     * @param completion The completion to run.
+     */
+    private void completeOnMainThread(Runnable completion) {
+        // Hand the completion to the main server thread while the plugin is running.
+        if (EverythingPlugin.getPlugin().isEnabled()) {
+            try {
+                Bukkit.getScheduler().runTask(EverythingPlugin.getPlugin(), completion);
+                return;
+            }
+            // The plugin was disabled before the completion could be scheduled.
+            catch (IllegalPluginAccessException ignored) {
+            }
+        }
+
+        completion.run();
+    }
+}
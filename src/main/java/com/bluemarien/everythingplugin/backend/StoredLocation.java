@@ -0,0 +1,230 @@
+package com.bluemarien.everythingplugin.backend;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+
+/**
+ * This class represents a location stored in one of this plugin's databases, such as a warp or a
+ * home. Its values are immutable, so it can be shared freely between the in-memory indexes and
+ * the snapshots saved in the background. The world is kept by name so a stored location stays
+ * valid while its world is unloaded.
+ *
+ * The world is looked up by name the first time the location is turned into a Bukkit location,
+ * and the world found is cached until any world is loaded or unloaded. The cached world is only
+ * weakly held, so an unloaded world isn't kept in memory by the locations in it.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public final class StoredLocation {
+
+    /**
+     * Declare the world name, coordinates, and rotation of the stored location.
+     */
+    private final String worldName;
+    private final double x;
+    private final double y;
+    private final double z;
+    private final float yaw;
+    private final float pitch;
+
+    /**
+     * Declare the number of times a world has been loaded or unloaded, which tells each stored
+     * location when its cached world must be looked up again.
+     */
+    private static volatile int worldGeneration = 0;
+
+    /**
+     * Declare the world the location is in, as it was last looked up, and the world generation it
+     * was looked up in. These are only used on the main thread.
+     */
+    private WeakReference<World> cachedWorld = null;
+    private int cachedWorldGeneration = -1;
+
+    /**
+     * Makes a stored location.
+     *
+     * @param worldName The name of the world the location is in.
+     * @param x         The x coordinate of the location.
+     * @param y         The y coordinate of the location.
+     * @param z         The z coordinate of the location.
+     * @param yaw       The yaw of the location.
+     * @param pitch     The pitch of the location.
+     */
+    public StoredLocation(String worldName, double x, double y, double z, float yaw, float pitch) {
+        this.worldName = Objects.requireNonNull(worldName);
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.yaw = yaw;
+        this.pitch = pitch;
+    }
+
+    /**
+     * Makes a stored location from a Bukkit location.
+     *
+     * @param location The Bukkit location to store. It must have a world.
+     *
+     * @return The stored location.
+     */
+    public static StoredLocation fromLocation(Location location) {
+        return new StoredLocation(Objects.requireNonNull(location.getWorld()).getName(),
+                location.getX(), location.getY(), location.getZ(), location.getYaw(),
+                location.getPitch());
+    }
+
+    /**
+     * Reads a stored location from a YAML section with world, x, y, z, yaw, and pitch values.
+     *
+     * @param section The YAML section to read the location from.
+     *
+     * @return The stored location, or null if the section doesn't have a world.
+     */
+    public static StoredLocation load(ConfigurationSection section) {
+        // Check if the section has a world to put the location in.
+        String worldName = section.getString("world");
+
+        if (worldName == null) {
+            return null;
+        }
+
+        return new StoredLocation(worldName, section.getDouble("x"), section.getDouble("y"),
+                section.getDouble("z"), (float) section.getDouble("yaw"),
+                (float) section.getDouble("pitch"));
+    }
+
+    /**
+     * Writes this stored location to a YAML section as world, x, y, z, yaw, and pitch values.
+     *
+     * @param section The YAML section to write the location to.
+     */
+    public void save(ConfigurationSection section) {
+        section.set("world", worldName);
+        section.set("x", x);
+        section.set("y", y);
+        section.set("z", z);
+        section.set("yaw", yaw);
+        section.set("pitch", pitch);
+    }
+
+    /**
+     * Makes every stored location look up its world again. This is used when a world is loaded or
+     * unloaded.
+     */
+    public static void refreshWorlds() {
+        worldGeneration++;
+    }
+
+    /**
+     * Makes a new Bukkit location from this stored location. This must be called from the main
+     * thread.
+     *
+     * @return A new Bukkit location. Its world is null if the world isn't loaded.
+     */
+    public Location toLocation() {
+        // Look the world up again if a world was loaded or unloaded since it was cached.
+        int generation = worldGeneration;
+
+        if (cachedWorldGeneration != generation) {
+            World world = Bukkit.getWorld(worldName);
+            cachedWorld = world == null ? null : new WeakReference<>(world);
+            cachedWorldGeneration = generation;
+        }
+
+        return new Location(cachedWorld == null ? null : cachedWorld.get(), x, y, z, yaw, pitch);
+    }
+
+    /**
+     * Returns the name of the world the location is in.
+     *
+     * @return The name of the world the location is in.
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Returns the x coordinate of the location.
+     *
+     * @return The x coordinate of the location.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y coordinate of the location.
+     *
+     * @return The y coordinate of the location.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Returns the z coordinate of the location.
+     *
+     * @return The z coordinate of the location.
+     */
+    public double getZ() {
+        return z;
+    }
+
+    /**
+     * Returns the yaw of the location.
+     *
+     * @return The yaw of the location.
+     */
+    public float getYaw() {
+        return yaw;
+    }
+
+    /**
+     * Returns the pitch of the location.
+     *
+     * @return The pitch of the location.
+     */
+    public float getPitch() {
+        return pitch;
+    }
+
+    /**
+     * Checks if another object is a stored location in the same world with the same coordinates
+     * and rotation.
+     *
+     * @param other The object to compare with.
+     *
+     * @return True if the other object is an equal stored location, false otherwise.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof StoredLocation)) {
+            return false;
+        }
+
+        StoredLocation location = (StoredLocation) other;
+        return worldName.equals(location.worldName) && Double.compare(x, location.x) == 0 &&
+                Double.compare(y, location.y) == 0 && Double.compare(z, location.z) == 0 &&
+                Float.compare(yaw, location.yaw) == 0 && Float.compare(pitch, location.pitch) == 0;
+    }
+
+    /**
+     * Returns a hash code for this stored location.
+     *
+     * @return A hash code for this stored location.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(worldName, x, y, z, yaw, pitch);
+    }
+}
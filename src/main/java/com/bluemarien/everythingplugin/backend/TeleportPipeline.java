@@ -0,0 +1,456 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+
+/**
+ * This class represents the pipeline that teleports players for this plugin's commands. Before a
+ * player is moved, the chunk they're teleporting to (and optionally the chunks around it) is
+ * loaded, so the teleport itself never has to load or generate a chunk on the main thread.
+ *
+ * Servers that can load chunks asynchronously (such as Paper) have the chunks loaded off the main
+ * thread. Other servers have the chunks loaded on the main thread a few at a time each tick, so a
+ * cold destination never costs more than a few chunk loads in a single tick. The pipeline keeps
+ * track of how long preloading took, which can be checked from the server.
+ *
+ * Every chunk loaded for a teleport is held with a plugin chunk ticket until the teleport is done,
+ * so chunks loaded early can't be unloaded again while the rest are still loading. Tickets are
+ * counted, since teleports can share chunks, and chunks pinned by the {@link WarpChunkPinner}
+ * keep their ticket when the teleport releases them.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class TeleportPipeline {
+
+    /**
+     * Declare the server's asynchronous chunk loading method, or null if the server doesn't have
+     * one.
+     */
+    private final Method asyncChunkMethod;
+
+    /**
+     * Declare how many chunks around the destination are loaded and how many chunks are loaded
+     * each tick when the server can't load chunks asynchronously.
+     */
+    private final int preloadRadius;
+    private final int chunksPerTick;
+
+    /**
+     * Declare the number of teleports holding each chunk in each world. Chunks are stored as
+     * their x coordinate in the high 32 bits and z coordinate in the low 32 bits. This is only
+     * used on the main thread.
+     */
+    private final Map<String, Map<Long, Integer>> heldChunks = new HashMap<>();
+
+    /**
+     * Declare the preload statistics. These are only used on the main thread.
+     */
+    private long teleportCount = 0;
+    private long preloadCount = 0;
+    private long totalPreloadNanos = 0;
+    private long maxPreloadNanos = 0;
+
+    /**
+     * Makes the teleport pipeline, checking if the server can load chunks asynchronously.
+     */
+    public TeleportPipeline() {
+        preloadRadius = Math.max(0,
+                EverythingPlugin.getPlugin().getConfig().getInt("teleport.preload-radius", 0));
+        chunksPerTick = Math.max(1,
+                EverythingPlugin.getPlugin().getConfig().getInt("teleport.chunks-per-tick", 1));
+        asyncChunkMethod = findAsyncChunkMethod();
+
+        // Let the server know how destination chunks will be loaded.
+        if (asyncChunkMethod != null) {
+            EverythingPlugin.getEPLogger().info("Teleport destinations will be loaded " +
+                    "asynchronously.");
+        }
+        else {
+            EverythingPlugin.getEPLogger().info("The server can't load chunks asynchronously! " +
+                    "Teleport destinations will be loaded " + chunksPerTick + " chunk(s) per " +
+                    "tick.");
+        }
+    }
+
+    /**
+     * Teleports a player to a destination once the chunks around the destination are loaded. This
+     * must be called from the main thread.
+     *
+     * @param player      The player to teleport.
+     * @param destination The location to teleport the player to.
+     *
+     * @return A future that completes on the main thread with true if the player was teleported,
+     * or false if the player left, the destination's world isn't loaded, or the teleport failed.
+     */
+    public CompletableFuture<Boolean> teleport(Player player, Location destination) {
+        CompletableFuture<Boolean> teleported = new CompletableFuture<>();
+        World world = destination.getWorld();
+
+        // Check if the destination's world is loaded.
+        if (world == null) {
+            teleported.complete(false);
+            return teleported;
+        }
+
+        teleportCount++;
+        List<int[]> unloadedChunks = findUnloadedChunks(world, destination);
+
+        // Check if the destination is already loaded. The player can be teleported right away.
+        if (unloadedChunks.isEmpty()) {
+            teleported.complete(finishTeleport(player, destination));
+            return teleported;
+        }
+
+        // Load the destination first and teleport the player once it's loaded. The chunks are held
+        // until then and released right after.
+        long preloadStart = System.nanoTime();
+        List<int[]> chunksHeld = new ArrayList<>();
+        Runnable arrive = () -> {
+            recordPreload(System.nanoTime() - preloadStart);
+            teleported.complete(finishTeleport(player, destination));
+            releaseChunks(world, chunksHeld);
+        };
+
+        if (asyncChunkMethod != null) {
+            preloadAsync(world, unloadedChunks, chunksHeld, arrive);
+        }
+        else {
+            preloadSpread(world, unloadedChunks, chunksHeld, arrive);
+        }
+
+        return teleported;
+    }
+
+    /**
+     * Checks if a teleport is holding a chunk loaded. This must be called from the main thread.
+     *
+     * @param world The world the chunk is in.
+     * @param x     The x coordinate of the chunk.
+     * @param z     The z coordinate of the chunk.
+     *
+     * @return True if a teleport is holding the chunk, false otherwise.
+     */
+    public boolean isHoldingChunk(World world, int x, int z) {
+        Map<Long, Integer> worldChunks = heldChunks.get(world.getName());
+        return worldChunks != null && worldChunks.containsKey(WarpChunkPinner.toChunkKey(x, z));
+    }
+
+    /**
+     * Releases every chunk held for teleports that haven't finished. This is used when the plugin
+     * is disabled.
+     */
+    public void close() {
+        for (Map.Entry<String, Map<Long, Integer>> worldChunks : heldChunks.entrySet()) {
+            World world = Bukkit.getWorld(worldChunks.getKey());
+
+            if (world == null) {
+                continue;
+            }
+
+            for (long chunk : worldChunks.getValue().keySet()) {
+                world.removePluginChunkTicket(WarpChunkPinner.chunkX(chunk),
+                        WarpChunkPinner.chunkZ(chunk), EverythingPlugin.getPlugin());
+            }
+        }
+
+        heldChunks.clear();
+    }
+
+    /**
+     * Returns the number of teleports that went through the pipeline.
+     *
+     * @return The number of teleports that went through the pipeline.
+     */
+    public long getTeleportCount() {
+        return teleportCount;
+    }
+
+    /**
+     * Returns the number of teleports that had to load their destination first.
+     *
+     * @return The number of teleports that had to load their destination first.
+     */
+    public long getPreloadCount() {
+        return preloadCount;
+    }
+
+    /**
+     * Returns the average time it took to load a destination, in milliseconds.
+     *
+     * @return The average time it took to load a destination, or 0 if no destination was loaded.
+     */
+    public double getAveragePreloadMillis() {
+        return preloadCount == 0 ? 0 : totalPreloadNanos / (double) preloadCount / 1_000_000;
+    }
+
+    /**
+     * Returns the longest time it took to load a destination, in milliseconds.
+     *
+     * @return The longest time it took to load a destination.
+     */
+    public double getMaxPreloadMillis() {
+        return maxPreloadNanos / 1_000_000.0;
+    }
+
+    /**
+     * Checks if the server loads destination chunks asynchronously.
+     *
+     * @return True if destination chunks are loaded asynchronously, false if they're loaded a few
+     * at a time each tick.
+     */
+    public boolean isAsyncChunkLoading() {
+        return asyncChunkMethod != null;
+    }
+
+    /**
+     * Finds the chunks around a destination that aren't loaded yet, starting with the destination
+     * chunk itself.
+     *
+     * @param world       The world the destination is in.
+     * @param destination The destination to find the unloaded chunks around.
+     *
+     * @return The x and z coordinates of the unloaded chunks.
+     */
+    private List<int[]> findUnloadedChunks(World world, Location destination) {
+        int centerX = destination.getBlockX() >> 4;
+        int centerZ = destination.getBlockZ() >> 4;
+        List<int[]> unloadedChunks = new ArrayList<>();
+
+        // Check the destination chunk first so it's loaded first.
+        if (!world.isChunkLoaded(centerX, centerZ)) {
+            unloadedChunks.add(new int[] {centerX, centerZ});
+        }
+
+        // Check the chunks around the destination chunk.
+        for (int x = centerX - preloadRadius; x <= centerX + preloadRadius; x++) {
+            for (int z = centerZ - preloadRadius; z <= centerZ + preloadRadius; z++) {
+                if ((x != centerX || z != centerZ) && !world.isChunkLoaded(x, z)) {
+                    unloadedChunks.add(new int[] {x, z});
+                }
+            }
+        }
+
+        return unloadedChunks;
+    }
+
+    /**
+     * Loads chunks asynchronously with the server's asynchronous chunk loading method, holding
+     * each chunk as soon as it's loaded. Falls back to loading the chunks a few at a time each
+     * tick if the method can't be used.
+     *
+     * @param world      The world to load the chunks in.
+     * @param chunks     The x and z coordinates of the chunks to load.
+     * @param chunksHeld The chunks held for the teleport, which each loaded chunk is added to.
+     * @param arrive     Runs on the main thread once the chunks are loaded.
+     */
+    private void preloadAsync(World world, List<int[]> chunks, List<int[]> chunksHeld,
+                              Runnable arrive) {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[chunks.size()];
+
+        // Try to start loading every chunk, holding each one on the main thread once it's loaded.
+        try {
+            for (int i = 0; i < loads.length; i++) {
+                int[] chunk = chunks.get(i);
+                loads[i] = ((CompletableFuture<?>) asyncChunkMethod.invoke(world, chunk[0],
+                        chunk[1])).thenRun(() -> runOnMainThread(() ->
+                        holdChunk(world, chunk, chunksHeld)));
+            }
+        }
+        // The asynchronous chunk loading method can't be used. Load the chunks on the main thread.
+        catch (ReflectiveOperationException | ClassCastException e) {
+            EverythingPlugin.getEPLogger().warning("An error occurred loading a teleport " +
+                    "destination asynchronously! Loading it on the main thread instead...");
+            preloadSpread(world, chunks, chunksHeld, arrive);
+            return;
+        }
+
+        // Teleport the player on the main thread once every chunk is loaded. If a chunk failed to
+        // load, the teleport will load it.
+        CompletableFuture.allOf(loads).whenComplete((ignored, e) -> runOnMainThread(arrive));
+    }
+
+    /**
+     * Loads chunks on the main thread, a few chunks each tick, by adding a plugin chunk ticket to
+     * each one, which also holds it until the teleport is done.
+     *
+     * @param world      The world to load the chunks in.
+     * @param chunks     The x and z coordinates of the chunks to load.
+     * @param chunksHeld The chunks held for the teleport, which each loaded chunk is added to.
+     * @param arrive     Runs on the main thread once the chunks are loaded.
+     */
+    private void preloadSpread(World world, List<int[]> chunks, List<int[]> chunksHeld,
+                               Runnable arrive) {
+        new BukkitRunnable() {
+            private int next = 0;
+
+            @Override
+            public void run() {
+                // Load and hold the next few chunks that are still unloaded. Chunks that were
+                // loaded in the meantime are held without counting towards the chunks per tick.
+                for (int loaded = 0; loaded < chunksPerTick && next < chunks.size(); next++) {
+                    int[] chunk = chunks.get(next);
+
+                    if (!world.isChunkLoaded(chunk[0], chunk[1])) {
+                        loaded++;
+                    }
+
+                    holdChunk(world, chunk, chunksHeld);
+                }
+
+                // Teleport the player once every chunk is loaded.
+                if (next == chunks.size()) {
+                    cancel();
+                    arrive.run();
+                }
+            }
+        }.runTaskTimer(EverythingPlugin.getPlugin(), 0L, 1L);
+    }
+
+    /**
+     * Holds a chunk loaded for a teleport with a plugin chunk ticket, which loads the chunk if it
+     * isn't loaded yet.
+     *
+     * @param world      The world the chunk is in.
+     * @param chunk      The x and z coordinates of the chunk.
+     * @param chunksHeld The chunks held for the teleport, which the chunk is added to.
+     */
+    private void holdChunk(World world, int[] chunk, List<int[]> chunksHeld) {
+        // Check if the world was unloaded while the chunks were loading.
+        if (Bukkit.getWorld(world.getUID()) == null) {
+            return;
+        }
+
+        Map<Long, Integer> worldChunks =
+                heldChunks.computeIfAbsent(world.getName(), name -> new HashMap<>());
+
+        // Add the ticket for the first teleport holding the chunk.
+        if (worldChunks.merge(WarpChunkPinner.toChunkKey(chunk[0], chunk[1]), 1,
+                Integer::sum) == 1) {
+            world.addPluginChunkTicket(chunk[0], chunk[1], EverythingPlugin.getPlugin());
+        }
+
+        chunksHeld.add(chunk);
+    }
+
+    /**
+     * Releases the chunks held for a teleport. A chunk's ticket is removed once no teleport holds
+     * it, unless the chunk is pinned.
+     *
+     * @param world      The world the chunks are in.
+     * @param chunksHeld The chunks held for the teleport.
+     */
+    private void releaseChunks(World world, List<int[]> chunksHeld) {
+        Map<Long, Integer> worldChunks = heldChunks.get(world.getName());
+
+        // Check if the chunks were already released.
+        if (worldChunks == null) {
+            return;
+        }
+
+        WarpChunkPinner pinner = EverythingPlugin.getWarpChunkPinner();
+        boolean worldLoaded = Bukkit.getWorld(world.getUID()) != null;
+
+        for (int[] chunk : chunksHeld) {
+            long chunkKey = WarpChunkPinner.toChunkKey(chunk[0], chunk[1]);
+            Integer holders = worldChunks.get(chunkKey);
+
+            if (holders == null) {
+                continue;
+            }
+
+            // Remove the ticket once the last teleport holding the chunk is done with it. An
+            // unloaded world has no tickets left to remove.
+            if (holders > 1) {
+                worldChunks.put(chunkKey, holders - 1);
+            }
+            else {
+                worldChunks.remove(chunkKey);
+
+                if (worldLoaded && (pinner == null || !pinner.isPinned(world, chunk[0],
+                        chunk[1]))) {
+                    world.removePluginChunkTicket(chunk[0], chunk[1],
+                            EverythingPlugin.getPlugin());
+                }
+            }
+        }
+
+        if (worldChunks.isEmpty()) {
+            heldChunks.remove(world.getName());
+        }
+
+        chunksHeld.clear();
+    }
+
+    /**
+     * Runs a task on the main thread, right away if this is the main thread. The task is dropped
+     * if the plugin was disabled.
+     *
+     * @param task The task to run.
+     */
+    private static void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        }
+        else if (EverythingPlugin.getPlugin().isEnabled()) {
+            Bukkit.getScheduler().runTask(EverythingPlugin.getPlugin(), task);
+        }
+    }
+
+    /**
+     * Teleports a player to their destination if they're still online and the destination's
+     * world is still loaded.
+     *
+     * @param player      The player to teleport.
+     * @param destination The location to teleport the player to.
+     *
+     * @return True if the player was teleported, false otherwise.
+     */
+    private static boolean finishTeleport(Player player, Location destination) {
+        return player.isOnline() && destination.isWorldLoaded() && player.teleport(destination);
+    }
+
+    /**
+     * Records how long it took to load a destination.
+     *
+     * @param preloadNanos How long it took to load the destination, in nanoseconds.
+     */
+    private void recordPreload(long preloadNanos) {
+        preloadCount++;
+        totalPreloadNanos += preloadNanos;
+        maxPreloadNanos = Math.max(maxPreloadNanos, preloadNanos);
+        EverythingPlugin.getEPLogger().fine("Loaded a teleport destination in " +
+                preloadNanos / 1_000_000.0 + " ms.");
+    }
+
+    /**
+     * Finds the server's asynchronous chunk loading method. Spigot doesn't have one, but servers
+     * built on it (such as Paper) add getChunkAtAsync(x, z) to worlds.
+     *
+     * @return The asynchronous chunk loading method, or null if the server doesn't have one.
+     */
+    private static Method findAsyncChunkMethod() {
+        // Try to find the asynchronous chunk loading method.
+        try {
+            Method method = World.class.getMethod("getChunkAtAsync", int.class, int.class);
+            return CompletableFuture.class.isAssignableFrom(method.getReturnType()) ? method : null;
+        }
+        // The server doesn't have an asynchronous chunk loading method.
+        catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+
+/**
+ * This class represents a scheduler for bulk work that has to run on the main thread, such as
+ * reloading every player's homes. Work is split into jobs made of small steps, and each tick the
+ * scheduler runs steps until a time budget is spent, so a large job is spread over as many ticks
+ * as it needs instead of stalling the server.
+ *
+ * Jobs take turns one step at a time, so a long job can't hold up the jobs submitted after it.
+ * Unfinished jobs carry over to the next tick in the same order. The scheduler only runs while it
+ * has jobs.
+ *
+ * All methods must be called from the main thread.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class TickScheduler {
+
+    /**
+     * This interface represents a job made of small steps.
+     */
+    @FunctionalInterface
+    public interface Job {
+
+        /**
+         * Runs the next step of the job. A step should only take a small fraction of the tick
+         * budget.
+         *
+         * @return True if the job is finished, false if it has more steps.
+         */
+        boolean step();
+
+        /**
+         * Returns how much of the job is done.
+         *
+         * @return How much of the job is done, from 0 to 1, or -1 if it isn't known.
+         */
+        default double getProgress() {
+            return -1;
+        }
+    }
+
+    /**
+     * This class represents a submitted job and how much work it has done.
+     */
+    private static final class RunningJob {
+
+        /**
+         * Declare the name of the job, the job, and the future completed when it finishes.
+         */
+        private final String name;
+        private final Job job;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        /**
+         * Declare the number of steps run, the time spent running them, and the number of ticks
+         * the job has run in.
+         */
+        private long steps = 0;
+        private long workNanos = 0;
+        private long ticks = 0;
+        private long lastTick = -1;
+
+        /**
+         * Makes a submitted job.
+         *
+         * @param name The name of the job, used in progress reports and logs.
+         * @param job  The job.
+         */
+        private RunningJob(String name, Job job) {
+            this.name = name;
+            this.job = job;
+        }
+    }
+
+    /**
+     * Declare the time budget of each tick and the jobs waiting for their next step.
+     */
+    private final long budgetNanos;
+    private final Deque<RunningJob> jobs = new ArrayDeque<>();
+
+    /**
+     * Declare the task that runs the jobs each tick, the number of ticks it has run, and the
+     * number of jobs finished.
+     */
+    private BukkitTask tickTask = null;
+    private long tick = 0;
+    private long finishedJobs = 0;
+    private boolean closed = false;
+
+    /**
+     * Makes the scheduler. The time budget of each tick is read from the configuration file.
+     */
+    public TickScheduler() {
+        double budgetMillis = EverythingPlugin.getPlugin().getConfig()
+                .getDouble("scheduler.tick-budget", 2.0);
+        budgetNanos = Math.max(1, (long) (budgetMillis * TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    /**
+     * Submits a job to run over the next ticks.
+     *
+     * @param name The name of the job, used in progress reports and logs.
+     * @param job  The job to run.
+     *
+     * @return A future completed on the main thread when the job finishes, or completed
+     *         exceptionally if a step of the job throws an exception.
+     */
+    public CompletableFuture<Void> submit(String name, Job job) {
+        RunningJob runningJob = new RunningJob(name, job);
+
+        // Finish the job right away if the plugin is being disabled.
+        if (closed) {
+            finish(runningJob);
+            return runningJob.future;
+        }
+
+        jobs.addLast(runningJob);
+
+        // Start running jobs each tick if the scheduler was idle.
+        if (tickTask == null) {
+            tickTask = Bukkit.getScheduler().runTaskTimer(EverythingPlugin.getPlugin(),
+                    this::runTick, 1L, 1L);
+        }
+
+        return runningJob.future;
+    }
+
+    /**
+     * Submits a job that runs an action on each of the given items, one item per step.
+     *
+     * @param name   The name of the job, used in progress reports and logs.
+     * @param items  The items to run the action on. They are copied when the job is submitted.
+     * @param action The action to run on each item.
+     * @param <T>    The type of the items.
+     *
+     * @return A future completed on the main thread when the action has run on every item.
+     */
+    public <T> CompletableFuture<Void> submitEach(String name, Iterable<? extends T> items,
+                                                  Consumer<? super T> action) {
+        List<T> remaining = new ArrayList<>();
+
+        for (T item : items) {
+            remaining.add(item);
+        }
+
+        return submit(name, new Job() {
+            private int next = 0;
+
+            @Override
+            public boolean step() {
+                if (next < remaining.size()) {
+                    action.accept(remaining.get(next++));
+                }
+
+                return next >= remaining.size();
+            }
+
+            @Override
+            public double getProgress() {
+                return remaining.isEmpty() ? 1 : next / (double) remaining.size();
+            }
+        });
+    }
+
+    /**
+     * Returns the progress of every job that hasn't finished yet.
+     *
+     * @return A line for each job, such as "multihome reload: 42% (120 steps over 3 ticks)".
+     */
+    public List<String> getJobProgress() {
+        List<String> progress = new ArrayList<>();
+
+        for (RunningJob runningJob : jobs) {
+            double done = runningJob.job.getProgress();
+            progress.add(runningJob.name + ": " +
+                    (done < 0 ? "running" : String.format("%.0f%%", done * 100)) + " (" +
+                    runningJob.steps + " steps over " + runningJob.ticks + " ticks)");
+        }
+
+        return progress;
+    }
+
+    /**
+     * Returns the number of jobs finished since the plugin was enabled.
+     *
+     * @return The number of finished jobs.
+     */
+    public long getFinishedJobCount() {
+        return finishedJobs;
+    }
+
+    /**
+     * Stops running jobs each tick and finishes every remaining job right away, without a time
+     * budget, so no work is lost. This is used when the plugin is disabled.
+     */
+    public void close() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+
+        // Finish every remaining job, including jobs submitted while finishing them.
+        closed = true;
+
+        while (!jobs.isEmpty()) {
+            finish(jobs.pollFirst());
+        }
+    }
+
+    /**
+     * Runs every remaining step of a job without a time budget.
+     *
+     * @param runningJob The job to finish.
+     */
+    private void finish(RunningJob runningJob) {
+        boolean finished = false;
+
+        while (!finished) {
+            finished = runStep(runningJob);
+        }
+    }
+
+    /**
+     * Runs steps of the waiting jobs, taking turns, until the tick's time budget is spent or
+     * every job has finished. At least one step runs each tick so every job makes progress.
+     */
+    private void runTick() {
+        long deadline = System.nanoTime() + budgetNanos;
+        tick++;
+
+        do {
+            RunningJob runningJob = jobs.pollFirst();
+
+            // Count the ticks each job runs in.
+            if (runningJob.lastTick != tick) {
+                runningJob.lastTick = tick;
+                runningJob.ticks++;
+            }
+
+            // Put the job back at the end of the line if it isn't finished.
+            if (!runStep(runningJob)) {
+                jobs.addLast(runningJob);
+            }
+        } while (!jobs.isEmpty() && System.nanoTime() - deadline < 0);
+
+        // Stop running each tick once every job has finished.
+        if (jobs.isEmpty()) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+    }
+
+    /**
+     * Runs the next step of a job and completes its future if the job finished.
+     *
+     * @param runningJob The job to run the next step of.
+     *
+     * @return True if the job is finished, false if it has more steps.
+     */
+    private boolean runStep(RunningJob runningJob) {
+        long start = System.nanoTime();
+        boolean finished;
+
+        // Try to run the next step of the job.
+        try {
+            finished = runningJob.job.step();
+        }
+        // The job failed, so it won't run any more steps.
+        catch (RuntimeException e) {
+            EverythingPlugin.getEPLogger().warning("The job " + runningJob.name + " failed: " +
+                    e.getMessage());
+            runningJob.future.completeExceptionally(e);
+            return true;
+        }
+        finally {
+            runningJob.steps++;
+            runningJob.workNanos += System.nanoTime() - start;
+        }
+
+        // Check if the job is finished.
+        if (finished) {
+            finishedJobs++;
+            EverythingPlugin.getEPLogger().fine("Finished the job " + runningJob.name + " in " +
+                    runningJob.steps + " steps over " + runningJob.ticks + " ticks (" +
+                    runningJob.workNanos / 1_000_000.0 + " ms of work).");
+            runningJob.future.complete(null);
+        }
+
+        return finished;
+    }
+}
@@ -0,0 +1,290 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+
+/**
+ * This class represents usage statistics for named entries, such as warps. Every use of an entry
+ * adds to its use counter and updates when it was last used.
+ *
+ * Recording a use is lock-free and doesn't allocate anything once the entry has been used before,
+ * so it's cheap enough to do on every teleport from any thread. The statistics are saved to their
+ * file periodically, and only if something changed, by a {@link SnapshotWriter}.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class UsageStats {
+
+    /**
+     * This class represents the usage of a single entry.
+     */
+    private static final class Counter {
+
+        /**
+         * Declare the number of uses and when the entry was last used, in milliseconds since the
+         * epoch.
+         */
+        private final LongAdder uses = new LongAdder();
+        private volatile long lastUsed = 0;
+    }
+
+    /**
+     * This class represents the usage of an entry at the time it was read.
+     */
+    public static final class Entry {
+
+        /**
+         * Declare the name of the entry, its number of uses, and when it was last used.
+         */
+        private final String name;
+        private final long uses;
+        private final long lastUsed;
+
+        /**
+         * Makes the usage of an entry.
+         *
+         * @param name     The name of the entry.
+         * @param uses     The number of times the entry was used.
+         * @param lastUsed When the entry was last used, in milliseconds since the epoch.
+         */
+        private Entry(String name, long uses, long lastUsed) {
+            this.name = name;
+            this.uses = uses;
+            this.lastUsed = lastUsed;
+        }
+
+        /**
+         * Returns the name of the entry.
+         *
+         * @return The name of the entry.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of times the entry was used.
+         *
+         * @return The number of times the entry was used.
+         */
+        public long getUses() {
+            return uses;
+        }
+
+        /**
+         * Returns when the entry was last used.
+         *
+         * @return When the entry was last used, in milliseconds since the epoch, or 0 if it was
+         * never used.
+         */
+        public long getLastUsed() {
+            return lastUsed;
+        }
+    }
+
+    /**
+     * Declare the usage counter of each entry that was used.
+     */
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Declare whether anything changed since the statistics were last saved, the periodic save
+     * task, and the background writer that saves the statistics.
+     */
+    private volatile boolean changed = false;
+    private final BukkitTask saveTask;
+    private final SnapshotWriter<Map<String, long[]>> writer;
+
+    /**
+     * Loads the usage statistics from their file, if it exists, and starts saving them
+     * periodically.
+     *
+     * @param file The file to store the usage statistics in.
+     */
+    public UsageStats(File file) {
+        writer = new SnapshotWriter<>(file, 0L, this::snapshot, UsageStats::serialize);
+
+        // Load the existing usage statistics.
+        if (file.exists()) {
+            load(YamlConfiguration.loadConfiguration(file));
+        }
+
+        // Save the usage statistics periodically if they changed.
+        long saveInterval = Math.max(20,
+                EverythingPlugin.getPlugin().getConfig().getLong("analytics.save-interval", 6000L));
+        saveTask = Bukkit.getScheduler().runTaskTimer(EverythingPlugin.getPlugin(),
+                this::markDirtyIfChanged, saveInterval, saveInterval);
+    }
+
+    /**
+     * Records a use of an entry. This can be called from any thread.
+     *
+     * @param name The name of the entry.
+     */
+    public void record(String name) {
+        // Find the entry's counter, only making one the first time the entry is used.
+        Counter counter = counters.get(name);
+
+        if (counter == null) {
+            counter = counters.computeIfAbsent(name, key -> new Counter());
+        }
+
+        // Count the use.
+        counter.uses.increment();
+        counter.lastUsed = System.currentTimeMillis();
+        changed = true;
+    }
+
+    /**
+     * Forgets the usage of an entry, such as when it's deleted. This can be called from any
+     * thread.
+     *
+     * @param name The name of the entry.
+     */
+    public void forget(String name) {
+        if (counters.remove(name) != null) {
+            changed = true;
+        }
+    }
+
+    /**
+     * Returns the most used entries.
+     *
+     * @param limit The most entries to return.
+     *
+     * @return The most used entries, from most to least used.
+     */
+    public List<Entry> getTop(int limit) {
+        List<Entry> entries = new ArrayList<>();
+
+        for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+            entries.add(new Entry(counter.getKey(), counter.getValue().uses.sum(),
+                    counter.getValue().lastUsed));
+        }
+
+        entries.sort(Comparator.comparingLong(Entry::getUses).reversed()
+                .thenComparing(Entry::getName, String.CASE_INSENSITIVE_ORDER));
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    /**
+     * Returns the total number of uses of every entry.
+     *
+     * @return The total number of uses.
+     */
+    public long getTotalUses() {
+        long totalUses = 0;
+
+        for (Counter counter : counters.values()) {
+            totalUses += counter.uses.sum();
+        }
+
+        return totalUses;
+    }
+
+    /**
+     * Returns the number of entries that have been used.
+     *
+     * @return The number of entries that have been used.
+     */
+    public int getEntryCount() {
+        return counters.size();
+    }
+
+    /**
+     * Stops saving the usage statistics periodically and saves any changes right away. This is
+     * used when the plugin is disabled. This must be called from the main thread.
+     *
+     * @return True if the usage statistics were saved successfully, false otherwise.
+     */
+    public boolean close() {
+        saveTask.cancel();
+        markDirtyIfChanged();
+        return writer.saveNow();
+    }
+
+    /**
+     * Has the background writer save the usage statistics if they changed since the last save.
+     */
+    private void markDirtyIfChanged() {
+        if (changed) {
+            changed = false;
+            writer.markDirty();
+        }
+    }
+
+    /**
+     * Reads the usage statistics from a loaded usage statistics file.
+     *
+     * @param usageFile The loaded usage statistics file.
+     */
+    private void load(YamlConfiguration usageFile) {
+        for (String name : usageFile.getKeys(false)) {
+            ConfigurationSection entrySection = usageFile.getConfigurationSection(name);
+
+            // Check if the entry's usage is valid.
+            if (entrySection == null) {
+                EverythingPlugin.getEPLogger().warning("Skipping the invalid usage statistics " +
+                        "of " + name + ".");
+                continue;
+            }
+
+            // Read the usage of the entry.
+            Counter counter = new Counter();
+            counter.uses.add(entrySection.getLong("uses"));
+            counter.lastUsed = entrySection.getLong("last-used");
+            counters.put(name, counter);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the usage statistics, keyed by entry name.
+     *
+     * @return The snapshot of the usage statistics. Each entry has its uses and when it was last
+     * used.
+     */
+    private Map<String, long[]> snapshot() {
+        Map<String, long[]> snapshot = new HashMap<>();
+
+        for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+            snapshot.put(counter.getKey(), new long[] {counter.getValue().uses.sum(),
+                    counter.getValue().lastUsed});
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Turns a snapshot of the usage statistics into the contents of the usage statistics file.
+     *
+     * @param snapshot The snapshot of the usage statistics.
+     *
+     * @return The YAML contents of the usage statistics file.
+     */
+    private static String serialize(Map<String, long[]> snapshot) {
+        YamlConfiguration usageFile = new YamlConfiguration();
+
+        for (Map.Entry<String, long[]> entry : snapshot.entrySet()) {
+            ConfigurationSection entrySection = usageFile.createSection(entry.getKey());
+            entrySection.set("uses", entry.getValue()[0]);
+            entrySection.set("last-used", entry.getValue()[1]);
+        }
+
+        return usageFile.saveToString();
+    }
+}
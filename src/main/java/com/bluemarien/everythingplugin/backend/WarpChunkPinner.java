@@ -0,0 +1,382 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+
+/**
+ * This class represents the policy that keeps the chunks of the most used warps loaded. Every so
+ * often, the teleports made to each warp since the last time are read from the warp database's
+ * usage statistics and added to the warp's usage score, which decays over time so warps that stop
+ * being used lose their place. The warps with the highest scores then have their destination
+ * chunks pinned with plugin chunk tickets, and chunks of warps that dropped out are released.
+ *
+ * Every pinned chunk stays in memory, so the number of pinned chunks in each world is capped. The
+ * policy counts how many warp teleports landed in a pinned chunk (hits) and how many didn't
+ * (misses), so the memory spent on pins can be weighed against how often they help.
+ *
+ * All methods must be called from the main thread.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class WarpChunkPinner {
+
+    /**
+     * This class represents the decaying usage score of a warp.
+     */
+    private static final class Usage {
+
+        /**
+         * Declare the score and when it was last brought up to date.
+         */
+        private double score = 0;
+        private long updatedAt;
+
+        /**
+         * Makes a usage score of zero.
+         *
+         * @param now The current time, in milliseconds.
+         */
+        private Usage(long now) {
+            updatedAt = now;
+        }
+
+        /**
+         * Returns the score decayed up to the given time.
+         *
+         * @param now            The current time, in milliseconds.
+         * @param halfLifeMillis How long it takes the score to halve, in milliseconds.
+         *
+         * @return The decayed score.
+         */
+        private double decay(long now, double halfLifeMillis) {
+            score *= Math.pow(0.5, (now - updatedAt) / halfLifeMillis);
+            updatedAt = now;
+            return score;
+        }
+    }
+
+    /**
+     * Declare the policy settings from the configuration file.
+     */
+    private final int hotWarps;
+    private final int maxChunksPerWorld;
+    private final double halfLifeMillis;
+    private final double minUsage;
+
+    /**
+     * Declare the usage score of each warp, the number of teleports to each warp read from the
+     * warp usage statistics at the last update, and the chunks currently pinned in each world.
+     * Chunks are stored as their x coordinate in the high 32 bits and z coordinate in the low 32
+     * bits.
+     */
+    private final Map<String, Usage> usage = new HashMap<>();
+    private final Map<String, Long> countedUses = new HashMap<>();
+    private final Map<String, Set<Long>> pinnedChunks = new HashMap<>();
+
+    /**
+     * Declare the periodic pin update task and the hit and miss counters.
+     */
+    private BukkitTask updateTask = null;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Makes the warp chunk pinner and starts updating the pins periodically if pinning is turned
+     * on.
+     */
+    public WarpChunkPinner() {
+        FileConfiguration config = EverythingPlugin.getPlugin().getConfig();
+        hotWarps = Math.max(0, config.getInt("pinning.hot-warps", 5));
+        maxChunksPerWorld = Math.max(0, config.getInt("pinning.max-chunks-per-world", 8));
+        halfLifeMillis = Math.max(1, config.getDouble("pinning.usage-half-life", 30)) * 60_000;
+        minUsage = config.getDouble("pinning.min-usage", 3);
+
+        // Check if pinning is turned on.
+        if (hotWarps == 0 || maxChunksPerWorld == 0) {
+            EverythingPlugin.getEPLogger().info("Warp chunk pinning is turned off.");
+            return;
+        }
+
+        // Only count the teleports made from now on towards the usage scores.
+        readNewUses();
+
+        long updateInterval = Math.max(20, config.getLong("pinning.update-interval", 1200L));
+        updateTask = Bukkit.getScheduler().runTaskTimer(EverythingPlugin.getPlugin(),
+                this::updatePins, updateInterval, updateInterval);
+    }
+
+    /**
+     * Counts whether a finished teleport to a warp landed in a pinned chunk. The teleport itself
+     * is counted towards the warp's usage score from the warp usage statistics.
+     *
+     * @param destination The location of the warp.
+     */
+    public void recordTeleport(Location destination) {
+        // Check if pinning is turned on.
+        if (updateTask == null) {
+            return;
+        }
+
+        // Count whether the warp's chunk was pinned.
+        World world = destination.getWorld();
+        Set<Long> worldPins = world == null ? null : pinnedChunks.get(world.getName());
+
+        if (worldPins != null && worldPins.contains(toChunkKey(destination))) {
+            hits++;
+        }
+        else {
+            misses++;
+        }
+    }
+
+    /**
+     * Releases every pinned chunk and stops updating the pins. This is used when the plugin is
+     * disabled.
+     */
+    public void close() {
+        // Stop updating the pins.
+        if (updateTask != null) {
+            updateTask.cancel();
+            updateTask = null;
+        }
+
+        // Release every pinned chunk, leaving the tickets of teleports that still hold them.
+        TeleportPipeline pipeline = EverythingPlugin.getTeleportPipeline();
+
+        for (Map.Entry<String, Set<Long>> worldPins : pinnedChunks.entrySet()) {
+            World world = Bukkit.getWorld(worldPins.getKey());
+
+            if (world == null) {
+                continue;
+            }
+
+            for (long chunk : worldPins.getValue()) {
+                if (pipeline == null || !pipeline.isHoldingChunk(world, chunkX(chunk),
+                        chunkZ(chunk))) {
+                    world.removePluginChunkTicket(chunkX(chunk), chunkZ(chunk),
+                            EverythingPlugin.getPlugin());
+                }
+            }
+        }
+
+        pinnedChunks.clear();
+    }
+
+    /**
+     * Checks if a chunk is pinned.
+     *
+     * @param world The world the chunk is in.
+     * @param x     The x coordinate of the chunk.
+     * @param z     The z coordinate of the chunk.
+     *
+     * @return True if the chunk is pinned, false otherwise.
+     */
+    public boolean isPinned(World world, int x, int z) {
+        Set<Long> worldPins = pinnedChunks.get(world.getName());
+        return worldPins != null && worldPins.contains(toChunkKey(x, z));
+    }
+
+    /**
+     * Returns the number of chunks currently pinned in every world.
+     *
+     * @return The number of pinned chunks.
+     */
+    public int getPinnedChunkCount() {
+        int pinned = 0;
+
+        for (Set<Long> worldPins : pinnedChunks.values()) {
+            pinned += worldPins.size();
+        }
+
+        return pinned;
+    }
+
+    /**
+     * Returns the number of warp teleports that landed in a pinned chunk.
+     *
+     * @return The number of warp teleports that landed in a pinned chunk.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of warp teleports that didn't land in a pinned chunk.
+     *
+     * @return The number of warp teleports that didn't land in a pinned chunk.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Picks the chunks of the most used warps and pins them, releasing the chunks of warps that
+     * dropped out.
+     */
+    private void updatePins() {
+        WarpDatabase warpDB = EverythingPlugin.getWarpDatabase();
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Double>> rankedWarps = new ArrayList<>();
+
+        // Add the teleports made since the last update to the usage scores.
+        for (Map.Entry<String, Long> newUses : readNewUses().entrySet()) {
+            Usage warpUsage = usage.computeIfAbsent(newUses.getKey(), name -> new Usage(now));
+            warpUsage.decay(now, halfLifeMillis);
+            warpUsage.score += newUses.getValue();
+        }
+
+        // Decay every usage score, forgetting warps that were deleted or are barely used anymore.
+        for (Iterator<Map.Entry<String, Usage>> it = usage.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Usage> warpUsage = it.next();
+            double score = warpUsage.getValue().decay(now, halfLifeMillis);
+
+            if (warpDB.getWarp(warpUsage.getKey()) == null || score < 0.01) {
+                it.remove();
+            }
+            else if (score >= minUsage) {
+                rankedWarps.add(new AbstractMap.SimpleEntry<>(warpUsage.getKey(), score));
+            }
+        }
+
+        rankedWarps.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+
+        // Pick the chunks of the most used warps, up to the cap in each world.
+        Map<String, Set<Long>> wantedChunks = new HashMap<>();
+
+        for (int i = 0; i < rankedWarps.size() && i < hotWarps; i++) {
+            Location warp = warpDB.getWarp(rankedWarps.get(i).getKey());
+
+            if (warp == null || warp.getWorld() == null) {
+                continue;
+            }
+
+            Set<Long> worldChunks = wantedChunks.computeIfAbsent(warp.getWorld().getName(),
+                    name -> new HashSet<>());
+
+            if (worldChunks.size() < maxChunksPerWorld) {
+                worldChunks.add(toChunkKey(warp));
+            }
+        }
+
+        // Release the chunks that aren't wanted anymore, unless a teleport is holding them.
+        TeleportPipeline pipeline = EverythingPlugin.getTeleportPipeline();
+
+        for (Map.Entry<String, Set<Long>> worldPins : pinnedChunks.entrySet()) {
+            World world = Bukkit.getWorld(worldPins.getKey());
+            Set<Long> worldChunks = wantedChunks.get(worldPins.getKey());
+
+            for (long chunk : worldPins.getValue()) {
+                if (world != null && (worldChunks == null || !worldChunks.contains(chunk)) &&
+                        !pipeline.isHoldingChunk(world, chunkX(chunk), chunkZ(chunk))) {
+                    world.removePluginChunkTicket(chunkX(chunk), chunkZ(chunk),
+                            EverythingPlugin.getPlugin());
+                }
+            }
+        }
+
+        // Pin the chunks that are wanted but not pinned yet.
+        for (Map.Entry<String, Set<Long>> worldChunks : wantedChunks.entrySet()) {
+            World world = Bukkit.getWorld(worldChunks.getKey());
+            Set<Long> worldPins = pinnedChunks.get(worldChunks.getKey());
+
+            for (long chunk : worldChunks.getValue()) {
+                if (world != null && (worldPins == null || !worldPins.contains(chunk))) {
+                    world.addPluginChunkTicket(chunkX(chunk), chunkZ(chunk),
+                            EverythingPlugin.getPlugin());
+                }
+            }
+        }
+
+        pinnedChunks.clear();
+        pinnedChunks.putAll(wantedChunks);
+        EverythingPlugin.getEPLogger().fine("Pinned " + getPinnedChunkCount() + " warp " +
+                "chunk(s). Pin hits: " + hits + ", misses: " + misses + ".");
+    }
+
+    /**
+     * Reads the number of teleports to each warp from the warp usage statistics and works out how
+     * many were made since the last time they were read.
+     *
+     * @return The number of new teleports to each warp that was teleported to since the last
+     *         read.
+     */
+    private Map<String, Long> readNewUses() {
+        Map<String, Long> newUses = new HashMap<>();
+        Map<String, Long> uses = new HashMap<>();
+
+        for (UsageStats.Entry warpUses : EverythingPlugin.getWarpDatabase().getWarpUsage()) {
+            long added = warpUses.getUses() - countedUses.getOrDefault(warpUses.getName(), 0L);
+            uses.put(warpUses.getName(), warpUses.getUses());
+
+            if (added > 0) {
+                newUses.put(warpUses.getName(), added);
+            }
+        }
+
+        // Remember the counts for next time, dropping warps that were deleted.
+        countedUses.clear();
+        countedUses.putAll(uses);
+        return newUses;
+    }
+
+    /**
+     * Makes the key of the chunk a location is in.
+     *
+     * @param location The location to make the chunk key of.
+     *
+     * @return The chunk's x coordinate in the high 32 bits and z coordinate in the low 32 bits.
+     */
+    private static long toChunkKey(Location location) {
+        return toChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    /**
+     * Makes the key of a chunk from its coordinates.
+     *
+     * @param x The x coordinate of the chunk.
+     * @param z The z coordinate of the chunk.
+     *
+     * @return The chunk's x coordinate in the high 32 bits and z coordinate in the low 32 bits.
+     */
+    static long toChunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the x coordinate of a chunk key.
+     *
+     * @param chunk The chunk key.
+     *
+     * @return The chunk's x coordinate.
+     */
+    static int chunkX(long chunk) {
+        return (int) (chunk >> 32);
+    }
+
+    /**
+     * Returns the z coordinate of a chunk key.
+     *
+     * @param chunk The chunk key.
+     *
+     * @return The chunk's z coordinate.
+     */
+    static int chunkZ(long chunk) {
+        return (int) chunk;
+    }
+}
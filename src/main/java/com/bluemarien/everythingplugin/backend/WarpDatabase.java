@@ -4,27 +4,36 @@ import com.bluemarien.everythingplugin.EverythingPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 
 /**
  * This class represents a warp database that this plugin uses to store data about the warps on the
- * server. It uses the YAML configuration object from the Spigot API to handle database
- * functionality.
+ * server. Warps are kept in an in-memory index from warp name to {@link StoredLocation}, so a
+ * lookup is a single hash lookup. The YAML configuration object from the Spigot API is only used to
+ * load and save the warp database file, and changes are saved in the background by a
+ * {@link SnapshotWriter}. Edits made to the file while changes are waiting to be saved are merged
+ * with them instead of either one overwriting the other.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
 public class WarpDatabase {
 
@@ -33,9 +42,28 @@ public class WarpDatabase {
      */
     private final String warpDatabasePath =
             EverythingPlugin.getPluginFolderPath() + "/" + EverythingPlugin.getWarpDBName();
-    private FileConfiguration warpDatabase = null;
     private File warpDatabaseFile = null;
 
+    /**
+     * Declare the in-memory index of warps, the prefix index of warp names used for tab
+     * completion, and the background writer that saves changes to the warp database.
+     */
+    private final Map<String, StoredLocation> warps = new LinkedHashMap<>();
+    private final PrefixIndex warpNames = new PrefixIndex();
+
+    /**
+     * Declare the version of the set of warp names. It changes every time a warp is added or
+     * removed, so anything built from the warp names knows when it's out of date.
+     */
+    private int warpSetVersion = 0;
+    private final SnapshotWriter<Map<String, StoredLocation>> warpDatabaseWriter;
+
+    /**
+     * Declare the usage statistics of the warps.
+     */
+    private final UsageStats warpUsage = new UsageStats(
+            new File(EverythingPlugin.getPluginFolderPath(), EverythingPlugin.getWarpUsageName()));
+
     /**
      * Loads an existing warp database or, if necessary, creates a new database if one doesn't
      * exist.
@@ -43,6 +71,10 @@ public class WarpDatabase {
     public WarpDatabase() {
         // Make the file object to reference the warp database.
         warpDatabaseFile = new File(warpDatabasePath);
+        warpDatabaseWriter = new SnapshotWriter<>(warpDatabaseFile,
+                EverythingPlugin.getPlugin().getConfig().getLong("storage.yaml-save-delay", 40L),
+                () -> new LinkedHashMap<>(warps), WarpDatabase::serializeWarps);
+        warpDatabaseWriter.onExternalEdit(this::mergeEditedFile);
 
         // Check if the warp database already exists.
         if (!warpDatabaseExists()) {
@@ -55,7 +87,18 @@ public class WarpDatabase {
         else {
             // Load the existing warp database.
             EverythingPlugin.getEPLogger().info("Connecting to the existing warp database...");
-            warpDatabase = YamlConfiguration.loadConfiguration(warpDatabaseFile);
+
+            try {
+                readWarpDatabase();
+            }
+            // An error occurred reading the warp database file, or it isn't valid YAML.
+            catch (IOException | InvalidConfigurationException e) {
+                EverythingPlugin.getEPLogger().severe("An error occurred reading the warp " +
+                        "database file! Starting with no warps.");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+                return;
+            }
+
             EverythingPlugin.getEPLogger().info("Connected to the existing warp database " +
                     "successfully!");
         }
@@ -69,16 +112,14 @@ public class WarpDatabase {
      */
     public void insertWarp(Location warp, String warpName) {
         // Insert the warp location into the warp database labeled with the provided warp name.
-        warpDatabase.set("warps." + warpName + ".world",
-                Objects.requireNonNull(warp.getWorld()).getName());
-        warpDatabase.set("warps." + warpName + ".x", warp.getX());
-        warpDatabase.set("warps." + warpName + ".y", warp.getY());
-        warpDatabase.set("warps." + warpName + ".z", warp.getZ());
-        warpDatabase.set("warps." + warpName + ".yaw", warp.getYaw());
-        warpDatabase.set("warps." + warpName + ".pitch", warp.getPitch());
+        // Only a new warp name changes the set of warp names.
+        if (warps.put(warpName, StoredLocation.fromLocation(warp)) == null) {
+            warpNames.add(warpName);
+            warpSetVersion++;
+        }
 
-        // Save the warp to the warp database.
-        saveWarpDatabase();
+        // Save the warp to the warp database in the background.
+        warpDatabaseWriter.markDirty();
     }
 
     /**
@@ -89,29 +130,12 @@ public class WarpDatabase {
      * @return The location of a stored warp or null if the warp doesn't exist in the warp database.
      */
     public Location getWarp(String warpName) {
-        // Check if the warp exists in the warp database.
-        if (warpDatabase.get("warps." + warpName) == null) {
-            // Return null since the warp doesn't exist in the warp database.
-            return null;
-        }
+        // Look up the warp in the warp database.
+        StoredLocation warp = warps.get(warpName);
 
-        // Try to return the location of the warp from the warp database.
-        try {
-            return new Location(
-                    Bukkit.getWorld(Objects.requireNonNull(warpDatabase.getString("warps." + warpName + ".world"))),
-                    warpDatabase.getDouble("warps." + warpName + ".x"),
-                    warpDatabase.getDouble("warps." + warpName + ".y"),
-                    warpDatabase.getDouble("warps." + warpName + ".z"),
-                    Float.parseFloat(Objects.requireNonNull(warpDatabase.getString("warps." + warpName + ".yaw"))),
-                    Float.parseFloat(Objects.requireNonNull(warpDatabase.getString("warps." + warpName + ".pitch"))));
-        }
-        // An error occurred getting the warp location.
-        catch (NullPointerException e) {
-            EverythingPlugin.getEPLogger().severe("An error occurred getting the location of the " +
-                    "warp " + warpName + " from the warp database.");
-            EverythingPlugin.getEPLogger().severe(e.getMessage());
-            return null;
-        }
+        // Return null if the warp doesn't exist in the warp database, otherwise return a new
+        // location for the warp.
+        return warp == null ? null : warp.toLocation();
     }
 
     /**
@@ -124,68 +148,107 @@ public class WarpDatabase {
      * warp database.
      */
     public boolean removeWarp(String warpName) {
-        // Check if the warp exists in the warp database.
-        if (warpDatabase.get("warps." + warpName) == null) {
+        // Delete the warp from the warp database if it exists.
+        if (warps.remove(warpName) == null) {
             return false;
         }
 
-        // Delete the warp from the warp database.
-        warpDatabase.set("warps." + warpName, null);
-        saveWarpDatabase();
+        warpNames.remove(warpName);
+        warpSetVersion++;
+        warpUsage.forget(warpName);
+        warpDatabaseWriter.markDirty();
         return true;
     }
 
+    /**
+     * Records a teleport to a warp in the warp usage statistics. This can be called from any
+     * thread.
+     *
+     * @param warpName The name of the warp that was teleported to.
+     */
+    public void recordWarpUse(String warpName) {
+        warpUsage.record(warpName);
+    }
+
+    /**
+     * Returns the most used warps.
+     *
+     * @param limit The most warps to return.
+     *
+     * @return The usage of the most used warps, from most to least used.
+     */
+    public List<UsageStats.Entry> getTopWarps(int limit) {
+        return warpUsage.getTop(limit);
+    }
+
+    /**
+     * Returns the usage of every warp that has been teleported to.
+     *
+     * @return The usage of every warp that has been teleported to, from most to least used.
+     */
+    public List<UsageStats.Entry> getWarpUsage() {
+        return warpUsage.getTop(Integer.MAX_VALUE);
+    }
+
     /**
      * Returns a set of Strings containing all the warp names stored in the warp database.
      *
      * @return A set of Strings containing all the warp names stored in the warp database.
      */
     public Set<String> listWarps() {
-        // Get the configuration section of warps from the warp database.
-        ConfigurationSection warps = warpDatabase.getConfigurationSection("warps");
+        return Collections.unmodifiableSet(warps.keySet());
+    }
+
+    /**
+     * Returns the names of the warps that start with the given prefix, ignoring case.
+     *
+     * @param prefix The prefix of the warp names to return.
+     *
+     * @return The names of the warps that start with the prefix, sorted without regard to case.
+     */
+    public List<String> completeWarps(String prefix) {
+        return warpNames.complete(prefix);
+    }
 
-        // Return the empty set if there are no warps in the warp database, otherwise return the
-        // set of all warps in the warp database.
-        return warps == null ? Collections.emptySet() : warps.getKeys(false);
+    /**
+     * Returns the version of the set of warp names. It changes every time a warp is added or
+     * removed.
+     *
+     * @return The version of the set of warp names.
+     */
+    public int getWarpSetVersion() {
+        return warpSetVersion;
     }
 
     /**
-     * Saves the warp database.
+     * Saves any unsaved changes to the warp database and its usage statistics right away instead
+     * of waiting for the background writers. This is used when the plugin is disabled.
      *
      * @return True if the warp database was saved successfully, false otherwise.
      */
     public boolean saveWarpDatabase() {
-        // Try to save the warp database.
-        try {
-            warpDatabase.save(warpDatabaseFile);
-        }
-        // An error occurred while trying to save the warp database.
-        catch (IOException e) {
-            EverythingPlugin.getEPLogger().info(ChatColor.RED + "An error occurred saving the " +
-                    "warp database file!");
-            return false;
-        }
-
-        // The warp database was saved successfully.
-        return true;
+        return warpDatabaseWriter.saveNow() & warpUsage.close();
     }
 
     /**
-     * Reloads the warp database.
+     * Reloads the warp database. If the warp database file can't be read or isn't valid YAML, the
+     * warps in memory are left untouched.
      *
      * @return True if the warp database was reloaded successfully, false otherwise.
      */
     public boolean reloadWarpDatabase() {
-        // Try to reload the warp database.
+        // Try to read the warp database file.
         EverythingPlugin.getEPLogger().info("Reloading the warp database...");
 
         try {
-            warpDatabase = YamlConfiguration.loadConfiguration(warpDatabaseFile);
+            readWarpDatabase();
         }
-        // An error occurred while trying to reload the warp database.
-        catch (IllegalArgumentException e) {
+        // An error occurred reading the warp database file, or it isn't valid YAML. Keep the warps
+        // in memory until it's fixed.
+        catch (IOException | InvalidConfigurationException e) {
             EverythingPlugin.getEPLogger().info(ChatColor.RED + "An error occurred reloading the " +
-                    "warp database file!");
+                    "warp database file! The warps in memory were kept.");
+            EverythingPlugin.getEPLogger().severe(e.getMessage());
             return false;
         }
 
@@ -194,6 +257,181 @@ public class WarpDatabase {
         return true;
     }
 
+    /**
+     * Merges the warps read from the warp database file into the in-memory index of warps, only
+     * touching the warps that were added, moved, or removed in the file since it was last saved
+     * or read. A warp that was also changed in game since then keeps the change made in game, and
+     * a warning names it. Any changes the file is missing are saved to it. This must be called
+     * from the main thread.
+     *
+     * @param fileWarps  The warps read from the warp database file.
+     * @param fileDigest The digest of the warp database file's contents, or null. If it matches
+     *                   the contents this plugin last wrote or read, nothing is changed.
+     *
+     * @return The number of warps that were added, moved, or removed.
+     */
+    public int applyWarpChanges(Map<String, StoredLocation> fileWarps, byte[] fileDigest) {
+        // Check if the warp database file was last written or read by this plugin.
+        if (fileDigest != null && warpDatabaseWriter.isLastWritten(fileDigest)) {
+            return 0;
+        }
+
+        // Compare every warp in memory or in the file with how it was last saved, to tell edits
+        // made in the file apart from changes made in game.
+        Map<String, StoredLocation> savedWarps = warpDatabaseWriter.getSavedSnapshot();
+        Set<String> warpNamesToCheck = new LinkedHashSet<>(warps.keySet());
+        warpNamesToCheck.addAll(fileWarps.keySet());
+        List<String> conflicts = new ArrayList<>();
+        int changes = 0;
+
+        for (String warpName : warpNamesToCheck) {
+            StoredLocation fileWarp = fileWarps.get(warpName);
+            StoredLocation memoryWarp = warps.get(warpName);
+            StoredLocation savedWarp = savedWarps == null ? memoryWarp : savedWarps.get(warpName);
+
+            // Check if the warp was edited in the file.
+            if (Objects.equals(fileWarp, memoryWarp) || Objects.equals(fileWarp, savedWarp)) {
+                continue;
+            }
+
+            // Keep the change made in game if the warp was changed in game too.
+            if (!Objects.equals(memoryWarp, savedWarp)) {
+                conflicts.add(warpName);
+                continue;
+            }
+
+            // Apply the edit made in the file.
+            if (fileWarp == null) {
+                warps.remove(warpName);
+                warpNames.remove(warpName);
+                warpUsage.forget(warpName);
+            }
+            else if (warps.put(warpName, fileWarp) == null) {
+                warpNames.add(warpName);
+            }
+
+            changes++;
+        }
+
+        // Let anything built from the warp names know they changed.
+        if (changes > 0) {
+            warpSetVersion++;
+        }
+
+        // Remember what the file holds now, and save the changes it's missing.
+        if (fileDigest != null) {
+            warpDatabaseWriter.acknowledge(fileDigest, new LinkedHashMap<>(fileWarps));
+        }
+
+        if (!conflicts.isEmpty()) {
+            EverythingPlugin.getEPLogger().warning("The warp(s) " + String.join(", ", conflicts) +
+                    " were changed both in game and in the warp database file. The changes made " +
+                    "in game were kept.");
+        }
+
+        if (!warps.equals(fileWarps)) {
+            warpDatabaseWriter.markDirty();
+        }
+
+        return changes;
+    }
+
+    /**
+     * Reads the warp database file and merges the warps in it into the in-memory index of warps.
+     * This must be called from the main thread.
+     *
+     * @return The number of warps that were added, moved, or removed.
+     *
+     * @throws IOException                   If an error occurs reading the warp database file.
+     * @throws InvalidConfigurationException If the warp database file isn't valid YAML.
+     */
+    private int readWarpDatabase() throws IOException, InvalidConfigurationException {
+        byte[] contents = Files.readAllBytes(warpDatabaseFile.toPath());
+        YamlConfiguration warpConfig = new YamlConfiguration();
+        warpConfig.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        return applyWarpChanges(parseWarps(warpConfig), SnapshotWriter.digest(contents));
+    }
+
+    /**
+     * Merges an edit made to the warp database file while changes were waiting to be saved. An
+     * edit that isn't valid YAML can't be merged, so it's overwritten by the warps in memory.
+     * This is called by the background writer on the main thread.
+     *
+     * @param contents The edited contents of the warp database file.
+     */
+    private void mergeEditedFile(byte[] contents) {
+        byte[] digest = SnapshotWriter.digest(contents);
+        YamlConfiguration warpConfig = new YamlConfiguration();
+
+        // Try to parse the edited warp database file.
+        try {
+            warpConfig.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        }
+        // The edited file isn't valid YAML. Save the warps in memory over it.
+        catch (InvalidConfigurationException e) {
+            EverythingPlugin.getEPLogger().warning("The edited warp database file isn't valid " +
+                    "YAML! It will be overwritten by the warps in memory.");
+            warpDatabaseWriter.acknowledge(digest, warpDatabaseWriter.getSavedSnapshot());
+            warpDatabaseWriter.markDirty();
+            return;
+        }
+
+        applyWarpChanges(parseWarps(warpConfig), digest);
+    }
+
+    /**
+     * Reads every valid warp in a loaded warp database file. This only touches the loaded file, so
+     * it may be called from any thread.
+     *
+     * @param warpDatabase The loaded warp database file.
+     *
+     * @return The warps in the warp database file.
+     */
+    static Map<String, StoredLocation> parseWarps(FileConfiguration warpDatabase) {
+        Map<String, StoredLocation> fileWarps = new LinkedHashMap<>();
+
+        // Check if there are any warps in the warp database file.
+        ConfigurationSection warpSection = warpDatabase.getConfigurationSection("warps");
+
+        if (warpSection == null) {
+            return fileWarps;
+        }
+
+        // Add every valid warp to the index.
+        for (String warpName : warpSection.getKeys(false)) {
+            ConfigurationSection section = warpSection.getConfigurationSection(warpName);
+            StoredLocation warp = section == null ? null : StoredLocation.load(section);
+
+            if (warp == null) {
+                EverythingPlugin.getEPLogger().warning("Skipping the invalid warp " + warpName +
+                        " in the warp database.");
+                continue;
+            }
+
+            fileWarps.put(warpName, warp);
+        }
+
+        return fileWarps;
+    }
+
+    /**
+     * Turns a snapshot of the warp index into the contents of the warp database file.
+     *
+     * @param snapshot The snapshot of the warp index.
+     *
+     * @return The YAML contents of the warp database file.
+     */
+    private static String serializeWarps(Map<String, StoredLocation> snapshot) {
+        YamlConfiguration warpDatabase = new YamlConfiguration();
+        ConfigurationSection warpSection = warpDatabase.createSection("warps");
+
+        for (Map.Entry<String, StoredLocation> warp : snapshot.entrySet()) {
+            warp.getValue().save(warpSection.createSection(warp.getKey()));
+        }
+
+        return warpDatabase.saveToString();
+    }
+
     /**
      * Creates a new warp database.
      *
@@ -211,9 +449,10 @@ public class WarpDatabase {
             return false;
         }
 
-        // A new warp database file was created successfully. Load and configure the file.
-        warpDatabase = YamlConfiguration.loadConfiguration(warpDatabaseFile);
-        warpDatabase.createSection("warps");
+        // A new warp database file was created successfully. It starts with no warps.
+        warps.clear();
+        warpNames.clear();
+        warpDatabaseWriter.acknowledge(SnapshotWriter.digest(new byte[0]), new LinkedHashMap<>());
         EverythingPlugin.getEPLogger().info("Created and connected to the new warp database " +
                 "successfully!");
         return true;
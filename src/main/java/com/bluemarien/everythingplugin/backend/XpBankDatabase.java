@@ -2,24 +2,49 @@ package com.bluemarien.everythingplugin.backend;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 
 /**
  * This class represents an xp bank database that this plugin uses to store data about players on
- * the server. It uses SQLite to handle database functionality.
+ * the server. It uses SQLite to handle database functionality. All database access is queued on
+ * the plugin's {@link StorageExecutor}, so the methods here return futures that complete on the
+ * main server thread.
+ *
+ * Balances are total experience points stored as 64-bit integers, so progress towards a level is
+ * never lost and a high level is worth more than a low one. Balances are kept in an in-memory
+ * cache that is authoritative while the player is online. Deposits and withdrawals only change
+ * the cache on the main thread, and changed balances are written back to the database in batches
+ * by {@link #flushXPBankBalances()}. Callers that can't wait for a future, such as the xp bank's
+ * economy, read an offline player's balance from the database once and then use the cache too.
+ * Offline players' balances stay cached until they haven't been used for a while or too many are
+ * cached, whichever comes first, and never while they have unsaved changes.
+ *
+ * The xp bank also keeps an {@link XpBankLeaderboard} that is built from the database once at
+ * startup and updated with every balance change, so leaderboard lookups never query the database.
  *
  * @author Anthony Farina
- * @version 2020.07.30
+ * @version 2026.10.17
  */
 public class XpBankDatabase {
 
@@ -32,104 +57,298 @@ public class XpBankDatabase {
     }
 
     /**
-     * Declare and initialize database paths/name and declare the connection object to database.
+     * This class represents the result of a deposit or withdrawal from an xp bank.
+     */
+    public static final class BankResult {
+
+        /**
+         * Declare whether the deposit or withdrawal went through and the balance after it.
+         */
+        private final boolean success;
+        private final long balance;
+
+        /**
+         * Makes the result of a deposit or withdrawal.
+         *
+         * @param success Whether the deposit or withdrawal went through.
+         * @param balance The xp bank balance after the deposit or withdrawal, in experience points.
+         */
+        private BankResult(boolean success, long balance) {
+            this.success = success;
+            this.balance = balance;
+        }
+
+        /**
+         * Returns whether the deposit or withdrawal went through. A withdrawal is turned down if
+         * the xp bank doesn't hold enough experience points, and a deposit is turned down if the xp
+         * bank can't hold any more.
+         *
+         * @return True if the deposit or withdrawal went through, false otherwise.
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * Returns the xp bank balance after the deposit or withdrawal. If it was turned down this
+         * is the unchanged balance.
+         *
+         * @return The xp bank balance after the deposit or withdrawal, in experience points.
+         */
+        public long getBalance() {
+            return balance;
+        }
+    }
+
+    /**
+     * Declare and initialize database paths/name and declare the storage executor that owns the
+     * connection to the database.
      */
     private final String databasePath =
             EverythingPlugin.getPluginFolderPath() + "/" + EverythingPlugin.getXpBankDBName();
-    private final String localPathURL = "jdbc:sqlite:" + databasePath;
-    private final String tableName = "xpBankTable";
-    private Connection conn = null;
+    private final String tableName = XpBankSchema.TABLE_NAME;
+    private final StorageExecutor storage;
+
+    /**
+     * Declare the number of offline players whose balances are kept cached and how long (in
+     * milliseconds) an offline player's balance is kept cached after it was last used.
+     */
+    private final int cacheSize = Math.max(0,
+            EverythingPlugin.getPlugin().getConfig().getInt("storage.xpbank-cache-size", 500));
+    private final long cacheTtlMillis = 1000L * Math.max(0,
+            EverythingPlugin.getPlugin().getConfig().getLong("storage.xpbank-cache-ttl", 300L));
+
+    /**
+     * Declare the balance cache, the balances currently being loaded, the players whose cached
+     * balance hasn't been written to the database yet, and the offline players whose balance is
+     * cached, from least to most recently used, with the time each was last used. The balance
+     * cache is only changed on the main thread, but may be checked from any thread. The rest are
+     * only used on the main thread.
+     */
+    private final Map<UUID, Long> balanceCache = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Long>> pendingLoads = new HashMap<>();
+    private final Set<UUID> dirtyBalances = new HashSet<>();
+    private final Map<UUID, Long> offlineBalances = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Declare the balances read ahead of time by asynchronous callers, each with the number of
+     * balances dropped from the cache before it was read, and the number of balances dropped from
+     * the cache so far. A balance read ahead of time is only used if no balance has been dropped
+     * since, so it can never be older than a balance that was cached and dropped in the meantime.
+     * The number of dropped balances is only changed on the main thread.
+     */
+    private final Map<UUID, long[]> warmedBalances = new ConcurrentHashMap<>();
+    private volatile long evictionCount = 0;
+
+    /**
+     * Declare the balance a player read ahead of time is given when they aren't in the xp bank
+     * database. Balances are never negative, so it can't be mistaken for a real balance.
+     */
+    private static final long NO_ACCOUNT = -1;
+
+    /**
+     * Declare the balances being read for callers on the main thread, and the players found not to
+     * be in the xp bank database, with the time each was last found missing. These are only used
+     * on the main thread.
+     */
+    private final Map<UUID, CompletableFuture<Long>> pendingReads = new HashMap<>();
+    private final Map<UUID, Long> missingAccounts = new HashMap<>();
+
+    /**
+     * Declare how long (in milliseconds) a player may take to join after their balance was
+     * preloaded. A player who takes longer, such as one who disconnected before the login
+     * finished, is treated as no longer logging in.
+     */
+    private static final long PRELOAD_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Declare the players currently logging in, with the time each started logging in, and the
+     * balances preloaded for them before they join. These are filled in from the asynchronous
+     * pre-login thread.
+     */
+    private final Map<UUID, Long> preloadingPlayers = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> preloadedBalances = new ConcurrentHashMap<>();
+
+    /**
+     * Declare the xp bank leaderboard and the balance changes made while it's still being built.
+     * These are only used on the main thread.
+     */
+    private XpBankLeaderboard leaderboard = null;
+    private final Map<UUID, Long> pendingLeaderboardUpdates = new HashMap<>();
 
     /**
      * Connects to an existing xp bank database or, if necessary, creates a new database if one
      * doesn't exist.
+     *
+     * @param storage The storage executor that owns the connection to the xp bank database.
      */
-    public XpBankDatabase() {
+    public XpBankDatabase(StorageExecutor storage) {
+        this.storage = storage;
+
         // Check if the xp bank database already exists.
         if (!xpBankDatabaseExists()) {
             // Create and initialize a new xp bank database.
             EverythingPlugin.getEPLogger().info("No xp bank database detected! Creating a new xp " +
                     "bank database...");
-            createXPBankDatabase();
+            storage.submit(XpBankSchema::createTable).whenComplete((created, e) -> {
+                // Check if an error occurred creating the xp bank database.
+                if (e != null) {
+                    EverythingPlugin.getEPLogger().severe("An error occurred creating the new xp " +
+                            "bank database!");
+                    EverythingPlugin.getEPLogger().severe(e.getMessage());
+                    return;
+                }
+
+                EverythingPlugin.getEPLogger().info("Created and connected to the new xp bank " +
+                        "database successfully!");
+            });
         }
         // The xp bank database exists.
         else {
             EverythingPlugin.getEPLogger().info("Connecting to the existing xp bank database...");
+            storage.submit(conn -> XpBankSchema.migrate(conn, EverythingPlugin.getEPLogger()))
+                    .whenComplete((migrated, e) -> {
+                        // Check if an error occurred migrating the xp bank database.
+                        if (e != null) {
+                            EverythingPlugin.getEPLogger().severe("An error occurred migrating " +
+                                    "the xp bank database!");
+                            EverythingPlugin.getEPLogger().severe(e.getMessage());
+                        }
+                    });
+        }
 
-            // Attempt to connect to the existing xp bank database.
-            try {
-                conn = DriverManager.getConnection(localPathURL);
-            }
-            // An error occurred connecting to the existing xp bank database.
-            catch (SQLException e) {
-                EverythingPlugin.getEPLogger().severe("Error connecting to the existing xp bank " +
-                        "database!");
+        // Build the xp bank leaderboard from the balances in the xp bank database.
+        storage.submit(this::readXPBankLeaderboard).whenComplete((seeded, e) -> {
+            XpBankLeaderboard built = seeded;
+
+            // Check if an error occurred reading the balances. Start from an empty leaderboard.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred building the xp bank " +
+                        "leaderboard!");
                 EverythingPlugin.getEPLogger().severe(e.getMessage());
-                return;
+                built = new XpBankLeaderboard();
             }
 
-            EverythingPlugin.getEPLogger().info("Connected to the existing xp bank database " +
-                    "successfully!");
-        }
+            // Apply the balance changes made while the leaderboard was being built.
+            for (Map.Entry<UUID, Long> update : pendingLeaderboardUpdates.entrySet()) {
+                built.update(update.getKey(), update.getValue());
+            }
+
+            pendingLeaderboardUpdates.clear();
+            leaderboard = built;
+        });
     }
 
     /**
-     * Insert a player with 0 xp levels in their xp bank into the xp bank database.
+     * Registers a logging in player in the xp bank database and preloads their balance, so their
+     * balance is ready by the time they join. This blocks until the database work is done, so it
+     * must only be called from an asynchronous thread such as the pre-login thread.
      *
-     * @param player The player to insert into the xp bank database.
+     * @param playerUUID The UUID of the player logging in.
+     * @param playerName The name of the player logging in.
      */
-    public void insertPlayer(Player player) {
-        // Declare and initialize strings for the UUID of the player and the query to the database.
-        String UUID = player.getUniqueId().toString();
-        String query = "INSERT INTO " + tableName + "(UUID,XP) VALUES(?,?)";
-
-        // Try to prepare and execute the query to the xp bank database.
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            // Set the "?" parameters for "VALUES".
-            pstmt.setString(1, UUID);
-            pstmt.setInt(2, 0);
+    public void preloadPlayer(UUID playerUUID, String playerName) {
+        // Keep the player's cached balance around while they log in. Any cached balance is newer
+        // than what's in the database, and it must not be dropped before the player joins.
+        preloadingPlayers.put(playerUUID, System.currentTimeMillis());
 
-            // Make sure the query was successful.
-            if (pstmt.executeUpdate() > 0) {
-                EverythingPlugin.getEPLogger().info("The player " + player.getName() + " has been" +
-                        " added to the xp bank database!");
-            }
-            // If that "if" statement failed, I'm unsure as to what happened.
+        // Try to register the player and read their balance with a single upsert.
+        try {
+            preloadedBalances.put(playerUUID, storage.submitAsync(conn ->
+                    upsertPlayer(conn, playerUUID, playerName)).join());
         }
-        // An error occurred executing the query to the xp bank database.
-        catch (SQLException e) {
-            EverythingPlugin.getEPLogger().severe("An error occurred adding " + player.getName() + " to the xp bank database!");
+        // An error occurred preloading the player's balance. It's loaded again when they join.
+        catch (CompletionException e) {
+            EverythingPlugin.getEPLogger().severe("An error occurred preloading " + playerName +
+                    "'s balance from the xp bank database.");
             EverythingPlugin.getEPLogger().severe(e.getMessage());
         }
     }
 
     /**
-     * Checks if a player is in the xp bank database.
+     * Discards the preloaded balance of a player whose login was denied. Players who disconnect
+     * before their login is decided are discarded once {@link #PRELOAD_TIMEOUT_MILLIS} has passed.
+     *
+     * @param playerUUID The UUID of the player whose login was denied.
+     */
+    public void discardPreloadedPlayer(UUID playerUUID) {
+        preloadingPlayers.remove(playerUUID);
+        preloadedBalances.remove(playerUUID);
+    }
+
+    /**
+     * Loads a player's xp bank balance into the balance cache. A balance preloaded while the
+     * player logged in is picked up right away. Otherwise the player is added to the xp bank
+     * database if necessary and their balance is read on the storage thread. From then on the
+     * cached balance is authoritative until the player is unloaded.
      *
-     * @param player The player to check in the xp bank database.
+     * @param player The player to load the xp bank balance for.
      *
-     * @return True if the given player is in the xp bank database, false otherwise.
+     * @return A future holding the player's xp bank balance, in experience points.
      */
-    public boolean isInXpBankDatabase(Player player) {
-        // Declare and initialize strings for the UUID of the player and the query to the database.
-        String UUID = player.getUniqueId().toString();
-        // String query = "SELECT UUID\n" + "FROM " + tableName + "\n" + "WHERE UUID LIKE '" +
-        // UUID + "';";
-        String query = "SELECT UUID FROM " + tableName + " WHERE UUID LIKE '" + UUID + "';";
+    public CompletableFuture<Long> loadPlayer(Player player) {
+        UUID playerUUID = player.getUniqueId();
+        String playerName = player.getName();
 
-        // Try to execute the query to the xp bank database.
-        try (Statement statement = conn.createStatement(); ResultSet result =
-                statement.executeQuery(query)) {
-            // Check if the player is in the xp bank database.
-            return result.next();
+        // The player is back, so their balance is no longer an offline player's, and they're in
+        // the xp bank database once it's loaded.
+        offlineBalances.remove(playerUUID);
+        missingAccounts.remove(playerUUID);
+
+        // Pick up the balance preloaded during login. A balance that's still cached is newer.
+        preloadingPlayers.remove(playerUUID);
+        Long preloadedBalance = preloadedBalances.remove(playerUUID);
+
+        if (preloadedBalance != null) {
+            balanceCache.putIfAbsent(playerUUID, preloadedBalance);
         }
-        // An error occurred executing the query to the database, or while checking if the player
-        // is in the xp bank database.
-        catch (SQLException e) {
-            EverythingPlugin.getEPLogger().severe("An error occurred while checking if " + player.getName() + " was in the xp bank database.");
-            EverythingPlugin.getEPLogger().severe(e.getMessage());
-            return false;
+
+        // Check if the player's balance is already cached or already being loaded.
+        Long cachedBalance = balanceCache.get(playerUUID);
+
+        if (cachedBalance != null) {
+            return CompletableFuture.completedFuture(cachedBalance);
+        }
+        if (pendingLoads.containsKey(playerUUID)) {
+            return pendingLoads.get(playerUUID);
         }
+
+        // Queue the player's balance to be read on the storage thread.
+        CompletableFuture<Long> load = storage.submit(conn ->
+                upsertPlayer(conn, playerUUID, playerName)).handle((balance, e) -> {
+            pendingLoads.remove(playerUUID);
+
+            // Check if an error occurred loading the player's balance.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred accessing " + playerName +
+                        "'s balance from the xp bank database.");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+                throw new IllegalStateException(e);
+            }
+
+            // Cache the loaded balance unless a newer one was cached in the meantime.
+            balanceCache.putIfAbsent(playerUUID, balance);
+            return balanceCache.get(playerUUID);
+        });
+
+        // Remember the load so other lookups for the same player wait for it.
+        if (!load.isDone()) {
+            pendingLoads.put(playerUUID, load);
+        }
+
+        return load;
+    }
+
+    /**
+     * Unloads a player's xp bank balance from the balance cache. The balance is kept cached like
+     * any other offline player's balance, and is dropped once it hasn't been used for a while or
+     * too many are cached, after any unsaved changes to it have been written.
+     *
+     * @param player The player to unload the xp bank balance for.
+     */
+    public void unloadPlayer(Player player) {
+        offlineBalances.put(player.getUniqueId(), System.currentTimeMillis());
+        trimOfflineBalances();
     }
 
     /**
@@ -137,140 +356,552 @@ public class XpBankDatabase {
      *
      * @param player The player to get the xp bank balance for.
      *
-     * @return Returns the balance that the given player has in their xp bank.
-     */
-    public int getXPBankBalance(Player player) {
-        // Declare and initialize the UUID of the player, the query to the database, and the level
-        // variable.
-        String UUID = player.getUniqueId().toString();
-        // String query = "SELECT UUID, XP\n" + "FROM " + tableName + "\n" + "WHERE UUID LIKE '"
-        // + UUID + "';";
-        String query = "SELECT UUID, XP FROM " + tableName + " WHERE UUID LIKE '" + UUID + "';";
-        int levelsInBank = 0;
-
-        // Try to execute the query to the xp bank database and get the player's xp bank balance.
-        try (Statement statement = conn.createStatement(); ResultSet result =
-                statement.executeQuery(query)) {
-            // Get the player's record in the database and get the player's xp bank balance.
-            result.next();
-            levelsInBank = result.getInt("XP");
-        }
-        // An error occurred executing the query to the database, or while getting the player's
-        // xp bank balance.
-        catch (SQLException e) {
-            EverythingPlugin.getEPLogger().severe("An error occurred accessing " + player.getName() + "'s balance from the xp bank database.");
-            EverythingPlugin.getEPLogger().severe(e.getMessage());
-        }
+     * @return A future holding the balance that the given player has in their xp bank, in
+     *         experience points.
+     */
+    public CompletableFuture<Long> getXPBankBalance(Player player) {
+        return loadPlayer(player);
+    }
 
-        return levelsInBank;
+    /**
+     * Gets the xp bank leaderboard. This must be called from the main thread.
+     *
+     * @return The xp bank leaderboard, or null if it's still being built.
+     */
+    public XpBankLeaderboard getLeaderboard() {
+        return leaderboard;
     }
 
     /**
-     * Modify a player's xp bank balance by either depositing or withdrawing more levels.
+     * Modify a player's xp bank balance by either depositing or withdrawing experience points. The
+     * balance is checked and updated together in a single step on the main thread, which is the
+     * only place the cached balance is ever changed, so nothing can change the balance between the
+     * check and the update. The new balance is written to the database by the next flush.
      *
      * @param player The player to modify the xp bank balance for.
      * @param action Whether to deposit or withdraw from the xp bank.
-     * @param levels The levels to deposit or withdraw from the xp bank.
+     * @param points The experience points to deposit or withdraw from the xp bank.
+     *
+     * @return A future holding the result of the deposit or withdrawal.
+     */
+    public CompletableFuture<BankResult> modifyXPBankBalance(Player player, BankAction action,
+                                                             long points) {
+        UUID playerUUID = player.getUniqueId();
+
+        // Apply the deposit or withdrawal to the cached balance once it's loaded.
+        return loadPlayer(player).thenApply(loadedBalance -> applyBankAction(playerUUID,
+                balanceCache.getOrDefault(playerUUID, loadedBalance), action, points));
+    }
+
+    /**
+     * Checks if a player's balance is in the balance cache. This must be called from the main
+     * thread.
+     *
+     * @param playerUUID The UUID of the player.
+     *
+     * @return True if the player's balance is cached, false otherwise.
+     */
+    public boolean isBalanceCached(UUID playerUUID) {
+        return balanceCache.containsKey(playerUUID);
+    }
+
+    /**
+     * Reads a player's balance ahead of time if it isn't cached, so a following call to
+     * {@link #getBalanceNow(UUID)} doesn't have to block the main thread on the database. This
+     * blocks until the balance has been read, so it must only be called from an asynchronous
+     * thread.
+     *
+     * @param playerUUID The UUID of the player.
      */
-    public void modifyXPBankBalance(Player player, BankAction action, int levels) {
-        // Declare and initialize strings for the UUID of the player and the query to the database.
-        String UUID = player.getUniqueId().toString();
-        String query = "";
+    public void warmBalance(UUID playerUUID) {
+        // Check if the player's balance is already cached.
+        if (balanceCache.containsKey(playerUUID)) {
+            return;
+        }
+
+        // Remember how many balances had been dropped before the balance is read.
+        long evictionsBefore = evictionCount;
 
-        // Check if a deposit is requested.
-        if (action == BankAction.DEPOSIT) {
-            query = "UPDATE " + tableName + " SET XP = XP + ? WHERE UUID LIKE ?";
+        // Try to read the player's balance. If it fails, it's read again on the main thread.
+        try {
+            Long balance = storage.submitAsync(conn -> readBalance(conn, playerUUID)).join();
+            warmedBalances.put(playerUUID,
+                    new long[] {balance == null ? NO_ACCOUNT : balance, evictionsBefore});
         }
-        // Check if a withdrawal is requested.
-        else if (action == BankAction.WITHDRAW) {
-            query = "UPDATE " + tableName + " SET XP = XP - ? WHERE UUID LIKE ?";
+        // An error occurred reading the player's balance.
+        catch (CompletionException e) {
+            warmedBalances.remove(playerUUID);
         }
+    }
 
-        // Try to prepare and execute the query to the xp bank database.
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            // Set the "?" parameters for "SET" and "LIKE".
-            pstmt.setInt(1, levels);
-            pstmt.setString(2, UUID);
+    /**
+     * Gets the balance of a player's xp bank right away, for callers that can't wait for a future,
+     * such as other plugins using the xp bank as an economy. Cached balances and balances read
+     * ahead of time by {@link #warmBalance(UUID)} are returned without touching the database.
+     * Otherwise the balance is queued to be read on the storage thread, and it's only available
+     * once the read is done, so the main thread never waits for the database. An offline player's
+     * balance is then kept cached until it hasn't been used for a while or too many are cached.
+     * This must be called from the main thread.
+     *
+     * @param playerUUID The UUID of the player.
+     *
+     * @return The player's xp bank balance in experience points, or null if the player isn't in
+     *         the xp bank database.
+     *
+     * @throws IllegalStateException If the player's balance is still being read.
+     */
+    public Long getBalanceNow(UUID playerUUID) {
+        // Pick up the balance read ahead of time, unless a balance was dropped since it was read.
+        long[] warmedBalance = warmedBalances.remove(playerUUID);
 
-            // Execute the query to the xp bank database.
-            pstmt.executeUpdate();
+        if (warmedBalance != null && warmedBalance[1] == evictionCount) {
+            // Check if the player wasn't in the xp bank database when it was read.
+            if (warmedBalance[0] == NO_ACCOUNT) {
+                if (!balanceCache.containsKey(playerUUID)) {
+                    missingAccounts.put(playerUUID, System.currentTimeMillis());
+                    return null;
+                }
+            }
+            else {
+                cacheBalanceNow(playerUUID, warmedBalance[0]);
+            }
         }
-        // An error occurred while preparing or executing the query to the xp bank database.
-        catch (SQLException e) {
-            EverythingPlugin.getEPLogger().severe("An error occurred updating " + player.getName() + "'s xp bank from the xp bank database.");
-            EverythingPlugin.getEPLogger().severe(e.getMessage());
+
+        // Check if the player's balance is already cached.
+        Long cachedBalance = balanceCache.get(playerUUID);
+
+        if (cachedBalance != null) {
+            // Keep an offline player's balance cached for longer, since it's still being used.
+            offlineBalances.computeIfPresent(playerUUID,
+                    (uuid, lastUsed) -> System.currentTimeMillis());
+            return cachedBalance;
+        }
+
+        // Check if the player was recently found not to be in the xp bank database.
+        Long missingSince = missingAccounts.get(playerUUID);
+
+        if (missingSince != null &&
+                missingSince >= System.currentTimeMillis() - cacheTtlMillis) {
+            return null;
+        }
+
+        // Queue the player's balance to be read, unless it's already being read or loaded.
+        missingAccounts.remove(playerUUID);
+
+        if (!pendingReads.containsKey(playerUUID) && !pendingLoads.containsKey(playerUUID)) {
+            readBalanceLater(playerUUID);
         }
+
+        throw new IllegalStateException("The xp bank balance of " + playerUUID +
+                " is still being read.");
     }
 
     /**
-     * Properly closes the connection to the xp bank database.
+     * Adds a player to the xp bank with 0 experience points in their xp bank right away. The
+     * balance is cached at once and the player is added to the xp bank database on the storage
+     * thread, before any flush can write their balance. This must be called from the main thread.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param playerName The name of the player, used in the log.
+     *
+     * @return True if the player was added, false if they were already in the xp bank database.
+     *
+     * @throws IllegalStateException If the player's balance is still being read.
+     */
+    public boolean createAccountNow(UUID playerUUID, String playerName) {
+        // Check if the player is already in the xp bank database.
+        if (getBalanceNow(playerUUID) != null) {
+            return false;
+        }
+
+        // Start the player off with an empty xp bank right away.
+        missingAccounts.remove(playerUUID);
+        cacheBalanceNow(playerUUID, 0);
+
+        // Queue the player to be added to the xp bank database.
+        storage.submit(conn -> upsertPlayer(conn, playerUUID, playerName))
+                .whenComplete((balance, e) -> {
+                    // Check if an error occurred adding the player.
+                    if (e != null) {
+                        EverythingPlugin.getEPLogger().severe("An error occurred adding " +
+                                playerName + " to the xp bank database.");
+                        EverythingPlugin.getEPLogger().severe(e.getMessage());
+                    }
+                });
+
+        return true;
+    }
+
+    /**
+     * Modify a player's xp bank balance right away by either depositing or withdrawing experience
+     * points, for callers that can't wait for a future. The balance is checked and updated the
+     * same way as {@link #modifyXPBankBalance(Player, BankAction, long)}, and the new balance is
+     * written to the database by the next flush. This must be called from the main thread.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param action     Whether to deposit or withdraw from the xp bank.
+     * @param points     The experience points to deposit or withdraw from the xp bank.
+     *
+     * @return The result of the deposit or withdrawal, or null if the player isn't in the xp bank
+     *         database.
+     *
+     * @throws IllegalStateException If the player's balance is still being read.
+     */
+    public BankResult modifyBalanceNow(UUID playerUUID, BankAction action, long points) {
+        Long balance = getBalanceNow(playerUUID);
+        return balance == null ? null : applyBankAction(playerUUID, balance, action, points);
+    }
+
+    /**
+     * Queues every changed balance in the balance cache to be written to the xp bank database.
+     * Once the write is done, offline players' balances that haven't been used for a while, or
+     * that don't fit in the cache, are dropped from the balance cache. This must be called from
+     * the main thread.
+     *
+     * @return A future that completes once the changed balances have been written.
+     */
+    public CompletableFuture<Void> flushXPBankBalances() {
+        // Take a snapshot of the changed balances. Anything changed after this point is written by
+        // the next flush.
+        Map<UUID, Long> changedBalances = takeChangedBalances();
+
+        // Write the snapshot on the storage thread, then finish up back on the main thread.
+        return storage.submit(conn -> {
+            writeXPBankBalances(conn, changedBalances);
+            return (Void) null;
+        }).whenComplete((ignored, e) -> {
+            // Check if an error occurred writing the balances. Retry them next flush.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred writing the cached xp " +
+                        "bank balances to the xp bank database.");
+                EverythingPlugin.getEPLogger().severe(e.getMessage());
+                dirtyBalances.addAll(changedBalances.keySet());
+                return;
+            }
+
+            trimOfflineBalances();
+        });
+    }
+
+    /**
+     * Queues the last changed balances to be written to the xp bank database. The storage executor
+     * writes them before it closes the connection to the database.
      */
     public void closeXPBankDatabase() {
-        // Try to close the connection to the xp bank database.
-        EverythingPlugin.getEPLogger().info("Closing connection to the xp bank database...");
+        EverythingPlugin.getEPLogger().info("Writing cached xp bank balances...");
+        flushXPBankBalances();
+    }
 
-        try {
-            conn.close();
+    /**
+     * Removes every changed balance from the set of changed balances and returns a snapshot of
+     * them.
+     *
+     * @return A snapshot of every changed balance in the balance cache.
+     */
+    private Map<UUID, Long> takeChangedBalances() {
+        Map<UUID, Long> changedBalances = new HashMap<>();
+
+        for (UUID playerUUID : dirtyBalances) {
+            changedBalances.put(playerUUID, balanceCache.get(playerUUID));
         }
-        // An error occurred while closing the connection to the xp bank database.
-        catch (SQLException e) {
-            EverythingPlugin.getEPLogger().severe("An error occurred while closing the xp bank " +
-                    "database.");
-            EverythingPlugin.getEPLogger().severe(e.getMessage());
+
+        dirtyBalances.clear();
+        return changedBalances;
+    }
+
+    /**
+     * Checks and applies a deposit or withdrawal to a player's cached balance, and updates the
+     * leaderboard. This must be called from the main thread.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param balance    The player's current xp bank balance.
+     * @param action     Whether to deposit or withdraw from the xp bank.
+     * @param points     The experience points to deposit or withdraw from the xp bank.
+     *
+     * @return The result of the deposit or withdrawal.
+     */
+    private BankResult applyBankAction(UUID playerUUID, long balance, BankAction action,
+                                       long points) {
+        // Turn down withdrawals of more points than the xp bank holds.
+        if (action == BankAction.WITHDRAW && points > balance) {
+            return new BankResult(false, balance);
+        }
+
+        // Turn down deposits that would overflow the xp bank.
+        if (action == BankAction.DEPOSIT && points > Long.MAX_VALUE - balance) {
+            return new BankResult(false, balance);
         }
 
-        EverythingPlugin.getEPLogger().info("Closed the connection to the xp bank database " +
-                "successfully!");
+        // Update the cached balance and the leaderboard.
+        long newBalance = action == BankAction.DEPOSIT ? balance + points : balance - points;
+        balanceCache.put(playerUUID, newBalance);
+        dirtyBalances.add(playerUUID);
+        updateLeaderboard(playerUUID, newBalance);
+        return new BankResult(true, newBalance);
     }
 
     /**
-     * Creates a new xp bank database file in the EverythingPlugin directory and creates a table in
-     * the xp bank database.
+     * Caches a balance read right away. A cached balance is newer, so it's kept. The balance of an
+     * offline player is kept cached like the balance of a player who left the server.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param balance    The player's xp bank balance.
      */
-    private void createXPBankDatabase() {
-        // Initialize a string containing the relative path to the xp bank database file.
-        String localPath = "jdbc:sqlite:" + databasePath;
+    private void cacheBalanceNow(UUID playerUUID, long balance) {
+        // Make room for an offline player's balance before it's cached.
+        if (Bukkit.getPlayer(playerUUID) == null && !offlineBalances.containsKey(playerUUID)) {
+            trimOfflineBalances();
+            offlineBalances.put(playerUUID, System.currentTimeMillis());
+        }
 
-        // Try to create the xp bank database.
-        try {
-            // Create the xp bank database.
-            conn = DriverManager.getConnection(localPath);
-
-            // Initialize the query for creating a new table.
-            String statement = "CREATE TABLE IF NOT EXISTS " + tableName + " (UUID text UNIQUE,	" +
-                    "XP" +
-                    " integer CHECK(XP >= 0));";
-            //String statement = "CREATE TABLE IF NOT EXISTS " + tableName + " (\n" + "	UUID " +
-            //        "text" +
-            //        " " +
-            //        "UNIQUE,\n"
-            //       + "	XP integer CHECK(XP >= 0)\n" + ");";
-
-            // Try to execute the query to the xp bank database.
-            try (Statement stmt = conn.createStatement()) {
-                // Create a new table in the xp bank database.
-                stmt.execute(statement);
-            }
-            // An error occurred executing the query to the xp bank database.
-            catch (SQLException e) {
-                EverythingPlugin.getEPLogger().severe("An error occurred creating the table for " +
-                        "the xp bank database!");
+        balanceCache.putIfAbsent(playerUUID, balance);
+    }
+
+    /**
+     * Queues a player's balance to be read on the storage thread for
+     * {@link #getBalanceNow(UUID)}. The storage thread finishes every write queued before the
+     * read first, such as a flush in progress. Once read, the balance is cached, or the player is
+     * remembered as not being in the xp bank database for a while. This must be called from the
+     * main thread.
+     *
+     * @param playerUUID The UUID of the player.
+     */
+    private void readBalanceLater(UUID playerUUID) {
+        CompletableFuture<Long> read = storage.submit(conn -> readBalance(conn, playerUUID));
+        pendingReads.put(playerUUID, read);
+
+        read.whenComplete((balance, e) -> {
+            pendingReads.remove(playerUUID);
+
+            // Check if an error occurred reading the player's balance. It's read again next time.
+            if (e != null) {
+                EverythingPlugin.getEPLogger().severe("An error occurred reading the balance of " +
+                        playerUUID + " from the xp bank database.");
                 EverythingPlugin.getEPLogger().severe(e.getMessage());
                 return;
             }
 
-            // Check if the creation and connection to the new xp bank database was successful.
-            if (conn != null) {
-                EverythingPlugin.getEPLogger().info("Created and connected to the new xp bank " +
-                        "database successfully!");
+            // Cache the balance, or remember that the player isn't in the xp bank database. A
+            // balance cached in the meantime is newer, so it's kept.
+            if (balance != null) {
+                cacheBalanceNow(playerUUID, balance);
+            }
+            else if (!balanceCache.containsKey(playerUUID)) {
+                missingAccounts.put(playerUUID, System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Sets a player's balance on the xp bank leaderboard, or remembers it until the leaderboard
+     * has been built.
+     *
+     * @param playerUUID The UUID of the player whose balance changed.
+     * @param balance    The player's new xp bank balance.
+     */
+    private void updateLeaderboard(UUID playerUUID, long balance) {
+        if (leaderboard == null) {
+            pendingLeaderboardUpdates.put(playerUUID, balance);
+        }
+        else {
+            leaderboard.update(playerUUID, balance);
+        }
+    }
+
+    /**
+     * Drops the least recently used offline players' balances that haven't been used for a while,
+     * and more until few enough are left. Balances with unsaved changes and the balances of
+     * players who are logging in again are kept. Players found missing from the xp bank database
+     * a while ago, and players whose login was abandoned, are forgotten as well. This must be
+     * called from the main thread.
+     */
+    private void trimOfflineBalances() {
+        long expiredBefore = System.currentTimeMillis() - cacheTtlMillis;
+        int cachedCount = offlineBalances.size();
+
+        // Forget the players that were found missing from the xp bank database a while ago.
+        missingAccounts.values().removeIf(missingSince -> missingSince < expiredBefore);
+
+        // Discard the players who started logging in too long ago to still be joining.
+        long abandonedBefore = System.currentTimeMillis() - PRELOAD_TIMEOUT_MILLIS;
+        preloadingPlayers.values().removeIf(startedAt -> startedAt < abandonedBefore);
+        preloadedBalances.keySet().removeIf(playerUUID ->
+                !preloadingPlayers.containsKey(playerUUID));
+
+        for (Iterator<Map.Entry<UUID, Long>> it = offlineBalances.entrySet().iterator();
+             it.hasNext(); ) {
+            Map.Entry<UUID, Long> offlineBalance = it.next();
+            UUID playerUUID = offlineBalance.getKey();
+
+            // Stop at the first balance that is recent enough and fits in the cache, since every
+            // balance after it was used more recently.
+            if (offlineBalance.getValue() >= expiredBefore && cachedCount <= cacheSize) {
+                break;
+            }
+
+            // Drop the balance unless it still needs to be written or the player is logging in.
+            if (!dirtyBalances.contains(playerUUID) &&
+                    !preloadingPlayers.containsKey(playerUUID)) {
+                balanceCache.remove(playerUUID);
+                it.remove();
+                cachedCount--;
+                evictionCount++;
             }
         }
-        // An error occurred creating the xp bank database.
+    }
+
+    /**
+     * Adds a player with 0 experience points in their xp bank to the xp bank database if they
+     * aren't in it yet, and reads their balance. This must only be called from the storage thread.
+     *
+     * @param conn       The connection to the xp bank database.
+     * @param playerUUID The UUID of the player to register in the xp bank database.
+     * @param playerName The name of the player to register in the xp bank database.
+     *
+     * @return The balance stored in the xp bank database for the given player.
+     *
+     * @throws SQLException If an error occurs accessing the xp bank database.
+     */
+    private long upsertPlayer(Connection conn, UUID playerUUID, String playerName)
+            throws SQLException {
+        // Declare and initialize the queries to the database.
+        String insertQuery = "INSERT OR IGNORE INTO " + tableName + "(UUID,XP) VALUES(?,0)";
+        String balanceQuery = "SELECT XP FROM " + tableName + " WHERE UUID = ?";
+
+        // Add the player to the xp bank database unless they're already in it.
+        try (PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
+            pstmt.setBytes(1, toBytes(playerUUID));
+
+            if (pstmt.executeUpdate() > 0) {
+                EverythingPlugin.getEPLogger().info("The player " + playerName + " has been" +
+                        " added to the xp bank database!");
+            }
+        }
+
+        // Read the player's xp bank balance.
+        try (PreparedStatement pstmt = conn.prepareStatement(balanceQuery)) {
+            pstmt.setBytes(1, toBytes(playerUUID));
+
+            try (ResultSet result = pstmt.executeQuery()) {
+                return result.next() ? result.getLong("XP") : 0;
+            }
+        }
+    }
+
+    /**
+     * Reads a player's balance without adding them to the xp bank database. This must only be
+     * called from the storage thread.
+     *
+     * @param conn       The connection to the xp bank database.
+     * @param playerUUID The UUID of the player.
+     *
+     * @return The balance stored in the xp bank database for the player, or null if they aren't
+     *         in it.
+     *
+     * @throws SQLException If an error occurs reading the balance.
+     */
+    private Long readBalance(Connection conn, UUID playerUUID) throws SQLException {
+        String query = "SELECT XP FROM " + tableName + " WHERE UUID = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setBytes(1, toBytes(playerUUID));
+
+            try (ResultSet result = pstmt.executeQuery()) {
+                return result.next() ? result.getLong("XP") : null;
+            }
+        }
+    }
+
+    /**
+     * Writes the given balances to the xp bank database in a single transaction. This must only be
+     * called from the storage thread.
+     *
+     * @param conn     The connection to the xp bank database.
+     * @param balances The balances to write, keyed by player UUID.
+     *
+     * @throws SQLException If an error occurs writing the balances.
+     */
+    private void writeXPBankBalances(Connection conn, Map<UUID, Long> balances)
+            throws SQLException {
+        // Check if there's anything to write.
+        if (balances.isEmpty()) {
+            return;
+        }
+
+        String query = "UPDATE " + tableName + " SET XP = ? WHERE UUID = ?";
+
+        // Try to write all the balances in a single transaction.
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (Map.Entry<UUID, Long> balance : balances.entrySet()) {
+                // Set the "?" parameters for "SET" and "WHERE".
+                pstmt.setLong(1, balance.getValue());
+                pstmt.setBytes(2, toBytes(balance.getKey()));
+                pstmt.addBatch();
+            }
+
+            pstmt.executeBatch();
+            conn.commit();
+        }
+        // An error occurred writing the balances. Undo the partial transaction.
         catch (SQLException e) {
-            EverythingPlugin.getEPLogger().severe("An error occurred creating the new xp bank " +
-                    "database!");
-            EverythingPlugin.getEPLogger().severe(e.getMessage());
+            conn.rollback();
+            throw e;
+        }
+        finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Reads every positive balance in the xp bank database and builds a leaderboard from them.
+     * This must only be called from the storage thread.
+     *
+     * @param conn The connection to the xp bank database.
+     *
+     * @return A leaderboard holding every positive balance in the xp bank database.
+     *
+     * @throws SQLException If an error occurs reading the balances.
+     */
+    private XpBankLeaderboard readXPBankLeaderboard(Connection conn) throws SQLException {
+        XpBankLeaderboard seeded = new XpBankLeaderboard();
+        String query = "SELECT UUID, XP FROM " + tableName + " WHERE XP > 0";
+
+        // Read every positive balance and add it to the leaderboard.
+        try (Statement stmt = conn.createStatement();
+             ResultSet result = stmt.executeQuery(query)) {
+            while (result.next()) {
+                seeded.update(fromBytes(result.getBytes("UUID")), result.getLong("XP"));
+            }
         }
+
+        return seeded;
+    }
+
+    /**
+     * Converts a player UUID to the 16 bytes stored in the xp bank database. Other tables in the
+     * same database store player UUIDs the same way.
+     *
+     * @param playerUUID The player UUID to convert.
+     *
+     * @return The 16 bytes of the player UUID.
+     */
+    static byte[] toBytes(UUID playerUUID) {
+        return ByteBuffer.allocate(16).putLong(playerUUID.getMostSignificantBits())
+                .putLong(playerUUID.getLeastSignificantBits()).array();
+    }
+
+    /**
+     * Converts the 16 bytes stored in the xp bank database back to a player UUID.
+     *
+     * @param bytes The 16 bytes of the player UUID.
+     *
+     * @return The player UUID.
+     */
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
     }
 
     /**
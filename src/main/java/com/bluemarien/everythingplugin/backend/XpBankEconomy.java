@@ -0,0 +1,860 @@
+package com.bluemarien.everythingplugin.backend;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import net.milkbowl.vault.economy.Economy;
+import net.milkbowl.vault.economy.EconomyResponse;
+import net.milkbowl.vault.economy.EconomyResponse.ResponseType;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class represents the Vault economy backed by the xp bank, so other plugins, such as shops
+ * and auctions, can use xp bank balances as money. The currency is experience points, with no
+ * fractional digits.
+ *
+ * Every call is served from the xp bank's balance cache, which already holds the balance of every
+ * online player. An offline player's balance is read from the database once and then kept cached
+ * while it's being used, so a shop checking and charging the same player several times in one
+ * transaction only touches the database once, if at all. Changed balances are written to the
+ * database in batches by the xp bank's periodic flush.
+ *
+ * The xp bank's cache is only used on the main thread, so calls made from other threads wait for
+ * the main thread to run them. Those calls read an uncached balance on their own thread first, so
+ * the main thread never waits for the database for them. Calls made on the main thread for an
+ * uncached balance never wait for the database either. They queue the balance to be read and are
+ * answered as if the player had no money until it's cached, so checks come back false or 0 and
+ * deposits and withdrawals fail. Players can only be found by name while they're online, since
+ * looking players up by name is deprecated in Vault. There are no shared bank accounts.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class XpBankEconomy implements Economy {
+
+    /**
+     * Declare the name of the economy and the names of its currency.
+     */
+    private static final String NAME = "EverythingPlugin XP Bank";
+    private static final String CURRENCY_SINGULAR = "point";
+    private static final String CURRENCY_PLURAL = "points";
+
+    /**
+     * Declare the xp bank the economy is backed by.
+     */
+    private final XpBankDatabase xpBank;
+
+    /**
+     * Declare the number of economy calls answered, and the number of those that had to read an
+     * offline player's balance from the database.
+     */
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder databaseReads = new LongAdder();
+
+    /**
+     * Makes the economy backed by the xp bank.
+     *
+     * @param xpBank The xp bank the economy is backed by.
+     */
+    public XpBankEconomy(XpBankDatabase xpBank) {
+        this.xpBank = xpBank;
+    }
+
+    /**
+     * Returns the number of economy calls answered since the plugin was enabled.
+     *
+     * @return The number of economy calls.
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * Returns the number of economy calls that read an offline player's balance from the
+     * database, since the plugin was enabled.
+     *
+     * @return The number of database reads.
+     */
+    public long getDatabaseReadCount() {
+        return databaseReads.sum();
+    }
+
+    /**
+     * Returns whether the economy is enabled, which it is while this plugin is enabled.
+     *
+     * @return True if this plugin is enabled, false otherwise.
+     */
+    @Override
+    public boolean isEnabled() {
+        return EverythingPlugin.getPlugin() != null && EverythingPlugin.getPlugin().isEnabled();
+    }
+
+    /**
+     * Returns the name of the economy.
+     *
+     * @return The name of the economy.
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns whether the economy supports shared bank accounts, which it doesn't.
+     *
+     * @return False.
+     */
+    @Override
+    public boolean hasBankSupport() {
+        return false;
+    }
+
+    /**
+     * Returns the number of digits the economy uses after the decimal point. Experience points
+     * are whole numbers.
+     *
+     * @return 0.
+     */
+    @Override
+    public int fractionalDigits() {
+        return 0;
+    }
+
+    /**
+     * Formats an amount of experience points, such as "5 points".
+     *
+     * @param amount The amount of experience points.
+     *
+     * @return The formatted amount.
+     */
+    @Override
+    public String format(double amount) {
+        long points = (long) Math.floor(amount);
+        return points + " " + (points == 1 ? CURRENCY_SINGULAR : CURRENCY_PLURAL);
+    }
+
+    /**
+     * Returns the name of more than one of the economy's currency.
+     *
+     * @return "points".
+     */
+    @Override
+    public String currencyNamePlural() {
+        return CURRENCY_PLURAL;
+    }
+
+    /**
+     * Returns the name of one of the economy's currency.
+     *
+     * @return "point".
+     */
+    @Override
+    public String currencyNameSingular() {
+        return CURRENCY_SINGULAR;
+    }
+
+    /**
+     * Checks if a player has an xp bank account.
+     *
+     * @param player The player.
+     *
+     * @return True if the player has an xp bank account, false if they don't or their balance
+     *         couldn't be read.
+     */
+    @Override
+    public boolean hasAccount(OfflinePlayer player) {
+        warmBalance(player.getUniqueId());
+
+        // Try to find the player's balance.
+        try {
+            return onMainThread(() -> findBalance(player.getUniqueId()) != null);
+        }
+        // The player's balance is still being read or the call failed.
+        catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks if a player has an xp bank account.
+     *
+     * @param player    The player.
+     * @param worldName The name of the world, which is ignored since xp banks are shared between
+     *                  worlds.
+     *
+     * @return True if the player has an xp bank account, false otherwise.
+     */
+    @Override
+    public boolean hasAccount(OfflinePlayer player, String worldName) {
+        return hasAccount(player);
+    }
+
+    /**
+     * Checks if a player has an xp bank account.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     *
+     * @return True if the player has an xp bank account, false otherwise.
+     */
+    @Override
+    @Deprecated
+    public boolean hasAccount(String playerName) {
+        Player player = findOnlinePlayer(playerName);
+        return player != null && hasAccount(player);
+    }
+
+    /**
+     * Checks if a player has an xp bank account.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param worldName  The name of the world, which is ignored since xp banks are shared between
+     *                   worlds.
+     *
+     * @return True if the player has an xp bank account, false otherwise.
+     */
+    @Override
+    @Deprecated
+    public boolean hasAccount(String playerName, String worldName) {
+        return hasAccount(playerName);
+    }
+
+    /**
+     * Returns a player's xp bank balance.
+     *
+     * @param player The player.
+     *
+     * @return The player's balance in experience points, or 0 if they have no xp bank account or
+     *         their balance couldn't be read.
+     */
+    @Override
+    public double getBalance(OfflinePlayer player) {
+        warmBalance(player.getUniqueId());
+
+        // Try to find the player's balance.
+        try {
+            return onMainThread(() -> {
+                Long balance = findBalance(player.getUniqueId());
+                return balance == null ? 0.0 : (double) balance;
+            });
+        }
+        // The player's balance is still being read or the call failed.
+        catch (IllegalStateException e) {
+            return 0.0;
+        }
+    }
+
+    /**
+     * Returns a player's xp bank balance.
+     *
+     * @param player The player.
+     * @param world  The name of the world, which is ignored since xp banks are shared between
+     *               worlds.
+     *
+     * @return The player's balance in experience points, or 0 if they have no xp bank account.
+     */
+    @Override
+    public double getBalance(OfflinePlayer player, String world) {
+        return getBalance(player);
+    }
+
+    /**
+     * Returns a player's xp bank balance.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     *
+     * @return The player's balance in experience points, or 0 if they have no xp bank account.
+     */
+    @Override
+    @Deprecated
+    public double getBalance(String playerName) {
+        Player player = findOnlinePlayer(playerName);
+        return player == null ? 0 : getBalance(player);
+    }
+
+    /**
+     * Returns a player's xp bank balance.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param world      The name of the world, which is ignored since xp banks are shared between
+     *                   worlds.
+     *
+     * @return The player's balance in experience points, or 0 if they have no xp bank account.
+     */
+    @Override
+    @Deprecated
+    public double getBalance(String playerName, String world) {
+        return getBalance(playerName);
+    }
+
+    /**
+     * Checks if a player's xp bank holds at least an amount of experience points.
+     *
+     * @param player The player.
+     * @param amount The amount of experience points.
+     *
+     * @return True if the player's xp bank holds the amount, false otherwise.
+     */
+    @Override
+    public boolean has(OfflinePlayer player, double amount) {
+        return getBalance(player) >= amount;
+    }
+
+    /**
+     * Checks if a player's xp bank holds at least an amount of experience points.
+     *
+     * @param player    The player.
+     * @param worldName The name of the world, which is ignored since xp banks are shared between
+     *                  worlds.
+     * @param amount    The amount of experience points.
+     *
+     * @return True if the player's xp bank holds the amount, false otherwise.
+     */
+    @Override
+    public boolean has(OfflinePlayer player, String worldName, double amount) {
+        return has(player, amount);
+    }
+
+    /**
+     * Checks if a player's xp bank holds at least an amount of experience points.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param amount     The amount of experience points.
+     *
+     * @return True if the player's xp bank holds the amount, false otherwise.
+     */
+    @Override
+    @Deprecated
+    public boolean has(String playerName, double amount) {
+        return getBalance(playerName) >= amount;
+    }
+
+    /**
+     * Checks if a player's xp bank holds at least an amount of experience points.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param worldName  The name of the world, which is ignored since xp banks are shared between
+     *                   worlds.
+     * @param amount     The amount of experience points.
+     *
+     * @return True if the player's xp bank holds the amount, false otherwise.
+     */
+    @Override
+    @Deprecated
+    public boolean has(String playerName, String worldName, double amount) {
+        return has(playerName, amount);
+    }
+
+    /**
+     * Withdraws experience points from a player's xp bank. The amount is rounded up to whole
+     * points.
+     *
+     * @param player The player.
+     * @param amount The amount of experience points.
+     *
+     * @return The response to the withdrawal.
+     */
+    @Override
+    public EconomyResponse withdrawPlayer(OfflinePlayer player, double amount) {
+        // Round withdrawals up to whole points, so nothing is withdrawn for free.
+        return modify(player.getUniqueId(), XpBankDatabase.BankAction.WITHDRAW, amount,
+                (long) Math.ceil(amount));
+    }
+
+    /**
+     * Withdraws experience points from a player's xp bank. The amount is rounded up to whole
+     * points.
+     *
+     * @param player    The player.
+     * @param worldName The name of the world, which is ignored since xp banks are shared between
+     *                  worlds.
+     * @param amount    The amount of experience points.
+     *
+     * @return The response to the withdrawal.
+     */
+    @Override
+    public EconomyResponse withdrawPlayer(OfflinePlayer player, String worldName, double amount) {
+        return withdrawPlayer(player, amount);
+    }
+
+    /**
+     * Withdraws experience points from a player's xp bank. The amount is rounded up to whole
+     * points.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param amount     The amount of experience points.
+     *
+     * @return The response to the withdrawal.
+     */
+    @Override
+    @Deprecated
+    public EconomyResponse withdrawPlayer(String playerName, double amount) {
+        Player player = findOnlinePlayer(playerName);
+        return player == null ? noAccount() : withdrawPlayer(player, amount);
+    }
+
+    /**
+     * Withdraws experience points from a player's xp bank. The amount is rounded up to whole
+     * points.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param worldName  The name of the world, which is ignored since xp banks are shared between
+     *                   worlds.
+     * @param amount     The amount of experience points.
+     *
+     * @return The response to the withdrawal.
+     */
+    @Override
+    @Deprecated
+    public EconomyResponse withdrawPlayer(String playerName, String worldName, double amount) {
+        return withdrawPlayer(playerName, amount);
+    }
+
+    /**
+     * Deposits experience points into a player's xp bank. The amount is rounded down to whole
+     * points.
+     *
+     * @param player The player.
+     * @param amount The amount of experience points.
+     *
+     * @return The response to the deposit.
+     */
+    @Override
+    public EconomyResponse depositPlayer(OfflinePlayer player, double amount) {
+        // Round deposits down to whole points, so no points are made out of nothing.
+        return modify(player.getUniqueId(), XpBankDatabase.BankAction.DEPOSIT, amount,
+                (long) Math.floor(amount));
+    }
+
+    /**
+     * Deposits experience points into a player's xp bank. The amount is rounded down to whole
+     * points.
+     *
+     * @param player    The player.
+     * @param worldName The name of the world, which is ignored since xp banks are shared between
+     *                  worlds.
+     * @param amount    The amount of experience points.
+     *
+     * @return The response to the deposit.
+     */
+    @Override
+    public EconomyResponse depositPlayer(OfflinePlayer player, String worldName, double amount) {
+        return depositPlayer(player, amount);
+    }
+
+    /**
+     * Deposits experience points into a player's xp bank. The amount is rounded down to whole
+     * points.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param amount     The amount of experience points.
+     *
+     * @return The response to the deposit.
+     */
+    @Override
+    @Deprecated
+    public EconomyResponse depositPlayer(String playerName, double amount) {
+        Player player = findOnlinePlayer(playerName);
+        return player == null ? noAccount() : depositPlayer(player, amount);
+    }
+
+    /**
+     * Deposits experience points into a player's xp bank. The amount is rounded down to whole
+     * points.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param worldName  The name of the world, which is ignored since xp banks are shared between
+     *                   worlds.
+     * @param amount     The amount of experience points.
+     *
+     * @return The response to the deposit.
+     */
+    @Override
+    @Deprecated
+    public EconomyResponse depositPlayer(String playerName, String worldName, double amount) {
+        return depositPlayer(playerName, amount);
+    }
+
+    /**
+     * Adds a player to the xp bank with a balance of 0.
+     *
+     * @param player The player.
+     *
+     * @return True if the player was added, false if they already had an xp bank account or
+     *         their balance couldn't be read.
+     */
+    @Override
+    public boolean createPlayerAccount(OfflinePlayer player) {
+        warmBalance(player.getUniqueId());
+
+        // Try to add the player to the xp bank.
+        try {
+            return onMainThread(() -> xpBank.createAccountNow(player.getUniqueId(),
+                    player.getName()));
+        }
+        // The player's balance is still being read or the call failed.
+        catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds a player to the xp bank with a balance of 0.
+     *
+     * @param player    The player.
+     * @param worldName The name of the world, which is ignored since xp banks are shared between
+     *                  worlds.
+     *
+     * @return True if the player was added, false if they already had an xp bank account.
+     */
+    @Override
+    public boolean createPlayerAccount(OfflinePlayer player, String worldName) {
+        return createPlayerAccount(player);
+    }
+
+    /**
+     * Adds a player to the xp bank with a balance of 0.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     *
+     * @return True if the player was added, false if they already had an xp bank account.
+     */
+    @Override
+    @Deprecated
+    public boolean createPlayerAccount(String playerName) {
+        Player player = findOnlinePlayer(playerName);
+        return player != null && createPlayerAccount(player);
+    }
+
+    /**
+     * Adds a player to the xp bank with a balance of 0.
+     *
+     * @param playerName The name of the player. Only online players can be found by name.
+     * @param worldName  The name of the world, which is ignored since xp banks are shared between
+     *                   worlds.
+     *
+     * @return True if the player was added, false if they already had an xp bank account.
+     */
+    @Override
+    @Deprecated
+    public boolean createPlayerAccount(String playerName, String worldName) {
+        return createPlayerAccount(playerName);
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name   The name of the bank account.
+     * @param player The name of the player.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    @Deprecated
+    public EconomyResponse createBank(String name, String player) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name   The name of the bank account.
+     * @param player The player.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse createBank(String name, OfflinePlayer player) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name The name of the bank account.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse deleteBank(String name) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name The name of the bank account.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse bankBalance(String name) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name   The name of the bank account.
+     * @param amount The amount of experience points.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse bankHas(String name, double amount) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name   The name of the bank account.
+     * @param amount The amount of experience points.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse bankWithdraw(String name, double amount) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name   The name of the bank account.
+     * @param amount The amount of experience points.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse bankDeposit(String name, double amount) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name       The name of the bank account.
+     * @param playerName The name of the player.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    @Deprecated
+    public EconomyResponse isBankOwner(String name, String playerName) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name   The name of the bank account.
+     * @param player The player.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse isBankOwner(String name, OfflinePlayer player) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name       The name of the bank account.
+     * @param playerName The name of the player.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    @Deprecated
+    public EconomyResponse isBankMember(String name, String playerName) {
+        return noBanks();
+    }
+
+    /**
+     * Does nothing, since the xp bank has no shared bank accounts.
+     *
+     * @param name   The name of the bank account.
+     * @param player The player.
+     *
+     * @return A response saying shared bank accounts aren't supported.
+     */
+    @Override
+    public EconomyResponse isBankMember(String name, OfflinePlayer player) {
+        return noBanks();
+    }
+
+    /**
+     * Returns the names of the shared bank accounts, of which there are none.
+     *
+     * @return An empty list.
+     */
+    @Override
+    public List<String> getBanks() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Deposits or withdraws points from a player's xp bank on the main thread.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param action     Whether to deposit or withdraw from the xp bank.
+     * @param amount     The amount the caller asked for.
+     * @param points     The amount rounded to whole points.
+     *
+     * @return The response to the deposit or withdrawal.
+     */
+    private EconomyResponse modify(UUID playerUUID, XpBankDatabase.BankAction action,
+                                   double amount, long points) {
+        // Check if the amount is a positive number.
+        if (Double.isNaN(amount) || amount < 0) {
+            return new EconomyResponse(0, 0, ResponseType.FAILURE, "Cannot " +
+                    (action == XpBankDatabase.BankAction.DEPOSIT ? "deposit" : "withdraw") +
+                    " negative amounts.");
+        }
+
+        // Check if the amount fits in an xp bank. Larger amounts can't be rounded to points.
+        if (amount >= Long.MAX_VALUE) {
+            return new EconomyResponse(0, 0, ResponseType.FAILURE, "Cannot " +
+                    (action == XpBankDatabase.BankAction.DEPOSIT ? "deposit" : "withdraw") +
+                    " more points than an xp bank can hold.");
+        }
+
+        warmBalance(playerUUID);
+
+        // Try to deposit or withdraw the points, unless the player has no xp bank account.
+        try {
+            return onMainThread(() -> {
+                if (findBalance(playerUUID) == null) {
+                    return noAccount();
+                }
+
+                XpBankDatabase.BankResult result =
+                        xpBank.modifyBalanceNow(playerUUID, action, points);
+
+                // Check if the deposit or withdrawal was turned down.
+                if (!result.isSuccess()) {
+                    return new EconomyResponse(0, result.getBalance(), ResponseType.FAILURE,
+                            action == XpBankDatabase.BankAction.WITHDRAW ? "Insufficient funds." :
+                                    "The xp bank can't hold that many more points.");
+                }
+
+                return new EconomyResponse(points, result.getBalance(), ResponseType.SUCCESS,
+                        null);
+            });
+        }
+        // The player's balance is still being read or the call failed.
+        catch (IllegalStateException e) {
+            return new EconomyResponse(0, 0, ResponseType.FAILURE, "The xp bank balance couldn't " +
+                    "be read. Try again.");
+        }
+    }
+
+    /**
+     * Finds a player's balance in the xp bank's balance cache, queueing it to be read from the
+     * database if it isn't cached. This must be called from the main thread.
+     *
+     * @param playerUUID The UUID of the player.
+     *
+     * @return The player's balance, or null if the player has no xp bank account.
+     *
+     * @throws IllegalStateException If the player's balance is still being read.
+     */
+    private Long findBalance(UUID playerUUID) {
+        calls.increment();
+
+        // Count the calls that weren't answered from the cache.
+        if (!xpBank.isBalanceCached(playerUUID)) {
+            databaseReads.increment();
+        }
+
+        return xpBank.getBalanceNow(playerUUID);
+    }
+
+    /**
+     * Reads a player's balance ahead of time when called from an asynchronous thread, so the main
+     * thread doesn't have to wait for the database when it runs the call.
+     *
+     * @param playerUUID The UUID of the player.
+     */
+    private void warmBalance(UUID playerUUID) {
+        if (!Bukkit.isPrimaryThread()) {
+            xpBank.warmBalance(playerUUID);
+        }
+    }
+
+    /**
+     * Finds an online player by their exact name.
+     *
+     * @param playerName The name of the player.
+     *
+     * @return The player, or null if no online player has the given name.
+     */
+    private static Player findOnlinePlayer(String playerName) {
+        return playerName == null ? null :
+                onMainThread(() -> EverythingPlugin.getOnlinePlayerIndex().findExact(playerName));
+    }
+
+    /**
+     * Runs a call on the main thread and waits for its result. Calls made on the main thread run
+     * right away.
+     *
+     * @param call The call to run.
+     * @param <T>  The type of the call's result.
+     *
+     * @return The result of the call.
+     *
+     * @throws IllegalStateException If the call fails or the waiting thread is interrupted.
+     */
+    private static <T> T onMainThread(Supplier<T> call) {
+        // Run the call right away if this is the main thread.
+        if (Bukkit.isPrimaryThread()) {
+            return call.get();
+        }
+
+        // Try to wait for the main thread to run the call.
+        try {
+            return Bukkit.getScheduler().callSyncMethod(EverythingPlugin.getPlugin(), call::get)
+                    .get();
+        }
+        // The call was interrupted while it waited for the main thread.
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        // The call failed on the main thread.
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the response to a deposit or withdrawal for a player without an xp bank account.
+     *
+     * @return A failed response.
+     */
+    private static EconomyResponse noAccount() {
+        return new EconomyResponse(0, 0, ResponseType.FAILURE, "That player doesn't have an xp " +
+                "bank account.");
+    }
+
+    /**
+     * Returns the response to a bank account call, since the xp bank has no shared bank accounts.
+     *
+     * @return A response saying bank accounts aren't supported.
+     */
+    private static EconomyResponse noBanks() {
+        return new EconomyResponse(0, 0, ResponseType.NOT_IMPLEMENTED, NAME + " does not " +
+                "support bank accounts.");
+    }
+}
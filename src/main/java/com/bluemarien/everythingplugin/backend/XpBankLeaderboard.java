@@ -0,0 +1,329 @@
+package com.bluemarien.everythingplugin.backend;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * This class represents the xp bank leaderboard. It keeps every player with a positive xp bank
+ * balance in an in-memory ranking ordered from the highest balance to the lowest, so pages of the
+ * leaderboard and a player's own rank can be looked up without touching the xp bank database.
+ *
+ * The ranking is a treap where every node also stores the size of its subtree. That makes adding,
+ * removing, finding a player's rank, and finding the player at a rank all take logarithmic time.
+ * Players with the same balance are ordered by UUID so the ranking is stable.
+ *
+ * The leaderboard is built once from the xp bank database and then kept up to date with every
+ * balance change. It must only be used from the main thread once it's been built.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class XpBankLeaderboard {
+
+    /**
+     * This class represents a single entry on the leaderboard.
+     */
+    public static final class Entry {
+
+        /**
+         * Declare the player's UUID and xp bank balance.
+         */
+        private final UUID playerUUID;
+        private final long balance;
+
+        /**
+         * Makes a leaderboard entry.
+         *
+         * @param playerUUID The UUID of the player.
+         * @param balance    The player's xp bank balance.
+         */
+        private Entry(UUID playerUUID, long balance) {
+            this.playerUUID = playerUUID;
+            this.balance = balance;
+        }
+
+        /**
+         * Returns the UUID of the player.
+         *
+         * @return The UUID of the player.
+         */
+        public UUID getPlayerUUID() {
+            return playerUUID;
+        }
+
+        /**
+         * Returns the player's xp bank balance.
+         *
+         * @return The player's xp bank balance, in experience points.
+         */
+        public long getBalance() {
+            return balance;
+        }
+    }
+
+    /**
+     * This class represents a node in the ranking treap.
+     */
+    private static final class Node {
+
+        /**
+         * Declare the node's player, balance, random heap priority, subtree size, and children.
+         */
+        private final UUID playerUUID;
+        private final long balance;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left = null;
+        private Node right = null;
+
+        /**
+         * Makes a ranking node.
+         *
+         * @param playerUUID The UUID of the player.
+         * @param balance    The player's xp bank balance.
+         */
+        private Node(UUID playerUUID, long balance) {
+            this.playerUUID = playerUUID;
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * Declare the number of entries on a leaderboard page.
+     */
+    public static final int PAGE_SIZE = 10;
+
+    /**
+     * Declare the root of the ranking treap and the balance each ranked player is ranked with.
+     */
+    private Node root = null;
+    private final Map<UUID, Long> rankedBalances = new HashMap<>();
+
+    /**
+     * Sets a player's balance on the leaderboard. Players with a balance of 0 are taken off the
+     * leaderboard.
+     *
+     * @param playerUUID The UUID of the player.
+     * @param balance    The player's new xp bank balance.
+     */
+    public void update(UUID playerUUID, long balance) {
+        // Take the player's old entry off the leaderboard.
+        Long oldBalance = rankedBalances.remove(playerUUID);
+
+        if (oldBalance != null) {
+            Node[] lower = split(root, oldBalance, playerUUID, false);
+            Node[] upper = split(lower[1], oldBalance, playerUUID, true);
+            root = merge(lower[0], upper[1]);
+        }
+
+        // Put the player's new entry on the leaderboard.
+        if (balance > 0) {
+            Node[] parts = split(root, balance, playerUUID, false);
+            root = merge(merge(parts[0], new Node(playerUUID, balance)), parts[1]);
+            rankedBalances.put(playerUUID, balance);
+        }
+    }
+
+    /**
+     * Returns a player's rank on the leaderboard.
+     *
+     * @param playerUUID The UUID of the player.
+     *
+     * @return The player's rank starting from 1, or 0 if the player isn't on the leaderboard.
+     */
+    public int getRank(UUID playerUUID) {
+        // Check if the player is on the leaderboard.
+        Long balance = rankedBalances.get(playerUUID);
+
+        if (balance == null) {
+            return 0;
+        }
+
+        // Count the entries ranked above the player.
+        int above = 0;
+        Node node = root;
+
+        while (node != null) {
+            if (compare(node.balance, node.playerUUID, balance, playerUUID) < 0) {
+                above += size(node.left) + 1;
+                node = node.right;
+            }
+            else {
+                node = node.left;
+            }
+        }
+
+        return above + 1;
+    }
+
+    /**
+     * Returns a page of the leaderboard.
+     *
+     * @param page The page to return, starting from 1.
+     *
+     * @return The entries on the page, highest balance first. The list is empty if the page is past
+     * the end of the leaderboard.
+     */
+    public List<Entry> getPage(int page) {
+        List<Entry> entries = new ArrayList<>(PAGE_SIZE);
+        int first = (page - 1) * PAGE_SIZE;
+        int last = Math.min(first + PAGE_SIZE, size());
+
+        // Find each entry on the page by its position in the ranking.
+        for (int index = Math.max(first, 0); index < last; index++) {
+            Node node = select(index);
+            entries.add(new Entry(node.playerUUID, node.balance));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Returns the number of pages on the leaderboard.
+     *
+     * @return The number of pages on the leaderboard, at least 1.
+     */
+    public int getPageCount() {
+        return Math.max(1, (size() + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * Returns the number of players on the leaderboard.
+     *
+     * @return The number of players on the leaderboard.
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Finds the node at the given position in the ranking.
+     *
+     * @param index The position in the ranking, starting from 0.
+     *
+     * @return The node at the given position.
+     */
+    private Node select(int index) {
+        Node node = root;
+
+        while (true) {
+            int leftSize = size(node.left);
+
+            if (index < leftSize) {
+                node = node.left;
+            }
+            else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Splits a treap into the nodes ranked above a key and the rest.
+     *
+     * @param node       The root of the treap to split.
+     * @param balance    The balance of the key.
+     * @param playerUUID The player UUID of the key.
+     * @param inclusive  Whether the key itself goes in the first part.
+     *
+     * @return The two parts of the treap.
+     */
+    private static Node[] split(Node node, long balance, UUID playerUUID, boolean inclusive) {
+        // An empty treap splits into two empty treaps.
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+
+        // Check which part the node belongs in and split the matching subtree.
+        int comparison = compare(node.balance, node.playerUUID, balance, playerUUID);
+
+        if (comparison < 0 || (inclusive && comparison == 0)) {
+            Node[] parts = split(node.right, balance, playerUUID, inclusive);
+            node.right = parts[0];
+            updateSize(node);
+            parts[0] = node;
+            return parts;
+        }
+
+        Node[] parts = split(node.left, balance, playerUUID, inclusive);
+        node.left = parts[1];
+        updateSize(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    /**
+     * Merges two treaps where every node in the first is ranked above every node in the second.
+     *
+     * @param first  The root of the higher ranked treap.
+     * @param second The root of the lower ranked treap.
+     *
+     * @return The root of the merged treap.
+     */
+    private static Node merge(Node first, Node second) {
+        // Merging with an empty treap is a no-op.
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+
+        // Keep the node with the higher priority on top.
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            updateSize(first);
+            return first;
+        }
+
+        second.left = merge(first, second.left);
+        updateSize(second);
+        return second;
+    }
+
+    /**
+     * Compares two leaderboard keys. Higher balances are ranked first, and equal balances are
+     * ordered by player UUID.
+     *
+     * @param balanceA The balance of the first key.
+     * @param uuidA    The player UUID of the first key.
+     * @param balanceB The balance of the second key.
+     * @param uuidB    The player UUID of the second key.
+     *
+     * @return A negative number if the first key is ranked above the second, a positive number if
+     * it's ranked below, or 0 if they're the same key.
+     */
+    private static int compare(long balanceA, UUID uuidA, long balanceB, UUID uuidB) {
+        int comparison = Long.compare(balanceB, balanceA);
+        return comparison != 0 ? comparison : uuidA.compareTo(uuidB);
+    }
+
+    /**
+     * Returns the size of a treap.
+     *
+     * @param node The root of the treap.
+     *
+     * @return The number of nodes in the treap.
+     */
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Recomputes the subtree size of a node from its children.
+     *
+     * @param node The node to update.
+     */
+    private static void updateSize(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+}
@@ -0,0 +1,263 @@
+package com.bluemarien.everythingplugin.backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+
+/**
+ * This class creates the xp bank database's table and migrates xp bank databases made by older
+ * versions of this plugin to the current schema. The schema version is recorded in the database's
+ * user version, so each migration only ever runs once. Every method here must only be called from
+ * the storage thread.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+final class XpBankSchema {
+
+    /**
+     * Declare the name of the xp bank table and the current schema version.
+     */
+    static final String TABLE_NAME = "xpBankTable";
+    static final int SCHEMA_VERSION = 2;
+
+    /**
+     * This class only holds static schema operations, so it can't be made.
+     */
+    private XpBankSchema() {
+    }
+
+    /**
+     * Creates the table in the xp bank database if it doesn't exist yet. Player UUIDs are stored
+     * as 16 byte blobs in the primary key, so every lookup is an exact match on the primary key.
+     * Balances are stored as total experience points in a 64-bit integer.
+     *
+     * @param conn The connection to the xp bank database.
+     *
+     * @return True once the table exists.
+     *
+     * @throws SQLException If an error occurs creating the table.
+     */
+    static boolean createTable(Connection conn) throws SQLException {
+        // Initialize the query for creating a new table.
+        String statement = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (UUID blob PRIMARY " +
+                "KEY, XP integer CHECK(XP >= 0)) WITHOUT ROWID;";
+
+        // Try to execute the query to the xp bank database.
+        try (Statement stmt = conn.createStatement()) {
+            // Create a new table in the xp bank database and record its schema version.
+            stmt.execute(statement);
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION + ";");
+        }
+
+        return true;
+    }
+
+    /**
+     * Migrates an xp bank database made by an older version of this plugin to the current schema.
+     * The first databases stored player UUIDs as text, which can't be looked up by an exact match
+     * on the primary key, so their table is copied to the current schema. Databases before schema
+     * version 2 stored balances as levels, which are converted to total experience points. Every
+     * step runs in a single transaction, so a failed migration leaves the old table untouched.
+     *
+     * @param conn   The connection to the xp bank database.
+     * @param logger The logger that migration progress and skipped players are logged to.
+     *
+     * @return True if the xp bank database was migrated, false if it was already up to date.
+     *
+     * @throws SQLException If an error occurs migrating the xp bank database.
+     */
+    static boolean migrate(Connection conn, Logger logger) throws SQLException {
+        // Check if the xp bank database is already on the current schema.
+        int version = getSchemaVersion(conn);
+
+        if (version >= SCHEMA_VERSION) {
+            return false;
+        }
+
+        // Check if the xp bank database file is missing its table. Just create it.
+        if (!tableExists(conn, TABLE_NAME)) {
+            createTable(conn);
+            return false;
+        }
+
+        logger.info("Migrating the xp bank database to the new format...");
+        int migratedPlayers;
+
+        // Try to migrate every player in a single transaction.
+        conn.setAutoCommit(false);
+
+        try (Statement stmt = conn.createStatement()) {
+            // Copy a table keyed by text UUIDs to the current table.
+            if (version < 1) {
+                copyTextUUIDTable(conn, logger);
+            }
+
+            // Convert every balance from levels to points and record the new schema version.
+            migratedPlayers = convertLevelsToPoints(conn);
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION + ";");
+            conn.commit();
+        }
+        // An error occurred migrating the xp bank database. Undo the partial migration.
+        catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        finally {
+            conn.setAutoCommit(true);
+        }
+
+        logger.info("Migrated " + migratedPlayers + " players to the new xp bank database format " +
+                "successfully!");
+        return true;
+    }
+
+    /**
+     * Converts a balance of levels to the total experience points needed to reach that level.
+     * Levels in the experience table are looked up, and the few balances past the end of the table
+     * use the game's formula for high levels, capped at the largest balance the xp bank can hold.
+     *
+     * @param levels The balance in levels.
+     *
+     * @return The balance in experience points.
+     */
+    static long levelsToPoints(long levels) {
+        // Look the level up in the experience table.
+        if (levels <= ExperienceTable.MAX_LEVEL) {
+            return ExperienceTable.getPointsForLevel((int) levels);
+        }
+
+        // Work out the points for a level past the end of the table: (9L^2 - 325L + 4440) / 2.
+        try {
+            return Math.addExact(Math.subtractExact(
+                    Math.multiplyExact(9L, Math.multiplyExact(levels, levels)), 325L * levels),
+                    4440L) / 2;
+        }
+        // The points don't fit in the xp bank.
+        catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Reads the schema version recorded in the xp bank database.
+     *
+     * @param conn The connection to the xp bank database.
+     *
+     * @return The schema version of the xp bank database, or 0 if none was recorded.
+     *
+     * @throws SQLException If an error occurs reading the schema version.
+     */
+    static int getSchemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet result = stmt.executeQuery("PRAGMA user_version;")) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Copies a table keyed by text UUIDs to a new table keyed by 16 byte UUIDs, then drops the old
+     * table. Rows that don't hold a valid UUID are skipped. This must only be called inside the
+     * migration's transaction.
+     *
+     * @param conn   The connection to the xp bank database.
+     * @param logger The logger that skipped players are logged to.
+     *
+     * @throws SQLException If an error occurs copying the table.
+     */
+    private static void copyTextUUIDTable(Connection conn, Logger logger) throws SQLException {
+        String oldTableName = TABLE_NAME + "Old";
+        String selectQuery = "SELECT UUID, XP FROM " + oldTableName;
+        String insertQuery = "INSERT OR REPLACE INTO " + TABLE_NAME + "(UUID,XP) VALUES(?,?)";
+
+        try (Statement stmt = conn.createStatement()) {
+            // Move the old table out of the way and create the new one.
+            stmt.execute("ALTER TABLE " + TABLE_NAME + " RENAME TO " + oldTableName + ";");
+            createTable(conn);
+
+            // Copy every player with a valid UUID to the new table.
+            try (ResultSet result = stmt.executeQuery(selectQuery);
+                 PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
+                while (result.next()) {
+                    String playerUUID = result.getString("UUID");
+
+                    try {
+                        pstmt.setBytes(1, XpBankDatabase.toBytes(UUID.fromString(playerUUID)));
+                    }
+                    // The old table held something that isn't a UUID.
+                    catch (IllegalArgumentException | NullPointerException e) {
+                        logger.warning("Skipping the invalid UUID \"" + playerUUID + "\" while " +
+                                "migrating the xp bank database.");
+                        continue;
+                    }
+
+                    pstmt.setLong(2, result.getLong("XP"));
+                    pstmt.addBatch();
+                }
+
+                pstmt.executeBatch();
+            }
+
+            // Drop the old table now that every player has been copied.
+            stmt.execute("DROP TABLE " + oldTableName + ";");
+        }
+    }
+
+    /**
+     * Converts every balance in the xp bank database from levels to the total experience points
+     * needed to reach those levels. This must only be called inside the migration's transaction.
+     *
+     * @param conn The connection to the xp bank database.
+     *
+     * @return The number of players whose balance was converted.
+     *
+     * @throws SQLException If an error occurs converting the balances.
+     */
+    private static int convertLevelsToPoints(Connection conn) throws SQLException {
+        String selectQuery = "SELECT UUID, XP FROM " + TABLE_NAME + " WHERE XP > 0";
+        String updateQuery = "UPDATE " + TABLE_NAME + " SET XP = ? WHERE UUID = ?";
+        int convertedPlayers = 0;
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet result = stmt.executeQuery(selectQuery);
+             PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
+            while (result.next()) {
+                pstmt.setLong(1, levelsToPoints(result.getLong("XP")));
+                pstmt.setBytes(2, result.getBytes("UUID"));
+                pstmt.addBatch();
+                convertedPlayers++;
+            }
+
+            pstmt.executeBatch();
+        }
+
+        return convertedPlayers;
+    }
+
+    /**
+     * Checks if a table exists in the xp bank database.
+     *
+     * @param conn  The connection to the xp bank database.
+     * @param table The name of the table to look for.
+     *
+     * @return True if the table exists, false otherwise.
+     *
+     * @throws SQLException If an error occurs looking for the table.
+     */
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        String query = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, table);
+
+            try (ResultSet result = pstmt.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+}
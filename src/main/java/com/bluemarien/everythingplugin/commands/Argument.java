@@ -0,0 +1,213 @@
+package com.bluemarien.everythingplugin.commands;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.bukkit.command.CommandSender;
+
+
+/**
+ * This class represents an argument of a subcommand. An argument has a name shown in the usage of
+ * its command, is either required or optional, and knows how to parse and tab complete itself.
+ *
+ * @param <T> The type of value the argument is parsed into.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public final class Argument<T> {
+
+    /**
+     * This interface represents how an argument is parsed from what the command sender typed.
+     *
+     * @param <T> The type of value the argument is parsed into.
+     */
+    @FunctionalInterface
+    public interface Parser<T> {
+
+        /**
+         * Parses an argument.
+         *
+         * @param sender The sender of the command.
+         * @param input  What the sender typed for the argument.
+         *
+         * @return The parsed value of the argument.
+         *
+         * @throws ArgumentException If the sender typed something invalid for the argument.
+         */
+        T parse(CommandSender sender, String input) throws ArgumentException;
+    }
+
+    /**
+     * This interface represents how an argument is tab completed.
+     */
+    @FunctionalInterface
+    public interface Completer {
+
+        /**
+         * Finds the possible values of an argument that start with what the sender has typed.
+         *
+         * @param sender The sender of the command.
+         * @param prefix What the sender has typed for the argument so far.
+         *
+         * @return The possible values of the argument.
+         */
+        List<String> complete(CommandSender sender, String prefix);
+    }
+
+    /**
+     * This interface represents how an argument recognizes input that names something that
+     * exists, such as a player who is on the server.
+     */
+    @FunctionalInterface
+    public interface Matcher {
+
+        /**
+         * Checks if what the sender typed names something that exists.
+         *
+         * @param sender The sender of the command.
+         * @param input  What the sender typed for the argument.
+         *
+         * @return True if the input names something that exists, false otherwise.
+         */
+        boolean matches(CommandSender sender, String input);
+    }
+
+    /**
+     * Declare the name of the argument, whether it's required, and how it's parsed, completed and
+     * matched.
+     */
+    private final String name;
+    private final boolean required;
+    private final Parser<T> parser;
+    private final Completer completer;
+    private final Matcher matcher;
+
+    /**
+     * Makes an argument.
+     *
+     * @param name      The name of the argument shown in the usage of its command.
+     * @param required  Whether the argument must be given.
+     * @param parser    How the argument is parsed.
+     * @param completer How the argument is tab completed.
+     * @param matcher   How the argument recognizes input that names something that exists.
+     */
+    private Argument(String name, boolean required, Parser<T> parser, Completer completer,
+                     Matcher matcher) {
+        this.name = name;
+        this.required = required;
+        this.parser = parser;
+        this.completer = completer;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Makes an argument that must be given.
+     *
+     * @param name   The name of the argument shown in the usage of its command.
+     * @param parser How the argument is parsed.
+     * @param <T>    The type of value the argument is parsed into.
+     *
+     * @return The required argument.
+     */
+    public static <T> Argument<T> required(String name, Parser<T> parser) {
+        return new Argument<>(name, true, parser, (sender, prefix) -> Collections.emptyList(),
+                (sender, input) -> false);
+    }
+
+    /**
+     * Makes an argument that may be left out.
+     *
+     * @param name   The name of the argument shown in the usage of its command.
+     * @param parser How the argument is parsed.
+     * @param <T>    The type of value the argument is parsed into.
+     *
+     * @return The optional argument.
+     */
+    public static <T> Argument<T> optional(String name, Parser<T> parser) {
+        return new Argument<>(name, false, parser, (sender, prefix) -> Collections.emptyList(),
+                (sender, input) -> false);
+    }
+
+    /**
+     * Makes a copy of this argument that's tab completed with the given completer.
+     *
+     * @param completer How the argument is tab completed.
+     *
+     * @return The copy of this argument.
+     */
+    public Argument<T> completes(Completer completer) {
+        return new Argument<>(name, required, parser, completer, matcher);
+    }
+
+    /**
+     * Makes a copy of this argument that recognizes input that names something that exists with
+     * the given matcher. When the argument is the first argument of a root subcommand, input it
+     * matches is given to the root subcommand even if a literal subcommand has the same name,
+     * such as "/gift help" for a player named help.
+     *
+     * @param matcher How the argument recognizes input that names something that exists.
+     *
+     * @return The copy of this argument.
+     */
+    public Argument<T> matches(Matcher matcher) {
+        return new Argument<>(name, required, parser, completer, matcher);
+    }
+
+    /**
+     * Checks if the argument must be given.
+     *
+     * @return True if the argument must be given, false if it may be left out.
+     */
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * Parses the argument.
+     *
+     * @param sender The sender of the command.
+     * @param input  What the sender typed for the argument.
+     *
+     * @return The parsed value of the argument.
+     *
+     * @throws ArgumentException If the sender typed something invalid for the argument.
+     */
+    public T parse(CommandSender sender, String input) throws ArgumentException {
+        return parser.parse(sender, input);
+    }
+
+    /**
+     * Finds the possible values of the argument that start with what the sender has typed.
+     *
+     * @param sender The sender of the command.
+     * @param prefix What the sender has typed for the argument so far.
+     *
+     * @return The possible values of the argument.
+     */
+    public List<String> complete(CommandSender sender, String prefix) {
+        return completer.complete(sender, prefix);
+    }
+
+    /**
+     * Checks if what the sender typed for the argument names something that exists.
+     *
+     * @param sender The sender of the command.
+     * @param input  What the sender typed for the argument.
+     *
+     * @return True if the input names something that exists, false otherwise.
+     */
+    public boolean matches(CommandSender sender, String input) {
+        return matcher.matches(sender, input);
+    }
+
+    /**
+     * Renders the argument for the usage of its command.
+     *
+     * @return The name of the argument in angle brackets if it's required, or square brackets if
+     * it's optional.
+     */
+    public String render() {
+        return required ? "<" + name + ">" : "[" + name + "]";
+    }
+}
@@ -0,0 +1,26 @@
+package com.bluemarien.everythingplugin.commands;
+
+
+/**
+ * This class represents an error parsing a command argument. Its message is sent to the command
+ * sender as is, so it should tell them what they need to type instead.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class ArgumentException extends Exception {
+
+    /**
+     * Declare the serialization version of this exception.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Makes an argument error with the message to send to the command sender.
+     *
+     * @param message The message to send to the command sender.
+     */
+    public ArgumentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,186 @@
+package com.bluemarien.everythingplugin.commands;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class holds the argument parsers and completers shared by this plugin's commands.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public final class Arguments {
+
+    /**
+     * Declare the selector that stands for every player on the server other than the sender.
+     */
+    public static final String ALL_PLAYERS = "@a";
+
+    /**
+     * This class only holds static parsers and completers, so it can't be made.
+     */
+    private Arguments() {
+    }
+
+    /**
+     * Returns a parser that takes the argument as it was typed.
+     *
+     * @return The parser.
+     */
+    public static Argument.Parser<String> string() {
+        return (sender, input) -> input;
+    }
+
+    /**
+     * Returns a parser for a positive integer.
+     *
+     * @param error The message sent if the argument isn't a positive integer.
+     *
+     * @return The parser.
+     */
+    public static Argument.Parser<Integer> positiveInt(String error) {
+        return intRange(1, Integer.MAX_VALUE, error);
+    }
+
+    /**
+     * Returns a parser for an integer in a range.
+     *
+     * @param min   The smallest allowed integer.
+     * @param max   The largest allowed integer.
+     * @param error The message sent if the argument isn't an integer in the range.
+     *
+     * @return The parser.
+     */
+    public static Argument.Parser<Integer> intRange(int min, int max, String error) {
+        return (sender, input) -> {
+            int value;
+
+            // Try to read an integer from the argument.
+            try {
+                value = Integer.parseInt(input);
+            }
+            // The argument isn't an integer.
+            catch (NumberFormatException e) {
+                throw new ArgumentException(error);
+            }
+
+            // Check if the integer is in the range.
+            if (value < min || value > max) {
+                throw new ArgumentException(error);
+            }
+
+            return value;
+        };
+    }
+
+    /**
+     * Returns a parser for a player who is on the server. Players are found through the online
+     * player index, by exact name or by the start of their name.
+     *
+     * @return The parser.
+     */
+    public static Argument.Parser<Player> onlinePlayer() {
+        return (sender, input) -> {
+            Player player = EverythingPlugin.getOnlinePlayerIndex().find(input);
+
+            // Check if the player is on the server.
+            if (player == null) {
+                throw new ArgumentException("The player " + input + " is not on this server!");
+            }
+
+            return player;
+        };
+    }
+
+    /**
+     * Returns a completer for the names of the players on the server.
+     *
+     * @return The completer.
+     */
+    public static Argument.Completer onlinePlayerNames() {
+        return (sender, prefix) -> EverythingPlugin.getOnlinePlayerIndex().complete(prefix);
+    }
+
+    /**
+     * Returns a matcher for the exact name of a player who is on the server.
+     *
+     * @return The matcher.
+     */
+    public static Argument.Matcher onlinePlayerName() {
+        return (sender, input) -> EverythingPlugin.getOnlinePlayerIndex().findExact(input) != null;
+    }
+
+    /**
+     * Returns a parser for a comma separated list of player names, such as "Steve,Alex", or the
+     * selector "@a" for every player on the server other than the sender. Names are kept as they
+     * were typed, so they may name offline players, and repeated names are only kept once.
+     *
+     * @param error The message sent if the list doesn't name any players.
+     *
+     * @return The parser.
+     */
+    public static Argument.Parser<List<String>> playerList(String error) {
+        return (sender, input) -> {
+            Map<String, String> names = new LinkedHashMap<>();
+
+            for (String name : input.split(",")) {
+                name = name.trim();
+
+                // Add every other player on the server for the selector.
+                if (name.equalsIgnoreCase(ALL_PLAYERS)) {
+                    for (Player player : Bukkit.getOnlinePlayers()) {
+                        if (!player.equals(sender)) {
+                            names.putIfAbsent(player.getName().toLowerCase(Locale.ROOT),
+                                    player.getName());
+                        }
+                    }
+                }
+                else if (!name.isEmpty()) {
+                    names.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+                }
+            }
+
+            // Check if the list names any players.
+            if (names.isEmpty()) {
+                throw new ArgumentException(error);
+            }
+
+            return new ArrayList<>(names.values());
+        };
+    }
+
+    /**
+     * Returns a completer for a comma separated list of the names of the players on the server.
+     * Only the last name in the list is completed, and the selector "@a" is offered first.
+     *
+     * @return The completer.
+     */
+    public static Argument.Completer playerListNames() {
+        return (sender, prefix) -> {
+            int lastComma = prefix.lastIndexOf(',');
+            String head = prefix.substring(0, lastComma + 1);
+            String last = prefix.substring(lastComma + 1);
+            List<String> completions = new ArrayList<>();
+
+            // Offer the selector for every player.
+            if (ALL_PLAYERS.startsWith(last)) {
+                completions.add(head + ALL_PLAYERS);
+            }
+
+            for (String name : EverythingPlugin.getOnlinePlayerIndex().complete(last)) {
+                completions.add(head + name);
+            }
+
+            return completions;
+        };
+    }
+}
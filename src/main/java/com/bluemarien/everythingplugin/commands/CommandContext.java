@@ -0,0 +1,119 @@
+package com.bluemarien.everythingplugin.commands;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class represents a single run of a subcommand. It holds the sender of the command, the
+ * parsed values of the subcommand's arguments, in the order the arguments were registered, and
+ * the name of the rate limits the run was charged to.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public final class CommandContext {
+
+    /**
+     * Declare the sender of the command, the parsed values of the arguments, and the name of the
+     * subcommand's rate limits.
+     */
+    private final CommandSender sender;
+    private final Object[] values;
+    private final String rateLimit;
+
+    /**
+     * Makes the context of a subcommand run.
+     *
+     * @param sender    The sender of the command.
+     * @param values    The parsed values of the arguments. Optional arguments that were left out
+     *                  are null.
+     * @param rateLimit The name of the subcommand's rate limits, or null if it isn't limited.
+     */
+    CommandContext(CommandSender sender, Object[] values, String rateLimit) {
+        this.sender = sender;
+        this.values = values;
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * Returns the sender of the command.
+     *
+     * @return The sender of the command.
+     */
+    public CommandSender getSender() {
+        return sender;
+    }
+
+    /**
+     * Returns the player who sent the command. This may only be used by commands that only players
+     * can run.
+     *
+     * @return The player who sent the command.
+     */
+    public Player getPlayer() {
+        return (Player) sender;
+    }
+
+    /**
+     * Checks if an argument was given.
+     *
+     * @param index The index of the argument.
+     *
+     * @return True if the argument was given, false if it was left out.
+     */
+    public boolean has(int index) {
+        return values[index] != null;
+    }
+
+    /**
+     * Returns the parsed value of an argument.
+     *
+     * @param index The index of the argument.
+     * @param <T>   The type of value the argument was parsed into.
+     *
+     * @return The parsed value of the argument, or null if it was left out.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(int index) {
+        return (T) values[index];
+    }
+
+    /**
+     * Returns the parsed value of an argument, or a default value if it was left out.
+     *
+     * @param index        The index of the argument.
+     * @param defaultValue The value to return if the argument was left out.
+     * @param <T>          The type of value the argument was parsed into.
+     *
+     * @return The parsed value of the argument, or the default value if it was left out.
+     */
+    public <T> T getOrDefault(int index, T defaultValue) {
+        T value = get(index);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Gives back the use of the subcommand taken from the sender's rate limits. This is used when
+     * the subcommand stops before doing anything, such as when the warp to teleport to doesn't
+     * exist, so mistakes don't count towards the limits.
+     */
+    public void refundRateLimit() {
+        if (rateLimit != null && sender instanceof Player) {
+            EverythingPlugin.getRateLimiter().refund((Player) sender, rateLimit);
+        }
+    }
+
+    /**
+     * Checks if the sender of the command has a permission.
+     *
+     * @param permission The permission to check.
+     *
+     * @return True if the sender has the permission, false otherwise.
+     */
+    public boolean hasPermission(String permission) {
+        return EverythingPlugin.getPermissionCache().has(sender, permission);
+    }
+}
@@ -0,0 +1,366 @@
+package com.bluemarien.everythingplugin.commands;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.entity.Player;
+
+
+/**
+ * This class represents a command made of {@link Subcommand}s. Subcommands are registered once
+ * when the command is made, and the command dispatches each run to the right subcommand through a
+ * map of literal names, parses its arguments, and runs it. The usage of the command and its error
+ * messages are rendered once as subcommands are registered and sent as a single message, so
+ * running a command never builds them again.
+ *
+ * The command checks that the sender is a player (if the command is only for players) and has the
+ * command's permission before anything else. Tab completion covers the literal names and the
+ * arguments of every subcommand.
+ *
+ * A literal name only picks its subcommand when the root subcommand doesn't want the first
+ * argument, so a literal can't hide a player or anything else with the same name. The root
+ * subcommand takes the first argument when its first argument matches what was typed, such as
+ * "/gift help" while a player named help is online, or when only the root subcommand takes that
+ * many arguments, such as "/gift claim 5".
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public abstract class DispatchCommand implements TabExecutor {
+
+    /**
+     * Declare the messages sent when the sender isn't a player or doesn't have permission.
+     */
+    private static final String NOT_A_PLAYER_MESSAGE =
+            ChatColor.RED + "You must be a player to use that command!";
+    private static final String NO_PERMISSION_MESSAGE =
+            ChatColor.RED + "You do not have permission to run that command.";
+
+    /**
+     * Declare the name of the command, the permission needed to run it, and whether only players
+     * can run it.
+     */
+    private final String name;
+    private final String permission;
+    private final boolean playersOnly;
+
+    /**
+     * Declare the subcommands picked by their literal names, the root subcommand, and every
+     * subcommand in the order they were registered.
+     */
+    private final Map<String, Subcommand> literals = new HashMap<>();
+    private Subcommand root = null;
+    private final List<Subcommand> subcommands = new ArrayList<>();
+
+    /**
+     * Declare the rendered usage of the command and the rendered error messages.
+     */
+    private String[] usageMessage = new String[0];
+    private String[] unknownSubcommandMessage = new String[0];
+    private String[] notEnoughParametersMessage = new String[0];
+    private String[] tooManyParametersMessage = new String[0];
+
+    /**
+     * Makes a command with no subcommands yet.
+     *
+     * @param name        The name of the command in plugin.yml.
+     * @param permission  The permission needed to run the command, or null if it doesn't need
+     *                    one.
+     * @param playersOnly Whether only players can run the command.
+     */
+    protected DispatchCommand(String name, String permission, boolean playersOnly) {
+        this.name = name;
+        this.permission = permission;
+        this.playersOnly = playersOnly;
+    }
+
+    /**
+     * Registers a subcommand and renders the usage of the command again.
+     *
+     * @param subcommand The subcommand to register.
+     */
+    protected final void register(Subcommand subcommand) {
+        // Check if the subcommand is the root subcommand.
+        if (subcommand.getNames().isEmpty()) {
+            root = subcommand;
+        }
+        // Map each literal name to the subcommand.
+        else {
+            for (String literal : subcommand.getNames()) {
+                literals.put(literal.toLowerCase(Locale.ROOT), subcommand);
+            }
+        }
+
+        subcommands.add(subcommand);
+        renderMessages();
+    }
+
+    /**
+     * Registers the "help" and "?" subcommands, which show the usage of the command.
+     */
+    protected final void registerHelp() {
+        register(Subcommand.literal("help", "?").usage("[help | ?]")
+                .executes(context -> sendUsage(context.getSender())));
+    }
+
+    /**
+     * Shows the usage of the command.
+     *
+     * @param sender The sender to show the usage to.
+     */
+    protected final void sendUsage(CommandSender sender) {
+        sender.sendMessage(usageMessage);
+    }
+
+    /**
+     * Executes the given command, returning its success.
+     *
+     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
+     * sent to the player.
+     *
+     * @param sender  Source of the command
+     * @param command Command which was executed
+     * @param label   Alias of the command which was used
+     * @param args    Passed command arguments
+     *
+     * @return True if a valid command, otherwise false
+     */
+    @Override
+    public final boolean onCommand(CommandSender sender, Command command, String label,
+                                   String[] args) {
+        // Check if the command being run is this command.
+        if (!command.getName().equals(name)) {
+            // The command was not handled properly.
+            return false;
+        }
+
+        // Check if the sender can run this command.
+        if (playersOnly && !(sender instanceof Player)) {
+            sender.sendMessage(NOT_A_PLAYER_MESSAGE);
+            return true;
+        }
+
+        if (permission != null && !EverythingPlugin.getPermissionCache().has(sender, permission)) {
+            sender.sendMessage(NO_PERMISSION_MESSAGE);
+            return true;
+        }
+
+        // Find the subcommand picked by the first argument, or the root subcommand.
+        Subcommand subcommand = pickSubcommand(sender, args);
+
+        // Check if the command has nothing to run.
+        if (subcommand == null) {
+            sender.sendMessage(args.length == 0 ? usageMessage : unknownSubcommandMessage);
+            return true;
+        }
+
+        int offset = subcommand == root ? 0 : 1;
+
+        // Check if the sender gave the right number of arguments. A bare command that needs
+        // arguments shows its usage.
+        int given = args.length - offset;
+
+        if (given < subcommand.getRequiredCount()) {
+            sender.sendMessage(args.length == 0 ? usageMessage : notEnoughParametersMessage);
+            return true;
+        }
+
+        if (given > subcommand.getArguments().size()) {
+            sender.sendMessage(tooManyParametersMessage);
+            return true;
+        }
+
+        // Check if the sender has permission to run the subcommand.
+        if (subcommand.getPermission() != null &&
+                !EverythingPlugin.getPermissionCache().has(sender, subcommand.getPermission())) {
+            sender.sendMessage(NO_PERMISSION_MESSAGE);
+            return true;
+        }
+
+        // Try to parse each argument that was given.
+        Object[] values = new Object[subcommand.getArguments().size()];
+
+        try {
+            for (int i = 0; i < given; i++) {
+                values[i] = subcommand.getArguments().get(i).parse(sender, args[offset + i]);
+            }
+        }
+        // The sender typed an invalid argument.
+        catch (ArgumentException e) {
+            sender.sendMessage(ChatColor.RED + e.getMessage());
+            return true;
+        }
+
+        // Check if the player has used the subcommand too often.
+        if (subcommand.getRateLimit() != null && sender instanceof Player) {
+            long wait = EverythingPlugin.getRateLimiter().tryAcquire((Player) sender,
+                    subcommand.getRateLimit());
+
+            if (wait > 0) {
+                sender.sendMessage(ChatColor.RED + "You must wait " + (wait + 999) / 1000 +
+                        " second(s) before using that command again!");
+                return true;
+            }
+        }
+
+        // Run the subcommand.
+        subcommand.getHandler().execute(new CommandContext(sender, values,
+                subcommand.getRateLimit()));
+        return true;
+    }
+
+    /**
+     * Requests a list of possible completions for a command argument. Literal subcommand names
+     * are completed for the first argument, and each subcommand's arguments are completed by the
+     * argument's completer.
+     *
+     * @param sender  Source of the command
+     * @param command Command which was executed
+     * @param alias   The alias used
+     * @param args    The arguments passed to the command, including final partial argument to be
+     *                completed
+     *
+     * @return A list of possible completions for the final argument, or an empty list
+     */
+    @Override
+    public final List<String> onTabComplete(CommandSender sender, Command command, String alias,
+                                            String[] args) {
+        // Only complete the command for senders who can run it.
+        if (args.length == 0 || (playersOnly && !(sender instanceof Player)) ||
+                (permission != null &&
+                        !EverythingPlugin.getPermissionCache().has(sender, permission))) {
+            return Collections.emptyList();
+        }
+
+        List<String> completions = new ArrayList<>();
+        String prefix = args[args.length - 1];
+
+        // Complete the literal subcommand names.
+        if (args.length == 1) {
+            String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+
+            for (Subcommand subcommand : subcommands) {
+                for (String literal : subcommand.getNames()) {
+                    if (literal.startsWith(lowerPrefix) && canRun(sender, subcommand)) {
+                        completions.add(literal);
+                    }
+                }
+            }
+        }
+
+        // Complete the argument of the subcommand picked by the first argument, or the root
+        // subcommand.
+        Subcommand subcommand = args.length > 1 ? pickSubcommand(sender, args) : root;
+        int index = subcommand == root ? args.length - 1 : args.length - 2;
+
+        if (subcommand != null && index < subcommand.getArguments().size() &&
+                canRun(sender, subcommand)) {
+            completions.addAll(subcommand.getArguments().get(index).complete(sender, prefix));
+        }
+
+        return completions;
+    }
+
+    /**
+     * Picks the subcommand to run for the given arguments. A literal subcommand named by the first
+     * argument is picked, unless the root subcommand takes that many arguments and either its
+     * first argument matches the first argument typed, or the literal subcommand doesn't take
+     * that many arguments.
+     *
+     * @param sender The sender of the command.
+     * @param args   The arguments passed to the command.
+     *
+     * @return The subcommand to run, or null if no subcommand can run.
+     */
+    private Subcommand pickSubcommand(CommandSender sender, String[] args) {
+        Subcommand literal = args.length > 0 ? literals.get(args[0].toLowerCase(Locale.ROOT)) :
+                null;
+
+        // Check if the first argument is meant for the root subcommand.
+        if (literal != null && root != null && !root.getArguments().isEmpty() &&
+                takes(root, args.length) && (!takes(literal, args.length - 1) ||
+                root.getArguments().get(0).matches(sender, args[0]))) {
+            return root;
+        }
+
+        return literal != null ? literal : root;
+    }
+
+    /**
+     * Checks if a subcommand takes the given number of arguments.
+     *
+     * @param subcommand The subcommand to check.
+     * @param given      The number of arguments given.
+     *
+     * @return True if the subcommand takes that many arguments, false otherwise.
+     */
+    private static boolean takes(Subcommand subcommand, int given) {
+        return given >= subcommand.getRequiredCount() &&
+                given <= subcommand.getArguments().size();
+    }
+
+    /**
+     * Checks if a sender has permission to run a subcommand.
+     *
+     * @param sender     The sender to check.
+     * @param subcommand The subcommand to check.
+     *
+     * @return True if the sender has permission to run the subcommand, false otherwise.
+     */
+    private static boolean canRun(CommandSender sender, Subcommand subcommand) {
+        return subcommand.getPermission() == null ||
+                EverythingPlugin.getPermissionCache().has(sender, subcommand.getPermission());
+    }
+
+    /**
+     * Renders the usage of the command and the error messages that show it.
+     */
+    private void renderMessages() {
+        List<String> usageLines = new ArrayList<>();
+
+        for (Subcommand subcommand : subcommands) {
+            if (!subcommand.isHidden()) {
+                usageLines.add(subcommand.render(name));
+            }
+        }
+
+        usageMessage = renderMessage(ChatColor.GOLD, "Usage of \"/" + name + "\":", usageLines);
+        unknownSubcommandMessage = renderMessage(ChatColor.RED,
+                "Unknown subcommand! Proper syntax is:", usageLines);
+        notEnoughParametersMessage = renderMessage(ChatColor.RED,
+                "Not enough parameters! Proper syntax is:", usageLines);
+        tooManyParametersMessage = renderMessage(ChatColor.RED,
+                "Too many parameters! Proper syntax is:", usageLines);
+    }
+
+    /**
+     * Renders a message made of a header followed by the usage of the command.
+     *
+     * @param color      The color of the message.
+     * @param header     The first line of the message.
+     * @param usageLines The usage of each subcommand.
+     *
+     * @return The lines of the message.
+     */
+    private static String[] renderMessage(ChatColor color, String header,
+                                          List<String> usageLines) {
+        String[] message = new String[usageLines.size() + 1];
+        message[0] = color + header;
+
+        for (int i = 0; i < usageLines.size(); i++) {
+            message[i + 1] = color + usageLines.get(i);
+        }
+
+        return message;
+    }
+}
@@ -0,0 +1,146 @@
+package com.bluemarien.everythingplugin.commands;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+import com.bluemarien.everythingplugin.backend.PermissionCache;
+import com.bluemarien.everythingplugin.backend.RateLimiter;
+import com.bluemarien.everythingplugin.backend.TeleportPipeline;
+import com.bluemarien.everythingplugin.backend.TickScheduler;
+import com.bluemarien.everythingplugin.backend.WarpChunkPinner;
+import com.bluemarien.everythingplugin.backend.XpBankEconomy;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+
+/**
+ * This class represents the everythingplugin command. This command lets server administrators
+ * reload the plugin's databases, drop its cached permission results, and see how well its caches,
+ * rate limits, and scheduled jobs are working.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class Everythingplugin extends DispatchCommand {
+
+    /**
+     * Registers the everythingplugin command's subcommands.
+     */
+    public Everythingplugin() {
+        super("everythingplugin", "everythingplugin.admin", false);
+
+        // "/everythingplugin [help | ?]" shows the usage of the command.
+        registerHelp();
+
+        // "/everythingplugin reload" reloads the warp and multihome databases and drops every
+        // cached permission result.
+        register(Subcommand.literal("reload").executes(Everythingplugin::reload));
+
+        // "/everythingplugin stats" shows how well the plugin's caches and rate limits are working.
+        register(Subcommand.literal("stats")
+                .executes(context -> sendStats(context.getSender())));
+    }
+
+    /**
+     * Reloads the warp and multihome databases from their files and drops every cached permission
+     * result, so edits and permission changes made since they were loaded apply right away. The
+     * homes are reloaded over several ticks, so the sender is told when they're done.
+     *
+     * @param context The sender of the command.
+     */
+    private static void reload(CommandContext context) {
+        CommandSender sender = context.getSender();
+
+        // Drop every cached permission result.
+        EverythingPlugin.getPermissionCache().invalidateAll();
+        sender.sendMessage(ChatColor.GOLD + "Cached permissions have been dropped.");
+
+        // Reload the warp database.
+        if (EverythingPlugin.getWarpDatabase().reloadWarpDatabase()) {
+            sender.sendMessage(ChatColor.GOLD + "The warp database has been reloaded.");
+        }
+        else {
+            sender.sendMessage(ChatColor.RED + "An error occurred reloading the warp database!");
+        }
+
+        // Reload the multihome database.
+        sender.sendMessage(ChatColor.GOLD + "Reloading the multihome database...");
+        EverythingPlugin.getMultihomeDatabase().reloadMultihomeDatabase()
+                .thenAccept(reloaded -> sender.sendMessage(reloaded ?
+                        ChatColor.GOLD + "The multihome database has been reloaded." :
+                        ChatColor.RED + "An error occurred reloading the multihome database!"));
+    }
+
+    /**
+     * Sends the statistics of the permission cache, the teleport pipeline, the warp chunk pinner,
+     * the rate limiter, the tick scheduler, and the xp bank economy.
+     *
+     * @param sender The sender to show the statistics to.
+     */
+    private static void sendStats(CommandSender sender) {
+        PermissionCache permissionCache = EverythingPlugin.getPermissionCache();
+        TeleportPipeline teleportPipeline = EverythingPlugin.getTeleportPipeline();
+        WarpChunkPinner warpChunkPinner = EverythingPlugin.getWarpChunkPinner();
+
+        // Show how often permission checks were answered from the cache.
+        sender.sendMessage(ChatColor.GOLD + "Permission cache: " + permissionCache.getHits() +
+                " hit(s), " + permissionCache.getMisses() + " miss(es), " +
+                formatRatio(permissionCache.getHits(), permissionCache.getMisses()) +
+                " hit rate, " + permissionCache.getCachedResultCount() + " cached result(s).");
+
+        // Show how long teleport destinations took to load.
+        sender.sendMessage(ChatColor.GOLD + "Teleports: " + teleportPipeline.getTeleportCount() +
+                " teleport(s), " + teleportPipeline.getPreloadCount() + " preload(s), " +
+                String.format("%.1f", teleportPipeline.getAveragePreloadMillis()) + " ms " +
+                "average, " + String.format("%.1f", teleportPipeline.getMaxPreloadMillis()) +
+                " ms max" + (teleportPipeline.isAsyncChunkLoading() ? " (async)." : "."));
+
+        // Show how often warps landed in pinned chunks.
+        sender.sendMessage(ChatColor.GOLD + "Warp pins: " + warpChunkPinner.getPinnedChunkCount() +
+                " pinned chunk(s), " + warpChunkPinner.getHits() + " hit(s), " +
+                warpChunkPinner.getMisses() + " miss(es), " +
+                formatRatio(warpChunkPinner.getHits(), warpChunkPinner.getMisses()) +
+                " hit rate.");
+
+        // Show how often limited commands were rejected.
+        RateLimiter rateLimiter = EverythingPlugin.getRateLimiter();
+
+        for (String command : rateLimiter.getCommands()) {
+            sender.sendMessage(ChatColor.GOLD + "Rate limits (" + command + "): " +
+                    rateLimiter.getCooldownRejections(command) + " cooldown rejection(s), " +
+                    rateLimiter.getRateRejections(command) + " rate rejection(s).");
+        }
+
+        sender.sendMessage(ChatColor.GOLD + "Rate limits track " +
+                rateLimiter.getTrackedPlayerCount() + " player(s).");
+
+        // Show the progress of the bulk work waiting to run.
+        TickScheduler tickScheduler = EverythingPlugin.getTickScheduler();
+        sender.sendMessage(ChatColor.GOLD + "Scheduled jobs: " +
+                tickScheduler.getFinishedJobCount() + " finished.");
+
+        for (String progress : tickScheduler.getJobProgress()) {
+            sender.sendMessage(ChatColor.GOLD + "  " + progress);
+        }
+
+        // Show how often the xp bank economy had to read a balance from the database.
+        XpBankEconomy xpBankEconomy = EverythingPlugin.getXpBankEconomy();
+
+        if (xpBankEconomy != null) {
+            sender.sendMessage(ChatColor.GOLD + "Economy: " + xpBankEconomy.getCallCount() +
+                    " call(s), " + xpBankEconomy.getDatabaseReadCount() + " database read(s).");
+        }
+    }
+
+    /**
+     * Formats the share of hits out of all lookups as a percentage.
+     *
+     * @param hits   The number of hits.
+     * @param misses The number of misses.
+     *
+     * @return The hit rate, such as "95.0%".
+     */
+    private static String formatRatio(long hits, long misses) {
+        long total = hits + misses;
+        return String.format("%.1f%%", total == 0 ? 0 : hits * 100.0 / total);
+    }
+}
@@ -1,183 +1,579 @@
 package com.bluemarien.everythingplugin.commands;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
-import net.milkbowl.vault.permission.Permission;
+import com.bluemarien.everythingplugin.backend.GiftMailbox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 
 
 /**
- * This class represents the gift command. This command allows players to send an item (or items) in
- * their main hand to other players on the server.
+ * This class represents the gift command. This command allows players to send the item in their
+ * main hand to one or more other players. The held stack can be split between the receivers, or
+ * every matching item in the sender's inventory can be gifted. Gifts to players who are offline,
+ * or whose inventories are full, are kept in the gift mailbox until the receiver joins or claims
+ * them.
+ *
+ * A gift is all or nothing: every receiver is found and the sender's items are counted before any
+ * are taken, and the shares of offline receivers are stored in the mailbox before any online
+ * receiver is handed theirs. If they can't be stored, the whole gift goes back to the sender, and
+ * once they are, every online receiver gets their share. Gifts to many players are handed out over
+ * as many ticks as they need.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Gift implements CommandExecutor {
+public class Gift extends DispatchCommand {
+
+    /**
+     * Declare the amounts that stand for splitting the held stack between the receivers, and for
+     * splitting every matching item in the sender's inventory between them.
+     */
+    private static final int HELD_STACK = 0;
+    private static final int ALL_MATCHING = -1;
+
+    /**
+     * Declare the most receivers handed their share in the same tick the gift is sent. Gifts to
+     * more players are handed out by the tick scheduler.
+     */
+    private static final int INLINE_RECEIVERS = 8;
+
+    /**
+     * Registers the gift command's subcommands.
+     */
+    public Gift() {
+        super("gift", "everythingplugin.gift", true);
+
+        // "/gift [help | ?]" shows the usage of the command.
+        registerHelp();
+
+        // "/gift claim" delivers the gifts waiting in the player's mailbox.
+        register(Subcommand.literal("claim").executes(Gift::claim));
+
+        // "/gift <player[,player...] | @a> [amount | all]" gifts the players the item in the
+        // sender's main hand.
+        register(Subcommand.root()
+                .argument(Argument.required("players",
+                        Arguments.playerList("You must name at least one player to gift!"))
+                        .completes(Arguments.playerListNames())
+                        .matches(Arguments.onlinePlayerName()))
+                .argument(Argument.optional("amount", Gift::parseAmount)
+                        .completes((sender, prefix) ->
+                                "all".startsWith(prefix.toLowerCase(Locale.ROOT)) ?
+                                        Collections.singletonList("all") :
+                                        Collections.<String>emptyList()))
+                .executes(Gift::gift));
+    }
+
+    /**
+     * Reads the amount to gift each receiver, or "all" to split every matching item in the
+     * sender's inventory between the receivers.
+     *
+     * @param sender The sender of the command.
+     * @param input  What the sender typed.
+     *
+     * @return The amount to gift each receiver, or {@link #ALL_MATCHING}.
+     *
+     * @throws ArgumentException If the sender didn't type a positive integer or "all".
+     */
+    private static Integer parseAmount(CommandSender sender, String input)
+            throws ArgumentException {
+        // Check if the sender wants to gift every matching item.
+        if (input.equalsIgnoreCase("all")) {
+            return ALL_MATCHING;
+        }
+
+        return Arguments.positiveInt("You must provide a positive amount or \"all\"!")
+                .parse(sender, input);
+    }
 
     /**
-     * Executes the given command, returning its success.
+     * Delivers the gifts waiting in the mailbox of the player running the command.
      *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
+     * @param context The sender of the command.
+     */
+    private static void claim(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+        GiftMailbox mailbox = EverythingPlugin.getGiftMailbox();
+
+        // Check if the player has any gifts waiting.
+        if (mailbox.getPendingCount(commandPlayer.getUniqueId()) == 0) {
+            commandPlayer.sendMessage(ChatColor.GOLD + "Your mailbox is empty.");
+            return;
+        }
+
+        mailbox.deliver(commandPlayer);
+    }
+
+    /**
+     * Gifts the item in the main hand of the player running the command to the named players.
+     * Online players are found right away, and offline players who have played before are looked
+     * up in the mailbox before anything is gifted.
      *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
+     * @param context The sender of the command, the names of the receiving players, and the
+     *                amount to gift each of them, if any.
+     */
+    private static void gift(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+        List<String> receiverNames = context.get(0);
+        int amount = context.getOrDefault(1, HELD_STACK);
+        ItemStack heldItem = commandPlayer.getInventory().getItemInMainHand();
+
+        // Check if the player is trying to gift nothing.
+        if (heldItem.getAmount() == 0) {
+            commandPlayer.sendMessage(ChatColor.RED + "You cannot gift nothing!");
+            return;
+        }
+
+        // Find the receivers who are online.
+        Map<UUID, String> receivers = new LinkedHashMap<>();
+        List<String> offlineNames = new ArrayList<>();
+
+        for (String receiverName : receiverNames) {
+            Player receiver = EverythingPlugin.getOnlinePlayerIndex().find(receiverName);
+
+            if (receiver != null) {
+                receivers.put(receiver.getUniqueId(), receiver.getName());
+            }
+            else {
+                offlineNames.add(receiverName);
+            }
+        }
+
+        // Gift the receivers right away if they're all online.
+        ItemStack expectedItem = heldItem.clone();
+
+        if (offlineNames.isEmpty()) {
+            giftPlayers(commandPlayer, receivers, expectedItem, amount);
+            return;
+        }
+
+        // Look up the offline receivers, then gift everyone if the same item is still held.
+        EverythingPlugin.getGiftMailbox().findPlayers(offlineNames)
+                .whenComplete((offlineUUIDs, e) -> {
+                    // Check if the sender left while the players were looked up.
+                    if (!commandPlayer.isOnline()) {
+                        return;
+                    }
+
+                    // Check if an error occurred looking up the players.
+                    if (e != null) {
+                        commandPlayer.sendMessage(ChatColor.RED + "An error occurred looking up " +
+                                String.join(", ", offlineNames) + "!");
+                        return;
+                    }
+
+                    // Check if every receiver has played on this server.
+                    List<String> unknownNames = new ArrayList<>(offlineNames);
+                    unknownNames.removeAll(offlineUUIDs.keySet());
+
+                    if (!unknownNames.isEmpty()) {
+                        commandPlayer.sendMessage(ChatColor.RED + "The player(s) " +
+                                String.join(", ", unknownNames) + " have never played on this " +
+                                "server, so nothing was gifted!");
+                        return;
+                    }
+
+                    for (Map.Entry<String, UUID> offlineUUID : offlineUUIDs.entrySet()) {
+                        receivers.putIfAbsent(offlineUUID.getValue(), offlineUUID.getKey());
+                    }
+
+                    giftPlayers(commandPlayer, receivers, expectedItem, amount);
+                });
+    }
+
+    /**
+     * Takes the gift from the sender's inventory and hands out an equal share to each receiver,
+     * as long as the sender is still holding the item they were holding when they ran the command
+     * and has enough of it. Nothing is taken unless every receiver can get their share.
      *
-     * @return True if a valid command, otherwise false
+     * @param commandPlayer The player sending the gift.
+     * @param receivers     The names of the players receiving the gift, keyed by their UUID.
+     * @param expectedItem  The item the sender was holding when they ran the command.
+     * @param amount        The amount to gift each receiver, {@link #HELD_STACK} to split the held
+     *                      stack, or {@link #ALL_MATCHING} to split every matching item.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    private static void giftPlayers(Player commandPlayer, Map<UUID, String> receivers,
+                                    ItemStack expectedItem, int amount) {
+        // Check if the player is trying to gift themselves.
+        if (receivers.containsKey(commandPlayer.getUniqueId())) {
+            commandPlayer.sendMessage(ChatColor.RED + "You cannot gift yourself!");
+            return;
+        }
 
-        // Check if the command being run is "/gift".
-        if (!label.equals("gift")) {
-            // The command was not handled properly.
-            return false;
+        // Check if there is anyone to gift, such as when "@a" finds nobody else online.
+        if (receivers.isEmpty()) {
+            commandPlayer.sendMessage(ChatColor.RED + "There is nobody else to gift!");
+            return;
         }
 
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
+        // Check if the sender is still holding the same item.
+        ItemStack heldItem = commandPlayer.getInventory().getItemInMainHand();
+
+        if (!heldItem.isSimilar(expectedItem)) {
+            commandPlayer.sendMessage(ChatColor.RED + "The item in your hand changed, so the " +
+                    "gift was cancelled!");
+            return;
         }
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
+        // Work out each receiver's share, and check if the sender has enough to give everyone it.
+        int receiverCount = receivers.size();
+        int available = amount == HELD_STACK ? heldItem.getAmount() :
+                countMatching(commandPlayer, expectedItem);
+        int share = amount > 0 ? amount : available / receiverCount;
 
-        // Check if the player has the permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.gift")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that" +
-                    " command.");
-            return true;
+        if (share == 0) {
+            commandPlayer.sendMessage(ChatColor.RED + "You don't have enough to gift " +
+                    receiverCount + " players!");
+            return;
         }
 
-        // Check if the player typed "/gift".
-        if (args.length == 0) {
-            // Show the player the usage of "/gift".
-            commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/gift\":");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/gift [help | ?]");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/gift <player> [amount]");
-            return true;
+        if ((long) share * receiverCount > available) {
+            commandPlayer.sendMessage(ChatColor.RED + "You don't have that amount to gift!");
+            return;
         }
-        // Check if the player typed "/gift (something)".
-        else if (args.length == 1) {
-            // Check if the player typed "/gift help" or "/gift ?".
-            if (args[0].equals("help") || args[0].equals("?")) {
-                // Show the player the usage of "/gift".
-                commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/gift\":");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/gift [help | ?]");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/gift <player> [amount]");
-                return true;
+
+        // Take every share from the sender at once.
+        takeMatching(commandPlayer, expectedItem, share * receiverCount);
+        String itemName = expectedItem.getType().toString();
+
+        if (receiverCount == 1) {
+            commandPlayer.sendMessage(ChatColor.GOLD + "You have gifted " + share + " " +
+                    itemName + " to " + receivers.values().iterator().next() + ".");
+        }
+        else {
+            commandPlayer.sendMessage(ChatColor.GOLD + "You have gifted " + share + " " +
+                    itemName + " to each of " + receiverCount + " players.");
+        }
+
+        // Set the shares of the offline receivers aside to be mailed.
+        String senderName = commandPlayer.getName();
+        UUID senderUUID = commandPlayer.getUniqueId();
+        Map<UUID, List<ItemStack>> offlineShares = new LinkedHashMap<>();
+        List<UUID> onlineReceivers = new ArrayList<>();
+
+        for (UUID receiverUUID : receivers.keySet()) {
+            if (Bukkit.getPlayer(receiverUUID) == null) {
+                offlineShares.put(receiverUUID, splitStacks(expectedItem, share));
+            }
+            else {
+                onlineReceivers.add(receiverUUID);
             }
+        }
 
-            // Check if the player is trying to gift nothing.
-            if (commandPlayer.getInventory().getItemInMainHand().getAmount() == 0) {
-                commandPlayer.sendMessage(ChatColor.RED + "You cannot gift nothing!");
-                return true;
+        // Mail the offline receivers' shares before anyone is handed theirs, so if they can't be
+        // stored the whole gift can still go back to the sender.
+        mailShares(senderName, offlineShares).whenComplete((mailed, e) -> {
+            // Check if an error occurred storing the shares. Give the whole gift back.
+            if (e != null) {
+                refund(senderUUID, senderName, splitStacks(expectedItem, share * receiverCount),
+                        "An error occurred mailing your gift, so it was given back!");
+                return;
             }
 
-            // Get the receiving player from the first command parameter.
-            Player receiver = Bukkit.getServer().getPlayer(args[0]);
+            // Tell the sender how many receivers will get their gift when they join, and deliver
+            // the gifts of offline receivers who joined in the meantime.
+            if (!offlineShares.isEmpty()) {
+                Player sender = Bukkit.getPlayer(senderUUID);
+
+                if (sender != null) {
+                    sender.sendMessage(ChatColor.GOLD + "" + offlineShares.size() +
+                            " receiver(s) are offline, so their gift was mailed. They will get " +
+                            "it when they join.");
+                }
+
+                for (UUID receiverUUID : offlineShares.keySet()) {
+                    Player receiver = Bukkit.getPlayer(receiverUUID);
 
-            // Check if the receiving player is on the server.
-            if (receiver == null) {
-                commandPlayer.sendMessage(ChatColor.RED + "The player " + args[0] + " is not on " +
-                        "this server!");
-                return true;
+                    if (receiver != null) {
+                        EverythingPlugin.getGiftMailbox().deliver(receiver);
+                    }
+                }
             }
 
-            // Check if the player is trying to gift themselves.
-            if (receiver.getName().equals(commandPlayer.getName())) {
-                commandPlayer.sendMessage(ChatColor.RED + "You cannot gift yourself!");
-                return true;
+            handOutShares(senderUUID, senderName, onlineReceivers, expectedItem, share);
+        });
+    }
+
+    /**
+     * Hands out each online receiver's share of a gift that's already been taken from the sender.
+     * Anything that doesn't fit in a receiver's inventory, and the shares of receivers who left
+     * before they were handed theirs, are mailed together once everyone has been handed theirs.
+     *
+     * @param senderUUID    The UUID of the player sending the gift.
+     * @param senderName    The name of the player sending the gift.
+     * @param receiverUUIDs The UUIDs of the receivers who were online.
+     * @param item          The item being gifted.
+     * @param share         The amount of the item to give each receiver.
+     */
+    private static void handOutShares(UUID senderUUID, String senderName, List<UUID> receiverUUIDs,
+                                      ItemStack item, int share) {
+        Set<UUID> waitingReceivers = new LinkedHashSet<>(receiverUUIDs);
+        Map<UUID, List<ItemStack>> leftoverShares = new HashMap<>();
+
+        Consumer<UUID> handOut = receiverUUID -> {
+            waitingReceivers.remove(receiverUUID);
+            giveShare(senderName, receiverUUID, item, share, leftoverShares);
+        };
+
+        Runnable finish = () -> {
+            // Mail the shares of any receivers a failed step never reached.
+            for (UUID receiverUUID : waitingReceivers) {
+                leftoverShares.put(receiverUUID, splitStacks(item, share));
             }
 
-            // Gift the receiving player the contents of the sender's main hand.
-            ItemStack gift = commandPlayer.getInventory().getItemInMainHand();
-            commandPlayer.getInventory().setItemInMainHand(null);
-            receiver.getInventory().addItem(gift);
-            commandPlayer.sendMessage(ChatColor.GOLD + "You have gifted " + gift.getAmount() + " "
-                    + gift.getType().toString() + " to " + receiver.getName() + ".");
-            receiver.sendMessage(ChatColor.GOLD + "You have been gifted " + gift.getAmount() + " "
-                    + gift.getType().toString() + " from " + commandPlayer.getName() + ".");
-            return true;
+            mailLeftovers(senderUUID, senderName, leftoverShares);
+        };
+
+        // Hand out a few shares right away, and spread the rest over as many ticks as they need.
+        if (receiverUUIDs.size() <= INLINE_RECEIVERS) {
+            receiverUUIDs.forEach(handOut);
+            finish.run();
+        }
+        else {
+            EverythingPlugin.getTickScheduler().submitEach("gift from " + senderName,
+                    receiverUUIDs, handOut).whenComplete((given, e) -> finish.run());
+        }
+    }
+
+    /**
+     * Gives a receiver their share of a gift with a single change to their inventory. The share
+     * of a receiver who left, and anything that doesn't fit in the receiver's inventory, is set
+     * aside to be mailed.
+     *
+     * @param senderName     The name of the player sending the gift.
+     * @param receiverUUID   The UUID of the player receiving the share.
+     * @param item           The item being gifted.
+     * @param share          The amount of the item to give the receiver.
+     * @param leftoverShares The items to mail to each receiver, added to by this method.
+     */
+    private static void giveShare(String senderName, UUID receiverUUID, ItemStack item, int share,
+                                  Map<UUID, List<ItemStack>> leftoverShares) {
+        List<ItemStack> stacks = splitStacks(item, share);
+        Player receiver = Bukkit.getPlayer(receiverUUID);
+
+        // Set the share aside to be mailed if the receiver left.
+        if (receiver == null) {
+            leftoverShares.put(receiverUUID, stacks);
+            return;
         }
-        // Check if the player typed "/gift (something) (something)".
-        else if (args.length == 2) {
-            // Check if the player is trying to gift nothing.
-            if (commandPlayer.getInventory().getItemInMainHand().getAmount() == 0) {
-                commandPlayer.sendMessage(ChatColor.RED + "You cannot gift nothing!");
+
+        // Give the receiving player their share.
+        String itemName = item.getType().toString();
+        Map<Integer, ItemStack> leftovers =
+                receiver.getInventory().addItem(stacks.toArray(new ItemStack[0]));
+
+        receiver.sendMessage(ChatColor.GOLD + "You have been gifted " + share + " " + itemName +
+                " from " + senderName + ".");
+
+        // Set anything that didn't fit aside to be mailed.
+        if (!leftovers.isEmpty()) {
+            int leftoverAmount = 0;
+
+            for (ItemStack leftover : leftovers.values()) {
+                leftoverAmount += leftover.getAmount();
             }
 
-            // Get the receiving player from the first command parameter.
-            Player receiver = Bukkit.getServer().getPlayer(args[0]);
+            receiver.sendMessage(ChatColor.GOLD + "Your inventory is full, so " + leftoverAmount +
+                    " " + itemName + " was put in your mailbox. Use \"/gift claim\" once you " +
+                    "have room.");
+            leftoverShares.put(receiverUUID, new ArrayList<>(leftovers.values()));
+        }
+    }
+
+    /**
+     * Counts the items in a player's inventory that match an item.
+     *
+     * @param player The player whose inventory is counted.
+     * @param item   The item to match.
+     *
+     * @return The number of matching items.
+     */
+    private static int countMatching(Player player, ItemStack item) {
+        int count = 0;
 
-            // Check if the receiving player is on the server.
-            if (receiver == null) {
-                commandPlayer.sendMessage(ChatColor.RED + "The player " + args[0] + " is not on " +
-                        "this server!");
-                return true;
+        for (ItemStack stack : player.getInventory().getStorageContents()) {
+            if (stack != null && stack.isSimilar(item)) {
+                count += stack.getAmount();
             }
+        }
+
+        return count;
+    }
+
+    /**
+     * Takes an amount of an item from a player's inventory, starting with their main hand, with
+     * a single change to their inventory. The player must have enough of the item.
+     *
+     * @param player The player to take the item from.
+     * @param item   The item to take.
+     * @param amount The amount to take.
+     */
+    private static void takeMatching(Player player, ItemStack item, int amount) {
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getStorageContents();
+        int heldSlot = inventory.getHeldItemSlot();
+        int remaining = amount;
+
+        // Take from the main hand first, then from the rest of the inventory in order.
+        for (int i = -1; i < contents.length && remaining > 0; i++) {
+            int slot = i == -1 ? heldSlot : i;
+            ItemStack stack = contents[slot];
 
-            // Check if the player is trying to gift themselves.
-            if (receiver.getName().equals(commandPlayer.getName())) {
-                commandPlayer.sendMessage(ChatColor.RED + "You cannot gift yourself!");
-                return true;
+            if ((i != -1 && slot == heldSlot) || stack == null || !stack.isSimilar(item)) {
+                continue;
             }
 
-            // Try to get an integer from the second command parameter.
-            int amount = 0;
+            int taken = Math.min(remaining, stack.getAmount());
+            remaining -= taken;
 
-            try {
-                amount = Integer.parseInt(args[1]);
+            if (taken == stack.getAmount()) {
+                contents[slot] = null;
             }
-            // The amount given was not a number.
-            catch (NumberFormatException ignored) {
-                commandPlayer.sendMessage(ChatColor.RED + "You must provide an amount from 1 to " +
-                        "64!");
-                return true;
+            else {
+                stack.setAmount(stack.getAmount() - taken);
             }
+        }
 
-            // Check if the amount is not between 1 and 64.
-            if (!(amount >= 1 && amount <= 64)) {
-                commandPlayer.sendMessage(ChatColor.RED + "You must provide an amount from 1 to " +
-                        "64!");
-                return true;
+        inventory.setStorageContents(contents);
+    }
+
+    /**
+     * Splits an amount of an item into full stacks and a final partial stack.
+     *
+     * @param item   The item to split.
+     * @param amount The amount of the item.
+     *
+     * @return The stacks of the item.
+     */
+    private static List<ItemStack> splitStacks(ItemStack item, int amount) {
+        List<ItemStack> stacks = new ArrayList<>();
+        int maxStackSize = Math.max(1, item.getMaxStackSize());
+
+        for (int left = amount; left > 0; left -= maxStackSize) {
+            ItemStack stack = item.clone();
+            stack.setAmount(Math.min(left, maxStackSize));
+            stacks.add(stack);
+        }
+
+        return stacks;
+    }
+
+    /**
+     * Puts gifts in the receivers' mailboxes in a single transaction.
+     *
+     * @param senderName The name of the player sending the gifts.
+     * @param shares     The items to mail to each receiver, keyed by their UUID.
+     *
+     * @return A future completed on the main thread once the gifts are stored, or completed
+     *         exceptionally if they couldn't be stored.
+     */
+    private static CompletableFuture<Void> mailShares(String senderName,
+                                                      Map<UUID, List<ItemStack>> shares) {
+        // Check if there is anything to mail.
+        if (shares.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return EverythingPlugin.getGiftMailbox().mail(senderName, shares);
+    }
+
+    /**
+     * Mails what couldn't be handed out once the online receivers have been handed their shares.
+     * The rest of the gift has already been given, so if these can't be stored they're dropped at
+     * the feet of receivers who are still online, and given back to the sender for receivers who
+     * left.
+     *
+     * @param senderUUID     The UUID of the player sending the gift.
+     * @param senderName     The name of the player sending the gift.
+     * @param leftoverShares The items to mail to each receiver, keyed by their UUID.
+     */
+    private static void mailLeftovers(UUID senderUUID, String senderName,
+                                      Map<UUID, List<ItemStack>> leftoverShares) {
+        mailShares(senderName, leftoverShares).whenComplete((mailed, e) -> {
+            // Check if the leftovers were stored.
+            if (e == null) {
+                return;
             }
-
-            // Check if the player has enough items to gift.
-            if (commandPlayer.getInventory().getItemInMainHand().getAmount() < amount) {
-                commandPlayer.sendMessage(ChatColor.RED + "You don't have that amount to gift!");
-                return true;
+
+            List<ItemStack> refund = new ArrayList<>();
+
+            // Drop each leftover share at its receiver's feet, or give it back if they left.
+            for (Map.Entry<UUID, List<ItemStack>> leftoverShare : leftoverShares.entrySet()) {
+                Player receiver = Bukkit.getPlayer(leftoverShare.getKey());
+
+                if (receiver == null) {
+                    refund.addAll(leftoverShare.getValue());
+                    continue;
+                }
+
+                receiver.sendMessage(ChatColor.RED + "An error occurred mailing the rest of your " +
+                        "gift, so it was dropped at your feet!");
+
+                for (ItemStack leftover : leftoverShare.getValue()) {
+                    receiver.getWorld().dropItemNaturally(receiver.getLocation(), leftover);
+                }
             }
 
-            // Gift the receiving player the specified amount of contents of the sender's main hand.
-            int originalAmount = commandPlayer.getInventory().getItemInMainHand().getAmount();
-            ItemStack gift = commandPlayer.getInventory().getItemInMainHand();
-            gift.setAmount(amount);
-            commandPlayer.getInventory().getItemInMainHand().setAmount(originalAmount - amount);
-            receiver.getInventory().addItem(gift);
-            commandPlayer.sendMessage(ChatColor.GOLD + "You have gifted " + gift.getAmount() + " "
-                    + gift.getType().toString() + " to " + receiver.getName() + ".");
-            receiver.sendMessage(ChatColor.GOLD + "You have been gifted " + gift.getAmount() + " "
-                    + gift.getType().toString() + " from " + commandPlayer.getName() + ".");
-            return true;
-        }
-        // The player typed more than 2 arguments to the command.
-        else {
-            // The player gave too many arguments.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many arguments! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/gift [help | ?]");
-            commandPlayer.sendMessage(ChatColor.RED + "/gift <player> [amount]");
-            return true;
+            if (!refund.isEmpty()) {
+                refund(senderUUID, senderName, refund, "An error occurred mailing your gift to " +
+                        "players who left, so their share was given back!");
+            }
+        });
+    }
+
+    /**
+     * Gives items back to the sender of a gift. They go in the sender's inventory, or are dropped
+     * at their feet if it's full. If the sender left, the items are mailed to them instead, since
+     * changes to a player who left are never saved.
+     *
+     * @param senderUUID The UUID of the player who sent the gift.
+     * @param senderName The name of the player who sent the gift.
+     * @param items      The items to give back.
+     * @param message    The message telling the sender why the items were given back.
+     */
+    private static void refund(UUID senderUUID, String senderName, List<ItemStack> items,
+                               String message) {
+        Player sender = Bukkit.getPlayer(senderUUID);
+
+        // Give the items back to the sender if they're online.
+        if (sender != null) {
+            sender.sendMessage(ChatColor.RED + message);
+
+            for (ItemStack leftover :
+                    sender.getInventory().addItem(items.toArray(new ItemStack[0])).values()) {
+                sender.getWorld().dropItemNaturally(sender.getLocation(), leftover);
+            }
+
+            return;
         }
+
+        // Mail the items back to the sender.
+        EverythingPlugin.getGiftMailbox().mail(senderName,
+                Collections.singletonMap(senderUUID, items)).whenComplete((mailed, e) -> {
+                    // Check if an error occurred mailing the items back.
+                    if (e != null) {
+                        EverythingPlugin.getEPLogger().severe("An error occurred giving " +
+                                items.size() + " stack(s) of a gift back to " + senderName +
+                                "! They have been lost.");
+                    }
+                });
     }
 }
@@ -1,15 +1,7 @@
 package com.bluemarien.everythingplugin.commands;
 
-import com.bluemarien.everythingplugin.EverythingPlugin;
-
-import net.milkbowl.vault.permission.Permission;
-
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.attribute.Attribute;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
 
@@ -18,87 +10,59 @@ import org.bukkit.potion.PotionEffectType;
  * This class represents the heal command. This command is used to heal a player to full health.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Heal implements CommandExecutor {
+public class Heal extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
-     *
-     * @return True if a valid command, otherwise false
+     * Registers the heal command's subcommands.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    public Heal() {
+        super("heal", null, true);
 
-        // Check if the command being run is "/heal".
-        if (!label.equals("heal")) {
-            // The command was not handled properly.
-            return false;
-        }
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
+        // "/heal [player]" heals the player running the command or the given player.
+        register(Subcommand.root()
+                .argument(Argument.optional("player", Arguments.onlinePlayer())
+                        .completes(Arguments.onlinePlayerNames()))
+                .executes(Heal::heal));
+    }
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
+    /**
+     * Heals the player running the command, or the given player.
+     *
+     * @param context The sender of the command and the player to heal, if any.
+     */
+    private static void heal(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
 
         // Check if the player typed "/heal".
-        if (args.length == 0) {
-            // Check if the player has permission to run this command.
-            if (!perms.has(commandPlayer, "everythingplugin.heal")) {
+        if (!context.has(0)) {
+            // Check if the player has permission to heal themselves.
+            if (!context.hasPermission("everythingplugin.heal")) {
                 commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that" +
                         " command.");
-                return true;
+                return;
             }
 
             // Heal the player running the command.
             healPlayer(commandPlayer);
             commandPlayer.sendMessage(ChatColor.GOLD + "You have been healed.");
-            return true;
+            return;
         }
-        // Check if the player typed "/heal [player]".
-        else if (args.length == 1) {
-            // Check if the player has permission to run this command.
-            if (!perms.has(commandPlayer, "everythingplugin.heal.others")) {
-                commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that" +
-                        " command.");
-                return true;
-            }
-
-            // Get the receiving player.
-            Player receiver = Bukkit.getServer().getPlayer(args[0]);
 
-            // Check if the receiving player is on the server.
-            if (receiver == null) {
-                commandPlayer.sendMessage(ChatColor.RED + "The player " + args[0] + " is not on " +
-                        "this server!");
-                return true;
-            }
-
-            // Heal the receiving player.
-            healPlayer(receiver);
-            receiver.sendMessage(ChatColor.GOLD + "You have been healed by " + commandPlayer.getName() + ".");
-            commandPlayer.sendMessage(ChatColor.GOLD + "You have healed " + receiver.getName() +
-                    ".");
-            return true;
-        }
-        // The player typed more than 2 arguments to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/heal [player]");
-            return true;
+        // Check if the player has permission to heal other players.
+        if (!context.hasPermission("everythingplugin.heal.others")) {
+            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that" +
+                    " command.");
+            return;
         }
+
+        // Heal the receiving player.
+        Player receiver = context.get(0);
+        healPlayer(receiver);
+        receiver.sendMessage(ChatColor.GOLD + "You have been healed by " +
+                commandPlayer.getName() + ".");
+        commandPlayer.sendMessage(ChatColor.GOLD + "You have healed " + receiver.getName() + ".");
     }
 
     /**
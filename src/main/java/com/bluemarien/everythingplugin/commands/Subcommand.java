@@ -0,0 +1,261 @@
+package com.bluemarien.everythingplugin.commands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * This class represents a subcommand of a {@link DispatchCommand}. A subcommand is either picked
+ * by a literal first argument (such as "/xpbank deposit") or is the root subcommand that runs when
+ * no literal matches (such as "/warp spawn"). It has a list of arguments that are parsed before
+ * its handler runs.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public final class Subcommand {
+
+    /**
+     * This interface represents the code that runs a subcommand once its arguments are parsed.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Runs the subcommand.
+         *
+         * @param context The sender of the command and the parsed arguments.
+         */
+        void execute(CommandContext context);
+    }
+
+    /**
+     * Declare the literal names of the subcommand (empty for the root subcommand), its arguments,
+     * and the number of arguments that must be given.
+     */
+    private final List<String> names;
+    private final List<Argument<?>> arguments = new ArrayList<>();
+    private int requiredCount = 0;
+
+    /**
+     * Declare the permission needed to run the subcommand, the name of its rate limits, its custom
+     * usage, whether it's left out of the usage, and its handler.
+     */
+    private String permission = null;
+    private String rateLimit = null;
+    private String usage = null;
+    private boolean hidden = false;
+    private Handler handler = context -> { };
+
+    /**
+     * Makes a subcommand with the given literal names.
+     *
+     * @param names The literal names of the subcommand.
+     */
+    private Subcommand(List<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * Makes a subcommand picked by a literal first argument.
+     *
+     * @param name    The name of the subcommand.
+     * @param aliases Other names for the subcommand.
+     *
+     * @return The subcommand.
+     */
+    public static Subcommand literal(String name, String... aliases) {
+        List<String> names = new ArrayList<>();
+        names.add(name);
+        names.addAll(Arrays.asList(aliases));
+        return new Subcommand(Collections.unmodifiableList(names));
+    }
+
+    /**
+     * Makes the root subcommand, which runs when no literal subcommand matches.
+     *
+     * @return The root subcommand.
+     */
+    public static Subcommand root() {
+        return new Subcommand(Collections.emptyList());
+    }
+
+    /**
+     * Adds an argument to the subcommand. Required arguments must come before optional ones.
+     *
+     * @param argument The argument to add.
+     *
+     * @return This subcommand.
+     */
+    public Subcommand argument(Argument<?> argument) {
+        // Check if a required argument is being added after an optional one.
+        if (argument.isRequired() && requiredCount < arguments.size()) {
+            throw new IllegalArgumentException("Required arguments must come before optional " +
+                    "arguments!");
+        }
+
+        if (argument.isRequired()) {
+            requiredCount++;
+        }
+
+        arguments.add(argument);
+        return this;
+    }
+
+    /**
+     * Sets the permission needed to run the subcommand, on top of its command's permission.
+     *
+     * @param permission The permission needed to run the subcommand.
+     *
+     * @return This subcommand.
+     */
+    public Subcommand permission(String permission) {
+        this.permission = permission;
+        return this;
+    }
+
+    /**
+     * Limits how often players can run the subcommand, using the limits configured for the given
+     * name under "rate-limits.commands". Subcommands may share limits by using the same name.
+     *
+     * @param rateLimit The name of the subcommand's rate limits.
+     *
+     * @return This subcommand.
+     */
+    public Subcommand rateLimited(String rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    /**
+     * Sets the usage of the subcommand shown after the command name, instead of the one made from
+     * its names and arguments.
+     *
+     * @param usage The usage of the subcommand, such as "[help | ?]".
+     *
+     * @return This subcommand.
+     */
+    public Subcommand usage(String usage) {
+        this.usage = usage;
+        return this;
+    }
+
+    /**
+     * Leaves the subcommand out of the usage of its command, such as when another subcommand's
+     * usage already covers it.
+     *
+     * @return This subcommand.
+     */
+    public Subcommand hidden() {
+        this.hidden = true;
+        return this;
+    }
+
+    /**
+     * Sets the code that runs the subcommand once its arguments are parsed.
+     *
+     * @param handler The code that runs the subcommand.
+     *
+     * @return This subcommand.
+     */
+    public Subcommand executes(Handler handler) {
+        this.handler = handler;
+        return this;
+    }
+
+    /**
+     * Returns the literal names of the subcommand.
+     *
+     * @return The literal names of the subcommand, or an empty list for the root subcommand.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns the arguments of the subcommand.
+     *
+     * @return The arguments of the subcommand, in order.
+     */
+    public List<Argument<?>> getArguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * Returns the number of arguments that must be given.
+     *
+     * @return The number of required arguments.
+     */
+    public int getRequiredCount() {
+        return requiredCount;
+    }
+
+    /**
+     * Returns the permission needed to run the subcommand.
+     *
+     * @return The permission needed to run the subcommand, or null if it doesn't need one.
+     */
+    public String getPermission() {
+        return permission;
+    }
+
+    /**
+     * Returns the name of the subcommand's rate limits.
+     *
+     * @return The name of the subcommand's rate limits, or null if it isn't limited.
+     */
+    public String getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Checks if the subcommand is left out of the usage of its command.
+     *
+     * @return True if the subcommand is left out of the usage, false otherwise.
+     */
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    /**
+     * Returns the handler that runs the subcommand.
+     *
+     * @return The handler that runs the subcommand.
+     */
+    public Handler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Renders the usage of the subcommand for its command.
+     *
+     * @param commandName The name of the command the subcommand belongs to.
+     *
+     * @return The usage of the subcommand, such as "/xpbank <deposit | d> <levels>".
+     */
+    public String render(String commandName) {
+        StringBuilder rendered = new StringBuilder("/").append(commandName);
+
+        // Check if the subcommand has a custom usage.
+        if (usage != null) {
+            return rendered.append(' ').append(usage).toString();
+        }
+
+        // Add the names of the subcommand.
+        if (names.size() == 1) {
+            rendered.append(' ').append(names.get(0));
+        }
+        else if (names.size() > 1) {
+            rendered.append(" <").append(String.join(" | ", names)).append('>');
+        }
+
+        // Add the arguments of the subcommand.
+        for (Argument<?> argument : arguments) {
+            rendered.append(' ').append(argument.render());
+        }
+
+        return rendered.toString();
+    }
+}
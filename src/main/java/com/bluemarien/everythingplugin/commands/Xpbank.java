@@ -1,213 +1,372 @@
 package com.bluemarien.everythingplugin.commands;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
+import com.bluemarien.everythingplugin.backend.ExperienceTable;
 import com.bluemarien.everythingplugin.backend.XpBankDatabase;
+import com.bluemarien.everythingplugin.backend.XpBankLeaderboard;
 
-import net.milkbowl.vault.permission.Permission;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
 /**
  * This class represents the xpbank command. This command is used as a virtual bank for a player's
- * experience levels. A player can check their balance, check the balance of the top 10 highest
- * experience banks, deposit, and withdraw experience levels.
+ * experience. A player can check their balance, page through the xp bank leaderboard, check their
+ * own rank, deposit, and withdraw experience levels. Levels are moved as the exact experience
+ * points they're worth, so a deposit of high levels is worth more than a deposit of low ones. The
+ * xp bank database is accessed asynchronously, so results are sent to the player once the
+ * database work completes.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Xpbank implements CommandExecutor {
+public class Xpbank extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
+     * Declare the message sent when a level isn't a positive integer.
+     */
+    private static final String LEVEL_ERROR = "You must provide a positive integer level!";
+
+    /**
+     * Registers the xpbank command's subcommands.
+     */
+    public Xpbank() {
+        super("xpbank", "everythingplugin.xpbank", true);
+
+        // "/xpbank [help | ?]" shows the usage of the command.
+        registerHelp();
+
+        // "/xpbank <top10 | top [page]>" shows a page of the xp bank leaderboard.
+        register(Subcommand.literal("top10").hidden()
+                .executes(context -> sendLeaderboardPage(context.getPlayer(),
+                        EverythingPlugin.getXpBankDatabase().getLeaderboard(), 1)));
+        register(Subcommand.literal("top").usage("<top10 | top [page]>")
+                .argument(Argument.optional("page",
+                        Arguments.positiveInt("You must provide a positive integer page!")))
+                .executes(context -> sendLeaderboardPage(context.getPlayer(),
+                        EverythingPlugin.getXpBankDatabase().getLeaderboard(),
+                        context.getOrDefault(0, 1))));
+
+        // "/xpbank rank" shows the player their own rank on the xp bank leaderboard.
+        register(Subcommand.literal("rank")
+                .executes(context -> sendLeaderboardRank(context.getPlayer(),
+                        EverythingPlugin.getXpBankDatabase().getLeaderboard())));
+
+        // "/xpbank <balance | b>" shows the player their xp bank balance.
+        register(Subcommand.literal("balance", "b").executes(Xpbank::balance));
+
+        // "/xpbank <deposit | d> <levels>" deposits levels into the player's xp bank.
+        register(Subcommand.literal("deposit", "d")
+                .argument(Argument.required("levels", Arguments.positiveInt(LEVEL_ERROR)))
+                .rateLimited("xpbank")
+                .executes(Xpbank::deposit));
+
+        // "/xpbank <withdraw | w> <levels>" withdraws levels from the player's xp bank.
+        register(Subcommand.literal("withdraw", "w")
+                .argument(Argument.required("levels", Arguments.positiveInt(LEVEL_ERROR)))
+                .rateLimited("xpbank")
+                .executes(Xpbank::withdraw));
+    }
+
+    /**
+     * Shows the player running the command their xp bank balance.
      *
-     * @return True if a valid command, otherwise false
+     * @param context The sender of the command.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    private static void balance(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
 
-        // Check if the command being run is "/xpbank".
-        if (!command.getName().equals("xpbank")) {
-            // The command was not handled properly.
-            return false;
-        }
+        // Return the amount of levels stored in the xp bank database for the player.
+        EverythingPlugin.getXpBankDatabase().getXPBankBalance(commandPlayer)
+                .whenComplete((balance, e) -> {
+                    // Check if an error occurred getting the player's balance.
+                    if (e != null) {
+                        sendXpBankError(commandPlayer);
+                        return;
+                    }
 
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
+                    commandPlayer.sendMessage(ChatColor.GOLD + "XP Bank Balance: " +
+                            formatBalance(balance));
+                });
+    }
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
-        XpBankDatabase xpBank = EverythingPlugin.getXpBankDatabase();
+    /**
+     * Deposits levels into the xp bank of the player running the command. The player drops to
+     * the start of the level they're left with, and every point above it is deposited, including
+     * their progress towards their next level.
+     *
+     * @param context The sender of the command and the levels to deposit.
+     */
+    private static void deposit(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+        int levelsToDeposit = context.get(0);
 
-        // Check if the player has the permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.xpbank")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
+        // Check if the player is trying to deposit more levels than they have.
+        if (levelsToDeposit > commandPlayer.getLevel()) {
+            commandPlayer.sendMessage(ChatColor.RED + "You don't have that many levels to" +
+                    " deposit!");
+            context.refundRateLimit();
+            return;
         }
 
-        // Check if the player only typed "/xpbank".
-        if (args.length == 0) {
-            // Show the player the usage of "/xpbank".
-            commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/xpbank\":");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank [help | ?]");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank top10");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank <balance | b>");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank <deposit | d> <levels>");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank <withdraw | w> <levels>");
-            return true;
-        }
-        // Check if the player typed "/xpbank (something)".
-        else if (args.length == 1) {
-            // Check if the player typed "/xpbank balance" or "/xpbank b".
-            if (args[0].equals("balance") || args[0].equals("b")) {
-                // Return the amount of levels stored in the xp bank database for the player.
-                commandPlayer.sendMessage(ChatColor.GOLD + "XP Bank Balance: "
-                        + xpBank.getXPBankBalance(commandPlayer));
-                return true;
+        // Work out the points the levels are worth.
+        long totalPoints = ExperienceTable.getTotalPoints(commandPlayer);
+        int levelLeft = Math.min(commandPlayer.getLevel() - levelsToDeposit,
+                ExperienceTable.MAX_LEVEL);
+        long pointsToDeposit = totalPoints - ExperienceTable.getPointsForLevel(levelLeft);
+
+        // Deposit the points into the xp bank database for the player. The points are only taken
+        // from the player once the deposit has gone through, so nothing is lost if it fails.
+        EverythingPlugin.getXpBankDatabase().modifyXPBankBalance(commandPlayer,
+                XpBankDatabase.BankAction.DEPOSIT, pointsToDeposit).whenComplete((result, e) -> {
+            // Check if an error occurred depositing the points.
+            if (e != null) {
+                sendXpBankError(commandPlayer);
+                return;
             }
-            // Check if the player typed "/xpbank top10".
-            else if (args[0].equals("top10")) {
-                // TODO: Show the top 10 highest xpbanks.
-                return true;
+
+            // Check if the xp bank can't hold that many more points.
+            if (!result.isSuccess()) {
+                commandPlayer.sendMessage(ChatColor.RED + "Your xp bank can't hold that many " +
+                        "more levels!");
+                commandPlayer.sendMessage(ChatColor.RED + "XP Bank Balance: " +
+                        formatBalance(result.getBalance()));
+                return;
             }
-            // Check if the player typed "/xpbank help" or "/xpbank ?".
-            else if (args[0].equals("help") || args[0].equals("?")) {
-                // Show the player the usage of "/xpbank".
-                commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/xpbank\":");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank [help | ?]");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank top10");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank <balance | b>");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank <deposit | d> <levels>");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/xpbank <withdraw | w> <levels>");
-                return true;
+
+            // Take the points from the player, unless they left or spent some of them while the
+            // deposit was waiting. The deposit is taken back then.
+            long pointsLeft = ExperienceTable.getTotalPoints(commandPlayer) - pointsToDeposit;
+
+            if (!isStillOnline(commandPlayer) || pointsLeft < 0) {
+                undoBankAction(commandPlayer, XpBankDatabase.BankAction.DEPOSIT, pointsToDeposit);
+                commandPlayer.sendMessage(ChatColor.RED + "Your levels changed before they " +
+                        "could be deposited!");
+                return;
             }
 
-            // The player typed an invalid subcommand.
-            commandPlayer.sendMessage(ChatColor.RED + "Unknown subcommand! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank [help | ?]");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank top10");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <balance | b>");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <deposit | d> <levels>");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <withdraw | w> <levels>");
-            return true;
+            ExperienceTable.setTotalPoints(commandPlayer, pointsLeft);
+            commandPlayer.sendMessage(ChatColor.GOLD + "Successfully deposited " +
+                    levelsToDeposit + " levels (" + pointsToDeposit + " points).");
+            commandPlayer.sendMessage(ChatColor.GOLD + "XP Bank Balance: " +
+                    formatBalance(result.getBalance()));
+        });
+    }
+
+    /**
+     * Withdraws levels from the xp bank of the player running the command. The player is given
+     * the points needed to go up that many levels from the start of their current level, so they
+     * keep their progress towards their next level.
+     *
+     * @param context The sender of the command and the levels to withdraw.
+     */
+    private static void withdraw(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+        int levelsToWithdraw = context.get(0);
+        int level = Math.min(commandPlayer.getLevel(), ExperienceTable.MAX_LEVEL);
+
+        // Check if the player can hold that many more levels.
+        if (levelsToWithdraw > ExperienceTable.MAX_LEVEL - level) {
+            commandPlayer.sendMessage(ChatColor.RED + "You can't hold that many more levels!");
+            context.refundRateLimit();
+            return;
         }
-        // Check if the player typed "/xpbank (something) (something)".
-        else if (args.length == 2) {
-            // Check if the player typed "/xpbank deposit <levels>" or "/xpbank d <levels>".
-            if (args[0].equals("deposit") || args[0].equals("d")) {
-                // Try to get a numbered experience level from the first command parameter.
-                int levelsToDeposit = 0;
-
-                try {
-                    levelsToDeposit = Integer.parseInt(args[1]);
-                }
-                // The experience level given was not a number.
-                catch (NumberFormatException e) {
-                    commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive " +
-                            "integer level!");
-                    return true;
-                }
-
-                // Check if the player provided a positive integer level.
-                if (levelsToDeposit < 1) {
-                    commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive " +
-                            "integer level!");
-                    return true;
-                }
-
-                // Check if the player is trying to deposit more levels than they have.
-                if (levelsToDeposit > commandPlayer.getLevel()) {
-                    commandPlayer.sendMessage(ChatColor.RED + "You don't have that many levels to" +
-                            " deposit!");
-                    return true;
-                }
-
-                // Deposit levels into the xp bank database for the player.
-                commandPlayer.setLevel(commandPlayer.getLevel() - levelsToDeposit);
-                xpBank.modifyXPBankBalance(commandPlayer, XpBankDatabase.BankAction.DEPOSIT,
-                        levelsToDeposit);
-                commandPlayer.sendMessage(ChatColor.GOLD + "Successfully deposited "
-                        + levelsToDeposit + " levels.");
-                commandPlayer.sendMessage(ChatColor.GOLD + "XP Bank Balance: "
-                        + xpBank.getXPBankBalance(commandPlayer));
-                return true;
+
+        // Withdraw the points the levels are worth from the xp bank database for the player. The
+        // xp bank checks that it holds enough points in the same step that it takes them out.
+        long pointsToWithdraw = ExperienceTable.getPointsForLevel(level + levelsToWithdraw) -
+                ExperienceTable.getPointsForLevel(level);
+
+        EverythingPlugin.getXpBankDatabase().modifyXPBankBalance(commandPlayer,
+                XpBankDatabase.BankAction.WITHDRAW, pointsToWithdraw).whenComplete((result, e) -> {
+            // Check if an error occurred withdrawing the points.
+            if (e != null) {
+                sendXpBankError(commandPlayer);
+                return;
             }
-            // Check if the player typed "/xpbank withdraw <levels>" or "/xpbank w <levels>".
-            else if (args[0].equals("withdraw") || args[0].equals("w")) {
-                // Try to get a numbered experience level from the first command parameter.
-                int levelsToWithdraw;
-
-                try {
-                    levelsToWithdraw = Integer.parseInt(args[1]);
-                }
-                // The experience level given was not a number.
-                catch (NumberFormatException e) {
-                    commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive " +
-                            "integer level!");
-                    return true;
-                }
-
-                // Check if the player provided a positive integer level.
-                if (levelsToWithdraw < 1) {
-                    commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive " +
-                            "integer level!");
-                    return true;
-                }
-
-                // Check if the player is trying to withdraw more levels than they have in their
-                // xp bank.
-                if (levelsToWithdraw > xpBank.getXPBankBalance(commandPlayer)) {
-                    commandPlayer.sendMessage(ChatColor.RED + "You don't have that many levels to" +
-                            " withdraw!");
-                    return true;
-                }
-
-                // Withdraw levels from the xp bank database for the player.
-                xpBank.modifyXPBankBalance(commandPlayer, XpBankDatabase.BankAction.WITHDRAW,
-                        levelsToWithdraw);
-                commandPlayer.setLevel(commandPlayer.getLevel() + levelsToWithdraw);
-                commandPlayer.sendMessage(ChatColor.GOLD + "Successfully withdrew "
-                        + levelsToWithdraw + " levels.");
-                commandPlayer.sendMessage(ChatColor.GOLD + "XP Bank Balance: "
-                        + xpBank.getXPBankBalance(commandPlayer));
-                return true;
+
+            // Check if the player tried to withdraw more points than they have in their xp bank.
+            if (!result.isSuccess()) {
+                commandPlayer.sendMessage(ChatColor.RED + "You don't have that many levels to " +
+                        "withdraw!");
+                commandPlayer.sendMessage(ChatColor.RED + "XP Bank Balance: " +
+                        formatBalance(result.getBalance()));
+                return;
             }
 
-            // The player typed an invalid subcommand.
-            commandPlayer.sendMessage(ChatColor.RED + "Unknown subcommand! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank [help | ?]");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank top10");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <balance | b>");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <deposit | d> <levels>");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <withdraw | w> <levels>");
-            return true;
+            // Give the points to the player, unless they left while the withdrawal was waiting.
+            // The withdrawal is taken back then, so the points stay in their xp bank.
+            if (!isStillOnline(commandPlayer)) {
+                undoBankAction(commandPlayer, XpBankDatabase.BankAction.WITHDRAW,
+                        pointsToWithdraw);
+                return;
+            }
+
+            givePoints(commandPlayer, pointsToWithdraw);
+            commandPlayer.sendMessage(ChatColor.GOLD + "Successfully withdrew " +
+                    levelsToWithdraw + " levels (" + pointsToWithdraw + " points).");
+            commandPlayer.sendMessage(ChatColor.GOLD + "XP Bank Balance: " +
+                    formatBalance(result.getBalance()));
+        });
+    }
+
+    /**
+     * Checks if a player is still online in the session they ran the command in. A player who
+     * left has been saved already, and a player who joined again is a different Player object, so
+     * experience given to or taken from the old one would be lost.
+     *
+     * @param player The player who ran the command.
+     *
+     * @return True if the player is still online, false otherwise.
+     */
+    private static boolean isStillOnline(Player player) {
+        return Bukkit.getPlayer(player.getUniqueId()) == player;
+    }
+
+    /**
+     * Takes back a deposit or withdrawal that was just made to a player's xp bank, such as when
+     * the points can't be moved to or from the player after all. The balance was just changed, so
+     * it's still cached and the change can be taken back right away. This must be called from the
+     * main thread.
+     *
+     * @param player The player whose xp bank balance was changed.
+     * @param action Whether the change was a deposit or a withdrawal.
+     * @param points The experience points that were deposited or withdrawn.
+     */
+    private static void undoBankAction(Player player, XpBankDatabase.BankAction action,
+                                       long points) {
+        XpBankDatabase.BankAction undo = action == XpBankDatabase.BankAction.DEPOSIT ?
+                XpBankDatabase.BankAction.WITHDRAW : XpBankDatabase.BankAction.DEPOSIT;
+        EverythingPlugin.getXpBankDatabase().modifyBalanceNow(player.getUniqueId(), undo, points);
+    }
+
+    /**
+     * Adds experience points to a player's total.
+     *
+     * @param player The player to give the points to.
+     * @param points The points to give.
+     */
+    private static void givePoints(Player player, long points) {
+        ExperienceTable.setTotalPoints(player, ExperienceTable.getTotalPoints(player) + points);
+    }
+
+    /**
+     * Formats an xp bank balance with the level it's worth.
+     *
+     * @param points The balance, in experience points.
+     *
+     * @return The balance, such as "1628 points (level 32)".
+     */
+    private static String formatBalance(long points) {
+        return points + " points (level " + ExperienceTable.getLevelForPoints(points) + ")";
+    }
+
+    /**
+     * Shows a player a page of the xp bank leaderboard.
+     *
+     * @param player      The player to show the page to.
+     * @param leaderboard The xp bank leaderboard, or null if it's still being built.
+     * @param page        The page of the leaderboard to show, starting from 1.
+     */
+    private static void sendLeaderboardPage(Player player, XpBankLeaderboard leaderboard,
+                                            int page) {
+        // Check if the leaderboard is still being built.
+        if (leaderboard == null) {
+            sendLeaderboardLoading(player);
+            return;
+        }
+
+        // Check if the page is past the end of the leaderboard.
+        int pageCount = leaderboard.getPageCount();
+
+        if (page > pageCount) {
+            player.sendMessage(ChatColor.RED + "The xp bank leaderboard only has " + pageCount +
+                    " page(s)!");
+            return;
+        }
+
+        // Look up the names of the players on the page on the storage thread.
+        List<XpBankLeaderboard.Entry> entries = leaderboard.getPage(page);
+        List<UUID> playerUUIDs = new ArrayList<>(entries.size());
+
+        for (XpBankLeaderboard.Entry entry : entries) {
+            playerUUIDs.add(entry.getPlayerUUID());
         }
-        // The player typed more than 3 arguments to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank [help | ?]");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank top10");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <balance | b>");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <deposit | d> <levels>");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpbank <withdraw | w> <levels>");
-            return true;
+
+        EverythingPlugin.getGiftMailbox().findPlayerNames(playerUUIDs)
+                .whenComplete((names, e) -> {
+                    // Show the page without names if an error occurred looking them up.
+                    Map<UUID, String> playerNames = e != null ? Collections.emptyMap() : names;
+                    int rank = (page - 1) * XpBankLeaderboard.PAGE_SIZE;
+
+                    // Show the player each entry on the page.
+                    player.sendMessage(ChatColor.GOLD + "XP Bank Leaderboard (page " + page +
+                            "/" + pageCount + "):");
+
+                    if (entries.isEmpty()) {
+                        player.sendMessage(ChatColor.GOLD + "Nobody has any levels in their xp " +
+                                "bank yet!");
+                    }
+
+                    for (XpBankLeaderboard.Entry entry : entries) {
+                        rank++;
+                        String name = playerNames.getOrDefault(entry.getPlayerUUID(), "Unknown");
+                        player.sendMessage(ChatColor.GOLD + "" + rank + ". " + name + " - " +
+                                formatBalance(entry.getBalance()));
+                    }
+                });
+    }
+
+    /**
+     * Shows a player their own rank on the xp bank leaderboard.
+     *
+     * @param player      The player to show their rank to.
+     * @param leaderboard The xp bank leaderboard, or null if it's still being built.
+     */
+    private static void sendLeaderboardRank(Player player, XpBankLeaderboard leaderboard) {
+        // Check if the leaderboard is still being built.
+        if (leaderboard == null) {
+            sendLeaderboardLoading(player);
+            return;
+        }
+
+        // Check if the player is on the leaderboard.
+        int rank = leaderboard.getRank(player.getUniqueId());
+
+        if (rank == 0) {
+            player.sendMessage(ChatColor.GOLD + "You aren't on the xp bank leaderboard yet! " +
+                    "Deposit some levels to get ranked.");
+            return;
         }
+
+        player.sendMessage(ChatColor.GOLD + "XP Bank Rank: " + rank + " of " +
+                leaderboard.size());
+    }
+
+    /**
+     * Tells the player that the xp bank leaderboard is still being built.
+     *
+     * @param player The player to tell.
+     */
+    private static void sendLeaderboardLoading(Player player) {
+        player.sendMessage(ChatColor.RED + "The xp bank leaderboard is still loading! Please " +
+                "try again in a moment.");
+    }
+
+    /**
+     * Tells the player that an error occurred accessing their xp bank.
+     *
+     * @param player The player to tell about the error.
+     */
+    private static void sendXpBankError(Player player) {
+        player.sendMessage(ChatColor.RED + "An error occurred accessing your xp bank! Please try " +
+                "again later.");
     }
 }
@@ -1,145 +1,221 @@
 package com.bluemarien.everythingplugin.commands;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
+import com.bluemarien.everythingplugin.backend.ExperienceTable;
+import com.bluemarien.everythingplugin.backend.OnlinePlayerIndex;
 
-import net.milkbowl.vault.permission.Permission;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
+import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.scoreboard.Team;
 
 
 /**
  * This class represents the xpshare command. The xpshare command is used to give xp levels to other
- * players on the server.
+ * players on the server. Levels are moved as the exact experience points they're worth, and can be
+ * split between a list of players, every player within a radius of the sender, or every online
+ * player on the sender's party (their scoreboard team).
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Xpshare implements CommandExecutor {
+public class Xpshare extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
+     * Declare the target that stands for the sender's party, and the start of a radius target.
+     */
+    private static final String PARTY = "party";
+    private static final String RADIUS = "radius:";
+
+    /**
+     * Registers the xpshare command's subcommands.
+     */
+    public Xpshare() {
+        super("xpshare", "everythingplugin.xpshare", true);
+
+        int maxRadius = Math.max(1,
+                EverythingPlugin.getPlugin().getConfig().getInt("xpshare.max-radius", 128));
+
+        // "/xpshare [help | ?]" shows the usage of the command.
+        registerHelp();
+
+        // "/xpshare <levels> <player[,player...] | @a | radius:<blocks> | party>" splits some of
+        // the sender's levels between the players.
+        register(Subcommand.root()
+                .argument(Argument.required("levels",
+                        Arguments.positiveInt("You must provide a positive integer level!")))
+                .argument(Argument.required("players",
+                        (sender, input) -> parseReceivers(sender, input, maxRadius))
+                        .completes(Xpshare::completeReceivers))
+                .executes(Xpshare::share));
+    }
+
+    /**
+     * Finds the online players to share levels with. Players are found through the online player
+     * index, so each name costs a single lookup.
      *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
+     * @param sender    The sender of the command.
+     * @param input     A list of player names, "@a", "radius:<blocks>", or "party".
+     * @param maxRadius The largest radius players can be found in.
      *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
+     * @return The players to share levels with, without the sender.
      *
-     * @return True if a valid command, otherwise false
+     * @throws ArgumentException If a named player isn't online, the radius is invalid, the sender
+     *                           isn't in a party, or nobody was found.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    private static List<Player> parseReceivers(CommandSender sender, String input, int maxRadius)
+            throws ArgumentException {
+        Player commandPlayer = (Player) sender;
+        OnlinePlayerIndex index = EverythingPlugin.getOnlinePlayerIndex();
+        Set<Player> receivers = new LinkedHashSet<>();
 
-        // Check if the command being run is "/xpshare".
-        if (!command.getName().equals("xpshare")) {
-            // The command was not handled properly.
-            return false;
-        }
+        // Find every online player on the sender's party.
+        if (input.equalsIgnoreCase(PARTY)) {
+            Team party = Bukkit.getScoreboardManager().getMainScoreboard()
+                    .getEntryTeam(commandPlayer.getName());
+
+            if (party == null) {
+                throw new ArgumentException("You are not in a party!");
+            }
 
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
+            for (String entry : party.getEntries()) {
+                Player receiver = index.findExact(entry);
+
+                if (receiver != null) {
+                    receivers.add(receiver);
+                }
+            }
+        }
+        // Find every player within the radius of the sender.
+        else if (input.toLowerCase(Locale.ROOT).startsWith(RADIUS)) {
+            int radius = Arguments.intRange(1, maxRadius, "You must provide a radius from 1 to " +
+                    maxRadius + " blocks!").parse(sender, input.substring(RADIUS.length()));
+            Location center = commandPlayer.getLocation();
+            double radiusSquared = (double) radius * radius;
+
+            for (Player receiver : commandPlayer.getWorld().getPlayers()) {
+                if (receiver.getLocation().distanceSquared(center) <= radiusSquared) {
+                    receivers.add(receiver);
+                }
+            }
         }
+        // Find each named player.
+        else {
+            for (String receiverName :
+                    Arguments.playerList("You must name at least one player!").parse(sender,
+                            input)) {
+                Player receiver = index.find(receiverName);
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
+                if (receiver == null) {
+                    throw new ArgumentException("The player " + receiverName + " is not on this " +
+                            "server!");
+                }
 
-        // Check if the player has the permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.xpshare")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
+                receivers.add(receiver);
+            }
         }
 
-        // Check if the player typed "/xpshare".
-        if (args.length == 0) {
-            // Show the player the usage of "/xpshare".
-            commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/xpshare\":");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/xpshare [help | ?]");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/xpshare <level> <player>");
-            return true;
+        // Check if there is anyone to share with other than the sender.
+        receivers.remove(commandPlayer);
+
+        if (receivers.isEmpty()) {
+            throw new ArgumentException("There is nobody to share experience levels with!");
         }
-        // Check if the player typed "/xpshare (something)".
-        else if (args.length == 1) {
-            // Check if the player typed "/xpshare help" or "/xpshare ?".
-            if (args[0].equals("help") || args[0].equals("?")) {
-                // Show the player the usage of "/xpshare".
-                commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/xpshare\":");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/xpshare [help | ?]");
-                commandPlayer.sendMessage(ChatColor.GOLD + "/xpshare <level> <player>");
-                return true;
+
+        return new ArrayList<>(receivers);
+    }
+
+    /**
+     * Completes the players to share levels with.
+     *
+     * @param sender The sender of the command.
+     * @param prefix What the sender has typed so far.
+     *
+     * @return The party and radius targets that start with the prefix, then the completions of a
+     *         list of player names.
+     */
+    private static List<String> completeReceivers(CommandSender sender, String prefix) {
+        List<String> completions = new ArrayList<>();
+
+        for (String target : new String[] {PARTY, RADIUS}) {
+            if (target.startsWith(prefix.toLowerCase(Locale.ROOT))) {
+                completions.add(target);
             }
+        }
 
-            // The player typed an invalid subcommand.
-            commandPlayer.sendMessage(ChatColor.RED + "Unknown subcommand! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpshare [help | ?]");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpshare <level> <player>");
-            return true;
+        completions.addAll(Arguments.playerListNames().complete(sender, prefix));
+        return completions;
+    }
+
+    /**
+     * Splits experience levels from the player running the command evenly between the receiving
+     * players. The levels are worth the exact experience points the sender drops by giving them
+     * up, including their progress towards their next level, and those points are what's split.
+     * Any points that can't be split evenly stay with the sender. Every balance is checked before
+     * any points move, all on the main thread, so either every receiver gets their share or nobody
+     * does.
+     *
+     * @param context The sender of the command, the levels to give, and the receiving players.
+     */
+    private static void share(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+        int level = context.get(0);
+        List<Player> receivers = context.get(1);
+        int receiverCount = receivers.size();
+        String receiverNames = receiverCount == 1 ? receivers.get(0).getName() :
+                receiverCount + " players";
+
+        // Check if the player has enough experience levels to give to the receiving players.
+        if (commandPlayer.getLevel() < level) {
+            commandPlayer.sendMessage(ChatColor.RED + "You do not have enough experience " +
+                    "levels to give to " + receiverNames + "!");
+            return;
         }
-        // Check if the player typed "/xpshare (something) (something)".
-        else if (args.length == 2) {
-            // Try to get a numbered experience level from the first command parameter.
-            int level;
 
-            try {
-                level = Integer.parseInt(args[0]);
-            }
-            // The experience level given was not a number.
-            catch (NumberFormatException e) {
-                commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive integer " +
-                        "level!");
-                return true;
-            }
+        // Work out the points the levels are worth and each receiver's share of them.
+        long senderPoints = ExperienceTable.getTotalPoints(commandPlayer);
+        int levelLeft = Math.min(commandPlayer.getLevel() - level, ExperienceTable.MAX_LEVEL);
+        long share = (senderPoints - ExperienceTable.getPointsForLevel(levelLeft)) / receiverCount;
 
-            // Check if the player provided a positive integer level.
-            if (level < 1) {
-                commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive integer " +
-                        "level!");
-                return true;
-            }
+        if (share <= 0) {
+            commandPlayer.sendMessage(ChatColor.RED + "You cannot split " + level + " experience " +
+                    "levels between " + receiverNames + "!");
+            return;
+        }
 
-            // Get the receiving player from the second command parameter.
-            Player receiver = Bukkit.getServer().getPlayer(args[1]);
+        // Work out every receiver's new total, and check if they can all hold their share.
+        long[] receiverPoints = new long[receiverCount];
 
-            // Check if the receiving player is on the server.
-            if (receiver == null) {
-                commandPlayer.sendMessage(ChatColor.RED + "The player " + args[1] + " is not on " +
-                        "this server!");
-                return true;
-            }
+        for (int i = 0; i < receiverCount; i++) {
+            receiverPoints[i] = ExperienceTable.getTotalPoints(receivers.get(i)) + share;
 
-            // Check if the player has enough experience levels to give to the receiving player.
-            if (commandPlayer.getLevel() < level) {
-                commandPlayer.sendMessage(ChatColor.RED + "You do not have enough experience " +
-                        "levels to give to " + receiver.getName() + "!");
-                return true;
+            if (receiverPoints[i] > ExperienceTable.getMaxPoints()) {
+                commandPlayer.sendMessage(ChatColor.RED + receivers.get(i).getName() + " can't " +
+                        "hold that many more experience levels!");
+                return;
             }
-
-            // Transfer the experience levels from the player to the receiving player.
-            commandPlayer.setLevel(commandPlayer.getLevel() - level);
-            receiver.setLevel(receiver.getLevel() + level);
-            commandPlayer.sendMessage(ChatColor.GOLD + "You have given " + level + " experience " +
-                    "levels to " + receiver.getName() + ".");
-            receiver.sendMessage(ChatColor.GOLD + "You have received " + level + " experience " +
-                    "levels from " + commandPlayer.getName() + ".");
-            return true;
         }
-        // The player typed more than 2 arguments to the command.
-        else {
-            // The player gave too many arguments.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many arguments! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpshare [help | ?]");
-            commandPlayer.sendMessage(ChatColor.RED + "/xpshare <level> <player>");
-            return true;
+
+        // Transfer the experience points from the player to the receiving players.
+        ExperienceTable.setTotalPoints(commandPlayer, senderPoints - share * receiverCount);
+
+        for (int i = 0; i < receiverCount; i++) {
+            Player receiver = receivers.get(i);
+            ExperienceTable.setTotalPoints(receiver, receiverPoints[i]);
+            receiver.sendMessage(ChatColor.GOLD + "You have received " + share + " experience " +
+                    "points from " + commandPlayer.getName() + ".");
         }
+
+        commandPlayer.sendMessage(ChatColor.GOLD + "You have given " + (receiverCount == 1 ?
+                share + " experience points to " + receiverNames :
+                share + " experience points to each of " + receiverNames) + ".");
     }
 }
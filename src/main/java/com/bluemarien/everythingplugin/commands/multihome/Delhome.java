@@ -1,14 +1,13 @@
 package com.bluemarien.everythingplugin.commands.multihome;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
-import com.bluemarien.everythingplugin.backend.MultihomeDatabase;
-
-import net.milkbowl.vault.permission.Permission;
+import com.bluemarien.everythingplugin.commands.Argument;
+import com.bluemarien.everythingplugin.commands.Arguments;
+import com.bluemarien.everythingplugin.commands.CommandContext;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
 
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
@@ -17,76 +16,43 @@ import org.bukkit.entity.Player;
  * home label.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Delhome implements CommandExecutor {
+public class Delhome extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
-     *
-     * @return True if a valid command, otherwise false.
+     * Registers the delhome command's subcommands.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-
-        // Check if the command being run is "/delhome".
-        if (!label.equals("delhome")) {
-            // The command was not handled properly.
-            return false;
-        }
-
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
-
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
-        MultihomeDatabase multihomeDB = EverythingPlugin.getMultihomeDatabase();
-
-        // Check if the player has permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.multihome")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
-        }
+    public Delhome() {
+        super("delhome", "everythingplugin.multihome", true);
+
+        // "/delhome <home name>" deletes the home. The home name is completed from the names that
+        // start with what the player has typed so far.
+        register(Subcommand.root()
+                .argument(Argument.required("home name", Arguments.string())
+                        .completes((sender, prefix) -> EverythingPlugin.getMultihomeDatabase()
+                                .completeHomes(((Player) sender).getUniqueId(), prefix)))
+                .executes(Delhome::deleteHome));
+    }
 
-        // Check if the player typed "/delhome".
-        if (args.length == 0) {
-            commandPlayer.sendMessage(ChatColor.RED + "Too few parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/delhome <home name>");
-            return true;
+    /**
+     * Deletes one of the homes of the player running the command.
+     *
+     * @param context The sender of the command and the name of the home.
+     */
+    private static void deleteHome(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+        String homeName = context.get(0);
+
+        // Check if the home exists in the database.
+        if (!EverythingPlugin.getMultihomeDatabase().removeHome(commandPlayer.getUniqueId(),
+                homeName)) {
+            commandPlayer.sendMessage(ChatColor.RED + "The home " + homeName + " does not exist!");
+            return;
         }
-        // Check if the player typed "/delhome (something)".
-        else if (args.length == 1) {
-            // Check if the home exists in the database.
-            if (!multihomeDB.removeHome(commandPlayer.getUniqueId().toString(), args[0])) {
-                commandPlayer.sendMessage(ChatColor.RED + "The home " + args[0] + " does not " +
-                        "exist!");
-                return true;
-            }
 
-            // The home was successfully deleted from the multihome database.
-            commandPlayer.sendMessage(ChatColor.GOLD + "The home " + args[0] + " was successfully" +
-                    " deleted.");
-            return true;
-        }
-        // The player typed more than 1 argument to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/delhome <home name>");
-            return true;
-        }
+        // The home was successfully deleted from the multihome database.
+        commandPlayer.sendMessage(ChatColor.GOLD + "The home " + homeName + " was successfully " +
+                "deleted.");
     }
 }
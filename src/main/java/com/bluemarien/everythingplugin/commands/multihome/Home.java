@@ -2,14 +2,14 @@ package com.bluemarien.everythingplugin.commands.multihome;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
 import com.bluemarien.everythingplugin.backend.MultihomeDatabase;
-
-import net.milkbowl.vault.permission.Permission;
+import com.bluemarien.everythingplugin.commands.Argument;
+import com.bluemarien.everythingplugin.commands.Arguments;
+import com.bluemarien.everythingplugin.commands.CommandContext;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
@@ -19,92 +19,70 @@ import org.bukkit.entity.Player;
  * home location if the home name is provided.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Home implements CommandExecutor {
+public class Home extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
-     *
-     * @return True if a valid command, otherwise false.
+     * Registers the home command's subcommands.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-
-        // Check if the command being run is "/home".
-        if (!label.equals("home")) {
-            // The command was not handled properly.
-            return false;
-        }
+    public Home() {
+        super("home", "everythingplugin.multihome", true);
 
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
+        // "/home [home name]" teleports the player to the home, or their default home. The home
+        // name is completed from the names that start with what the player has typed so far.
+        register(Subcommand.root()
+                .argument(Argument.optional("home name", Arguments.string())
+                        .completes((sender, prefix) -> EverythingPlugin.getMultihomeDatabase()
+                                .completeHomes(((Player) sender).getUniqueId(), prefix)))
+                .rateLimited("home")
+                .executes(Home::home));
+    }
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
+    /**
+     * Teleports the player running the command to one of their homes.
+     *
+     * @param context The sender of the command and the name of the home, if any.
+     */
+    private static void home(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
         MultihomeDatabase multihomeDB = EverythingPlugin.getMultihomeDatabase();
+        String homeName = context.getOrDefault(0, "[default]");
+        boolean isDefault = !context.has(0);
 
-        // Check if the player has permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.multihome")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
-        }
-
-        // Check if the player typed "/home".
-        if (args.length == 0) {
-            // Get the default home location of the player from the multihome database.
-            Location defaultHome = multihomeDB.getHome(commandPlayer.getUniqueId().toString(),
-                    "[default]");
+        // Get the home location of the player from the multihome database.
+        Location home = multihomeDB.getHome(commandPlayer.getUniqueId(), homeName);
 
-            // Check if the home exists in the multihome database.
-            if (defaultHome == null) {
+        // Check if the home exists in the multihome database.
+        if (home == null) {
+            if (isDefault) {
                 commandPlayer.sendMessage(ChatColor.RED + "Your default home does not exist!");
                 commandPlayer.sendMessage(ChatColor.RED + "Use \"/sethome\" to set a default home" +
                         ".");
-                return true;
             }
-
-            // Teleport the player to their default home location.
-            commandPlayer.teleport(defaultHome);
-            commandPlayer.sendMessage(ChatColor.GOLD + "Teleported to your default home.");
-            return true;
-        }
-        // Check if the player typed "/home (something)".
-        else if (args.length == 1) {
-            // Get the specific home for the player from the multihome database.
-            Location home = multihomeDB.getHome(commandPlayer.getUniqueId().toString(), args[0]);
-
-            // Check if the home exists in the multihome database.
-            if (home == null) {
-                commandPlayer.sendMessage(ChatColor.RED + "The home " + args[0] + " doesn't " +
+            else {
+                commandPlayer.sendMessage(ChatColor.RED + "The home " + homeName + " doesn't " +
                         "exist!");
-                return true;
             }
 
-            // Teleport the player to the home location.
-            commandPlayer.teleport(home);
-            commandPlayer.sendMessage(ChatColor.GOLD + "Teleported to " + args[0] + ".");
-            return true;
-        }
-        // The player typed more than 1 argument to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/home [home name]");
-            return true;
+            context.refundRateLimit();
+            return;
         }
+
+        // Teleport the player to the home location once it's loaded.
+        String destination = isDefault ? "your default home" : homeName;
+
+        EverythingPlugin.getTeleportPipeline().teleport(commandPlayer, home)
+                .thenAccept(teleported -> {
+                    if (teleported) {
+                        multihomeDB.recordHomeUse(commandPlayer.getUniqueId(), homeName);
+                        commandPlayer.sendMessage(ChatColor.GOLD + "Teleported to " +
+                                destination + ".");
+                    }
+                    else if (commandPlayer.isOnline()) {
+                        commandPlayer.sendMessage(ChatColor.RED + "Couldn't teleport to " +
+                                destination + "!");
+                    }
+                });
     }
 }
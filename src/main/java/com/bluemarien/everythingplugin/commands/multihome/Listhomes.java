@@ -1,16 +1,13 @@
 package com.bluemarien.everythingplugin.commands.multihome;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
-import com.bluemarien.everythingplugin.backend.MultihomeDatabase;
+import com.bluemarien.everythingplugin.commands.CommandContext;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
 
 import java.util.Set;
 
-import net.milkbowl.vault.permission.Permission;
-
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
@@ -19,73 +16,41 @@ import org.bukkit.entity.Player;
  * player.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Listhomes implements CommandExecutor {
+public class Listhomes extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
-     *
-     * @return True if a valid command, otherwise false.
+     * Registers the listhomes command's subcommands.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-
-        // Check if the command being run is "/listhomes".
-        if (!label.equals("listhomes")) {
-            // The command was not handled properly.
-            return false;
-        }
-
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
+    public Listhomes() {
+        super("listhomes", "everythingplugin.multihome", true);
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
-        MultihomeDatabase multihomeDB = EverythingPlugin.getMultihomeDatabase();
+        // "/listhomes" lists the player's homes.
+        register(Subcommand.root().executes(Listhomes::listHomes));
+    }
 
-        // Check if the player has permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.multihome")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
+    /**
+     * Lists the home names of the player running the command.
+     *
+     * @param context The sender of the command.
+     */
+    private static void listHomes(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+
+        // Get the list of all the player's home names from the multihome database and prepare the
+        // home list message.
+        Set<String> homeNames = EverythingPlugin.getMultihomeDatabase()
+                .listHomes(commandPlayer.getUniqueId());
+        StringBuilder homeMessage = new StringBuilder(ChatColor.GOLD + "Homes: ");
+
+        // Put all the home names in the home list message.
+        for (String home : homeNames) {
+            homeMessage.append(home);
+            homeMessage.append(" ");
         }
 
-        // Check if the player typed "/listhomes".
-        if (args.length == 0) {
-            // Get the list of all the player's home names from the multihome database and prepare
-            // the home list message.
-            Set<String> homeNames = multihomeDB.listHomes(commandPlayer.getUniqueId().toString());
-            StringBuilder homeMessage = new StringBuilder(ChatColor.GOLD + "Homes: ");
-
-            // Put all the home names in the home list message.
-            for (String home : homeNames) {
-                homeMessage.append(home);
-                homeMessage.append(" ");
-            }
-
-            // Send the player the home list.
-            commandPlayer.sendMessage(ChatColor.GOLD + homeMessage.toString());
-            return true;
-        }
-        // The player gave an argument to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/listhomes");
-            return true;
-        }
+        // Send the player the home list.
+        commandPlayer.sendMessage(homeMessage.toString());
     }
 }
@@ -1,14 +1,13 @@
 package com.bluemarien.everythingplugin.commands.multihome;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
-import com.bluemarien.everythingplugin.backend.MultihomeDatabase;
-
-import net.milkbowl.vault.permission.Permission;
+import com.bluemarien.everythingplugin.commands.Argument;
+import com.bluemarien.everythingplugin.commands.Arguments;
+import com.bluemarien.everythingplugin.commands.CommandContext;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
 
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
@@ -18,74 +17,42 @@ import org.bukkit.entity.Player;
  * homes set can be teleported to using the home command.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Sethome implements CommandExecutor {
+public class Sethome extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
-     *
-     * @return True if a valid command, otherwise false.
+     * Registers the sethome command's subcommands.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    public Sethome() {
+        super("sethome", "everythingplugin.multihome", true);
 
-        // Check if the command being run is "/sethome".
-        if (!label.equals("sethome")) {
-            // The command was not handled properly.
-            return false;
-        }
-
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
+        // "/sethome [home name]" sets the home, or the default home, to the player's location.
+        register(Subcommand.root()
+                .argument(Argument.optional("home name", Arguments.string()))
+                .executes(Sethome::setHome));
+    }
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
-        MultihomeDatabase multihomeDB = EverythingPlugin.getMultihomeDatabase();
+    /**
+     * Sets one of the homes of the player running the command to their location.
+     *
+     * @param context The sender of the command and the name of the home, if any.
+     */
+    private static void setHome(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
 
-        // Check if the player has permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.multihome")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
-        }
+        // Insert the new home for the player into the multihome database.
+        EverythingPlugin.getMultihomeDatabase().insertHome(commandPlayer.getUniqueId(),
+                commandPlayer.getLocation(), context.getOrDefault(0, "[default]"));
 
-        // Check if the player typed "/sethome".
-        if (args.length == 0) {
-            // Insert a new default home into the multihome database for the player.
-            multihomeDB.insertHome(commandPlayer.getUniqueId().toString(),
-                    commandPlayer.getLocation(), "[default]");
+        // Check if the player set their default home.
+        if (!context.has(0)) {
             commandPlayer.sendMessage(ChatColor.GOLD + "Your default home has been created. Type " +
                     "\"/home\" to teleport here.");
-            return true;
-        }
-        // Check if the player typed "/sethome (something)".
-        else if (args.length == 1) {
-            // Insert the new home for the player into the multihome database.
-            multihomeDB.insertHome(commandPlayer.getUniqueId().toString(),
-                    commandPlayer.getLocation(), args[0]);
-            commandPlayer.sendMessage(ChatColor.GOLD + "The home " + args[0] + " has been created" +
-                    ".");
-            return true;
         }
-        // The player typed more than 1 argument to the command.
         else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/sethome [home name]");
-            return true;
+            commandPlayer.sendMessage(ChatColor.GOLD + "The home " + context.get(0) + " has been " +
+                    "created.");
         }
     }
 }
@@ -1,14 +1,13 @@
 package com.bluemarien.everythingplugin.commands.warp;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
-import com.bluemarien.everythingplugin.backend.WarpDatabase;
-
-import net.milkbowl.vault.permission.Permission;
+import com.bluemarien.everythingplugin.commands.Argument;
+import com.bluemarien.everythingplugin.commands.Arguments;
+import com.bluemarien.everythingplugin.commands.CommandContext;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
 
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
@@ -17,76 +16,41 @@ import org.bukkit.entity.Player;
  * database.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Delwarp implements CommandExecutor {
+public class Delwarp extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
-     *
-     * @return True if a valid command, otherwise false.
+     * Registers the delwarp command's subcommands.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-
-        // Check if the command being run is "/delwarp".
-        if (!label.equals("delwarp")) {
-            // The command was not handled properly.
-            return false;
-        }
-
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
-
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
-        WarpDatabase warpDB = EverythingPlugin.getWarpDatabase();
-
-        // Check if the player has permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.warp")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
-        }
+    public Delwarp() {
+        super("delwarp", "everythingplugin.warp", true);
+
+        // "/delwarp <warp name>" deletes the warp. The warp name is completed from the names that
+        // start with what the player has typed so far.
+        register(Subcommand.root()
+                .argument(Argument.required("warp name", Arguments.string())
+                        .completes((sender, prefix) ->
+                                EverythingPlugin.getWarpDatabase().completeWarps(prefix)))
+                .executes(Delwarp::deleteWarp));
+    }
 
-        // Check if the player typed "/delwarp".
-        if (args.length == 0) {
-            // Show the player the usage of "/delwarp".
-            commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/delwarp\":");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/delwarp [warp name]");
-            return true;
+    /**
+     * Deletes a warp from the warp database.
+     *
+     * @param context The sender of the command and the name of the warp.
+     */
+    private static void deleteWarp(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+        String warpName = context.get(0);
+
+        // Check if the warp exists in the warp database.
+        if (!EverythingPlugin.getWarpDatabase().removeWarp(warpName)) {
+            commandPlayer.sendMessage(ChatColor.RED + "The warp " + warpName + " does not exist!");
+            return;
         }
-        // Check if the player typed "/delwarp (something)".
-        else if (args.length == 1) {
-            // Check if the warp exists in the warp database.
-            if (!warpDB.removeWarp(args[0])) {
-                commandPlayer.sendMessage(ChatColor.RED + "The warp " + args[0] + " does not " +
-                        "exist!");
-                return true;
-            }
 
-            // The warp was successfully removed from the warp database.
-            commandPlayer.sendMessage(ChatColor.GOLD + "Warp " + args[0] + " deleted.");
-            return true;
-        }
-        // The player typed more than 1 argument to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/delwarp [warp name]");
-            return true;
-        }
+        // The warp was successfully deleted from the warp database.
+        commandPlayer.sendMessage(ChatColor.GOLD + "Warp " + warpName + " deleted.");
     }
 }
@@ -2,90 +2,160 @@ package com.bluemarien.everythingplugin.commands.warp;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
 import com.bluemarien.everythingplugin.backend.WarpDatabase;
+import com.bluemarien.everythingplugin.commands.Argument;
+import com.bluemarien.everythingplugin.commands.Arguments;
+import com.bluemarien.everythingplugin.commands.CommandContext;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
 
-import java.util.Set;
-
-import net.milkbowl.vault.permission.Permission;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
 /**
- * This class represents the listwarps command. This command will list all warps in the warp
- * database for the player.
+ * This class represents the listwarps command. This command will list the warps in the warp
+ * database for the player, sorted and split into pages, optionally filtered to the warps starting
+ * with a given prefix. Rendered pages are cached until a warp is added or removed.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Listwarps implements CommandExecutor {
+public class Listwarps extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
+     * Declare the number of warp names on each page and the number of filters whose pages are
+     * cached.
+     */
+    private static final int WARPS_PER_PAGE = 20;
+    private static final int CACHED_FILTERS = 32;
+
+    /**
+     * Declare the rendered pages cached for the most recently used filters and the version of the
+     * set of warps they were rendered from.
+     */
+    private final Map<String, String[][]> cachedPages =
+            new LinkedHashMap<String, String[][]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String[][]> eldest) {
+                    return size() > CACHED_FILTERS;
+                }
+            };
+    private int cachedWarpSetVersion = -1;
+
+    /**
+     * Registers the listwarps command's subcommands.
+     */
+    public Listwarps() {
+        super("listwarps", "everythingplugin.warp", true);
+
+        // "/listwarps [page] [filter]" shows a page of the warps. "/listwarps <filter>" shows the
+        // first page of the warps starting with the filter.
+        register(Subcommand.root()
+                .argument(Argument.optional("page", Arguments.string()))
+                .argument(Argument.optional("filter", Arguments.string()))
+                .executes(this::listWarps));
+    }
+
+    /**
+     * Shows the player running the command a page of the warps.
      *
-     * @return True if a valid command, otherwise false.
+     * @param context The sender of the command and the page and filter, if any.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    private void listWarps(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
+
+        // Read the page and filter. "/listwarps <filter>" shows the first page of the filter.
+        int page = 1;
+        String filter = context.getOrDefault(1, "");
+
+        if (context.has(0)) {
+            // Try to get a page number from the first command parameter.
+            try {
+                page = Integer.parseInt(context.get(0));
+            }
+            // The first parameter isn't a page number, so it must be the filter.
+            catch (NumberFormatException e) {
+                if (context.has(1)) {
+                    commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive " +
+                            "integer page!");
+                    return;
+                }
 
-        // Check if the command being run is "/listwarps".
-        if (!label.equals("listwarps")) {
-            // The command was not handled properly.
-            return false;
+                filter = context.get(0);
+            }
         }
 
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
+        // Check if the player provided a positive integer page.
+        if (page < 1) {
+            commandPlayer.sendMessage(ChatColor.RED + "You must provide a positive integer page!");
+            return;
         }
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
-        WarpDatabase warpDB = EverythingPlugin.getWarpDatabase();
+        // Check if the page is past the end of the warp list.
+        String[][] pages = getPages(EverythingPlugin.getWarpDatabase(), filter);
 
-        // Check if the player has permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.warp")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
+        if (page > pages.length) {
+            commandPlayer.sendMessage(ChatColor.RED + "The warp list only has " + pages.length +
+                    " page(s)!");
+            return;
         }
 
-        // Check if the player typed "/listwarps".
-        if (args.length == 0) {
-            // Get the list of all the warp names from the warp database and prepare the warp
-            // list message.
-            Set<String> warpNames = warpDB.listWarps();
-            StringBuilder warpMessage = new StringBuilder(ChatColor.GOLD + "Warps: ");
-
-            // Put all the warp names in the warp list message.
-            for (String warp : warpNames) {
-                warpMessage.append(warp);
-                warpMessage.append(" ");
-            }
+        // Send the player the page of the warp list.
+        commandPlayer.sendMessage(pages[page - 1]);
+    }
 
-            // Send the player the warp list.
-            commandPlayer.sendMessage(ChatColor.GOLD + warpMessage.toString());
-            return true;
+    /**
+     * Gets the rendered pages of the warp list for a filter, rendering them first if they aren't
+     * cached. Every cached page is thrown away once a warp is added or removed.
+     *
+     * @param warpDB The warp database to list the warps of.
+     * @param filter The prefix the listed warp names must start with, ignoring case.
+     *
+     * @return The rendered pages of the warp list. There is always at least one page.
+     */
+    private String[][] getPages(WarpDatabase warpDB, String filter) {
+        // Throw away the cached pages if the set of warps changed since they were rendered.
+        if (cachedWarpSetVersion != warpDB.getWarpSetVersion()) {
+            cachedPages.clear();
+            cachedWarpSetVersion = warpDB.getWarpSetVersion();
         }
-        // The player gave an argument to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/listwarps");
-            return true;
+
+        String lowerFilter = filter.toLowerCase(Locale.ROOT);
+        return cachedPages.computeIfAbsent(lowerFilter, key ->
+                renderPages(warpDB.completeWarps(key), key));
+    }
+
+    /**
+     * Renders the pages of the warp list. Each page is a header line followed by a line of warp
+     * names.
+     *
+     * @param warpNames The sorted warp names to list.
+     * @param filter    The filter the warp names were found with, or an empty string.
+     *
+     * @return The rendered pages of the warp list. There is always at least one page.
+     */
+    private static String[][] renderPages(List<String> warpNames, String filter) {
+        int pageCount = Math.max(1, (warpNames.size() + WARPS_PER_PAGE - 1) / WARPS_PER_PAGE);
+        String[][] pages = new String[pageCount][];
+        String title = filter.isEmpty() ? "Warps" : "Warps starting with \"" + filter + "\"";
+
+        // Render each page with its slice of the warp names.
+        for (int page = 0; page < pageCount; page++) {
+            List<String> pageNames = warpNames.subList(page * WARPS_PER_PAGE,
+                    Math.min((page + 1) * WARPS_PER_PAGE, warpNames.size()));
+
+            pages[page] = new String[] {
+                    ChatColor.GOLD + title + " (page " + (page + 1) + "/" + pageCount + "):",
+                    ChatColor.GOLD + (pageNames.isEmpty() ? "There are no warps to list!" :
+                            String.join(", ", pageNames))
+            };
         }
+
+        return pages;
     }
 }
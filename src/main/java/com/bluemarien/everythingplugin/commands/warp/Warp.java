@@ -2,14 +2,14 @@ package com.bluemarien.everythingplugin.commands.warp;
 
 import com.bluemarien.everythingplugin.EverythingPlugin;
 import com.bluemarien.everythingplugin.backend.WarpDatabase;
-
-import net.milkbowl.vault.permission.Permission;
+import com.bluemarien.everythingplugin.commands.Argument;
+import com.bluemarien.everythingplugin.commands.Arguments;
+import com.bluemarien.everythingplugin.commands.CommandContext;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
-import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 
@@ -18,80 +18,60 @@ import org.bukkit.entity.Player;
  * location stored in the warp database.
  *
  * @author Anthony Farina
- * @version 2020.08.05
+ * @version 2026.10.17
  */
-public class Warp implements CommandExecutor {
+public class Warp extends DispatchCommand {
 
     /**
-     * Executes the given command, returning its success.
-     *
-     * If false is returned, then the "usage" plugin.yml entry for this command (if defined) will be
-     * sent to the player.
-     *
-     * @param sender  Source of the command
-     * @param command Command which was executed
-     * @param label   Alias of the command which was used
-     * @param args    Passed command arguments
-     *
-     * @return True if a valid command, otherwise false
+     * Registers the warp command's subcommands.
      */
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    public Warp() {
+        super("warp", "everythingplugin.warp", true);
 
-        // Check if the command being run is "/warp".
-        if (!label.equals("warp")) {
-            // The command was not handled properly.
-            return false;
-        }
-
-        // Check if the entity running the command is a player.
-        if (!(sender instanceof Player)) {
-            // The entity running the command is not a player.
-            sender.sendMessage(ChatColor.RED + "You must be a player to use that command!");
-            return true;
-        }
+        // "/warp <warp name>" teleports the player to the warp. The warp name is completed from
+        // the names that start with what the player has typed so far.
+        register(Subcommand.root()
+                .argument(Argument.required("warp name", Arguments.string())
+                        .completes((sender, prefix) ->
+                                EverythingPlugin.getWarpDatabase().completeWarps(prefix)))
+                .rateLimited("warp")
+                .executes(Warp::warp));
+    }
 
-        // The entity running the command is a player.
-        Player commandPlayer = (Player) sender;
-        Permission perms = EverythingPlugin.getPermissions();
+    /**
+     * Teleports the player running the command to a warp.
+     *
+     * @param context The sender of the command and the name of the warp.
+     */
+    private static void warp(CommandContext context) {
+        Player commandPlayer = context.getPlayer();
         WarpDatabase warpDB = EverythingPlugin.getWarpDatabase();
+        String warpName = context.get(0);
 
-        // Check if the player has permission to run this command.
-        if (!perms.has(commandPlayer, "everythingplugin.warp")) {
-            commandPlayer.sendMessage(ChatColor.RED + "You do not have permission to run that " +
-                    "command.");
-            return true;
-        }
+        // Get the location of the warp from the warp database.
+        Location warp = warpDB.getWarp(warpName);
 
-        // Check if the player typed "/warp".
-        if (args.length == 0) {
-            // Show the player the usage of "/warp".
-            commandPlayer.sendMessage(ChatColor.GOLD + "Usage of \"/warp\":");
-            commandPlayer.sendMessage(ChatColor.GOLD + "/warp [warp name]");
-            return true;
+        // Check if the warp exists in the warp database.
+        if (warp == null) {
+            commandPlayer.sendMessage(ChatColor.RED + "The warp " + warpName + " does not exist!");
+            context.refundRateLimit();
+            return;
         }
-        // Check if the player typed "/warp (something)".
-        else if (args.length == 1) {
-            // Get the location of the warp from the warp database.
-            Location warp = warpDB.getWarp(args[0]);
 
-            // Check if the warp exists in the warp database.
-            if (warp == null) {
-                commandPlayer.sendMessage(ChatColor.RED + "The warp " + args[0] + " does not " +
-                        "exist!");
-                return true;
-            }
-
-            // Teleport the player to the warp location.
-            commandPlayer.teleport(warp);
-            commandPlayer.sendMessage(ChatColor.GOLD + "Warped to " + args[0] + ".");
-            return true;
-        }
-        // The player typed more than 1 argument to the command.
-        else {
-            // The player gave too many parameters.
-            commandPlayer.sendMessage(ChatColor.RED + "Too many parameters! Proper syntax is:");
-            commandPlayer.sendMessage(ChatColor.RED + "/warp [warp name]");
-            return true;
-        }
+        // Teleport the player to the warp location once it's loaded.
+        EverythingPlugin.getTeleportPipeline().teleport(commandPlayer, warp)
+                .thenAccept(teleported -> {
+                    if (teleported) {
+                        // Count the teleport towards the warp's usage, which also keeps the most
+                        // used warps loaded.
+                        warpDB.recordWarpUse(warpName);
+                        EverythingPlugin.getWarpChunkPinner().recordTeleport(warp);
+                        commandPlayer.sendMessage(ChatColor.GOLD + "Warped to " + warpName + ".");
+                    }
+                    else if (commandPlayer.isOnline()) {
+                        commandPlayer.sendMessage(ChatColor.RED + "Couldn't warp to " + warpName +
+                                "!");
+                    }
+                });
     }
 }
@@ -0,0 +1,104 @@
+package com.bluemarien.everythingplugin.commands.warp;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+import com.bluemarien.everythingplugin.backend.MultihomeDatabase;
+import com.bluemarien.everythingplugin.backend.UsageStats;
+import com.bluemarien.everythingplugin.commands.Argument;
+import com.bluemarien.everythingplugin.commands.Arguments;
+import com.bluemarien.everythingplugin.commands.DispatchCommand;
+import com.bluemarien.everythingplugin.commands.Subcommand;
+
+import java.util.List;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+
+/**
+ * This class represents the warpstats command. This command shows the most used warps and a
+ * summary of how much homes are used, so unused warps can be found and pruned.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class Warpstats extends DispatchCommand {
+
+    /**
+     * Declare the number of warps shown by default and the most warps that can be shown at once.
+     */
+    private static final int DEFAULT_TOP = 10;
+    private static final int MAX_TOP = 100;
+
+    /**
+     * Registers the warpstats command's subcommands.
+     */
+    public Warpstats() {
+        super("warpstats", "everythingplugin.warpstats", false);
+
+        // "/warpstats" shows the most used warps.
+        register(Subcommand.root()
+                .executes(context -> sendWarpStats(context.getSender(), DEFAULT_TOP)));
+
+        // "/warpstats top <number of warps>" shows the given number of most used warps.
+        register(Subcommand.literal("top")
+                .argument(Argument.required("number of warps", Arguments.positiveInt("You must " +
+                        "provide a positive integer number of warps!")))
+                .executes(context -> sendWarpStats(context.getSender(),
+                        Math.min(context.<Integer>get(0), MAX_TOP))));
+    }
+
+    /**
+     * Sends the most used warps and a summary of home usage.
+     *
+     * @param sender The sender to show the usage statistics to.
+     * @param top    The number of warps to show.
+     */
+    private static void sendWarpStats(CommandSender sender, int top) {
+        List<UsageStats.Entry> topWarps = EverythingPlugin.getWarpDatabase().getTopWarps(top);
+        long now = System.currentTimeMillis();
+
+        // Show the most used warps.
+        sender.sendMessage(ChatColor.GOLD + "Top " + top + " warps by teleports:");
+
+        if (topWarps.isEmpty()) {
+            sender.sendMessage(ChatColor.GOLD + "No warps have been used yet!");
+        }
+
+        for (int i = 0; i < topWarps.size(); i++) {
+            UsageStats.Entry warp = topWarps.get(i);
+            sender.sendMessage(ChatColor.GOLD + "" + (i + 1) + ". " + warp.getName() + " - " +
+                    warp.getUses() + " teleport(s), last used " +
+                    formatAge(now - warp.getLastUsed()) + " ago");
+        }
+
+        // Show a summary of home usage.
+        MultihomeDatabase multihomeDB = EverythingPlugin.getMultihomeDatabase();
+        sender.sendMessage(ChatColor.GOLD + "Homes: " + multihomeDB.getHomeTeleportCount() +
+                " teleport(s) to " + multihomeDB.getUsedHomeCount() + " home(s) of " +
+                multihomeDB.getHomeUserCount() + " player(s).");
+    }
+
+    /**
+     * Formats an amount of time as the largest whole unit of time it contains.
+     *
+     * @param millis The amount of time, in milliseconds.
+     *
+     * @return The formatted amount of time, such as "5 minute(s)".
+     */
+    private static String formatAge(long millis) {
+        long seconds = Math.max(0, millis / 1000);
+
+        if (seconds < 60) {
+            return seconds + " second(s)";
+        }
+        else if (seconds < 60 * 60) {
+            return seconds / 60 + " minute(s)";
+        }
+        else if (seconds < 24 * 60 * 60) {
+            return seconds / (60 * 60) + " hour(s)";
+        }
+        else {
+            return seconds / (24 * 60 * 60) + " day(s)";
+        }
+    }
+}
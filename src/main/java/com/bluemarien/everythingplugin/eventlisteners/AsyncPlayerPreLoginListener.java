@@ -0,0 +1,75 @@
+package com.bluemarien.everythingplugin.eventlisteners;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+
+/**
+ * This class contains event listeners that listen for the AsyncPlayerPreLoginEvent. These run on
+ * the server's asynchronous login thread, so they may wait on the database without stalling the
+ * main server thread.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class AsyncPlayerPreLoginListener implements Listener {
+
+    /**
+     * This listener registers the logging in player in the xp bank database if they aren't already
+     * in it, and preloads their xp bank balance so it's ready by the time they join. It runs after
+     * every other plugin has decided whether to allow the login.
+     *
+     * @param event The AsyncPlayerPreLoginEvent to listen for when registering a player in the xp
+     *              bank database.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void preloadXpBankPlayer(AsyncPlayerPreLoginEvent event) {
+        // Check if the player is allowed to log in.
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        // Register the player and preload their balance.
+        EverythingPlugin.getXpBankDatabase().preloadPlayer(event.getUniqueId(), event.getName());
+    }
+
+    /**
+     * This listener reads the logging in player's homes from their file in the multihome
+     * directory, so their homes are ready by the time they join. It runs after every other plugin
+     * has decided whether to allow the login.
+     *
+     * @param event The AsyncPlayerPreLoginEvent to listen for when reading a player's homes.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void preloadPlayerHomes(AsyncPlayerPreLoginEvent event) {
+        // Check if the player is allowed to log in.
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        // Read the player's homes.
+        EverythingPlugin.getMultihomeDatabase().preloadPlayer(event.getUniqueId());
+    }
+
+    /**
+     * This listener remembers the UUID of the logging in player by their name, so gifts can be
+     * mailed to them while they're offline. It runs after every other plugin has decided whether
+     * to allow the login.
+     *
+     * @param event The AsyncPlayerPreLoginEvent to listen for when remembering a player's name.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void recordPlayerName(AsyncPlayerPreLoginEvent event) {
+        // Check if the player is allowed to log in.
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        // Remember the player's name.
+        EverythingPlugin.getGiftMailbox().recordPlayerName(event.getUniqueId(), event.getName());
+    }
+}
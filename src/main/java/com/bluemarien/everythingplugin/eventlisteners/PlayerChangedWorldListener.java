@@ -0,0 +1,29 @@
+package com.bluemarien.everythingplugin.eventlisteners;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+
+
+/**
+ * This class contains event listeners that listen for the PlayerChangedWorldEvent.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class PlayerChangedWorldListener implements Listener {
+
+    /**
+     * This listener drops the cached permission results of a player who changed worlds, since
+     * permission plugins can grant different permissions in each world.
+     *
+     * @param event The PlayerChangedWorldEvent to listen for when dropping a player's cached
+     *              permission results.
+     */
+    @EventHandler
+    public void invalidatePlayerPermissions(PlayerChangedWorldEvent event) {
+        EverythingPlugin.getPermissionCache().invalidate(event.getPlayer().getUniqueId());
+    }
+}
@@ -1,9 +1,7 @@
 package com.bluemarien.everythingplugin.eventlisteners;
 
-import com.bluemarien.everythingplugin.backend.XpBankDatabase;
 import com.bluemarien.everythingplugin.EverythingPlugin;
 
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
@@ -13,27 +11,65 @@ import org.bukkit.event.player.PlayerJoinEvent;
  * This class contains event listeners that listen for the PlayerJoinEvent.
  *
  * @author Anthony Farina
- * @version 2020.07.21
+ * @version 2026.10.17
  */
 public class PlayerJoinListener implements Listener {
 
     /**
-     * This listener checks if a player is not already in the xp bank database. If they aren't then
-     * they will be automatically added to the database.
+     * This listener picks up the joining player's xp bank balance, which was preloaded into the xp
+     * bank cache while they logged in. If nothing was preloaded, such as for players who were
+     * already online when the plugin was enabled, the balance is loaded on the storage thread
+     * instead.
      *
-     * @param event The PlayerJoinEvent to listen for when adding a new player to the xp bank
-     *              database.
+     * @param event The PlayerJoinEvent to listen for when loading a player's xp bank balance.
      */
     @EventHandler
-    public void registerNewXpBankPlayer(PlayerJoinEvent event) {
-        // Declare and initialize references to the xp bank database and the joining player.
-        XpBankDatabase xpBankDB = EverythingPlugin.getXpBankDatabase();
-        Player player = event.getPlayer();
-
-        // Check if the joining player is not in the xp bank database.
-        if (!xpBankDB.isInXpBankDatabase(player)) {
-            // Add the joining player to the xp bank database.
-            xpBankDB.insertPlayer(player);
-        }
+    public void loadXpBankPlayer(PlayerJoinEvent event) {
+        EverythingPlugin.getXpBankDatabase().loadPlayer(event.getPlayer());
+    }
+
+    /**
+     * This listener picks up the joining player's homes, which were read from their file while
+     * they logged in, and keeps them in memory while the player is online.
+     *
+     * @param event The PlayerJoinEvent to listen for when loading a player's homes.
+     */
+    @EventHandler
+    public void loadPlayerHomes(PlayerJoinEvent event) {
+        EverythingPlugin.getMultihomeDatabase().loadPlayer(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * This listener drops any cached permission results of the joining player, so their
+     * permissions are looked up fresh.
+     *
+     * @param event The PlayerJoinEvent to listen for when dropping a player's cached permission
+     *              results.
+     */
+    @EventHandler
+    public void invalidatePlayerPermissions(PlayerJoinEvent event) {
+        EverythingPlugin.getPermissionCache().invalidate(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * This listener adds the joining player to the online player index, so commands can find them
+     * by name.
+     *
+     * @param event The PlayerJoinEvent to listen for when indexing a player.
+     */
+    @EventHandler
+    public void indexPlayer(PlayerJoinEvent event) {
+        EverythingPlugin.getOnlinePlayerIndex().add(event.getPlayer());
+    }
+
+    /**
+     * This listener delivers the gifts waiting in the joining player's mailbox. Players with no
+     * gifts waiting don't touch the database.
+     *
+     * @param event The PlayerJoinEvent to listen for when delivering a player's gifts.
+     */
+    @EventHandler
+    public void deliverGifts(PlayerJoinEvent event) {
+        EverythingPlugin.getGiftMailbox().deliver(event.getPlayer());
     }
 }
@@ -0,0 +1,48 @@
+package com.bluemarien.everythingplugin.eventlisteners;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerLoginEvent;
+
+
+/**
+ * This class contains event listeners that listen for the PlayerLoginEvent.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class PlayerLoginListener implements Listener {
+
+    /**
+     * This listener discards the xp bank balance preloaded for a player if their login is denied,
+     * since they will never join to pick it up.
+     *
+     * @param event The PlayerLoginEvent to listen for when a player's login is denied.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void discardDeniedXpBankPlayer(PlayerLoginEvent event) {
+        // Check if the player's login was denied.
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            EverythingPlugin.getXpBankDatabase().discardPreloadedPlayer(
+                    event.getPlayer().getUniqueId());
+        }
+    }
+
+    /**
+     * This listener discards the homes read for a player if their login is denied, since they will
+     * never join to pick them up.
+     *
+     * @param event The PlayerLoginEvent to listen for when a player's login is denied.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void discardDeniedPlayerHomes(PlayerLoginEvent event) {
+        // Check if the player's login was denied.
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            EverythingPlugin.getMultihomeDatabase().discardPreloadedPlayer(
+                    event.getPlayer().getUniqueId());
+        }
+    }
+}
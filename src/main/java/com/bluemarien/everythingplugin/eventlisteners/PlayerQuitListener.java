@@ -0,0 +1,60 @@
+package com.bluemarien.everythingplugin.eventlisteners;
+
+import com.bluemarien.everythingplugin.EverythingPlugin;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+
+/**
+ * This class contains event listeners that listen for the PlayerQuitEvent.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class PlayerQuitListener implements Listener {
+
+    /**
+     * This listener unloads the leaving player's balance from the xp bank cache. The balance is
+     * dropped after any unsaved changes to it have been written to the xp bank database.
+     *
+     * @param event The PlayerQuitEvent to listen for when unloading a player's xp bank balance.
+     */
+    @EventHandler
+    public void unloadXpBankPlayer(PlayerQuitEvent event) {
+        EverythingPlugin.getXpBankDatabase().unloadPlayer(event.getPlayer());
+    }
+
+    /**
+     * This listener lets the leaving player's homes be dropped from memory once any unsaved
+     * changes to them have been saved.
+     *
+     * @param event The PlayerQuitEvent to listen for when unloading a player's homes.
+     */
+    @EventHandler
+    public void unloadPlayerHomes(PlayerQuitEvent event) {
+        EverythingPlugin.getMultihomeDatabase().unloadPlayer(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * This listener drops the cached permission results of the leaving player.
+     *
+     * @param event The PlayerQuitEvent to listen for when dropping a player's cached permission
+     *              results.
+     */
+    @EventHandler
+    public void invalidatePlayerPermissions(PlayerQuitEvent event) {
+        EverythingPlugin.getPermissionCache().invalidate(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * This listener removes the leaving player from the online player index.
+     *
+     * @param event The PlayerQuitEvent to listen for when removing a player from the index.
+     */
+    @EventHandler
+    public void unindexPlayer(PlayerQuitEvent event) {
+        EverythingPlugin.getOnlinePlayerIndex().remove(event.getPlayer());
+    }
+}
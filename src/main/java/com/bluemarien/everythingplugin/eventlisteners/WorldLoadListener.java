@@ -0,0 +1,30 @@
+package com.bluemarien.everythingplugin.eventlisteners;
+
+import com.bluemarien.everythingplugin.backend.StoredLocation;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+
+
+/**
+ * This class contains event listeners that listen for the WorldLoadEvent.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class WorldLoadListener implements Listener {
+
+    /**
+     * This listener makes the stored warps and homes look up their world again once a world is
+     * loaded, so locations in the new world find it.
+     *
+     * @param event The WorldLoadEvent to listen for when refreshing the worlds of stored
+     *              locations.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void refreshStoredWorlds(WorldLoadEvent event) {
+        StoredLocation.refreshWorlds();
+    }
+}
@@ -0,0 +1,30 @@
+package com.bluemarien.everythingplugin.eventlisteners;
+
+import com.bluemarien.everythingplugin.backend.StoredLocation;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+
+/**
+ * This class contains event listeners that listen for the WorldUnloadEvent.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class WorldUnloadListener implements Listener {
+
+    /**
+     * This listener makes the stored warps and homes look up their world again once a world is
+     * unloaded, so locations in the unloaded world stop using it.
+     *
+     * @param event The WorldUnloadEvent to listen for when refreshing the worlds of stored
+     *              locations.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void refreshStoredWorlds(WorldUnloadEvent event) {
+        StoredLocation.refreshWorlds();
+    }
+}
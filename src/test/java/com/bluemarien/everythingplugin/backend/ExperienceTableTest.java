@@ -0,0 +1,102 @@
+package com.bluemarien.everythingplugin.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * This class tests the conversions between experience levels and total experience points in
+ * {@link ExperienceTable}.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class ExperienceTableTest {
+
+    /**
+     * Checks the total points of levels in each of the game's three level cost brackets against
+     * the values the game uses.
+     */
+    @Test
+    public void pointsForLevelMatchGame() {
+        assertEquals(0, ExperienceTable.getPointsForLevel(0));
+        assertEquals(7, ExperienceTable.getPointsForLevel(1));
+        assertEquals(160, ExperienceTable.getPointsForLevel(10));
+        assertEquals(352, ExperienceTable.getPointsForLevel(16));
+        assertEquals(394, ExperienceTable.getPointsForLevel(17));
+        assertEquals(1395, ExperienceTable.getPointsForLevel(30));
+        assertEquals(1507, ExperienceTable.getPointsForLevel(31));
+        assertEquals(1628, ExperienceTable.getPointsForLevel(32));
+        assertEquals(5345, ExperienceTable.getPointsForLevel(50));
+        assertEquals(30970, ExperienceTable.getPointsForLevel(100));
+    }
+
+    /**
+     * Checks the points needed to finish a level on both sides of each bracket boundary.
+     */
+    @Test
+    public void pointsToNextLevelFollowBrackets() {
+        assertEquals(7, ExperienceTable.getPointsToNextLevel(0));
+        assertEquals(37, ExperienceTable.getPointsToNextLevel(15));
+        assertEquals(42, ExperienceTable.getPointsToNextLevel(16));
+        assertEquals(112, ExperienceTable.getPointsToNextLevel(30));
+        assertEquals(121, ExperienceTable.getPointsToNextLevel(31));
+    }
+
+    /**
+     * Checks that past level 31 the table agrees with the game's closed formula for the total
+     * points of high levels, which the xp bank migration uses past the end of the table.
+     */
+    @Test
+    public void highLevelsMatchFormula() {
+        for (int level = 32; level <= ExperienceTable.MAX_LEVEL; level += 97) {
+            long expected = (9L * level * level - 325L * level + 4440) / 2;
+            assertEquals("level " + level, expected, ExperienceTable.getPointsForLevel(level));
+        }
+    }
+
+    /**
+     * Checks that every level converts to points and back to the same level, and that one point
+     * less is still the level before.
+     */
+    @Test
+    public void levelForPointsRoundTrips() {
+        for (int level = 0; level <= ExperienceTable.MAX_LEVEL; level++) {
+            long points = ExperienceTable.getPointsForLevel(level);
+            assertEquals(level, ExperienceTable.getLevelForPoints(points));
+
+            if (level > 0) {
+                assertEquals(level - 1, ExperienceTable.getLevelForPoints(points - 1));
+            }
+        }
+    }
+
+    /**
+     * Checks that points outside the table are clamped to level 0 and the highest level.
+     */
+    @Test
+    public void levelForPointsClamps() {
+        assertEquals(0, ExperienceTable.getLevelForPoints(-1));
+        assertEquals(0, ExperienceTable.getLevelForPoints(6));
+        assertEquals(ExperienceTable.MAX_LEVEL,
+                ExperienceTable.getLevelForPoints(ExperienceTable.getMaxPoints()));
+        assertEquals(ExperienceTable.MAX_LEVEL, ExperienceTable.getLevelForPoints(Long.MAX_VALUE));
+    }
+
+    /**
+     * Checks that the highest number of points fits in the total experience the server keeps for
+     * a player, and that the next level wouldn't.
+     */
+    @Test
+    public void maxPointsFitInServerTotal() {
+        long nextLevelPoints = ExperienceTable.getMaxPoints() +
+                ExperienceTable.getPointsToNextLevel(ExperienceTable.MAX_LEVEL);
+
+        assertEquals(ExperienceTable.getPointsForLevel(ExperienceTable.MAX_LEVEL),
+                ExperienceTable.getMaxPoints());
+        assertTrue(ExperienceTable.getMaxPoints() <= Integer.MAX_VALUE);
+        assertTrue(nextLevelPoints > Integer.MAX_VALUE);
+    }
+}
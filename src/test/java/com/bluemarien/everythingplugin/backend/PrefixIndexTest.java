@@ -0,0 +1,56 @@
+package com.bluemarien.everythingplugin.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+/**
+ * This class tests the prefix searches of the {@link PrefixIndex}.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class PrefixIndexTest {
+
+    /**
+     * Checks that a prefix finds exactly the names starting with it, ignoring case, and that the
+     * names come back as they were added.
+     */
+    @Test
+    public void completeMatchesPrefixIgnoringCase() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("Spawn");
+        index.add("shop");
+        index.add("Shops2");
+        index.add("farm");
+
+        assertEquals(Arrays.asList("shop", "Shops2"), index.complete("SHO"));
+        assertEquals(Arrays.asList("shop", "Shops2", "Spawn"), index.complete("s"));
+        assertEquals(Arrays.asList("farm", "shop", "Shops2", "Spawn"), index.complete(""));
+        assertTrue(index.complete("shopx").isEmpty());
+        assertTrue(index.complete("z").isEmpty());
+    }
+
+    /**
+     * Checks that names only differing by case are kept apart and removed one at a time.
+     */
+    @Test
+    public void namesDifferingByCaseAreKeptApart() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("Home");
+        index.add("home");
+        index.add("home");
+
+        assertEquals(2, index.complete("home").size());
+
+        index.remove("Home");
+        assertEquals(Arrays.asList("home"), index.complete("HOME"));
+
+        index.clear();
+        assertTrue(index.complete("").isEmpty());
+    }
+}
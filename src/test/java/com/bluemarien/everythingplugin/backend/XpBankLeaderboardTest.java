@@ -0,0 +1,179 @@
+package com.bluemarien.everythingplugin.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+
+/**
+ * This class tests the ranking, paging, and updating of the {@link XpBankLeaderboard}.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class XpBankLeaderboardTest {
+
+    /**
+     * Declare the players ranked in the tests, in UUID order.
+     */
+    private static final UUID FIRST = new UUID(0, 1);
+    private static final UUID SECOND = new UUID(0, 2);
+    private static final UUID THIRD = new UUID(0, 3);
+
+    /**
+     * Checks that an empty leaderboard has a single empty page and ranks nobody.
+     */
+    @Test
+    public void emptyLeaderboard() {
+        XpBankLeaderboard leaderboard = new XpBankLeaderboard();
+
+        assertEquals(0, leaderboard.size());
+        assertEquals(1, leaderboard.getPageCount());
+        assertTrue(leaderboard.getPage(1).isEmpty());
+        assertEquals(0, leaderboard.getRank(FIRST));
+    }
+
+    /**
+     * Checks that players are ranked from the highest balance to the lowest, with tied players
+     * ordered by UUID.
+     */
+    @Test
+    public void ranksByBalanceThenUUID() {
+        XpBankLeaderboard leaderboard = new XpBankLeaderboard();
+        leaderboard.update(THIRD, 50);
+        leaderboard.update(SECOND, 100);
+        leaderboard.update(FIRST, 50);
+
+        assertEquals(2, leaderboard.getRank(FIRST));
+        assertEquals(1, leaderboard.getRank(SECOND));
+        assertEquals(3, leaderboard.getRank(THIRD));
+
+        List<XpBankLeaderboard.Entry> page = leaderboard.getPage(1);
+        assertEquals(3, page.size());
+        assertEquals(SECOND, page.get(0).getPlayerUUID());
+        assertEquals(100, page.get(0).getBalance());
+        assertEquals(FIRST, page.get(1).getPlayerUUID());
+        assertEquals(THIRD, page.get(2).getPlayerUUID());
+    }
+
+    /**
+     * Checks that a new balance moves a player's entry and a balance of 0 takes it off the
+     * leaderboard.
+     */
+    @Test
+    public void updateMovesAndRemoves() {
+        XpBankLeaderboard leaderboard = new XpBankLeaderboard();
+        leaderboard.update(FIRST, 10);
+        leaderboard.update(SECOND, 20);
+
+        // Move the first player above the second.
+        leaderboard.update(FIRST, 30);
+        assertEquals(1, leaderboard.getRank(FIRST));
+        assertEquals(2, leaderboard.getRank(SECOND));
+        assertEquals(2, leaderboard.size());
+        assertEquals(30, leaderboard.getPage(1).get(0).getBalance());
+
+        // Take the first player off the leaderboard.
+        leaderboard.update(FIRST, 0);
+        assertEquals(0, leaderboard.getRank(FIRST));
+        assertEquals(1, leaderboard.getRank(SECOND));
+        assertEquals(1, leaderboard.size());
+
+        // Taking a player who isn't ranked off the leaderboard does nothing.
+        leaderboard.update(THIRD, 0);
+        assertEquals(1, leaderboard.size());
+    }
+
+    /**
+     * Checks that the leaderboard is split into full pages with the rest on the last page, and
+     * that pages outside the leaderboard are empty.
+     */
+    @Test
+    public void pagesSplitRanking() {
+        XpBankLeaderboard leaderboard = new XpBankLeaderboard();
+        int players = XpBankLeaderboard.PAGE_SIZE * 2 + 3;
+
+        for (int player = 1; player <= players; player++) {
+            leaderboard.update(new UUID(0, player), player);
+        }
+
+        assertEquals(3, leaderboard.getPageCount());
+        assertEquals(XpBankLeaderboard.PAGE_SIZE, leaderboard.getPage(1).size());
+        assertEquals(XpBankLeaderboard.PAGE_SIZE, leaderboard.getPage(2).size());
+        assertEquals(3, leaderboard.getPage(3).size());
+        assertTrue(leaderboard.getPage(4).isEmpty());
+        assertTrue(leaderboard.getPage(0).isEmpty());
+        assertTrue(leaderboard.getPage(-1).isEmpty());
+
+        // The last page ends with the lowest balance.
+        assertEquals(1, leaderboard.getPage(3).get(2).getBalance());
+        assertEquals(players, leaderboard.getPage(1).get(0).getBalance());
+    }
+
+    /**
+     * Checks a long run of random updates against a ranking sorted from scratch after every few
+     * updates.
+     */
+    @Test
+    public void matchesSortedRanking() {
+        XpBankLeaderboard leaderboard = new XpBankLeaderboard();
+        Map<UUID, Long> balances = new HashMap<>();
+        Random random = new Random(20261017L);
+
+        for (int step = 0; step < 5000; step++) {
+            // Give a random player a random balance, with ties and removals mixed in.
+            UUID playerUUID = new UUID(0, random.nextInt(200));
+            long balance = random.nextInt(4) == 0 ? 0 : random.nextInt(50);
+            leaderboard.update(playerUUID, balance);
+
+            if (balance > 0) {
+                balances.put(playerUUID, balance);
+            }
+            else {
+                balances.remove(playerUUID);
+            }
+
+            if (step % 250 == 0) {
+                assertMatches(balances, leaderboard);
+            }
+        }
+
+        assertMatches(balances, leaderboard);
+    }
+
+    /**
+     * Checks that every rank and page on the leaderboard matches the given balances sorted from
+     * scratch.
+     *
+     * @param balances    The expected balance of every ranked player.
+     * @param leaderboard The leaderboard to check.
+     */
+    private static void assertMatches(Map<UUID, Long> balances, XpBankLeaderboard leaderboard) {
+        // Sort the players the same way the leaderboard ranks them.
+        List<UUID> ranking = new ArrayList<>(balances.keySet());
+        ranking.sort(Comparator.comparing((UUID playerUUID) -> -balances.get(playerUUID))
+                .thenComparing(Comparator.naturalOrder()));
+
+        assertEquals(ranking.size(), leaderboard.size());
+
+        for (int index = 0; index < ranking.size(); index++) {
+            UUID playerUUID = ranking.get(index);
+            int page = index / XpBankLeaderboard.PAGE_SIZE + 1;
+            XpBankLeaderboard.Entry entry =
+                    leaderboard.getPage(page).get(index % XpBankLeaderboard.PAGE_SIZE);
+
+            assertEquals(index + 1, leaderboard.getRank(playerUUID));
+            assertEquals(playerUUID, entry.getPlayerUUID());
+            assertEquals((long) balances.get(playerUUID), entry.getBalance());
+        }
+    }
+}
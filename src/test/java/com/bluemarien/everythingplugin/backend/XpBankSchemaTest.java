@@ -0,0 +1,295 @@
+package com.bluemarien.everythingplugin.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * This class tests the xp bank database's schema migrations in {@link XpBankSchema} against an
+ * in-memory SQLite database laid out the way older versions of this plugin left it.
+ *
+ * @author Anthony Farina
+ * @version 2026.10.17
+ */
+public class XpBankSchemaTest {
+
+    /**
+     * Declare the players stored in the old databases.
+     */
+    private static final UUID STEVE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID ALEX = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID NOTCH = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    /**
+     * Declare the logger the migration logs to and the connection to the test database.
+     */
+    private final Logger logger = Logger.getLogger(XpBankSchemaTest.class.getName());
+    private Connection conn;
+
+    /**
+     * Opens a new, empty in-memory database and quiets the migration's log.
+     *
+     * @throws SQLException If the database can't be opened.
+     */
+    @Before
+    public void openDatabase() throws SQLException {
+        logger.setLevel(Level.OFF);
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    /**
+     * Closes the test database.
+     *
+     * @throws SQLException If the database can't be closed.
+     */
+    @After
+    public void closeDatabase() throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * Checks that a new table is created on the current schema and isn't migrated again.
+     *
+     * @throws SQLException If the database can't be used.
+     */
+    @Test
+    public void newTableIsCurrent() throws SQLException {
+        XpBankSchema.createTable(conn);
+
+        assertEquals(XpBankSchema.SCHEMA_VERSION, XpBankSchema.getSchemaVersion(conn));
+        assertFalse(XpBankSchema.migrate(conn, logger));
+    }
+
+    /**
+     * Checks that a database file without the xp bank table just gets the table.
+     *
+     * @throws SQLException If the database can't be used.
+     */
+    @Test
+    public void missingTableIsCreated() throws SQLException {
+        assertFalse(XpBankSchema.migrate(conn, logger));
+        assertEquals(XpBankSchema.SCHEMA_VERSION, XpBankSchema.getSchemaVersion(conn));
+        assertEquals(0, countRows());
+    }
+
+    /**
+     * Checks that the first databases, keyed by text UUIDs and holding levels, are copied to 16
+     * byte UUIDs with their levels converted to points, skipping rows that aren't UUIDs.
+     *
+     * @throws SQLException If the database can't be used.
+     */
+    @Test
+    public void textUUIDTableIsCopiedAndConverted() throws SQLException {
+        execute("CREATE TABLE " + XpBankSchema.TABLE_NAME + " (UUID text PRIMARY KEY, XP integer)");
+        insertText(STEVE.toString(), 30);
+        insertText(ALEX.toString(), 0);
+        insertText(NOTCH.toString(), 100);
+        insertText("not-a-uuid", 12);
+
+        assertTrue(XpBankSchema.migrate(conn, logger));
+
+        assertEquals(XpBankSchema.SCHEMA_VERSION, XpBankSchema.getSchemaVersion(conn));
+        assertEquals(3, countRows());
+        assertEquals(Long.valueOf(1395), readPoints(STEVE));
+        assertEquals(Long.valueOf(0), readPoints(ALEX));
+        assertEquals(Long.valueOf(30970), readPoints(NOTCH));
+        assertFalse(tableExists(XpBankSchema.TABLE_NAME + "Old"));
+    }
+
+    /**
+     * Checks that a schema version 1 database, keyed by 16 byte UUIDs but holding levels, has its
+     * levels converted to points in place.
+     *
+     * @throws SQLException If the database can't be used.
+     */
+    @Test
+    public void levelBalancesAreConverted() throws SQLException {
+        XpBankSchema.createTable(conn);
+        execute("PRAGMA user_version = 1");
+        insertLevels(STEVE, 16);
+        insertLevels(ALEX, 0);
+
+        assertTrue(XpBankSchema.migrate(conn, logger));
+
+        assertEquals(Long.valueOf(352), readPoints(STEVE));
+        assertEquals(Long.valueOf(0), readPoints(ALEX));
+        assertEquals(XpBankSchema.SCHEMA_VERSION, XpBankSchema.getSchemaVersion(conn));
+    }
+
+    /**
+     * Checks that a migrated database isn't converted a second time.
+     *
+     * @throws SQLException If the database can't be used.
+     */
+    @Test
+    public void migrationRunsOnce() throws SQLException {
+        XpBankSchema.createTable(conn);
+        execute("PRAGMA user_version = 1");
+        insertLevels(STEVE, 30);
+
+        assertTrue(XpBankSchema.migrate(conn, logger));
+        assertFalse(XpBankSchema.migrate(conn, logger));
+
+        assertEquals(Long.valueOf(1395), readPoints(STEVE));
+    }
+
+    /**
+     * Checks that a failed migration leaves the old balances and schema version untouched.
+     *
+     * @throws SQLException If the database can't be used.
+     */
+    @Test
+    public void failedMigrationIsRolledBack() throws SQLException {
+        XpBankSchema.createTable(conn);
+        execute("PRAGMA user_version = 1");
+        insertLevels(STEVE, 30);
+
+        // Make every balance update fail partway through the migration.
+        execute("CREATE TRIGGER failUpdate BEFORE UPDATE ON " + XpBankSchema.TABLE_NAME +
+                " BEGIN SELECT RAISE(ABORT, 'test'); END");
+
+        try {
+            XpBankSchema.migrate(conn, logger);
+        }
+        // The migration is expected to fail.
+        catch (SQLException e) {
+            assertEquals(Long.valueOf(30), readPoints(STEVE));
+            assertEquals(1, XpBankSchema.getSchemaVersion(conn));
+            return;
+        }
+
+        throw new AssertionError("The migration should have failed!");
+    }
+
+    /**
+     * Checks the conversion of levels past the end of the experience table, including balances
+     * too large for the xp bank.
+     */
+    @Test
+    public void levelsPastTableUseFormula() {
+        int maxLevel = ExperienceTable.MAX_LEVEL;
+
+        assertEquals(ExperienceTable.getMaxPoints(), XpBankSchema.levelsToPoints(maxLevel));
+        assertEquals(ExperienceTable.getMaxPoints() + 9L * maxLevel - 158,
+                XpBankSchema.levelsToPoints(maxLevel + 1L));
+        assertEquals(Long.MAX_VALUE, XpBankSchema.levelsToPoints(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, XpBankSchema.levelsToPoints(4_000_000_000L));
+    }
+
+    /**
+     * Runs a statement on the test database.
+     *
+     * @param sql The statement to run.
+     *
+     * @throws SQLException If the statement fails.
+     */
+    private void execute(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Adds a player to a table keyed by text UUIDs.
+     *
+     * @param playerUUID The player's UUID as text.
+     * @param levels     The player's balance in levels.
+     *
+     * @throws SQLException If the player can't be added.
+     */
+    private void insertText(String playerUUID, long levels) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO " +
+                XpBankSchema.TABLE_NAME + "(UUID,XP) VALUES(?,?)")) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setLong(2, levels);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds a player to a table keyed by 16 byte UUIDs.
+     *
+     * @param playerUUID The player's UUID.
+     * @param levels     The player's balance in levels.
+     *
+     * @throws SQLException If the player can't be added.
+     */
+    private void insertLevels(UUID playerUUID, long levels) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO " +
+                XpBankSchema.TABLE_NAME + "(UUID,XP) VALUES(?,?)")) {
+            pstmt.setBytes(1, XpBankDatabase.toBytes(playerUUID));
+            pstmt.setLong(2, levels);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads a player's balance from the xp bank table.
+     *
+     * @param playerUUID The player's UUID.
+     *
+     * @return The player's balance, or null if they aren't in the table.
+     *
+     * @throws SQLException If the balance can't be read.
+     */
+    private Long readPoints(UUID playerUUID) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT XP FROM " +
+                XpBankSchema.TABLE_NAME + " WHERE UUID = ?")) {
+            pstmt.setBytes(1, XpBankDatabase.toBytes(playerUUID));
+
+            try (ResultSet result = pstmt.executeQuery()) {
+                return result.next() ? result.getLong(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Counts the players in the xp bank table.
+     *
+     * @return The number of players in the table.
+     *
+     * @throws SQLException If the players can't be counted.
+     */
+    private int countRows() throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet result = stmt.executeQuery("SELECT COUNT(*) FROM " +
+                     XpBankSchema.TABLE_NAME)) {
+            return result.getInt(1);
+        }
+    }
+
+    /**
+     * Checks if a table exists in the test database.
+     *
+     * @param table The name of the table.
+     *
+     * @return True if the table exists, false otherwise.
+     *
+     * @throws SQLException If the tables can't be listed.
+     */
+    private boolean tableExists(String table) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM sqlite_master " +
+                "WHERE type = 'table' AND name = ?")) {
+            pstmt.setString(1, table);
+
+            try (ResultSet result = pstmt.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+}